@@ -0,0 +1,329 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.build;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the bundled FreeMarker templates into Java renderers. Runs at generate-sources as a single-file source
+ * program, so it needs nothing compiled beforehand:
+ * <pre>
+ * java TemplateCompiler.java &lt;templates dir&gt; &lt;TemplateModel.java&gt; &lt;output dir&gt; &lt;package&gt;
+ * </pre>
+ * A template is compiled when it is plain text and <code>${name}</code> interpolations of String fields of
+ * TemplateModel. Anything else, such as directives, built-ins, defaults or keys without a field, leaves the
+ * template to FreeMarker at runtime.
+ */
+public final class TemplateCompiler {
+
+    /**
+     * Template file extension.
+     */
+    private static final String EXTENSION = ".ftl";
+
+    /**
+     * Class name of the generated registry.
+     */
+    private static final String REGISTRY = "CompiledTemplates";
+
+    /**
+     * String fields of TemplateModel.
+     */
+    private static final Pattern STRING_FIELD = Pattern.compile("private\\s+String\\s+(\\w+)\\s*;");
+
+    /**
+     * A plain variable name.
+     */
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    /**
+     * FreeMarker syntax other than <code>${...}</code>.
+     */
+    private static final String[] DIRECTIVES = {"<#", "</#", "<@", "</@", "#{", "[#", "[/#", "[@", "[/@"};
+
+    /**
+     * Not instantiated.
+     */
+    private TemplateCompiler() {
+    }
+
+    /**
+     * Compiles the templates.
+     *
+     * @param args templates directory, TemplateModel source, output directory, package
+     * @throws IOException when a file cannot be read or written
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 4) {
+            throw new IllegalArgumentException(
+                    "Usage: TemplateCompiler <templates dir> <TemplateModel.java> <output dir> <package>");
+        }
+        final Path templates = Paths.get(args[0]);
+        final Set<String> fields = stringFields(Paths.get(args[1]));
+        final String packageName = args[3];
+        final Path output = Paths.get(args[2]).resolve(packageName.replace('.', '/'));
+        Files.createDirectories(output);
+        final Map<String, String> compiled = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(templates, "*" + EXTENSION)) {
+            for (Path file : files) {
+                final String name = file.getFileName().toString();
+                final String source = Files.readString(file, StandardCharsets.UTF_8);
+                final List<String> parts = new ArrayList<>();
+                final String unsupported = parse(source, fields, parts);
+                if (unsupported != null) {
+                    System.out.printf("[TemplateCompiler] %s left to FreeMarker: %s%n", name, unsupported);
+                    continue;
+                }
+                final String className = className(name);
+                write(output.resolve(className + ".java"), renderer(packageName, name, className, parts));
+                compiled.put(name, className);
+            }
+        }
+        write(output.resolve(REGISTRY + ".java"), registry(packageName, compiled));
+        removeStale(output, compiled.values());
+        System.out.printf("[TemplateCompiler] compiled %d templates into %s%n", compiled.size(), output);
+    }
+
+    /**
+     * Reads the String field names of TemplateModel.
+     *
+     * @param modelSource TemplateModel.java
+     * @return field names
+     * @throws IOException when the file cannot be read
+     */
+    private static Set<String> stringFields(final Path modelSource) throws IOException {
+        final Set<String> fields = new LinkedHashSet<>();
+        final Matcher matcher = STRING_FIELD.matcher(Files.readString(modelSource, StandardCharsets.UTF_8));
+        while (matcher.find()) {
+            fields.add(matcher.group(1));
+        }
+        return fields;
+    }
+
+    /**
+     * Splits a template into literal text and variables. Even positions hold text, odd positions variable names.
+     *
+     * @param source template source
+     * @param fields String fields of TemplateModel
+     * @param parts receives the parts
+     * @return why the template cannot be compiled, or null
+     */
+    private static String parse(final String source, final Set<String> fields, final List<String> parts) {
+        for (String directive : DIRECTIVES) {
+            if (source.contains(directive)) {
+                return "uses " + directive;
+            }
+        }
+        int position = 0;
+        int start = source.indexOf("${");
+        while (start >= 0) {
+            final int end = source.indexOf('}', start);
+            if (end < 0) {
+                return "unterminated interpolation";
+            }
+            final String expression = source.substring(start + 2, end);
+            if (!IDENTIFIER.matcher(expression).matches()) {
+                return "expression ${" + expression + "}";
+            }
+            if (!fields.contains(expression)) {
+                return "no TemplateModel field for ${" + expression + "}";
+            }
+            parts.add(source.substring(position, start));
+            parts.add(expression);
+            position = end + 1;
+            start = source.indexOf("${", position);
+        }
+        parts.add(source.substring(position));
+        return null;
+    }
+
+    /**
+     * Renderer class name for a template, e.g. GsEventRsvpTemplate for gs_event_rsvp.ftl.
+     *
+     * @param templateName template file name
+     * @return class name
+     */
+    private static String className(final String templateName) {
+        final StringBuilder name = new StringBuilder();
+        final String baseName = templateName.substring(0, templateName.length() - EXTENSION.length());
+        for (String word : baseName.split("[^A-Za-z0-9]+")) {
+            if (!word.isEmpty()) {
+                name.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+            }
+        }
+        return name.append("Template").toString();
+    }
+
+    /**
+     * Generates a renderer.
+     *
+     * @param packageName package
+     * @param templateName template file name
+     * @param className class name
+     * @param parts literal text and variables
+     * @return Java source
+     */
+    private static String renderer(final String packageName,
+                                   final String templateName,
+                                   final String className,
+                                   final List<String> parts) {
+        final StringBuilder java = new StringBuilder();
+        java.append("// Generated by TemplateCompiler from ").append(templateName).append(". Do not edit.\n");
+        java.append("package ").append(packageName).append(";\n\n");
+        java.append("import com.starfireaviation.slack.model.TemplateModel;\n");
+        java.append("import com.starfireaviation.slack.util.ReusableStringWriter;\n\n");
+        java.append("/**\n * Renders ").append(templateName).append(".\n */\n");
+        java.append("public final class ").append(className).append(" implements CompiledTemplate {\n\n");
+        java.append("    /**\n     * {@inheritDoc}\n     */\n");
+        java.append("    @Override\n");
+        java.append("    public boolean render(final TemplateModel model, final ReusableStringWriter out) {\n");
+        final Set<String> variables = new LinkedHashSet<>();
+        for (int i = 1; i < parts.size(); i += 2) {
+            variables.add(parts.get(i));
+        }
+        for (String variable : variables) {
+            java.append("        final String ").append(variable).append(" = model.get")
+                    .append(Character.toUpperCase(variable.charAt(0))).append(variable.substring(1)).append("();\n");
+            java.append("        if (").append(variable).append(" == null) {\n");
+            java.append("            return false;\n");
+            java.append("        }\n");
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            final String part = parts.get(i);
+            if (i % 2 == 1) {
+                java.append("        out.write(").append(part).append(");\n");
+            } else if (!part.isEmpty()) {
+                java.append("        out.write(").append(literal(part)).append(");\n");
+            }
+        }
+        java.append("        return true;\n");
+        java.append("    }\n");
+        java.append("}\n");
+        return java.toString();
+    }
+
+    /**
+     * Generates the registry of compiled templates.
+     *
+     * @param packageName package
+     * @param compiled class names keyed by template file name
+     * @return Java source
+     */
+    private static String registry(final String packageName, final Map<String, String> compiled) {
+        final StringBuilder java = new StringBuilder();
+        java.append("// Generated by TemplateCompiler. Do not edit.\n");
+        java.append("package ").append(packageName).append(";\n\n");
+        java.append("import java.util.Map;\n\n");
+        java.append("/**\n * Bundled templates compiled at build time, keyed by template name.\n */\n");
+        java.append("public final class CompiledTemplates {\n\n");
+        java.append("    /**\n     * Renderers keyed by template name.\n     */\n");
+        java.append("    private static final Map<String, CompiledTemplate> TEMPLATES = Map.ofEntries(");
+        String separator = "\n";
+        for (Map.Entry<String, String> entry : compiled.entrySet()) {
+            java.append(separator).append("            Map.entry(").append(literal(entry.getKey()))
+                    .append(", new ").append(entry.getValue()).append("())");
+            separator = ",\n";
+        }
+        java.append(");\n\n");
+        java.append("    /**\n     * Not instantiated.\n     */\n");
+        java.append("    private CompiledTemplates() {\n    }\n\n");
+        java.append("    /**\n     * Renderers keyed by template name.\n     *\n     * @return renderers\n     */\n");
+        java.append("    public static Map<String, CompiledTemplate> all() {\n");
+        java.append("        return TEMPLATES;\n");
+        java.append("    }\n");
+        java.append("}\n");
+        return java.toString();
+    }
+
+    /**
+     * Java string literal for text.
+     *
+     * @param text text
+     * @return literal
+     */
+    private static String literal(final String text) {
+        final StringBuilder literal = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c == '\n') {
+                literal.append("\\n");
+            } else if (c == '\r') {
+                literal.append("\\r");
+            } else if (c == '\t') {
+                literal.append("\\t");
+            } else if (c < ' ' || c > '~') {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    /**
+     * Deletes renderers generated earlier for templates which were since removed or are now left to FreeMarker,
+     * so a build without <code>clean</code> does not compile them.
+     *
+     * @param output output directory
+     * @param classNames class names of the renderers generated by this run
+     * @throws IOException when the directory cannot be listed or a file cannot be deleted
+     */
+    private static void removeStale(final Path output, final Collection<String> classNames) throws IOException {
+        final Set<String> current = new HashSet<>(classNames);
+        current.add(REGISTRY);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(output, "*.java")) {
+            for (Path file : files) {
+                final String fileName = file.getFileName().toString();
+                final String className = fileName.substring(0, fileName.length() - ".java".length());
+                if (!current.contains(className)) {
+                    Files.delete(file);
+                    System.out.printf("[TemplateCompiler] removed stale renderer %s%n", fileName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a file unless it already has the content, so unchanged renderers are not recompiled.
+     *
+     * @param file file
+     * @param content content
+     * @throws IOException when the file cannot be written
+     */
+    private static void write(final Path file, final String content) throws IOException {
+        if (Files.exists(file) && Files.readString(file, StandardCharsets.UTF_8).equals(content)) {
+            return;
+        }
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.starfireaviation.slack.model.UserResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * ResponseTransport used when no upstream endpoint is configured. User responses are counted and discarded, so
+ * nothing builds up in memory while the service runs without an upstream.
+ */
+@Slf4j
+public class DiscardingResponseTransport implements ResponseTransport {
+
+    /**
+     * User responses discarded.
+     */
+    private final Counter discarded;
+
+    /**
+     * Initializes an instance of <code>DiscardingResponseTransport</code>.
+     *
+     * @param meterRegistry MeterRegistry
+     */
+    public DiscardingResponseTransport(final MeterRegistry meterRegistry) {
+        discarded = meterRegistry.counter("slack.responses.discarded");
+    }
+
+    /**
+     * {@inheritDoc} Required implementation.
+     */
+    @Override
+    public void post(final List<UserResponse> responses) {
+        discarded.increment(responses.size());
+        log.debug("Discarded {} user responses; no upstream URL configured", responses.size());
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * EntityTransport used when no upstream service is configured. Every lookup finds nothing and nothing is kept,
+ * so the service runs without an upstream without building anything up in memory.
+ */
+public class EmptyEntityTransport implements EntityTransport {
+
+    /**
+     * Entities looked up.
+     */
+    private final Counter lookups;
+
+    /**
+     * Initializes an instance of <code>EmptyEntityTransport</code>.
+     *
+     * @param meterRegistry MeterRegistry
+     */
+    public EmptyEntityTransport(final MeterRegistry meterRegistry) {
+        lookups = meterRegistry.counter("slack.loader.unconfigured.lookups");
+    }
+
+    /**
+     * {@inheritDoc} Required implementation.
+     */
+    @Override
+    public <T> Map<Long, T> fetch(final Class<T> type, final Set<Long> ids) {
+        lookups.increment(ids.size());
+        return Map.of();
+    }
+
+}
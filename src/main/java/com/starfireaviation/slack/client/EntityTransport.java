@@ -0,0 +1,39 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transport used to look up users, events, questions and quizzes in the upstream GroundSchool service.
+ */
+public interface EntityTransport {
+
+    /**
+     * Fetches several entities of one type in a single call.
+     *
+     * @param type entity type
+     * @param ids entity IDs
+     * @param <T> entity type
+     * @return entities keyed by ID; IDs which do not exist are absent
+     * @throws IOException when the call fails
+     */
+    <T> Map<Long, T> fetch(Class<T> type, Set<Long> ids) throws IOException;
+
+}
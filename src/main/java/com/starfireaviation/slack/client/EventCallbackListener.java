@@ -0,0 +1,36 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Receives Events API payloads, whether posted over HTTP or pushed over a Socket Mode connection.
+ */
+public interface EventCallbackListener {
+
+    /**
+     * Handles an Events API payload. Implementations must not block; the caller acknowledges the payload to
+     * Slack only when it is accepted.
+     *
+     * @param organization organization name
+     * @param payload Events API payload
+     * @return true if the payload was accepted, false if Slack should redeliver it later
+     */
+    boolean onEventCallback(String organization, JsonNode payload);
+
+}
@@ -0,0 +1,64 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.starfireaviation.slack.model.UserResponse;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * ResponseTransport posting batches to the upstream GroundSchool service over HTTP.
+ */
+public class HttpResponseTransport implements ResponseTransport {
+
+    /**
+     * RestTemplate.
+     */
+    private final RestTemplate restTemplate;
+
+    /**
+     * Upstream endpoint.
+     */
+    private final String url;
+
+    /**
+     * Initializes an instance of <code>HttpResponseTransport</code>.
+     *
+     * @param template RestTemplate
+     * @param upstreamUrl upstream endpoint accepting a JSON array of responses
+     */
+    public HttpResponseTransport(final RestTemplate template, final String upstreamUrl) {
+        restTemplate = template;
+        url = upstreamUrl;
+    }
+
+    /**
+     * {@inheritDoc} Required implementation.
+     */
+    @Override
+    public void post(final List<UserResponse> responses) throws IOException {
+        try {
+            restTemplate.postForEntity(url, responses, Void.class);
+        } catch (RestClientException e) {
+            throw new IOException("Unable to post user responses to " + url, e);
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.starfireaviation.slack.model.OutboundMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers rendered messages to Slack.
+ */
+public interface MessageDelivery {
+
+    /**
+     * Delivers a message to its organization's workspace.
+     *
+     * @param session OrganizationSession
+     * @param message OutboundMessage
+     * @return future completed with the Slack timestamp of the posted message, or null if the delivery does not
+     *         know it, once Slack accepted the message; or exceptionally with a DeliveryException
+     */
+    CompletableFuture<String> deliver(OrganizationSession session, OutboundMessage message);
+
+}
@@ -0,0 +1,270 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.DirectorySnapshot;
+import com.ullink.slack.simpleslackapi.SlackChannel;
+import com.ullink.slack.simpleslackapi.SlackSession;
+import com.ullink.slack.simpleslackapi.SlackUser;
+import com.ullink.slack.simpleslackapi.impl.SlackSessionFactory;
+import com.ullink.slack.simpleslackapi.listeners.SlackMessagePostedListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Slack session for a single organization's workspace.
+ */
+@Slf4j
+public class OrganizationSession {
+
+    /**
+     * Organization name.
+     */
+    private final String name;
+
+    /**
+     * Organization settings.
+     */
+    private final ApplicationProperties.Organization settings;
+
+    /**
+     * Listener registered with the session once connected.
+     */
+    private volatile SlackMessagePostedListener listener;
+
+    /**
+     * Resolved user and channel IDs.
+     */
+    private final SlackDirectory directory;
+
+    /**
+     * Web API client names are looked up with instead of the RTM session, set when inbound events do not
+     * arrive over RTM.
+     */
+    private volatile SlackWebApiClient webApiClient;
+
+    /**
+     * SlackSession.
+     */
+    private SlackSession slackSession;
+
+    /**
+     * Initializes an instance of <code>OrganizationSession</code>.
+     *
+     * @param organization organization name
+     * @param organizationSettings organization settings
+     */
+    public OrganizationSession(final String organization,
+                               final ApplicationProperties.Organization organizationSettings) {
+        this(organization, organizationSettings, false);
+    }
+
+    /**
+     * Initializes an instance of <code>OrganizationSession</code>.
+     *
+     * @param organization organization name
+     * @param organizationSettings organization settings
+     * @param compactDirectory whether to keep a compact directory filled as lookups miss
+     */
+    public OrganizationSession(final String organization,
+                               final ApplicationProperties.Organization organizationSettings,
+                               final boolean compactDirectory) {
+        name = organization;
+        settings = organizationSettings;
+        directory = new SlackDirectory(compactDirectory);
+    }
+
+    /**
+     * Organization name.
+     *
+     * @return organization name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Organization settings.
+     *
+     * @return organization settings
+     */
+    public ApplicationProperties.Organization getSettings() {
+        return settings;
+    }
+
+    /**
+     * Resolved user and channel IDs of the organization's workspace.
+     *
+     * @return SlackDirectory
+     */
+    public SlackDirectory getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sets the listener registered with the session once connected.
+     *
+     * @param messageListener SlackMessagePostedListener
+     */
+    public void setListener(final SlackMessagePostedListener messageListener) {
+        listener = messageListener;
+    }
+
+    /**
+     * Sets the Web API client user names are looked up with. Once set, resolving a name never opens the RTM
+     * session.
+     *
+     * @param client SlackWebApiClient
+     */
+    public void setWebApiClient(final SlackWebApiClient client) {
+        webApiClient = client;
+    }
+
+    /**
+     * Returns the connected SlackSession, connecting it first if needed.
+     *
+     * @return SlackSession
+     */
+    public synchronized SlackSession getSession() {
+        if (slackSession == null) {
+            slackSession = SlackSessionFactory.createWebSocketSlackSession(settings.getToken());
+        }
+        if (!slackSession.isConnected()) {
+            try {
+                slackSession.connect();
+                if (listener != null) {
+                    slackSession.addMessagePostedListener(listener);
+                }
+                if (!directory.isCompact()) {
+                    directory.reconcile(readDirectory(slackSession));
+                }
+            } catch (IOException e) {
+                log.warn("Unable to connect to Slack for organization {}", name, e);
+            }
+        }
+        return slackSession;
+    }
+
+    /**
+     * Resolves a Slack user ID to the user's name, through the directory first and then users.info when a
+     * Web API client is set, or the RTM session otherwise.
+     *
+     * @param userId Slack user ID
+     * @return user name, or the ID itself if the user is not known
+     */
+    public String resolveUserName(final String userId) {
+        final String userName = directory.findUserName(userId);
+        if (userName != null) {
+            return userName;
+        }
+        final SlackWebApiClient client = webApiClient;
+        if (client != null) {
+            return lookUpUserName(client, userId);
+        }
+        final SlackUser slackUser = getSession().findUserById(userId);
+        if (slackUser == null) {
+            return userId;
+        }
+        directory.rememberUser(slackUser.getUserName(), userId);
+        return slackUser.getUserName();
+    }
+
+    /**
+     * Looks a user's name up through users.info, remembering it in the directory.
+     *
+     * @param client SlackWebApiClient
+     * @param userId Slack user ID
+     * @return user name, or the ID itself if the lookup fails
+     */
+    private String lookUpUserName(final SlackWebApiClient client, final String userId) {
+        final String userName;
+        try {
+            userName = client.findUserName(settings.getToken(), userId).join();
+        } catch (CompletionException e) {
+            log.warn("Unable to look up Slack user {} for organization {}", userId, name, e.getCause());
+            return userId;
+        }
+        if (userName == null || userName.isEmpty()) {
+            return userId;
+        }
+        directory.rememberUser(userName, userId);
+        return userName;
+    }
+
+    /**
+     * Reads the workspace's users and channels from the connected session, without connecting it.
+     *
+     * @return DirectorySnapshot, or null if the session is not connected
+     */
+    public synchronized DirectorySnapshot readDirectory() {
+        if (slackSession == null || !slackSession.isConnected()) {
+            return null;
+        }
+        return readDirectory(slackSession);
+    }
+
+    /**
+     * Reads the users and channels a session has loaded.
+     *
+     * @param session connected SlackSession
+     * @return DirectorySnapshot
+     */
+    private static DirectorySnapshot readDirectory(final SlackSession session) {
+        final DirectorySnapshot snapshot = new DirectorySnapshot();
+        for (SlackUser slackUser : session.getUsers()) {
+            if (slackUser.getUserName() != null) {
+                snapshot.getUsers().put(slackUser.getUserName(), slackUser.getId());
+            }
+        }
+        for (SlackChannel slackChannel : session.getChannels()) {
+            if (slackChannel.getName() != null) {
+                snapshot.getChannels().put(slackChannel.getName().toLowerCase(Locale.ROOT), slackChannel.getId());
+            }
+        }
+        snapshot.setTakenAt(Instant.now());
+        return snapshot;
+    }
+
+    /**
+     * Whether the given SlackSession belongs to this organization.
+     *
+     * @param session SlackSession
+     * @return true if it is this organization's session
+     */
+    public synchronized boolean owns(final SlackSession session) {
+        return slackSession != null && slackSession == session;
+    }
+
+    /**
+     * Disconnects the SlackSession.
+     */
+    public synchronized void disconnect() {
+        if (slackSession != null && slackSession.isConnected()) {
+            try {
+                slackSession.disconnect();
+            } catch (IOException e) {
+                log.warn("Unable to disconnect SlackSession for organization {}", name, e);
+            }
+        }
+    }
+
+}
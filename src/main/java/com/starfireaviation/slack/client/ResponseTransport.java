@@ -0,0 +1,37 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.starfireaviation.slack.model.UserResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Transport used to persist user responses in the upstream GroundSchool service.
+ */
+public interface ResponseTransport {
+
+    /**
+     * Posts a batch of user responses in a single call.
+     *
+     * @param responses batch of user responses
+     * @throws IOException when the batch could not be delivered
+     */
+    void post(List<UserResponse> responses) throws IOException;
+
+}
@@ -0,0 +1,479 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.starfireaviation.slack.model.DirectorySnapshot;
+import com.starfireaviation.slack.util.PackedStringTable;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Resolved user and channel IDs of an organization's workspace. Lookups read an immutable view which is
+ * replaced as a whole when the directory changes, so they never wait on a refresh.
+ * <p>
+ * A compact directory packs its view into a {@link PackedStringTable} instead of hash maps, for workspaces large
+ * enough for the per-entry objects to matter. It is not filled from the session when it connects; users and
+ * channels are added as lookups miss and are resolved through the session, until the next reconcile or
+ * snapshot load replaces the view.
+ */
+public class SlackDirectory {
+
+    /**
+     * Whether views are packed.
+     */
+    private final boolean compact;
+
+    /**
+     * User IDs resolved since the view was built, keyed by user name.
+     */
+    private final Map<String, String> learnedUserIds = new ConcurrentHashMap<>();
+
+    /**
+     * User names resolved since the view was built, keyed by user ID.
+     */
+    private final Map<String, String> learnedUserNames = new ConcurrentHashMap<>();
+
+    /**
+     * Channel IDs resolved since the view was built, keyed by lower case channel name.
+     */
+    private final Map<String, String> learnedChannelIds = new ConcurrentHashMap<>();
+
+    /**
+     * Current view.
+     */
+    private volatile View view;
+
+    /**
+     * Initializes an instance of <code>SlackDirectory</code> backed by hash maps.
+     */
+    public SlackDirectory() {
+        this(false);
+    }
+
+    /**
+     * Initializes an instance of <code>SlackDirectory</code>.
+     *
+     * @param compactViews whether to pack views into primitive arrays
+     */
+    public SlackDirectory(final boolean compactViews) {
+        compact = compactViews;
+        view = newView(new DirectorySnapshot());
+    }
+
+    /**
+     * Whether views are packed and only filled as lookups miss.
+     *
+     * @return true for a compact directory
+     */
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Finds a user's ID.
+     *
+     * @param userName Slack user name
+     * @return user ID, or null if unknown
+     */
+    public String findUserId(final String userName) {
+        if (userName == null) {
+            return null;
+        }
+        final String userId = view.findUserId(userName);
+        if (userId != null) {
+            return userId;
+        }
+        return learnedUserIds.get(userName);
+    }
+
+    /**
+     * Finds a user's name.
+     *
+     * @param userId Slack user ID
+     * @return user name, or null if unknown
+     */
+    public String findUserName(final String userId) {
+        if (userId == null) {
+            return null;
+        }
+        final String userName = view.findUserName(userId);
+        if (userName != null) {
+            return userName;
+        }
+        return learnedUserNames.get(userId);
+    }
+
+    /**
+     * Finds a channel's ID.
+     *
+     * @param channelName channel name, in any case
+     * @return channel ID, or null if unknown
+     */
+    public String findChannelId(final String channelName) {
+        if (channelName == null) {
+            return null;
+        }
+        final String key = channelName.toLowerCase(Locale.ROOT);
+        final String channelId = view.findChannelId(key);
+        if (channelId != null) {
+            return channelId;
+        }
+        return learnedChannelIds.get(key);
+    }
+
+    /**
+     * Records a user resolved through the session after a lookup missed.
+     *
+     * @param userName Slack user name
+     * @param userId Slack user ID
+     */
+    public void rememberUser(final String userName, final String userId) {
+        if (userName != null && userId != null) {
+            learnedUserIds.put(userName, userId);
+            learnedUserNames.put(userId, userName);
+        }
+    }
+
+    /**
+     * Records a channel resolved through the session after a lookup missed.
+     *
+     * @param channelName channel name, in any case
+     * @param channelId Slack channel ID
+     */
+    public void rememberChannel(final String channelName, final String channelId) {
+        if (channelName != null && channelId != null) {
+            learnedChannelIds.put(channelName.toLowerCase(Locale.ROOT), channelId);
+        }
+    }
+
+    /**
+     * Current contents.
+     *
+     * @return DirectorySnapshot
+     */
+    public DirectorySnapshot getSnapshot() {
+        final DirectorySnapshot snapshot = view.toSnapshot();
+        if (learnedUserIds.isEmpty() && learnedChannelIds.isEmpty()) {
+            return snapshot;
+        }
+        final DirectorySnapshot merged = new DirectorySnapshot(new HashMap<>(snapshot.getUsers()),
+                new HashMap<>(snapshot.getChannels()), snapshot.getTakenAt());
+        merged.getUsers().putAll(learnedUserIds);
+        merged.getChannels().putAll(learnedChannelIds);
+        return merged;
+    }
+
+    /**
+     * Number of known users.
+     *
+     * @return user count
+     */
+    public int getUserCount() {
+        return view.getUserCount() + learnedUserIds.size();
+    }
+
+    /**
+     * Replaces the contents with a snapshot, typically one loaded at startup.
+     *
+     * @param snapshot DirectorySnapshot
+     */
+    public void load(final DirectorySnapshot snapshot) {
+        replace(snapshot);
+    }
+
+    /**
+     * Reconciles the contents with the workspace's current state.
+     *
+     * @param latest current state of the workspace
+     * @return number of users and channels added, removed or changed
+     */
+    public int reconcile(final DirectorySnapshot latest) {
+        final View current = view;
+        final int changes = difference(current::findUserId, current.getUserCount(), latest.getUsers())
+                + difference(current::findChannelId, current.getChannelCount(), latest.getChannels());
+        if (changes > 0) {
+            replace(latest);
+        }
+        return changes;
+    }
+
+    /**
+     * Makes a snapshot the current view, dropping the entries learned on misses.
+     *
+     * @param snapshot DirectorySnapshot
+     */
+    private void replace(final DirectorySnapshot snapshot) {
+        view = newView(snapshot);
+        learnedUserIds.clear();
+        learnedUserNames.clear();
+        learnedChannelIds.clear();
+    }
+
+    /**
+     * Builds a view of the configured kind.
+     *
+     * @param snapshot DirectorySnapshot
+     * @return View
+     */
+    private View newView(final DirectorySnapshot snapshot) {
+        if (compact) {
+            return new PackedView(snapshot);
+        }
+        return new MapView(snapshot);
+    }
+
+    /**
+     * Number of entries added, removed or changed between a view's entries and later ones.
+     *
+     * @param before lookup of the earlier entries
+     * @param beforeSize number of earlier entries
+     * @param after later entries
+     * @return difference
+     */
+    private static int difference(final Function<String, String> before,
+                                  final int beforeSize,
+                                  final Map<String, String> after) {
+        int changes = 0;
+        int kept = 0;
+        for (Map.Entry<String, String> entry : after.entrySet()) {
+            final String previous = before.apply(entry.getKey());
+            if (previous != null) {
+                kept++;
+            }
+            if (!Objects.equals(previous, entry.getValue())) {
+                changes++;
+            }
+        }
+        return changes + beforeSize - kept;
+    }
+
+    /**
+     * Immutable lookups over one state of the directory.
+     */
+    private interface View {
+
+        /**
+         * Finds a user's ID.
+         *
+         * @param userName Slack user name
+         * @return user ID, or null
+         */
+        String findUserId(String userName);
+
+        /**
+         * Finds a user's name.
+         *
+         * @param userId Slack user ID
+         * @return user name, or null
+         */
+        String findUserName(String userId);
+
+        /**
+         * Finds a channel's ID.
+         *
+         * @param channelName lower case channel name
+         * @return channel ID, or null
+         */
+        String findChannelId(String channelName);
+
+        /**
+         * Number of users.
+         *
+         * @return user count
+         */
+        int getUserCount();
+
+        /**
+         * Number of channels.
+         *
+         * @return channel count
+         */
+        int getChannelCount();
+
+        /**
+         * Contents as a snapshot.
+         *
+         * @return DirectorySnapshot
+         */
+        DirectorySnapshot toSnapshot();
+    }
+
+    /**
+     * Immutable snapshot plus its reverse user index.
+     */
+    private static final class MapView implements View {
+
+        /**
+         * Snapshot.
+         */
+        private final DirectorySnapshot snapshot;
+
+        /**
+         * User names keyed by user ID.
+         */
+        private final Map<String, String> userNames;
+
+        /**
+         * Initializes an instance of <code>MapView</code>.
+         *
+         * @param directorySnapshot DirectorySnapshot
+         */
+        MapView(final DirectorySnapshot directorySnapshot) {
+            snapshot = directorySnapshot;
+            userNames = new HashMap<>();
+            snapshot.getUsers().forEach((name, id) -> userNames.put(id, name));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String findUserId(final String userName) {
+            return snapshot.getUsers().get(userName);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String findUserName(final String userId) {
+            return userNames.get(userId);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String findChannelId(final String channelName) {
+            return snapshot.getChannels().get(channelName);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getUserCount() {
+            return snapshot.getUsers().size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getChannelCount() {
+            return snapshot.getChannels().size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public DirectorySnapshot toSnapshot() {
+            return snapshot;
+        }
+    }
+
+    /**
+     * Users and channels packed into PackedStringTables.
+     */
+    private static final class PackedView implements View {
+
+        /**
+         * User IDs keyed by user name, and the reverse.
+         */
+        private final PackedStringTable users;
+
+        /**
+         * Channel IDs keyed by lower case channel name.
+         */
+        private final PackedStringTable channels;
+
+        /**
+         * Time the snapshot was taken.
+         */
+        private final Instant takenAt;
+
+        /**
+         * Initializes an instance of <code>PackedView</code>.
+         *
+         * @param snapshot DirectorySnapshot
+         */
+        PackedView(final DirectorySnapshot snapshot) {
+            users = new PackedStringTable(snapshot.getUsers());
+            channels = new PackedStringTable(snapshot.getChannels());
+            takenAt = snapshot.getTakenAt();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String findUserId(final String userName) {
+            return users.get(userName);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String findUserName(final String userId) {
+            return users.getKey(userId);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String findChannelId(final String channelName) {
+            return channels.get(channelName);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getUserCount() {
+            return users.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getChannelCount() {
+            return channels.size();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public DirectorySnapshot toSnapshot() {
+            final DirectorySnapshot snapshot = new DirectorySnapshot(new HashMap<>(users.size() * 2),
+                    new HashMap<>(), takenAt);
+            users.forEach(snapshot.getUsers()::put);
+            channels.forEach(snapshot.getChannels()::put);
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.starfireaviation.slack.exception.DeliveryException;
+import com.starfireaviation.slack.model.OutboundMessage;
+import com.ullink.slack.simpleslackapi.SlackChannel;
+import com.ullink.slack.simpleslackapi.SlackMessageHandle;
+import com.ullink.slack.simpleslackapi.SlackSession;
+import com.ullink.slack.simpleslackapi.SlackUser;
+import com.ullink.slack.simpleslackapi.replies.SlackMessageReply;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * MessageDelivery through the organization's simpleslackapi SlackSession.
+ */
+public class SlackSessionDelivery implements MessageDelivery {
+
+    /**
+     * Executor running the blocking Slack calls.
+     */
+    private final Executor executor;
+
+    /**
+     * Initializes an instance of <code>SlackSessionDelivery</code>.
+     *
+     * @param deliveryExecutor executor running the blocking Slack calls
+     */
+    public SlackSessionDelivery(final Executor deliveryExecutor) {
+        executor = deliveryExecutor;
+    }
+
+    /**
+     * {@inheritDoc} Required implementation.
+     */
+    @Override
+    public CompletableFuture<String> deliver(final OrganizationSession session, final OutboundMessage message) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return send(session, message);
+            } catch (DeliveryException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Sends message to Slack.
+     *
+     * @param session OrganizationSession
+     * @param message OutboundMessage
+     * @return Slack timestamp of the posted message, or null if Slack did not reply with one
+     * @throws DeliveryException when Slack is not connected, the recipient could not be found or Slack replied
+     *                           with an error
+     */
+    private static String send(final OrganizationSession session, final OutboundMessage message)
+            throws DeliveryException {
+        final SlackSession slackSession = session.getSession();
+        if (!slackSession.isConnected()) {
+            // Lookups fail while disconnected, so a missing recipient says nothing until Slack is back
+            throw new DeliveryException("Not connected to Slack", true);
+        }
+        final SlackDirectory directory = session.getDirectory();
+        if (message.getRecipient() != null) {
+            SlackUser slackUser = null;
+            final String userId = directory.findUserId(message.getRecipient());
+            if (userId != null) {
+                slackUser = slackSession.findUserById(userId);
+            }
+            if (slackUser == null) {
+                slackUser = slackSession.findUserByUserName(message.getRecipient());
+                if (slackUser == null) {
+                    throw new DeliveryException("Unknown Slack user " + message.getRecipient());
+                }
+                directory.rememberUser(message.getRecipient(), slackUser.getId());
+            }
+            return timestamp(slackSession.sendMessageToUser(slackUser, message.getText(), null));
+        } else {
+            final String channelName = session.getSettings().getGroundSchoolChannel();
+            SlackChannel slackChannel = null;
+            final String channelId = directory.findChannelId(channelName);
+            if (channelId != null) {
+                slackChannel = slackSession.findChannelById(channelId);
+            }
+            if (slackChannel == null) {
+                slackChannel = slackSession
+                        .getChannels()
+                        .stream()
+                        .filter(channel -> channel.getName().equalsIgnoreCase(channelName))
+                        .findFirst()
+                        .orElseThrow(() -> new DeliveryException("Unknown Slack channel " + channelName));
+                directory.rememberChannel(channelName, slackChannel.getId());
+            }
+            return timestamp(slackSession.sendMessage(slackChannel, message.getText()));
+        }
+    }
+
+    /**
+     * Slack timestamp of a posted message.
+     *
+     * @param handle SlackMessageHandle
+     * @return timestamp, or null if Slack did not reply with one
+     * @throws DeliveryException when Slack replied with an error, retryable when the error is transient
+     */
+    private static String timestamp(final SlackMessageHandle<SlackMessageReply> handle) throws DeliveryException {
+        if (handle == null || handle.getReply() == null) {
+            return null;
+        }
+        final SlackMessageReply reply = handle.getReply();
+        if (!reply.isOk()) {
+            final String error = reply.getErrorMessage();
+            throw new DeliveryException("Slack chat.postMessage failed: " + error,
+                    SlackWebApiClient.isRetryable(error));
+        }
+        return reply.getTimestamp();
+    }
+
+}
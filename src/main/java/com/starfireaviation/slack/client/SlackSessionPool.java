@@ -0,0 +1,119 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.config.CommonConstants;
+import com.ullink.slack.simpleslackapi.SlackSession;
+import com.ullink.slack.simpleslackapi.listeners.SlackMessagePostedListener;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pool of Slack sessions, one per organization's workspace.
+ */
+public class SlackSessionPool {
+
+    /**
+     * Sessions keyed by organization name.
+     */
+    private final Map<String, OrganizationSession> sessions;
+
+    /**
+     * Initializes an instance of <code>SlackSessionPool</code>. The top level token and channel are served as
+     * the default organization unless overridden by an organization named after it.
+     *
+     * @param aProps ApplicationProperties
+     */
+    public SlackSessionPool(final ApplicationProperties aProps) {
+        final Map<String, OrganizationSession> pool = new LinkedHashMap<>();
+        final ApplicationProperties.Organization defaultOrganization = aProps.getOrganizations()
+                .getOrDefault(CommonConstants.DEFAULT_ORGANIZATION, new ApplicationProperties.Organization());
+        if (defaultOrganization.getToken() == null) {
+            defaultOrganization.setToken(aProps.getToken());
+        }
+        if (defaultOrganization.getGroundSchoolChannel() == null) {
+            defaultOrganization.setGroundSchoolChannel(aProps.getGroundSchoolChannel());
+        }
+        if (defaultOrganization.getSigningSecret() == null) {
+            defaultOrganization.setSigningSecret(aProps.getSigningSecret());
+        }
+        if (defaultOrganization.getAppToken() == null) {
+            defaultOrganization.setAppToken(aProps.getAppToken());
+        }
+        final boolean compact = aProps.getDirectory().isCompact();
+        pool.put(CommonConstants.DEFAULT_ORGANIZATION,
+                new OrganizationSession(CommonConstants.DEFAULT_ORGANIZATION, defaultOrganization, compact));
+        aProps.getOrganizations().forEach((name, settings) ->
+                pool.putIfAbsent(name, new OrganizationSession(name, settings, compact)));
+        sessions = Collections.unmodifiableMap(pool);
+    }
+
+    /**
+     * Gets an organization's session.
+     *
+     * @param organization organization name
+     * @return OrganizationSession, or null if the organization is not configured
+     */
+    public OrganizationSession get(final String organization) {
+        return sessions.get(organization);
+    }
+
+    /**
+     * All organization sessions.
+     *
+     * @return organization sessions
+     */
+    public Collection<OrganizationSession> getAll() {
+        return sessions.values();
+    }
+
+    /**
+     * Sets the listener registered with each session once connected.
+     *
+     * @param listener SlackMessagePostedListener
+     */
+    public void setMessagePostedListener(final SlackMessagePostedListener listener) {
+        sessions.values().forEach(session -> session.setListener(listener));
+    }
+
+    /**
+     * Finds the organization a SlackSession belongs to.
+     *
+     * @param session SlackSession
+     * @return organization name, or the default organization if not found
+     */
+    public String organizationOf(final SlackSession session) {
+        for (OrganizationSession organizationSession : sessions.values()) {
+            if (organizationSession.owns(session)) {
+                return organizationSession.getName();
+            }
+        }
+        return CommonConstants.DEFAULT_ORGANIZATION;
+    }
+
+    /**
+     * Disconnects every session.
+     */
+    public void shutdown() {
+        sessions.values().forEach(OrganizationSession::disconnect);
+    }
+
+}
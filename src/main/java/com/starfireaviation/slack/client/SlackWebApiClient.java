@@ -0,0 +1,286 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.exception.DeliveryException;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal asynchronous Slack Web API client. Calls are multiplexed over the HttpClient's pooled HTTP/2
+ * connections, so many posts can be in flight without a thread waiting on each; request bodies are streamed
+ * straight to UTF-8 JSON and every call carries its own timeout.
+ */
+public class SlackWebApiClient {
+
+    /**
+     * Request content type.
+     */
+    private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    /**
+     * Request content type of read methods, which do not accept JSON bodies.
+     */
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+    /**
+     * HTTP status Slack answers with when rate limiting.
+     */
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Lowest HTTP server error status.
+     */
+    private static final int SERVER_ERROR = 500;
+
+    /**
+     * Initial size of an encoded request body.
+     */
+    private static final int INITIAL_BODY_SIZE = 256;
+
+    /**
+     * Web API error codes after which a retry may succeed.
+     */
+    private static final Set<String> RETRYABLE_ERRORS = Set.of(
+            "ratelimited", "rate_limited", "internal_error", "fatal_error", "service_unavailable", "request_timeout");
+
+    /**
+     * HttpClient.
+     */
+    private final HttpClient httpClient;
+
+    /**
+     * ObjectMapper parsing responses.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * JsonFactory encoding requests.
+     */
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Web API base URL.
+     */
+    private final String baseUrl;
+
+    /**
+     * Time allowed for a single call.
+     */
+    private final Duration requestTimeout;
+
+    /**
+     * MeterRegistry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Initializes an instance of <code>SlackWebApiClient</code>.
+     *
+     * @param client HttpClient
+     * @param mapper ObjectMapper
+     * @param settings Web API settings
+     * @param meterRegistry MeterRegistry
+     */
+    public SlackWebApiClient(final HttpClient client,
+                             final ObjectMapper mapper,
+                             final ApplicationProperties.WebApi settings,
+                             final MeterRegistry meterRegistry) {
+        httpClient = client;
+        objectMapper = mapper;
+        jsonFactory = mapper.getFactory();
+        baseUrl = settings.getBaseUrl();
+        requestTimeout = settings.getRequestTimeout();
+        registry = meterRegistry;
+    }
+
+    /**
+     * Posts a message with chat.postMessage.
+     *
+     * @param token bot token
+     * @param channel channel or direct message id
+     * @param text message text
+     * @return future completing with the message timestamp, or exceptionally with a DeliveryException
+     */
+    public CompletableFuture<String> postMessage(final String token, final String channel, final String text) {
+        return call("chat.postMessage", token, "channel", channel, "text", text)
+                .thenApply(body -> body.path("ts").asText());
+    }
+
+    /**
+     * Opens, or finds, the direct message channel with a user through conversations.open.
+     *
+     * @param token bot token
+     * @param userId Slack user id
+     * @return future completing with the channel id, or exceptionally with a DeliveryException
+     */
+    public CompletableFuture<String> openConversation(final String token, final String userId) {
+        return call("conversations.open", token, "users", userId)
+                .thenApply(body -> body.path("channel").path("id").asText());
+    }
+
+    /**
+     * Looks a user's name up through users.info.
+     *
+     * @param token bot token
+     * @param userId Slack user id
+     * @return future completing with the user name, or exceptionally with a DeliveryException
+     */
+    public CompletableFuture<String> findUserName(final String token, final String userId) {
+        final byte[] body = ("user=" + URLEncoder.encode(userId, StandardCharsets.UTF_8))
+                .getBytes(StandardCharsets.UTF_8);
+        return send("users.info", token, FORM_CONTENT_TYPE, body)
+                .thenApply(response -> response.path("user").path("name").asText(null));
+    }
+
+    /**
+     * Calls a Web API method with a JSON body of string fields.
+     *
+     * @param method Web API method
+     * @param token bot token
+     * @param fields alternating field names and values
+     * @return future completing with the response body
+     */
+    private CompletableFuture<JsonNode> call(final String method, final String token, final String... fields) {
+        final byte[] body;
+        try {
+            body = encode(fields);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new DeliveryException("Unable to encode " + method, false));
+        }
+        return send(method, token, CONTENT_TYPE, body);
+    }
+
+    /**
+     * Sends an encoded request to a Web API method.
+     *
+     * @param method Web API method
+     * @param token bot token
+     * @param contentType request content type
+     * @param body encoded request body
+     * @return future completing with the response body
+     */
+    private CompletableFuture<JsonNode> send(final String method,
+                                             final String token,
+                                             final String contentType,
+                                             final byte[] body) {
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + method))
+                .timeout(requestTimeout)
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        final long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).handle((response, error) -> {
+            String outcome = "error";
+            try {
+                final JsonNode result = read(method, response, error);
+                outcome = "ok";
+                return result;
+            } catch (DeliveryException e) {
+                throw new CompletionException(e);
+            } finally {
+                registry.timer("slack.webapi.calls", "method", method, "outcome", outcome)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * Streams string fields into a UTF-8 JSON object.
+     *
+     * @param fields alternating field names and values
+     * @return encoded body
+     * @throws IOException when encoding fails
+     */
+    private byte[] encode(final String... fields) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_BODY_SIZE);
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                generator.writeStringField(fields[i], fields[i + 1]);
+            }
+            generator.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads a Web API response.
+     *
+     * @param method Web API method
+     * @param response response, or null if the call failed
+     * @param error failure, or null if a response was received
+     * @return response body
+     * @throws DeliveryException when the call failed or Slack reported an error
+     */
+    private JsonNode read(final String method, final HttpResponse<byte[]> response, final Throwable error)
+            throws DeliveryException {
+        if (error != null) {
+            Throwable cause = error;
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            throw new DeliveryException("Slack " + method + " call failed", cause);
+        }
+        final int status = response.statusCode();
+        if (status == TOO_MANY_REQUESTS || status >= SERVER_ERROR) {
+            throw new DeliveryException("Slack " + method + " returned HTTP " + status, true);
+        }
+        final JsonNode body;
+        try {
+            body = objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new DeliveryException("Unable to parse Slack " + method + " response", e);
+        }
+        if (!body.path("ok").asBoolean()) {
+            final String code = body.path("error").asText();
+            throw new DeliveryException("Slack " + method + " failed: " + code, isRetryable(code));
+        }
+        return body;
+    }
+
+
+    /**
+     * Whether a retry may succeed after a Slack error code.
+     *
+     * @param code Slack error code
+     * @return true if the error is transient
+     */
+    static boolean isRetryable(final String code) {
+        return code != null && RETRYABLE_ERRORS.contains(code);
+    }
+}
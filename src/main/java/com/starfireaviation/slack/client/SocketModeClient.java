@@ -0,0 +1,561 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.util.Backoff;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slack Socket Mode client holding one websocket per organization with an app-level token. Frames are assembled
+ * and dispatched from the websocket callbacks without blocking, envelopes are acknowledged through each
+ * connection's asynchronous send chain, and reconnects are pipelined: a fresh websocket is opened while the
+ * current one keeps delivering, and the old one is only closed once the new one has said hello.
+ */
+@Slf4j
+public class SocketModeClient {
+
+    /**
+     * Envelope id field.
+     */
+    private static final String ENVELOPE_ID = "envelope_id";
+
+    /**
+     * Organization metric tag.
+     */
+    private static final String ORGANIZATION_TAG = "organization";
+
+    /**
+     * Initial capacity of each organization's recent envelope ids.
+     */
+    private static final int RECENT_INITIAL_CAPACITY = 64;
+
+    /**
+     * Load factor of each organization's recent envelope ids.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * SlackSessionPool.
+     */
+    private final SlackSessionPool slackSessionPool;
+
+    /**
+     * HttpClient opening connections.
+     */
+    private final HttpClient httpClient;
+
+    /**
+     * ObjectMapper.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Socket Mode settings.
+     */
+    private final ApplicationProperties.Socket settings;
+
+    /**
+     * Receives Events API payloads.
+     */
+    private final EventCallbackListener listener;
+
+    /**
+     * MeterRegistry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Delay between reconnect attempts.
+     */
+    private final Backoff backoff;
+
+    /**
+     * Schedules reconnect attempts.
+     */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "socket-mode");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Links keyed by organization name.
+     */
+    private final Map<String, Link> links = new ConcurrentHashMap<>();
+
+    /**
+     * Whether connections are kept open.
+     */
+    private volatile boolean running;
+
+    /**
+     * Initializes an instance of <code>SocketModeClient</code>.
+     *
+     * @param sessionPool SlackSessionPool providing each organization's app-level token
+     * @param client HttpClient opening connections
+     * @param mapper ObjectMapper
+     * @param socketSettings Socket Mode settings
+     * @param eventListener receives Events API payloads
+     * @param meterRegistry MeterRegistry
+     */
+    public SocketModeClient(final SlackSessionPool sessionPool,
+                            final HttpClient client,
+                            final ObjectMapper mapper,
+                            final ApplicationProperties.Socket socketSettings,
+                            final EventCallbackListener eventListener,
+                            final MeterRegistry meterRegistry) {
+        slackSessionPool = sessionPool;
+        httpClient = client;
+        objectMapper = mapper;
+        settings = socketSettings;
+        listener = eventListener;
+        registry = meterRegistry;
+        backoff = new Backoff(settings.getReconnectInitialBackoff(), settings.getReconnectMaxBackoff());
+    }
+
+    /**
+     * Opens a connection for every organization with an app-level token.
+     */
+    public void start() {
+        running = true;
+        for (OrganizationSession session : slackSessionPool.getAll()) {
+            final String appToken = session.getSettings().getAppToken();
+            if (appToken == null || appToken.isBlank()) {
+                log.warn("No app-level token for organization {}; Socket Mode not started", session.getName());
+                continue;
+            }
+            final Link link = new Link(session.getName(), appToken);
+            links.put(session.getName(), link);
+            link.open();
+        }
+    }
+
+    /**
+     * Closes every connection.
+     */
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        links.values().forEach(Link::close);
+    }
+
+    /**
+     * Whether an organization currently has a connection Slack has said hello on.
+     *
+     * @param organization organization name
+     * @return true if connected
+     */
+    public boolean isConnected(final String organization) {
+        final Link link = links.get(organization);
+        return link != null && link.isConnected();
+    }
+
+    /**
+     * Opens a Socket Mode websocket: asks apps.connections.open for a URL, then connects to it.
+     *
+     * @param appToken app-level token
+     * @param webSocketListener listener receiving the websocket's frames
+     * @return future completing once the websocket is open
+     */
+    protected CompletableFuture<WebSocket> connect(final String appToken,
+                                                   final WebSocket.Listener webSocketListener) {
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(settings.getConnectionsOpenUrl()))
+                .header("Authorization", "Bearer " + appToken)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenCompose(response -> {
+            final JsonNode body;
+            try {
+                body = objectMapper.readTree(response.body());
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            if (!body.path("ok").asBoolean()) {
+                return CompletableFuture.failedFuture(
+                        new IOException("apps.connections.open failed: " + body.path("error").asText()));
+            }
+            return httpClient.newWebSocketBuilder().buildAsync(URI.create(body.path("url").asText()),
+                    webSocketListener);
+        });
+    }
+
+    /**
+     * An organization's current connection and the one replacing it, if any.
+     */
+    private final class Link {
+
+        /**
+         * Organization name.
+         */
+        private final String organization;
+
+        /**
+         * App-level token.
+         */
+        private final String appToken;
+
+        /**
+         * Recently handled envelope ids.
+         */
+        private final Map<String, Boolean> recent;
+
+        /**
+         * Envelopes received.
+         */
+        private final Counter envelopes;
+
+        /**
+         * Redelivered envelopes acknowledged without being handled again.
+         */
+        private final Counter duplicates;
+
+        /**
+         * Envelopes left unacknowledged because the listener could not accept them.
+         */
+        private final Counter rejected;
+
+        /**
+         * Connections Slack said hello on.
+         */
+        private final Counter connections;
+
+        /**
+         * Connection currently delivering envelopes.
+         */
+        private Connection current;
+
+        /**
+         * Connection opened to replace the current one, until Slack says hello on it.
+         */
+        private Connection pending;
+
+        /**
+         * Failed attempts since the last hello.
+         */
+        private int attempts;
+
+        /**
+         * Initializes an instance of <code>Link</code>.
+         *
+         * @param name organization name
+         * @param token app-level token
+         */
+        Link(final String name, final String token) {
+            organization = name;
+            appToken = token;
+            final int capacity = Math.max(1, settings.getRecentEnvelopes());
+            recent = Collections.synchronizedMap(new LinkedHashMap<>(RECENT_INITIAL_CAPACITY, LOAD_FACTOR) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+                    return size() > capacity;
+                }
+            });
+            envelopes = registry.counter("slack.socket.envelopes", ORGANIZATION_TAG, name);
+            duplicates = registry.counter("slack.socket.duplicates", ORGANIZATION_TAG, name);
+            rejected = registry.counter("slack.socket.rejected", ORGANIZATION_TAG, name);
+            connections = registry.counter("slack.socket.connections", ORGANIZATION_TAG, name);
+        }
+
+        /**
+         * Opens a replacement connection unless one is already being opened. The current connection keeps
+         * delivering until the replacement says hello.
+         */
+        synchronized void open() {
+            if (!running || pending != null) {
+                return;
+            }
+            final Connection connection = new Connection(this);
+            pending = connection;
+            connect(appToken, connection).whenComplete((webSocket, error) -> {
+                if (error != null) {
+                    lost(connection, error);
+                }
+            });
+        }
+
+        /**
+         * Switches to a connection Slack has said hello on and closes the one it replaces.
+         *
+         * @param connection connection
+         */
+        synchronized void hello(final Connection connection) {
+            if (connection != pending && connection != current) {
+                connection.close();
+                return;
+            }
+            final Connection previous = current;
+            current = connection;
+            if (pending == connection) {
+                pending = null;
+            }
+            attempts = 0;
+            connections.increment();
+            if (previous != null && previous != connection) {
+                previous.close();
+            }
+            log.info("Socket Mode connected for organization {}", organization);
+        }
+
+        /**
+         * Forgets a connection which closed or failed to open, and schedules a replacement if it was the current
+         * or pending one.
+         *
+         * @param connection connection
+         * @param error failure, or null if the connection was closed
+         */
+        synchronized void lost(final Connection connection, final Throwable error) {
+            if (connection == pending) {
+                pending = null;
+            } else if (connection == current) {
+                current = null;
+            } else {
+                return;
+            }
+            if (!running) {
+                return;
+            }
+            attempts++;
+            final long delay = backoff.delayMillis(attempts);
+            if (error == null) {
+                log.info("Socket Mode connection for organization {} closed; reconnecting in {}ms",
+                        organization, delay);
+            } else {
+                log.warn("Socket Mode connection for organization {} failed; reconnecting in {}ms",
+                        organization, delay, error);
+            }
+            try {
+                scheduler.schedule(this::open, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("Socket Mode stopped; not reconnecting organization {}", organization);
+            }
+        }
+
+        /**
+         * Handles an envelope. Events API payloads are acknowledged once the listener accepts them, other
+         * envelopes right away since nothing here answers them.
+         *
+         * @param connection connection the envelope arrived on
+         * @param type envelope type
+         * @param envelope envelope
+         */
+        void envelope(final Connection connection, final String type, final JsonNode envelope) {
+            envelopes.increment();
+            final String envelopeId = envelope.path(ENVELOPE_ID).asText();
+            if (!"events_api".equals(type)) {
+                connection.acknowledge(envelopeId);
+                return;
+            }
+            if (recent.put(envelopeId, Boolean.TRUE) != null) {
+                duplicates.increment();
+                connection.acknowledge(envelopeId);
+                return;
+            }
+            if (listener.onEventCallback(organization, envelope.path("payload"))) {
+                connection.acknowledge(envelopeId);
+            } else {
+                recent.remove(envelopeId);
+                rejected.increment();
+            }
+        }
+
+        /**
+         * Whether Slack has said hello on the current connection.
+         *
+         * @return true if connected
+         */
+        synchronized boolean isConnected() {
+            return current != null;
+        }
+
+        /**
+         * Closes the current and pending connections.
+         */
+        synchronized void close() {
+            if (pending != null) {
+                pending.close();
+                pending = null;
+            }
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * A single websocket. Callbacks run on the HttpClient's threads and never block: text frames are assembled
+     * into envelopes, handled, and the next frame requested.
+     */
+    private final class Connection implements WebSocket.Listener {
+
+        /**
+         * Link the connection belongs to.
+         */
+        private final Link link;
+
+        /**
+         * Parts of the envelope being received.
+         */
+        private final StringBuilder frame = new StringBuilder();
+
+        /**
+         * Websocket, once open.
+         */
+        private volatile WebSocket webSocket;
+
+        /**
+         * Whether the connection has been closed by this side.
+         */
+        private volatile boolean closed;
+
+        /**
+         * Completes when the last queued send has been written. A websocket allows one outstanding send, so
+         * acknowledgements are chained rather than sent from the read callback directly.
+         */
+        private CompletableFuture<WebSocket> sends = CompletableFuture.completedFuture(null);
+
+        /**
+         * Initializes an instance of <code>Connection</code>.
+         *
+         * @param owner link the connection belongs to
+         */
+        Connection(final Link owner) {
+            link = owner;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void onOpen(final WebSocket socket) {
+            webSocket = socket;
+            if (closed) {
+                socket.abort();
+                return;
+            }
+            socket.request(1);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public CompletionStage<?> onText(final WebSocket socket, final CharSequence data, final boolean last) {
+            frame.append(data);
+            if (last) {
+                final String text = frame.toString();
+                frame.setLength(0);
+                handle(text);
+            }
+            socket.request(1);
+            return null;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public CompletionStage<?> onClose(final WebSocket socket, final int statusCode, final String reason) {
+            link.lost(this, null);
+            return null;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void onError(final WebSocket socket, final Throwable error) {
+            link.lost(this, error);
+        }
+
+        /**
+         * Handles an envelope.
+         *
+         * @param text envelope JSON
+         */
+        private void handle(final String text) {
+            final JsonNode envelope;
+            try {
+                envelope = objectMapper.readTree(text);
+            } catch (IOException e) {
+                log.warn("Ignoring unparseable Socket Mode envelope", e);
+                return;
+            }
+            final String type = envelope.path("type").asText();
+            if ("hello".equals(type)) {
+                link.hello(this);
+            } else if ("disconnect".equals(type)) {
+                log.info("Slack asked organization {} to reconnect: {}", link.organization,
+                        envelope.path("reason").asText());
+                link.open();
+            } else if (envelope.hasNonNull(ENVELOPE_ID)) {
+                link.envelope(this, type, envelope);
+            }
+        }
+
+        /**
+         * Queues an acknowledgement behind any sends still in flight.
+         *
+         * @param envelopeId envelope id
+         */
+        void acknowledge(final String envelopeId) {
+            final String ack = objectMapper.createObjectNode().put(ENVELOPE_ID, envelopeId).toString();
+            synchronized (this) {
+                sends = sends.thenCompose(ignored -> webSocket.sendText(ack, true)).exceptionally(error -> {
+                    log.warn("Unable to acknowledge Socket Mode envelope {}", envelopeId, error);
+                    return null;
+                });
+            }
+        }
+
+        /**
+         * Closes the websocket once queued acknowledgements have been sent.
+         */
+        void close() {
+            closed = true;
+            final WebSocket socket = webSocket;
+            if (socket == null) {
+                return;
+            }
+            synchronized (this) {
+                sends = sends.thenCompose(ignored -> socket.sendClose(WebSocket.NORMAL_CLOSURE, "")).exceptionally(
+                        error -> {
+                            socket.abort();
+                            return null;
+                        });
+            }
+        }
+    }
+
+}
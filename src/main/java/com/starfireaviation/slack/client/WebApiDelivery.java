@@ -0,0 +1,103 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.starfireaviation.slack.model.OutboundMessage;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MessageDelivery through the Slack Web API. Recipients are resolved to ids with the organization's
+ * SlackDirectory; messages whose recipient the directory does not know yet go through the fallback delivery,
+ * which remembers the id for next time.
+ */
+public class WebApiDelivery implements MessageDelivery {
+
+    /**
+     * SlackWebApiClient.
+     */
+    private final SlackWebApiClient client;
+
+    /**
+     * Delivery used when the directory cannot resolve a recipient.
+     */
+    private final MessageDelivery fallback;
+
+    /**
+     * Direct message channel ids, keyed by organization and user id.
+     */
+    private final Map<String, CompletableFuture<String>> directChannels = new ConcurrentHashMap<>();
+
+    /**
+     * Initializes an instance of <code>WebApiDelivery</code>.
+     *
+     * @param webApiClient SlackWebApiClient
+     * @param fallbackDelivery delivery used when the directory cannot resolve a recipient
+     */
+    public WebApiDelivery(final SlackWebApiClient webApiClient, final MessageDelivery fallbackDelivery) {
+        client = webApiClient;
+        fallback = fallbackDelivery;
+    }
+
+    /**
+     * {@inheritDoc} Required implementation.
+     */
+    @Override
+    public CompletableFuture<String> deliver(final OrganizationSession session, final OutboundMessage message) {
+        final String token = session.getSettings().getToken();
+        final SlackDirectory directory = session.getDirectory();
+        if (message.getRecipient() != null) {
+            final String userId = directory.findUserId(message.getRecipient());
+            if (userId == null) {
+                return fallback.deliver(session, message);
+            }
+            return directChannel(session.getName(), token, userId)
+                    .thenCompose(channel -> client.postMessage(token, channel, message.getText()));
+        }
+        final String channelId = directory.findChannelId(session.getSettings().getGroundSchoolChannel());
+        if (channelId == null) {
+            return fallback.deliver(session, message);
+        }
+        return client.postMessage(token, channelId, message.getText());
+    }
+
+    /**
+     * Gets the direct message channel with a user, opening it on first use. Concurrent first messages to the
+     * same user share one conversations.open call; a failed call is forgotten so the next message retries it.
+     *
+     * @param organization organization name
+     * @param token bot token
+     * @param userId Slack user id
+     * @return future completing with the channel id
+     */
+    private CompletableFuture<String> directChannel(final String organization,
+                                                    final String token,
+                                                    final String userId) {
+        final String key = organization + ':' + userId;
+        final CompletableFuture<String> channel = directChannels.computeIfAbsent(key,
+                ignored -> client.openConversation(token, userId));
+        channel.whenComplete((id, error) -> {
+            if (error != null) {
+                directChannels.remove(key, channel);
+            }
+        });
+        return channel;
+    }
+
+}
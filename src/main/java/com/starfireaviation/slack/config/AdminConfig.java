@@ -0,0 +1,52 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.config;
+
+import com.starfireaviation.slack.validation.AdminTokenInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Admin endpoint configuration. Every endpoint under /admin requires the bearer token set with
+ * slack.admin.token.
+ */
+@Configuration
+public class AdminConfig implements WebMvcConfigurer {
+
+    /**
+     * ApplicationProperties.
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * Initializes an instance of <code>AdminConfig</code>.
+     *
+     * @param aProps ApplicationProperties
+     */
+    public AdminConfig(final ApplicationProperties aProps) {
+        applicationProperties = aProps;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addInterceptors(final InterceptorRegistry registry) {
+        registry.addInterceptor(new AdminTokenInterceptor(applicationProperties.getAdmin().getToken()))
+                .addPathPatterns("/admin/**");
+    }
+}
@@ -16,13 +16,310 @@
 
 package com.starfireaviation.slack.config;
 
+import com.starfireaviation.slack.model.Lane;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Data
 @ConfigurationProperties("slack")
 public class ApplicationProperties {
 
+    /**
+     * Default number of user responses posted upstream in one call.
+     */
+    private static final int DEFAULT_RESPONSE_BATCH_SIZE = 50;
+
+    /**
+     * Default maximum time a user response waits before its batch is flushed.
+     */
+    private static final long DEFAULT_RESPONSE_FLUSH_INTERVAL_MS = 500L;
+
+    /**
+     * Default number of retries for a failed batch.
+     */
+    private static final int DEFAULT_RESPONSE_MAX_RETRIES = 3;
+
+    /**
+     * Default initial backoff between batch retries.
+     */
+    private static final long DEFAULT_RESPONSE_RETRY_BACKOFF_MS = 200L;
+
+    /**
+     * Default time pending responses are still flushed and retried for at shutdown.
+     */
+    private static final long DEFAULT_RESPONSE_DRAIN_TIMEOUT_SECONDS = 10L;
+
+    /**
+     * Default sustained send rate per organization.
+     */
+    private static final double DEFAULT_MESSAGES_PER_SECOND = 5.0;
+
+    /**
+     * Default send burst per organization.
+     */
+    private static final int DEFAULT_BURST = 10;
+
+    /**
+     * Default maximum number of concurrent Slack calls.
+     */
+    private static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+    /**
+     * Default number of threads performing blocking Slack calls.
+     */
+    private static final int DEFAULT_DELIVERY_THREADS = 8;
+
+    /**
+     * Default number of in-flight Slack calls reserved for the interactive lane.
+     */
+    private static final int DEFAULT_RESERVED_IN_FLIGHT = 4;
+
+    /**
+     * Default number of rate-limit tokens reserved for the interactive lane.
+     */
+    private static final int DEFAULT_INTERACTIVE_RESERVE = 2;
+
+    /**
+     * Default number of delivery attempts before a message is dead-lettered.
+     */
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /**
+     * Default backoff ceiling before the first retry.
+     */
+    private static final long DEFAULT_RETRY_INITIAL_BACKOFF_MS = 500L;
+
+    /**
+     * Default maximum backoff ceiling.
+     */
+    private static final long DEFAULT_RETRY_MAX_BACKOFF_SECONDS = 30L;
+
+    /**
+     * Default consecutive failures which open an organization's circuit.
+     */
+    private static final int DEFAULT_CIRCUIT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * Default time a circuit stays open.
+     */
+    private static final long DEFAULT_CIRCUIT_OPEN_SECONDS = 30L;
+
+    /**
+     * Default maximum number of dead letters kept.
+     */
+    private static final int DEFAULT_DEAD_LETTER_CAPACITY = 1000;
+
+    /**
+     * Default time spent draining outbound messages at shutdown.
+     */
+    private static final long DEFAULT_DRAIN_TIMEOUT_SECONDS = 20L;
+
+    /**
+     * Default interval between directory refreshes.
+     */
+    private static final long DEFAULT_DIRECTORY_REFRESH_MINUTES = 10L;
+
+    /**
+     * Default number of intake consumers.
+     */
+    private static final int DEFAULT_INTAKE_CONCURRENCY = 2;
+
+    /**
+     * Default number of intake requests committed together.
+     */
+    private static final int DEFAULT_INTAKE_BATCH_SIZE = 50;
+
+    /**
+     * Default time an intake consumer waits for a request.
+     */
+    private static final long DEFAULT_INTAKE_RECEIVE_TIMEOUT_MS = 1000L;
+
+    /**
+     * Default bytes of requests the broker sends ahead to each intake consumer.
+     */
+    private static final long DEFAULT_INTAKE_PREFETCH_KB = 256L;
+
+    /**
+     * Default time entity IDs are collected before they are fetched together.
+     */
+    private static final long DEFAULT_LOADER_BATCH_WINDOW_MS = 5L;
+
+    /**
+     * Default maximum number of entity IDs fetched in one call.
+     */
+    private static final int DEFAULT_LOADER_MAX_BATCH_SIZE = 100;
+
+    /**
+     * Default number of cached entities per type.
+     */
+    private static final int DEFAULT_LOADER_CACHE_SIZE = 10000;
+
+    /**
+     * Default age after which a cached entity is no longer served.
+     */
+    private static final long DEFAULT_LOADER_TTL_MINUTES = 5L;
+
+    /**
+     * Default age after which a cached entity is refreshed in the background.
+     */
+    private static final long DEFAULT_LOADER_REFRESH_AFTER_MINUTES = 4L;
+
+    /**
+     * Default time a lookup waits for the upstream service.
+     */
+    private static final long DEFAULT_LOADER_TIMEOUT_SECONDS = 2L;
+
+    /**
+     * Default largest inbound recording.
+     */
+    private static final long DEFAULT_RECORDER_MAX_SIZE_MB = 256L;
+
+    /**
+     * Default number of inbound messages waiting to be recorded.
+     */
+    private static final int DEFAULT_RECORDER_QUEUE_CAPACITY = 10000;
+
+    /**
+     * Default delay ceiling before the first Socket Mode reconnect attempt.
+     */
+    private static final long DEFAULT_SOCKET_INITIAL_BACKOFF_SECONDS = 1L;
+
+    /**
+     * Default largest delay between Socket Mode reconnect attempts.
+     */
+    private static final long DEFAULT_SOCKET_MAX_BACKOFF_SECONDS = 30L;
+
+    /**
+     * Default number of recent event ids remembered for redelivery detection.
+     */
+    private static final int DEFAULT_RECENT_EVENTS = 1000;
+
+    /**
+     * Default number of recent Socket Mode envelope ids remembered for redelivery detection.
+     */
+    private static final int DEFAULT_SOCKET_RECENT_ENVELOPES = 1000;
+
+    /**
+     * Default time allowed to establish a Web API connection.
+     */
+    private static final long DEFAULT_WEB_API_CONNECT_TIMEOUT_SECONDS = 5L;
+
+    /**
+     * Default time allowed for a single Web API call.
+     */
+    private static final long DEFAULT_WEB_API_REQUEST_TIMEOUT_SECONDS = 10L;
+
+    /**
+     * Default fraction of shadow deliveries whose payload is kept.
+     */
+    private static final double DEFAULT_SHADOW_SAMPLE_RATE = 0.01;
+
+    /**
+     * Default number of sampled shadow payloads kept.
+     */
+    private static final int DEFAULT_SHADOW_SAMPLE_CAPACITY = 200;
+
+    /**
+     * Default time covered by one history segment.
+     */
+    private static final long DEFAULT_HISTORY_SEGMENT_HOURS = 1L;
+
+    /**
+     * Default time history segments are kept.
+     */
+    private static final long DEFAULT_HISTORY_RETENTION_DAYS = 30L;
+
+    /**
+     * Default number of recent messages indexed per user.
+     */
+    private static final int DEFAULT_HISTORY_PER_USER = 50;
+
+    /**
+     * Default number of history entries waiting to be written.
+     */
+    private static final int DEFAULT_HISTORY_QUEUE_CAPACITY = 10000;
+
+    /**
+     * Default number of messages a user may post within the admission window.
+     */
+    private static final int DEFAULT_ADMISSION_MAX_MESSAGES = 10;
+
+    /**
+     * Default length of the admission window.
+     */
+    private static final long DEFAULT_ADMISSION_WINDOW_SECONDS = 10L;
+
+    /**
+     * Default number of users tracked by admission control.
+     */
+    private static final int DEFAULT_ADMISSION_MAX_USERS = 50000;
+
+    /**
+     * Default time after which an idle user is no longer tracked.
+     */
+    private static final long DEFAULT_ADMISSION_IDLE_EXPIRY_MINUTES = 5L;
+
+    /**
+     * Default age of the oldest data kept by a continuous flight recording.
+     */
+    private static final long DEFAULT_PROFILING_MAX_AGE_HOURS = 6L;
+
+    /**
+     * Default size of the data kept by a continuous flight recording, in megabytes.
+     */
+    private static final long DEFAULT_PROFILING_MAX_SIZE_MB = 256L;
+
+    /**
+     * Default duration from which a trace is always kept.
+     */
+    private static final long DEFAULT_TRACING_SLOW_THRESHOLD_SECONDS = 2L;
+
+    /**
+     * Default share of fast, successful traces kept.
+     */
+    private static final double DEFAULT_TRACING_BASELINE_RATE = 0.01;
+
+    /**
+     * Default time a trace must be quiet before it is sampled.
+     */
+    private static final long DEFAULT_TRACING_DECISION_WAIT_SECONDS = 10L;
+
+    /**
+     * Default number of traces held while waiting to be sampled.
+     */
+    private static final int DEFAULT_TRACING_MAX_TRACES = 10000;
+
+    /**
+     * Default number of quiz sessions running at once.
+     */
+    private static final int DEFAULT_QUIZ_MAX_SESSIONS = 10000;
+
+    /**
+     * Default time after which a quiz session without replies ends.
+     */
+    private static final long DEFAULT_QUIZ_IDLE_TIMEOUT_MINUTES = 60L;
+
+    /**
+     * Default number of threads prefetching and rendering upcoming questions.
+     */
+    private static final int DEFAULT_QUIZ_PREFETCH_THREADS = 4;
+
+    /**
+     * Default time within which a repeated notification request is suppressed.
+     */
+    private static final long DEFAULT_IDEMPOTENCY_WINDOW_HOURS = 24L;
+
+    /**
+     * Default number of idempotency keys remembered.
+     */
+    private static final int DEFAULT_IDEMPOTENCY_MAX_KEYS = 100000;
+
     /**
      * Slack BOT Token.
      */
@@ -33,9 +330,798 @@ public class ApplicationProperties {
      */
     private String groundSchoolChannel;
 
+    /**
+     * Slack signing secret used to verify Events API requests.
+     */
+    private String signingSecret;
+
+    /**
+     * Slack app-level token used to open Socket Mode connections.
+     */
+    private String appToken;
+
     /**
      * Slack enabled.
      */
     private boolean enabled;
 
+    /**
+     * How inbound Slack messages are received.
+     */
+    private InboundMode inboundMode = InboundMode.RTM;
+
+    /**
+     * Number of recent Events API event ids remembered so events Slack retries are acknowledged but not handled
+     * twice.
+     */
+    private int recentEvents = DEFAULT_RECENT_EVENTS;
+
+    /**
+     * Additional organizations, keyed by organization name. The top level token and channel are served as
+     * the default organization.
+     */
+    private Map<String, Organization> organizations = new LinkedHashMap<>();
+
+    /**
+     * Outbound dispatch settings.
+     */
+    private Dispatch dispatch = new Dispatch();
+
+    /**
+     * User response write-back settings.
+     */
+    private Responses responses = new Responses();
+
+    /**
+     * Notification template settings.
+     */
+    private Templates templates = new Templates();
+
+    /**
+     * Broker intake settings.
+     */
+    private Intake intake = new Intake();
+
+    /**
+     * Shutdown settings.
+     */
+    private Shutdown shutdown = new Shutdown();
+
+    /**
+     * Slack directory settings.
+     */
+    private Directory directory = new Directory();
+
+    /**
+     * User, event, question and quiz lookup settings.
+     */
+    private Loader loader = new Loader();
+
+    /**
+     * Inbound message recording settings.
+     */
+    private Recorder recorder = new Recorder();
+
+    /**
+     * Socket Mode settings.
+     */
+    private Socket socket = new Socket();
+
+    /**
+     * Web API settings, used for delivery when enabled and for user lookups outside RTM inbound mode.
+     */
+    private WebApi webApi = new WebApi();
+
+    /**
+     * Shadow dispatch settings.
+     */
+    private Shadow shadow = new Shadow();
+
+    /**
+     * Sent-message history settings.
+     */
+    private History history = new History();
+
+    /**
+     * Inbound admission control settings.
+     */
+    private Admission admission = new Admission();
+
+    /**
+     * Flight recording settings.
+     */
+    private Profiling profiling = new Profiling();
+
+    /**
+     * Distributed tracing settings.
+     */
+    private Tracing tracing = new Tracing();
+
+    /**
+     * Quiz session settings.
+     */
+    private Quiz quiz = new Quiz();
+
+    /**
+     * Startup settings.
+     */
+    private Startup startup = new Startup();
+
+    /**
+     * Duplicate notification suppression settings.
+     */
+    private Idempotency idempotency = new Idempotency();
+
+    /**
+     * Admin endpoint settings.
+     */
+    private Admin admin = new Admin();
+
+    /**
+     * File users who replied STOP are persisted to. Blank to keep them in memory only.
+     */
+    private String optOutFile;
+
+    /**
+     * How inbound Slack messages are received.
+     */
+    public enum InboundMode {
+
+        /**
+         * Each replica holds an RTM websocket session.
+         */
+        RTM,
+
+        /**
+         * Slack posts Events API callbacks to any replica behind the ingress.
+         */
+        EVENTS,
+
+        /**
+         * Each replica holds Socket Mode websockets Slack pushes Events API envelopes over.
+         */
+        SOCKET
+    }
+
+    /**
+     * Per-organization Slack workspace settings.
+     */
+    @Data
+    public static class Organization {
+
+        /**
+         * Slack BOT Token for the organization's workspace.
+         */
+        private String token;
+
+        /**
+         * Slack GroundSchool Channel for the organization.
+         */
+        private String groundSchoolChannel;
+
+        /**
+         * Slack signing secret used to verify the organization's Events API requests.
+         */
+        private String signingSecret;
+
+        /**
+         * Slack app-level token used to open the organization's Socket Mode connections.
+         */
+        private String appToken;
+
+        /**
+         * Sustained send rate for the organization.
+         */
+        private double messagesPerSecond = DEFAULT_MESSAGES_PER_SECOND;
+
+        /**
+         * Number of messages which may be sent in a burst above the sustained rate.
+         */
+        private int burst = DEFAULT_BURST;
+
+        /**
+         * Number of rate-limit tokens only the interactive lane may use.
+         */
+        private int interactiveReserve = DEFAULT_INTERACTIVE_RESERVE;
+
+        /**
+         * Maximum number of messages waiting to be sent for the organization.
+         */
+        private int queueCapacity = CommonConstants.MAX_QUEUE_SIZE;
+    }
+
+    /**
+     * Outbound dispatch settings.
+     */
+    @Data
+    public static class Dispatch {
+
+        /**
+         * Maximum number of Slack calls in flight across all organizations.
+         */
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+        /**
+         * Number of threads performing blocking Slack calls.
+         */
+        private int deliveryThreads = DEFAULT_DELIVERY_THREADS;
+
+        /**
+         * Number of in-flight Slack calls only the interactive lane may use.
+         */
+        private int reservedInFlight = DEFAULT_RESERVED_IN_FLIGHT;
+
+        /**
+         * Scheduling weight of each lane within an organization.
+         */
+        private Map<Lane, Integer> laneWeights = defaultLaneWeights();
+
+        /**
+         * Delivery attempts before a message is dead-lettered.
+         */
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+        /**
+         * Backoff ceiling before the first retry; doubled on each attempt and jittered.
+         */
+        private Duration retryInitialBackoff = Duration.ofMillis(DEFAULT_RETRY_INITIAL_BACKOFF_MS);
+
+        /**
+         * Maximum backoff ceiling.
+         */
+        private Duration retryMaxBackoff = Duration.ofSeconds(DEFAULT_RETRY_MAX_BACKOFF_SECONDS);
+
+        /**
+         * Consecutive failures which open an organization's circuit.
+         */
+        private int circuitFailureThreshold = DEFAULT_CIRCUIT_FAILURE_THRESHOLD;
+
+        /**
+         * Time a circuit stays open before a probe message is let through.
+         */
+        private Duration circuitOpenDuration = Duration.ofSeconds(DEFAULT_CIRCUIT_OPEN_SECONDS);
+
+        /**
+         * Maximum number of dead letters kept.
+         */
+        private int deadLetterCapacity = DEFAULT_DEAD_LETTER_CAPACITY;
+    }
+
+    /**
+     * Default scheduling weight of each lane.
+     *
+     * @return lane weights
+     */
+    private static Map<Lane, Integer> defaultLaneWeights() {
+        final Map<Lane, Integer> weights = new EnumMap<>(Lane.class);
+        for (Lane lane : Lane.values()) {
+            weights.put(lane, lane.getDefaultWeight());
+        }
+        return weights;
+    }
+
+    /**
+     * User response write-back settings.
+     */
+    @Data
+    public static class Responses {
+
+        /**
+         * Upstream GroundSchool endpoint accepting batches of user responses.
+         */
+        private String upstreamUrl;
+
+        /**
+         * Maximum number of responses posted in one call.
+         */
+        private int batchSize = DEFAULT_RESPONSE_BATCH_SIZE;
+
+        /**
+         * Maximum time a response waits before its batch is flushed.
+         */
+        private Duration flushInterval = Duration.ofMillis(DEFAULT_RESPONSE_FLUSH_INTERVAL_MS);
+
+        /**
+         * Number of retries for a failed batch.
+         */
+        private int maxRetries = DEFAULT_RESPONSE_MAX_RETRIES;
+
+        /**
+         * Initial backoff between retries, doubled on each attempt.
+         */
+        private Duration retryBackoff = Duration.ofMillis(DEFAULT_RESPONSE_RETRY_BACKOFF_MS);
+
+        /**
+         * Time pending responses are still flushed and retried for at shutdown.
+         */
+        private Duration drainTimeout = Duration.ofSeconds(DEFAULT_RESPONSE_DRAIN_TIMEOUT_SECONDS);
+
+        /**
+         * Maximum number of responses waiting to be flushed.
+         */
+        private int queueCapacity = CommonConstants.MAX_QUEUE_SIZE;
+    }
+
+    /**
+     * Notification template settings.
+     */
+    @Data
+    public static class Templates {
+
+        /**
+         * External directory whose .ftl files override the bundled templates and are reloaded when changed.
+         * Blank to use the bundled templates only.
+         */
+        private String directory;
+    }
+
+    /**
+     * Broker intake settings.
+     */
+    @Data
+    public static class Intake {
+
+        /**
+         * How notification requests are received besides direct calls.
+         */
+        private IntakeMode mode = IntakeMode.NONE;
+
+        /**
+         * Queue notification requests are consumed from.
+         */
+        private String queue = "slack.notifications";
+
+        /**
+         * Queue requests the handler failed on are moved to.
+         */
+        private String deadLetterQueue = "slack.notifications.dlq";
+
+        /**
+         * Number of consumer threads.
+         */
+        private int concurrency = DEFAULT_INTAKE_CONCURRENCY;
+
+        /**
+         * Maximum number of requests committed together.
+         */
+        private int batchSize = DEFAULT_INTAKE_BATCH_SIZE;
+
+        /**
+         * Time a consumer waits for the first request of a batch.
+         */
+        private Duration receiveTimeout = Duration.ofMillis(DEFAULT_INTAKE_RECEIVE_TIMEOUT_MS);
+
+        /**
+         * Requests the broker sends ahead to each consumer, applied as the Artemis consumer window size.
+         */
+        private DataSize prefetch = DataSize.ofKilobytes(DEFAULT_INTAKE_PREFETCH_KB);
+    }
+
+    /**
+     * Shutdown settings.
+     */
+    @Data
+    public static class Shutdown {
+
+        /**
+         * Maximum time spent sending queued messages before shutting down.
+         */
+        private Duration drainTimeout = Duration.ofSeconds(DEFAULT_DRAIN_TIMEOUT_SECONDS);
+
+        /**
+         * File messages still queued after the drain are written to and restored from at startup. Each
+         * instance adds its name to the file name. Blank to drop them.
+         */
+        private String spoolFile;
+
+        /**
+         * Name of this instance in its spool file name. Blank for the host name, the pod name in Kubernetes.
+         */
+        private String instance;
+    }
+
+    /**
+     * Slack directory settings.
+     */
+    @Data
+    public static class Directory {
+
+        /**
+         * Directory holding each organization's user and channel snapshot. Blank to not persist snapshots.
+         */
+        private String snapshotDir;
+
+        /**
+         * Interval between reconciling the directories with Slack.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(DEFAULT_DIRECTORY_REFRESH_MINUTES);
+
+        /**
+         * Whether to pack each directory into primitive arrays and fill it as lookups miss rather than when the
+         * session connects, for very large workspaces.
+         */
+        private boolean compact;
+    }
+
+    /**
+     * User, event, question and quiz lookup settings.
+     */
+    @Data
+    public static class Loader {
+
+        /**
+         * Time entity IDs are collected before they are fetched together.
+         */
+        private Duration batchWindow = Duration.ofMillis(DEFAULT_LOADER_BATCH_WINDOW_MS);
+
+        /**
+         * Maximum number of entity IDs fetched in one call.
+         */
+        private int maxBatchSize = DEFAULT_LOADER_MAX_BATCH_SIZE;
+
+        /**
+         * Number of cached entities per type.
+         */
+        private int cacheSize = DEFAULT_LOADER_CACHE_SIZE;
+
+        /**
+         * Age after which a cached entity is no longer served.
+         */
+        private Duration ttl = Duration.ofMinutes(DEFAULT_LOADER_TTL_MINUTES);
+
+        /**
+         * Age after which a cached entity is refreshed in the background while still being served.
+         */
+        private Duration refreshAfter = Duration.ofMinutes(DEFAULT_LOADER_REFRESH_AFTER_MINUTES);
+
+        /**
+         * Time a lookup waits for the upstream service.
+         */
+        private Duration timeout = Duration.ofSeconds(DEFAULT_LOADER_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Inbound message recording settings.
+     */
+    @Data
+    public static class Recorder {
+
+        /**
+         * Whether inbound RTM messages are recorded.
+         */
+        private boolean enabled;
+
+        /**
+         * Directory recordings are written to, one file per start.
+         */
+        private String directory = "data/recordings";
+
+        /**
+         * Whether user names are replaced with pseudonyms and unrecognized texts masked.
+         */
+        private boolean anonymize = true;
+
+        /**
+         * Size at which a recording stops.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(DEFAULT_RECORDER_MAX_SIZE_MB);
+
+        /**
+         * Messages which may wait to be recorded before further ones are left out of the recording.
+         */
+        private int queueCapacity = DEFAULT_RECORDER_QUEUE_CAPACITY;
+    }
+
+    /**
+     * Socket Mode settings.
+     */
+    @Data
+    public static class Socket {
+
+        /**
+         * Web API method returning a Socket Mode websocket URL.
+         */
+        private String connectionsOpenUrl = "https://slack.com/api/apps.connections.open";
+
+        /**
+         * Delay ceiling before the first reconnect attempt.
+         */
+        private Duration reconnectInitialBackoff = Duration.ofSeconds(DEFAULT_SOCKET_INITIAL_BACKOFF_SECONDS);
+
+        /**
+         * Largest delay between reconnect attempts.
+         */
+        private Duration reconnectMaxBackoff = Duration.ofSeconds(DEFAULT_SOCKET_MAX_BACKOFF_SECONDS);
+
+        /**
+         * Number of recent envelope ids remembered so redeliveries are acknowledged but not handled twice.
+         */
+        private int recentEnvelopes = DEFAULT_SOCKET_RECENT_ENVELOPES;
+    }
+
+    /**
+     * Web API settings, used for delivery when enabled and for user lookups outside RTM inbound mode.
+     */
+    @Data
+    public static class WebApi {
+
+        /**
+         * Whether messages are posted through the Web API rather than the RTM session.
+         */
+        private boolean enabled;
+
+        /**
+         * Web API base URL.
+         */
+        private String baseUrl = "https://slack.com/api";
+
+        /**
+         * Time allowed to establish a connection.
+         */
+        private Duration connectTimeout = Duration.ofSeconds(DEFAULT_WEB_API_CONNECT_TIMEOUT_SECONDS);
+
+        /**
+         * Time allowed for a single call, from sending the request to receiving the response.
+         */
+        private Duration requestTimeout = Duration.ofSeconds(DEFAULT_WEB_API_REQUEST_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Shadow dispatch settings. In shadow mode messages go through lookup, rendering, rate limiting and queuing
+     * as usual, but are delivered into a capture sink instead of Slack.
+     */
+    @Data
+    public static class Shadow {
+
+        /**
+         * Whether messages are captured instead of sent. Takes effect even when Slack is not enabled.
+         */
+        private boolean enabled;
+
+        /**
+         * Fraction of captured messages whose payload is kept for inspection, from 0 to 1.
+         */
+        private double sampleRate = DEFAULT_SHADOW_SAMPLE_RATE;
+
+        /**
+         * Number of sampled payloads kept. Once full, the oldest sample is evicted.
+         */
+        private int sampleCapacity = DEFAULT_SHADOW_SAMPLE_CAPACITY;
+
+        /**
+         * Time each capture takes, standing in for the Slack call so in-flight limits behave as in production.
+         */
+        private Duration simulatedLatency = Duration.ZERO;
+    }
+
+    /**
+     * Sent-message history settings.
+     */
+    @Data
+    public static class History {
+
+        /**
+         * Whether delivery attempts are kept in the history.
+         */
+        private boolean enabled;
+
+        /**
+         * Directory history segments are written to.
+         */
+        private String directory = "data/history";
+
+        /**
+         * Time covered by one segment.
+         */
+        private Duration segmentDuration = Duration.ofHours(DEFAULT_HISTORY_SEGMENT_HOURS);
+
+        /**
+         * Time segments are kept before they are deleted.
+         */
+        private Duration retention = Duration.ofDays(DEFAULT_HISTORY_RETENTION_DAYS);
+
+        /**
+         * Number of recent messages indexed per user.
+         */
+        private int perUser = DEFAULT_HISTORY_PER_USER;
+
+        /**
+         * Entries which may wait to be written before further ones are left out of the history.
+         */
+        private int queueCapacity = DEFAULT_HISTORY_QUEUE_CAPACITY;
+    }
+
+    /**
+     * Inbound admission control settings. Messages a user posts beyond the limit are dropped before validation.
+     */
+    @Data
+    public static class Admission {
+
+        /**
+         * Whether inbound messages are rate limited per user.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of messages a user may post within a window.
+         */
+        private int maxMessages = DEFAULT_ADMISSION_MAX_MESSAGES;
+
+        /**
+         * Length of the sliding window.
+         */
+        private Duration window = Duration.ofSeconds(DEFAULT_ADMISSION_WINDOW_SECONDS);
+
+        /**
+         * Number of users tracked. Once full, the least recently active user is forgotten.
+         */
+        private int maxUsers = DEFAULT_ADMISSION_MAX_USERS;
+
+        /**
+         * Time after which a user who posted nothing is forgotten.
+         */
+        private Duration idleExpiry = Duration.ofMinutes(DEFAULT_ADMISSION_IDLE_EXPIRY_MINUTES);
+    }
+
+    /**
+     * Flight recording settings.
+     */
+    @Data
+    public static class Profiling {
+
+        /**
+         * Whether a continuous flight recording with the bundled jfr/slack.jfc profile runs from start-up.
+         */
+        private boolean enabled;
+
+        /**
+         * Directory the recording is dumped to when the application stops.
+         */
+        private String directory = "data/jfr";
+
+        /**
+         * Age of the oldest data kept.
+         */
+        private Duration maxAge = Duration.ofHours(DEFAULT_PROFILING_MAX_AGE_HOURS);
+
+        /**
+         * Size of the data kept.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(DEFAULT_PROFILING_MAX_SIZE_MB);
+    }
+
+    /**
+     * Distributed tracing settings. Every trace is recorded and kept or dropped once it has finished: failed and
+     * slow traces are always exported, others at the baseline rate.
+     */
+    @Data
+    public static class Tracing {
+
+        /**
+         * Whether traces are recorded.
+         */
+        private boolean enabled;
+
+        /**
+         * Duration from which a trace is always kept.
+         */
+        private Duration slowThreshold = Duration.ofSeconds(DEFAULT_TRACING_SLOW_THRESHOLD_SECONDS);
+
+        /**
+         * Share of fast, successful traces kept, from 0 to 1.
+         */
+        private double baselineRate = DEFAULT_TRACING_BASELINE_RATE;
+
+        /**
+         * Time a trace must be quiet before it is kept or dropped.
+         */
+        private Duration decisionWait = Duration.ofSeconds(DEFAULT_TRACING_DECISION_WAIT_SECONDS);
+
+        /**
+         * Number of traces held while waiting for a decision. Further traces are dropped.
+         */
+        private int maxTraces = DEFAULT_TRACING_MAX_TRACES;
+    }
+
+    /**
+     * Quiz session settings.
+     */
+    @Data
+    public static class Quiz {
+
+        /**
+         * Whether quiz sessions can be started and are driven by replies.
+         */
+        private boolean enabled;
+
+        /**
+         * Number of sessions running at once.
+         */
+        private int maxSessions = DEFAULT_QUIZ_MAX_SESSIONS;
+
+        /**
+         * Time after which a session without replies ends.
+         */
+        private Duration idleTimeout = Duration.ofMinutes(DEFAULT_QUIZ_IDLE_TIMEOUT_MINUTES);
+
+        /**
+         * Number of threads prefetching and rendering upcoming questions.
+         */
+        private int prefetchThreads = DEFAULT_QUIZ_PREFETCH_THREADS;
+    }
+
+    /**
+     * Startup settings. The fast-start profile turns on lazy initialization and background warm-up.
+     */
+    @Data
+    public static class Startup {
+
+        /**
+         * Whether templates are parsed on a background thread instead of before the context is ready.
+         */
+        private boolean backgroundWarmUp;
+
+        /**
+         * Whether to exit as soon as the application is ready, to record the classes a start loads.
+         */
+        private boolean trainingRun;
+    }
+
+    /**
+     * Duplicate notification suppression settings. Each request is keyed by the caller's idempotency key, or a
+     * hash of its type and JSON encoding, and a key seen again within the window is not sent.
+     */
+    @Data
+    public static class Idempotency {
+
+        /**
+         * Whether repeated notification requests are suppressed.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Time within which a repeated request is suppressed.
+         */
+        private Duration window = Duration.ofHours(DEFAULT_IDEMPOTENCY_WINDOW_HOURS);
+
+        /**
+         * Number of keys remembered; the oldest are forgotten first.
+         */
+        private int maxKeys = DEFAULT_IDEMPOTENCY_MAX_KEYS;
+
+        /**
+         * File keys are persisted to, so repeats are suppressed across restarts. Blank to keep them in memory
+         * only.
+         */
+        private String file;
+    }
+
+    /**
+     * Admin endpoint settings.
+     */
+    @Data
+    public static class Admin {
+
+        /**
+         * Bearer token the /admin endpoints require. Blank refuses every admin request.
+         */
+        private String token;
+    }
+
+    /**
+     * How notification requests are received besides direct calls.
+     */
+    public enum IntakeMode {
+
+        /**
+         * Direct calls only.
+         */
+        NONE,
+
+        /**
+         * Also consumed from a JMS queue.
+         */
+        JMS
+    }
+
 }
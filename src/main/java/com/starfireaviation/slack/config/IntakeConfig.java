@@ -0,0 +1,87 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.intake.JmsMessageIntake;
+import com.starfireaviation.slack.intake.MessageIntake;
+import com.starfireaviation.slack.intake.MessageRouter;
+import com.starfireaviation.slack.service.MessageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jms.connection.CachingConnectionFactory;
+
+import javax.jms.ConnectionFactory;
+
+/**
+ * Broker intake configuration, enabled with slack.intake.mode=jms. The ConnectionFactory is Spring Boot's
+ * Artemis one, configured through the spring.artemis properties.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "slack.intake", name = "mode", havingValue = "jms")
+public class IntakeConfig {
+
+    /**
+     * MessageRouter.
+     *
+     * @param messageService MessageService
+     * @return MessageRouter
+     */
+    @Bean
+    public MessageRouter messageRouter(final MessageService messageService) {
+        return new MessageRouter(messageService);
+    }
+
+    /**
+     * MessageIntake.
+     *
+     * @param connectionFactory ConnectionFactory
+     * @param messageRouter MessageRouter
+     * @param objectMapper ObjectMapper
+     * @param aProps ApplicationProperties
+     * @param meterRegistry MeterRegistry
+     * @param openTelemetry OpenTelemetry
+     * @return MessageIntake
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public MessageIntake messageIntake(final ConnectionFactory connectionFactory,
+                                       final MessageRouter messageRouter,
+                                       final ObjectMapper objectMapper,
+                                       final ApplicationProperties aProps,
+                                       final MeterRegistry meterRegistry,
+                                       final OpenTelemetry openTelemetry) {
+        final ApplicationProperties.Intake intake = aProps.getIntake();
+        ConnectionFactory target = connectionFactory;
+        if (target instanceof CachingConnectionFactory) {
+            target = ((CachingConnectionFactory) target).getTargetConnectionFactory();
+        }
+        if (target instanceof ActiveMQConnectionFactory) {
+            ((ActiveMQConnectionFactory) target).setConsumerWindowSize(
+                    (int) Math.min(Integer.MAX_VALUE, intake.getPrefetch().toBytes()));
+        } else {
+            log.warn("Intake prefetch only applies to Artemis connection factories; using the broker default");
+        }
+        return new JmsMessageIntake(connectionFactory, messageRouter, objectMapper, intake, meterRegistry,
+                openTelemetry);
+    }
+}
@@ -16,11 +16,58 @@
 
 package com.starfireaviation.slack.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.client.DiscardingResponseTransport;
+import com.starfireaviation.slack.client.EmptyEntityTransport;
+import com.starfireaviation.slack.client.EntityTransport;
+import com.starfireaviation.slack.client.EventCallbackListener;
+import com.starfireaviation.slack.client.HttpResponseTransport;
+import com.starfireaviation.slack.client.MessageDelivery;
+import com.starfireaviation.slack.client.ResponseTransport;
+import com.starfireaviation.slack.client.SlackSessionDelivery;
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.client.SlackWebApiClient;
+import com.starfireaviation.slack.client.WebApiDelivery;
+import com.starfireaviation.slack.intake.MessageIntake;
+import com.starfireaviation.slack.service.CaptureDelivery;
+import com.starfireaviation.slack.service.CaptureSink;
+import com.starfireaviation.slack.service.DeadLetterStore;
+import com.starfireaviation.slack.service.DirectoryRefresher;
+import com.starfireaviation.slack.service.EntityLoader;
+import com.starfireaviation.slack.service.EventCallbackHandler;
+import com.starfireaviation.slack.service.FlightRecording;
+import com.starfireaviation.slack.service.GracefulShutdown;
+import com.starfireaviation.slack.service.HistoryDelivery;
+import com.starfireaviation.slack.service.IdempotencyStore;
+import com.starfireaviation.slack.service.InboundAdmission;
+import com.starfireaviation.slack.service.InboundRecorder;
+import com.starfireaviation.slack.service.MessageHistory;
 import com.starfireaviation.slack.service.MessageService;
+import com.starfireaviation.slack.service.OptOutIndex;
+import com.starfireaviation.slack.service.OutboundDispatcher;
+import com.starfireaviation.slack.service.OutboundSpool;
+import com.starfireaviation.slack.service.QuizRunner;
+import com.starfireaviation.slack.service.RecordingMessageListener;
+import com.starfireaviation.slack.service.ResponseSink;
+import com.starfireaviation.slack.service.TemplateCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.http.HttpClient;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
 @Configuration
 @EnableConfigurationProperties({
         ApplicationProperties.class,
@@ -31,13 +78,438 @@ public class ServiceConfig {
      * MessageService.
      *
      * @param aProps ApplicationProperties
-     * @param config Freemarker configuration
+     * @param templateCache TemplateCache
+     * @param responseSink ResponseSink
+     * @param slackSessionPool SlackSessionPool
+     * @param outboundDispatcher OutboundDispatcher
+     * @param optOutIndex OptOutIndex
+     * @param entityLoader EntityLoader
      * @return MessageService
      */
     @Bean
     public MessageService messageService(final ApplicationProperties aProps,
-                                         final freemarker.template.Configuration config) {
-        return new MessageService(aProps, config);
+                                         final TemplateCache templateCache,
+                                         final ResponseSink responseSink,
+                                         final SlackSessionPool slackSessionPool,
+                                         final OutboundDispatcher outboundDispatcher,
+                                         final OptOutIndex optOutIndex,
+                                         final EntityLoader entityLoader) {
+        final MessageService messageService = new MessageService(aProps, templateCache, responseSink,
+                slackSessionPool, outboundDispatcher, optOutIndex, entityLoader);
+        if (aProps.getInboundMode() == ApplicationProperties.InboundMode.RTM) {
+            slackSessionPool.setMessagePostedListener(messageService);
+        }
+        return messageService;
+    }
+
+    /**
+     * InboundAdmission, applied by the MessageService to inbound messages when enabled.
+     *
+     * @param aProps ApplicationProperties
+     * @param messageService MessageService
+     * @param meterRegistry MeterRegistry
+     * @return InboundAdmission
+     */
+    @Bean
+    public InboundAdmission inboundAdmission(final ApplicationProperties aProps,
+                                             final MessageService messageService,
+                                             final MeterRegistry meterRegistry) {
+        final InboundAdmission inboundAdmission = new InboundAdmission(aProps.getAdmission(), meterRegistry);
+        if (aProps.getAdmission().isEnabled()) {
+            messageService.setInboundAdmission(inboundAdmission);
+        }
+        return inboundAdmission;
+    }
+
+    /**
+     * IdempotencyStore, which the MessageService suppresses repeated notification requests with.
+     *
+     * @param aProps ApplicationProperties
+     * @param messageService MessageService
+     * @param objectMapper ObjectMapper
+     * @param meterRegistry MeterRegistry
+     * @return IdempotencyStore
+     */
+    @Bean(initMethod = "load", destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "slack.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public IdempotencyStore idempotencyStore(final ApplicationProperties aProps,
+                                             final MessageService messageService,
+                                             final ObjectMapper objectMapper,
+                                             final MeterRegistry meterRegistry) {
+        final IdempotencyStore idempotencyStore = new IdempotencyStore(aProps.getIdempotency(), objectMapper,
+                meterRegistry);
+        messageService.setIdempotencyStore(idempotencyStore);
+        return idempotencyStore;
+    }
+
+    /**
+     * QuizRunner, passed users' replies by the MessageService when quizzes are enabled.
+     *
+     * @param aProps ApplicationProperties
+     * @param messageService MessageService
+     * @param entityLoader EntityLoader
+     * @param templateCache TemplateCache
+     * @param outboundDispatcher OutboundDispatcher
+     * @param optOutIndex OptOutIndex
+     * @param meterRegistry MeterRegistry
+     * @return QuizRunner
+     */
+    @Bean(destroyMethod = "shutdown")
+    public QuizRunner quizRunner(final ApplicationProperties aProps,
+                                 final MessageService messageService,
+                                 final EntityLoader entityLoader,
+                                 final TemplateCache templateCache,
+                                 final OutboundDispatcher outboundDispatcher,
+                                 final OptOutIndex optOutIndex,
+                                 final MeterRegistry meterRegistry) {
+        final QuizRunner quizRunner = new QuizRunner(aProps, entityLoader, templateCache, outboundDispatcher,
+                optOutIndex, meterRegistry);
+        if (aProps.getQuiz().isEnabled()) {
+            messageService.setQuizRunner(quizRunner);
+        }
+        return quizRunner;
+    }
+
+    /**
+     * InboundRecorder. When recording RTM messages, the listener set by the MessageService bean is wrapped so
+     * messages are recorded before they are handled.
+     *
+     * @param aProps ApplicationProperties
+     * @param messageService MessageService
+     * @param slackSessionPool SlackSessionPool
+     * @param meterRegistry MeterRegistry
+     * @return InboundRecorder
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public InboundRecorder inboundRecorder(final ApplicationProperties aProps,
+                                           final MessageService messageService,
+                                           final SlackSessionPool slackSessionPool,
+                                           final MeterRegistry meterRegistry) {
+        final InboundRecorder inboundRecorder = new InboundRecorder(aProps.getRecorder(), meterRegistry);
+        if (aProps.getRecorder().isEnabled() && aProps.getInboundMode() == ApplicationProperties.InboundMode.RTM) {
+            slackSessionPool.setMessagePostedListener(
+                    new RecordingMessageListener(messageService, inboundRecorder, slackSessionPool));
+        }
+        return inboundRecorder;
+    }
+
+    /**
+     * SlackSessionPool. Outside RTM inbound mode user names are looked up through the Web API, so resolving
+     * the sender of an inbound event never opens an RTM connection.
+     *
+     * @param aProps ApplicationProperties
+     * @param slackWebApiClient SlackWebApiClient
+     * @return SlackSessionPool
+     */
+    @Bean(destroyMethod = "shutdown")
+    public SlackSessionPool slackSessionPool(final ApplicationProperties aProps,
+                                             final SlackWebApiClient slackWebApiClient) {
+        final SlackSessionPool slackSessionPool = new SlackSessionPool(aProps);
+        if (aProps.getInboundMode() != ApplicationProperties.InboundMode.RTM) {
+            slackSessionPool.getAll().forEach(session -> session.setWebApiClient(slackWebApiClient));
+        }
+        return slackSessionPool;
+    }
+
+    /**
+     * SlackWebApiClient.
+     *
+     * @param aProps ApplicationProperties
+     * @param objectMapper ObjectMapper
+     * @param meterRegistry MeterRegistry
+     * @return SlackWebApiClient
+     */
+    @Bean
+    public SlackWebApiClient slackWebApiClient(final ApplicationProperties aProps,
+                                               final ObjectMapper objectMapper,
+                                               final MeterRegistry meterRegistry) {
+        final ApplicationProperties.WebApi webApi = aProps.getWebApi();
+        final HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(webApi.getConnectTimeout())
+                .build();
+        return new SlackWebApiClient(httpClient, objectMapper, webApi, meterRegistry);
+    }
+
+    /**
+     * Executor running blocking Slack calls.
+     *
+     * @param aProps ApplicationProperties
+     * @return ExecutorService
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService slackDeliveryExecutor(final ApplicationProperties aProps) {
+        return Executors.newFixedThreadPool(aProps.getDispatch().getDeliveryThreads());
+    }
+
+    /**
+     * Executor handling Events API callbacks after they have been acknowledged.
+     *
+     * @return ExecutorService
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService slackEventExecutor() {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(CommonConstants.MAX_QUEUE_SIZE));
+    }
+
+    /**
+     * EventCallbackListener.
+     *
+     * @param messageService MessageService
+     * @param slackEventExecutor executor handling events after they have been acknowledged
+     * @param aProps ApplicationProperties
+     * @param meterRegistry MeterRegistry
+     * @return EventCallbackListener
+     */
+    @Bean
+    public EventCallbackListener eventCallbackListener(
+            final MessageService messageService,
+            @Qualifier("slackEventExecutor") final ExecutorService slackEventExecutor,
+            final ApplicationProperties aProps,
+            final MeterRegistry meterRegistry) {
+        return new EventCallbackHandler(messageService, slackEventExecutor, aProps.getRecentEvents(),
+                meterRegistry);
+    }
+
+    /**
+     * CaptureSink, receiving messages instead of Slack in shadow mode.
+     *
+     * @param aProps ApplicationProperties
+     * @param meterRegistry MeterRegistry
+     * @return CaptureSink
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "slack.shadow", name = "enabled", havingValue = "true")
+    public CaptureSink captureSink(final ApplicationProperties aProps, final MeterRegistry meterRegistry) {
+        return new CaptureSink(aProps.getShadow(), meterRegistry);
+    }
+
+    /**
+     * MessageDelivery. Captures messages in shadow mode; otherwise posts through the Web API when enabled,
+     * falling back to the RTM session for recipients the directory does not know yet.
+     *
+     * @param slackDeliveryExecutor executor running blocking Slack calls
+     * @param aProps ApplicationProperties
+     * @param slackWebApiClient SlackWebApiClient
+     * @param captureSink CaptureSink, present in shadow mode
+     * @param messageHistory MessageHistory recording every attempt when enabled
+     * @return MessageDelivery
+     */
+    @Bean
+    public MessageDelivery messageDelivery(
+            @Qualifier("slackDeliveryExecutor") final ExecutorService slackDeliveryExecutor,
+            final ApplicationProperties aProps,
+            final SlackWebApiClient slackWebApiClient,
+            final ObjectProvider<CaptureSink> captureSink,
+            final MessageHistory messageHistory) {
+        final CaptureSink sink = captureSink.getIfAvailable();
+        if (sink != null) {
+            log.info("Shadow mode: messages are captured instead of sent to Slack");
+            return new CaptureDelivery(sink, aProps.getShadow().getSimulatedLatency());
+        }
+        final MessageDelivery sessionDelivery = new SlackSessionDelivery(slackDeliveryExecutor);
+        MessageDelivery delivery = sessionDelivery;
+        if (aProps.getWebApi().isEnabled()) {
+            delivery = new WebApiDelivery(slackWebApiClient, sessionDelivery);
+        }
+        if (aProps.getHistory().isEnabled()) {
+            delivery = new HistoryDelivery(delivery, messageHistory);
+        }
+        return delivery;
+    }
+
+    /**
+     * MessageHistory.
+     *
+     * @param aProps ApplicationProperties
+     * @param meterRegistry MeterRegistry
+     * @return MessageHistory
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public MessageHistory messageHistory(final ApplicationProperties aProps, final MeterRegistry meterRegistry) {
+        return new MessageHistory(aProps.getHistory(), meterRegistry);
+    }
+
+    /**
+     * FlightRecording.
+     *
+     * @param aProps ApplicationProperties
+     * @return FlightRecording
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public FlightRecording flightRecording(final ApplicationProperties aProps) {
+        return new FlightRecording(aProps.getProfiling());
+    }
+
+    /**
+     * OutboundDispatcher.
+     *
+     * @param slackSessionPool SlackSessionPool
+     * @param messageDelivery MessageDelivery
+     * @param deadLetterStore DeadLetterStore
+     * @param aProps ApplicationProperties
+     * @param meterRegistry MeterRegistry
+     * @return OutboundDispatcher
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public OutboundDispatcher outboundDispatcher(final SlackSessionPool slackSessionPool,
+                                                 final MessageDelivery messageDelivery,
+                                                 final DeadLetterStore deadLetterStore,
+                                                 final ApplicationProperties aProps,
+                                                 final MeterRegistry meterRegistry) {
+        return new OutboundDispatcher(slackSessionPool, messageDelivery, deadLetterStore, aProps, meterRegistry);
+    }
+
+    /**
+     * DeadLetterStore.
+     *
+     * @param aProps ApplicationProperties
+     * @param meterRegistry MeterRegistry
+     * @return DeadLetterStore
+     */
+    @Bean
+    public DeadLetterStore deadLetterStore(final ApplicationProperties aProps, final MeterRegistry meterRegistry) {
+        return new DeadLetterStore(aProps.getDispatch().getDeadLetterCapacity(), meterRegistry);
+    }
+
+    /**
+     * TemplateCache.
+     *
+     * @param aProps ApplicationProperties
+     * @param config Freemarker configuration
+     * @param meterRegistry MeterRegistry
+     * @return TemplateCache
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public TemplateCache templateCache(final ApplicationProperties aProps,
+                                       final freemarker.template.Configuration config,
+                                       final MeterRegistry meterRegistry) {
+        final TemplateCache templateCache = new TemplateCache(config, aProps.getTemplates().getDirectory(),
+                meterRegistry);
+        templateCache.setBackgroundWarmUp(aProps.getStartup().isBackgroundWarmUp());
+        return templateCache;
+    }
+
+    /**
+     * GracefulShutdown.
+     *
+     * @param messageIntake broker intake, when enabled
+     * @param outboundDispatcher OutboundDispatcher
+     * @param messageService MessageService
+     * @param aProps ApplicationProperties
+     * @param objectMapper ObjectMapper
+     * @param meterRegistry MeterRegistry
+     * @return GracefulShutdown
+     */
+    @Bean
+    public GracefulShutdown gracefulShutdown(final ObjectProvider<MessageIntake> messageIntake,
+                                             final OutboundDispatcher outboundDispatcher,
+                                             final MessageService messageService,
+                                             final ApplicationProperties aProps,
+                                             final ObjectMapper objectMapper,
+                                             final MeterRegistry meterRegistry) {
+        final ApplicationProperties.Shutdown shutdown = aProps.getShutdown();
+        return new GracefulShutdown(messageIntake.getIfAvailable(), outboundDispatcher,
+                new OutboundSpool(shutdown.getSpoolFile(), shutdown.getInstance(), objectMapper), messageService,
+                shutdown.getDrainTimeout(), meterRegistry);
+    }
+
+    /**
+     * DirectoryRefresher.
+     *
+     * @param slackSessionPool SlackSessionPool
+     * @param aProps ApplicationProperties
+     * @param objectMapper ObjectMapper
+     * @param meterRegistry MeterRegistry
+     * @return DirectoryRefresher
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public DirectoryRefresher directoryRefresher(final SlackSessionPool slackSessionPool,
+                                                 final ApplicationProperties aProps,
+                                                 final ObjectMapper objectMapper,
+                                                 final MeterRegistry meterRegistry) {
+        return new DirectoryRefresher(slackSessionPool, objectMapper, aProps.getDirectory(), meterRegistry);
+    }
+
+    /**
+     * OptOutIndex, matching STOP replies recorded under a Slack user ID through the session directories.
+     *
+     * @param aProps ApplicationProperties
+     * @param slackSessionPool SlackSessionPool
+     * @param meterRegistry MeterRegistry
+     * @return OptOutIndex
+     */
+    @Bean(initMethod = "load")
+    public OptOutIndex optOutIndex(final ApplicationProperties aProps,
+                                   final SlackSessionPool slackSessionPool,
+                                   final MeterRegistry meterRegistry) {
+        final OptOutIndex optOutIndex = new OptOutIndex(aProps.getOptOutFile(), meterRegistry);
+        optOutIndex.setSlackSessionPool(slackSessionPool);
+        return optOutIndex;
+    }
+
+    /**
+     * EntityTransport.
+     *
+     * @param meterRegistry MeterRegistry
+     * @return EntityTransport
+     */
+    @Bean
+    public EntityTransport entityTransport(final MeterRegistry meterRegistry) {
+        log.warn("No upstream service configured for user, event, question and quiz lookups");
+        return new EmptyEntityTransport(meterRegistry);
+    }
+
+    /**
+     * EntityLoader.
+     *
+     * @param entityTransport EntityTransport
+     * @param aProps ApplicationProperties
+     * @param meterRegistry MeterRegistry
+     * @return EntityLoader
+     */
+    @Bean(destroyMethod = "shutdown")
+    public EntityLoader entityLoader(final EntityTransport entityTransport,
+                                     final ApplicationProperties aProps,
+                                     final MeterRegistry meterRegistry) {
+        return new EntityLoader(entityTransport, aProps.getLoader(), meterRegistry);
+    }
+
+    /**
+     * ResponseTransport. User responses are discarded when no upstream URL is configured.
+     *
+     * @param aProps ApplicationProperties
+     * @param restTemplateBuilder RestTemplateBuilder
+     * @param meterRegistry MeterRegistry
+     * @return ResponseTransport
+     */
+    @Bean
+    public ResponseTransport responseTransport(final ApplicationProperties aProps,
+                                               final RestTemplateBuilder restTemplateBuilder,
+                                               final MeterRegistry meterRegistry) {
+        final String upstreamUrl = aProps.getResponses().getUpstreamUrl();
+        if (upstreamUrl == null || upstreamUrl.isBlank()) {
+            log.warn("No upstream URL configured for user responses; discarding them");
+            return new DiscardingResponseTransport(meterRegistry);
+        }
+        return new HttpResponseTransport(restTemplateBuilder.build(), upstreamUrl);
+    }
+
+    /**
+     * ResponseSink.
+     *
+     * @param responseTransport ResponseTransport
+     * @param aProps ApplicationProperties
+     * @param meterRegistry MeterRegistry
+     * @return ResponseSink
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public ResponseSink responseSink(final ResponseTransport responseTransport,
+                                     final ApplicationProperties aProps,
+                                     final MeterRegistry meterRegistry) {
+        return new ResponseSink(responseTransport, aProps, meterRegistry);
     }
 
 }
@@ -0,0 +1,58 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.client.EventCallbackListener;
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.client.SocketModeClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+
+/**
+ * Socket Mode configuration, enabled with slack.inbound-mode=socket. Envelopes are handed to the same
+ * EventCallbackListener the Events API controller uses.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "slack", name = "inbound-mode", havingValue = "socket")
+public class SocketModeConfig {
+
+    /**
+     * SocketModeClient.
+     *
+     * @param slackSessionPool SlackSessionPool
+     * @param objectMapper ObjectMapper
+     * @param aProps ApplicationProperties
+     * @param eventCallbackListener EventCallbackListener
+     * @param meterRegistry MeterRegistry
+     * @return SocketModeClient
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public SocketModeClient socketModeClient(final SlackSessionPool slackSessionPool,
+                                             final ObjectMapper objectMapper,
+                                             final ApplicationProperties aProps,
+                                             final EventCallbackListener eventCallbackListener,
+                                             final MeterRegistry meterRegistry) {
+        final HttpClient httpClient = HttpClient.newHttpClient();
+        return new SocketModeClient(slackSessionPool, httpClient, objectMapper, aProps.getSocket(),
+                eventCallbackListener, meterRegistry);
+    }
+}
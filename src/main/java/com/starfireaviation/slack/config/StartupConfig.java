@@ -0,0 +1,70 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.config;
+
+import com.starfireaviation.slack.client.SocketModeClient;
+import com.starfireaviation.slack.intake.MessageIntake;
+import com.starfireaviation.slack.service.DirectoryRefresher;
+import com.starfireaviation.slack.service.FlightRecording;
+import com.starfireaviation.slack.service.GracefulShutdown;
+import com.starfireaviation.slack.service.IdempotencyStore;
+import com.starfireaviation.slack.service.InboundAdmission;
+import com.starfireaviation.slack.service.InboundRecorder;
+import com.starfireaviation.slack.service.MessageService;
+import com.starfireaviation.slack.service.QuizRunner;
+import com.starfireaviation.slack.service.StartupMetrics;
+import com.starfireaviation.slack.service.TemplateCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.trace.Tracer;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Startup configuration. The fast-start profile turns on lazy initialization, so beans nothing asks for at
+ * startup, such as the admin controllers and their stores, are only created on first use. The beans which
+ * receive messages, send them, or wire themselves into other beans are kept eager so the application is fully
+ * working once it reports ready.
+ */
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Beans created at startup even with lazy initialization.
+     *
+     * @return LazyInitializationExcludeFilter
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(MessageService.class, MessageIntake.class,
+                SocketModeClient.class, GracefulShutdown.class, TemplateCache.class, QuizRunner.class,
+                InboundAdmission.class, InboundRecorder.class, DirectoryRefresher.class, FlightRecording.class,
+                Tracer.class, StartupMetrics.class, IdempotencyStore.class);
+    }
+
+    /**
+     * StartupMetrics.
+     *
+     * @param aProps ApplicationProperties
+     * @param meterRegistry MeterRegistry
+     * @return StartupMetrics
+     */
+    @Bean
+    public StartupMetrics startupMetrics(final ApplicationProperties aProps, final MeterRegistry meterRegistry) {
+        return new StartupMetrics(aProps.getStartup().isTrainingRun(), meterRegistry);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.config;
+
+import com.starfireaviation.slack.service.MessageService;
+import com.starfireaviation.slack.service.OutboundDispatcher;
+import com.starfireaviation.slack.util.TailSamplingSpanProcessor;
+import com.starfireaviation.slack.util.TracingUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Distributed tracing configuration. With slack.tracing.enabled=true every trace is recorded and sampled once
+ * it has finished by a TailSamplingSpanProcessor, which exports through the application's SpanExporter bean, or
+ * the log when there is none. Otherwise tracing is a no-op.
+ */
+@Slf4j
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Service name resource attribute.
+     */
+    private static final AttributeKey<String> SERVICE_NAME = AttributeKey.stringKey("service.name");
+
+    /**
+     * SdkTracerProvider.
+     *
+     * @param aProps ApplicationProperties
+     * @param spanExporter SpanExporter, when the application provides one
+     * @param meterRegistry MeterRegistry
+     * @return SdkTracerProvider
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "slack.tracing", name = "enabled", havingValue = "true")
+    public SdkTracerProvider sdkTracerProvider(final ApplicationProperties aProps,
+                                               final ObjectProvider<SpanExporter> spanExporter,
+                                               final MeterRegistry meterRegistry) {
+        final ApplicationProperties.Tracing tracing = aProps.getTracing();
+        final SpanExporter exporter = spanExporter.getIfAvailable(LoggingSpanExporter::create);
+        log.info("Tracing enabled; exporting failed traces, traces over {} and {} of the rest through {}",
+                tracing.getSlowThreshold(), tracing.getBaselineRate(), exporter.getClass().getSimpleName());
+        return SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(Attributes.of(SERVICE_NAME, "slack"))))
+                .setSampler(Sampler.alwaysOn())
+                .addSpanProcessor(new TailSamplingSpanProcessor(exporter, tracing.getSlowThreshold(),
+                        tracing.getBaselineRate(), tracing.getDecisionWait(), tracing.getMaxTraces(), meterRegistry))
+                .build();
+    }
+
+    /**
+     * OpenTelemetry, propagating W3C trace context when tracing is enabled.
+     *
+     * @param sdkTracerProvider SdkTracerProvider, present when tracing is enabled
+     * @return OpenTelemetry
+     */
+    @Bean
+    public OpenTelemetry openTelemetry(final ObjectProvider<SdkTracerProvider> sdkTracerProvider) {
+        final SdkTracerProvider tracerProvider = sdkTracerProvider.getIfAvailable();
+        if (tracerProvider == null) {
+            return OpenTelemetry.noop();
+        }
+        return OpenTelemetrySdk.builder()
+                .setTracerProvider(tracerProvider)
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+    }
+
+    /**
+     * Tracer, set on the MessageService and OutboundDispatcher.
+     *
+     * @param openTelemetry OpenTelemetry
+     * @param messageService MessageService
+     * @param outboundDispatcher OutboundDispatcher
+     * @return Tracer
+     */
+    @Bean
+    public Tracer tracer(final OpenTelemetry openTelemetry,
+                         final MessageService messageService,
+                         final OutboundDispatcher outboundDispatcher) {
+        final Tracer tracer = openTelemetry.getTracer(TracingUtil.INSTRUMENTATION);
+        messageService.setTracer(tracer);
+        outboundDispatcher.setTracer(tracer);
+        return tracer;
+    }
+}
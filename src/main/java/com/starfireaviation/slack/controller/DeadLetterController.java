@@ -0,0 +1,145 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.controller;
+
+import com.starfireaviation.slack.model.DeadLetter;
+import com.starfireaviation.slack.model.OutboundMessage;
+import com.starfireaviation.slack.service.DeadLetterStore;
+import com.starfireaviation.slack.service.OutboundDispatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Admin endpoints to inspect and replay messages which could not be delivered to Slack.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/dead-letters")
+public class DeadLetterController {
+
+    /**
+     * DeadLetterStore.
+     */
+    private final DeadLetterStore deadLetterStore;
+
+    /**
+     * OutboundDispatcher.
+     */
+    private final OutboundDispatcher outboundDispatcher;
+
+    /**
+     * Initializes an instance of <code>DeadLetterController</code>.
+     *
+     * @param store DeadLetterStore
+     * @param dispatcher OutboundDispatcher
+     */
+    public DeadLetterController(final DeadLetterStore store, final OutboundDispatcher dispatcher) {
+        deadLetterStore = store;
+        outboundDispatcher = dispatcher;
+    }
+
+    /**
+     * Lists dead-lettered messages, oldest first. The rendered text is left out, since it may hold secrets such
+     * as a password reset code.
+     *
+     * @return dead letters without their text
+     */
+    @GetMapping
+    public List<DeadLetter> list() {
+        return deadLetterStore.list().stream().map(DeadLetterController::redact).collect(Collectors.toList());
+    }
+
+    /**
+     * Replays a single dead-lettered message.
+     *
+     * @param id message id
+     * @return 202 when queued, 404 when unknown, 503 when the outbound queue is full
+     */
+    @PostMapping("/{id}/replay")
+    public ResponseEntity<Void> replay(@PathVariable("id") final String id) {
+        final DeadLetter deadLetter = deadLetterStore.remove(id);
+        if (deadLetter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!outboundDispatcher.replay(deadLetter.getMessage())) {
+            deadLetterStore.add(deadLetter);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        log.info("Replaying dead-lettered message {}", id);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Replays every dead-lettered message.
+     *
+     * @return number of messages queued again
+     */
+    @PostMapping("/replay")
+    public int replayAll() {
+        int replayed = 0;
+        for (DeadLetter deadLetter : deadLetterStore.removeAll()) {
+            if (outboundDispatcher.replay(deadLetter.getMessage())) {
+                replayed++;
+            } else {
+                deadLetterStore.add(deadLetter);
+            }
+        }
+        log.info("Replaying {} dead-lettered messages", replayed);
+        return replayed;
+    }
+
+    /**
+     * Discards a dead-lettered message.
+     *
+     * @param id message id
+     * @return 204 when discarded, 404 when unknown
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> discard(@PathVariable("id") final String id) {
+        if (deadLetterStore.remove(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Copies a dead letter without the text of its message.
+     *
+     * @param deadLetter DeadLetter
+     * @return DeadLetter whose message has no text
+     */
+    private static DeadLetter redact(final DeadLetter deadLetter) {
+        final OutboundMessage message = deadLetter.getMessage();
+        final OutboundMessage redacted = new OutboundMessage(message.getType(), message.getOrganization(),
+                message.getRecipient(), null);
+        redacted.setId(message.getId());
+        redacted.setTemplateVersion(message.getTemplateVersion());
+        redacted.setEnqueuedAt(message.getEnqueuedAt());
+        redacted.setAttempts(message.getAttempts());
+        return new DeadLetter(redacted, deadLetter.getReason(), deadLetter.getFailedAt());
+    }
+}
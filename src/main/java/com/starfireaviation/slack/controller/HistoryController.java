@@ -0,0 +1,85 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.controller;
+
+import com.starfireaviation.slack.config.CommonConstants;
+import com.starfireaviation.slack.model.HistoryEntry;
+import com.starfireaviation.slack.service.MessageHistory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Admin endpoints to look up the messages recently sent to a user.
+ */
+@RestController
+@RequestMapping("/admin/history")
+@ConditionalOnProperty(prefix = "slack.history", name = "enabled", havingValue = "true")
+public class HistoryController {
+
+    /**
+     * MessageHistory.
+     */
+    private final MessageHistory messageHistory;
+
+    /**
+     * Initializes an instance of <code>HistoryController</code>.
+     *
+     * @param history MessageHistory
+     */
+    public HistoryController(final MessageHistory history) {
+        messageHistory = history;
+    }
+
+    /**
+     * Most recent delivery attempts to a user of the default organization, newest first.
+     *
+     * @param user Slack user name
+     * @param limit largest number of entries returned
+     * @return entries
+     * @throws IOException when the history cannot be read
+     */
+    @GetMapping("/{user}")
+    public List<HistoryEntry> recent(@PathVariable("user") final String user,
+                                     @RequestParam(value = "limit", defaultValue = "20") final int limit)
+            throws IOException {
+        return messageHistory.recent(CommonConstants.DEFAULT_ORGANIZATION, user, limit);
+    }
+
+    /**
+     * Most recent delivery attempts to a user of an organization, newest first.
+     *
+     * @param organization organization name
+     * @param user Slack user name
+     * @param limit largest number of entries returned
+     * @return entries
+     * @throws IOException when the history cannot be read
+     */
+    @GetMapping("/{organization}/{user}")
+    public List<HistoryEntry> recent(@PathVariable("organization") final String organization,
+                                     @PathVariable("user") final String user,
+                                     @RequestParam(value = "limit", defaultValue = "20") final int limit)
+            throws IOException {
+        return messageHistory.recent(organization, user, limit);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.controller;
+
+import com.starfireaviation.model.User;
+import com.starfireaviation.slack.model.QuizProgress;
+import com.starfireaviation.slack.service.EntityLoader;
+import com.starfireaviation.slack.service.QuizRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Admin endpoints to start, inspect and end quiz sessions, registered with slack.quiz.enabled=true. Like every
+ * admin endpoint they require the slack.admin.token bearer token.
+ */
+@RestController
+@RequestMapping("/admin/quiz")
+@ConditionalOnProperty(prefix = "slack.quiz", name = "enabled", havingValue = "true")
+public class QuizController {
+
+    /**
+     * QuizRunner.
+     */
+    private final QuizRunner quizRunner;
+
+    /**
+     * EntityLoader.
+     */
+    private final EntityLoader entityLoader;
+
+    /**
+     * Initializes an instance of <code>QuizController</code>.
+     *
+     * @param runner QuizRunner
+     * @param loader EntityLoader
+     */
+    public QuizController(final QuizRunner runner, final EntityLoader loader) {
+        quizRunner = runner;
+        entityLoader = loader;
+    }
+
+    /**
+     * Lists running sessions.
+     *
+     * @return progress of each session
+     */
+    @GetMapping
+    public List<QuizProgress> list() {
+        return quizRunner.getSessions();
+    }
+
+    /**
+     * Starts a quiz for a user.
+     *
+     * @param organization organization name
+     * @param userId user ID
+     * @param questionIds questions in the order they are asked
+     * @return 202 when started, 404 when the user is unknown, 409 when the session cannot start
+     */
+    @PostMapping("/{organization}/{userId}")
+    public ResponseEntity<Void> start(@PathVariable("organization") final String organization,
+                                      @PathVariable("userId") final Long userId,
+                                      @RequestBody final List<Long> questionIds) {
+        final User user = entityLoader.getUser(userId);
+        if (user == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!quizRunner.start(organization, user, questionIds)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Ends a user's session.
+     *
+     * @param organization organization name
+     * @param user Slack user name
+     * @return 204 when ended, 404 when the user has no session
+     */
+    @DeleteMapping("/{organization}/{user}")
+    public ResponseEntity<Void> stop(@PathVariable("organization") final String organization,
+                                     @PathVariable("user") final String user) {
+        if (!quizRunner.stop(organization, user)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.controller;
+
+import com.starfireaviation.slack.model.CapturedMessage;
+import com.starfireaviation.slack.model.ShadowSummary;
+import com.starfireaviation.slack.service.CaptureSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Admin endpoints to inspect what shadow mode captured instead of sending.
+ */
+@RestController
+@RequestMapping("/admin/shadow")
+@ConditionalOnProperty(prefix = "slack.shadow", name = "enabled", havingValue = "true")
+public class ShadowController {
+
+    /**
+     * CaptureSink.
+     */
+    private final CaptureSink captureSink;
+
+    /**
+     * Initializes an instance of <code>ShadowController</code>.
+     *
+     * @param sink CaptureSink
+     */
+    public ShadowController(final CaptureSink sink) {
+        captureSink = sink;
+    }
+
+    /**
+     * Totals since start.
+     *
+     * @return ShadowSummary
+     */
+    @GetMapping
+    public ShadowSummary summary() {
+        return captureSink.getSummary();
+    }
+
+    /**
+     * Sampled payloads, oldest first.
+     *
+     * @return sampled payloads
+     */
+    @GetMapping("/samples")
+    public List<CapturedMessage> samples() {
+        return captureSink.getSamples();
+    }
+
+    /**
+     * Discards the sampled payloads.
+     *
+     * @return number of samples discarded
+     */
+    @DeleteMapping("/samples")
+    public int clearSamples() {
+        return captureSink.clearSamples();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.client.EventCallbackListener;
+import com.starfireaviation.slack.client.OrganizationSession;
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.config.CommonConstants;
+import com.starfireaviation.slack.exception.InvalidPayloadException;
+import com.starfireaviation.slack.exception.InvalidSignatureException;
+import com.starfireaviation.slack.validation.SignatureValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Receives Slack Events API callbacks. Requests are verified and acknowledged immediately; the events
+ * themselves are handled asynchronously so the acknowledgement stays well within Slack's 3 second budget.
+ */
+@RestController
+@RequestMapping("/slack/events")
+@ConditionalOnProperty(prefix = "slack", name = "inbound-mode", havingValue = "events")
+public class SlackEventsController {
+
+    /**
+     * Slack request timestamp header.
+     */
+    private static final String TIMESTAMP_HEADER = "X-Slack-Request-Timestamp";
+
+    /**
+     * Slack signature header.
+     */
+    private static final String SIGNATURE_HEADER = "X-Slack-Signature";
+
+    /**
+     * Handles accepted Events API payloads.
+     */
+    private final EventCallbackListener eventCallbackListener;
+
+    /**
+     * SlackSessionPool.
+     */
+    private final SlackSessionPool slackSessionPool;
+
+    /**
+     * ObjectMapper.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Initializes an instance of <code>SlackEventsController</code>.
+     *
+     * @param listener handles accepted Events API payloads
+     * @param sessionPool SlackSessionPool
+     * @param mapper ObjectMapper
+     */
+    public SlackEventsController(final EventCallbackListener listener,
+                                 final SlackSessionPool sessionPool,
+                                 final ObjectMapper mapper) {
+        eventCallbackListener = listener;
+        slackSessionPool = sessionPool;
+        objectMapper = mapper;
+    }
+
+    /**
+     * Receives events for the default organization.
+     *
+     * @param timestamp request timestamp
+     * @param signature request signature
+     * @param body raw request body
+     * @return acknowledgement
+     * @throws InvalidSignatureException when the request signature is invalid
+     * @throws InvalidPayloadException when the request body cannot be parsed
+     */
+    @PostMapping(produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> event(@RequestHeader(value = TIMESTAMP_HEADER, required = false)
+                                        final String timestamp,
+                                        @RequestHeader(value = SIGNATURE_HEADER, required = false)
+                                        final String signature,
+                                        @RequestBody final byte[] body)
+            throws InvalidSignatureException, InvalidPayloadException {
+        return organizationEvent(CommonConstants.DEFAULT_ORGANIZATION, timestamp, signature, body);
+    }
+
+    /**
+     * Receives events for an organization.
+     *
+     * @param organization organization name
+     * @param timestamp request timestamp
+     * @param signature request signature
+     * @param body raw request body
+     * @return acknowledgement
+     * @throws InvalidSignatureException when the request signature is invalid
+     * @throws InvalidPayloadException when the request body cannot be parsed
+     */
+    @PostMapping(path = "/{organization}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> organizationEvent(@PathVariable("organization") final String organization,
+                                                    @RequestHeader(value = TIMESTAMP_HEADER, required = false)
+                                                    final String timestamp,
+                                                    @RequestHeader(value = SIGNATURE_HEADER, required = false)
+                                                    final String signature,
+                                                    @RequestBody final byte[] body)
+            throws InvalidSignatureException, InvalidPayloadException {
+        final OrganizationSession session = slackSessionPool.get(organization);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        SignatureValidator.validate(session.getSettings().getSigningSecret(), timestamp, body, signature);
+        final JsonNode payload;
+        try {
+            payload = objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new InvalidPayloadException("Unable to parse event", e);
+        }
+        if ("url_verification".equals(payload.path("type").asText())) {
+            return ResponseEntity.ok(payload.path("challenge").asText());
+        }
+        if (!eventCallbackListener.onEventCallback(organization, payload)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok("");
+    }
+
+}
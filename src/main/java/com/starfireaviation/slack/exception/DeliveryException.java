@@ -0,0 +1,76 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.exception;
+
+/**
+ * DeliveryException.
+ */
+public class DeliveryException extends Exception {
+
+    /**
+     * Default SerialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Whether retrying the delivery may succeed.
+     */
+    private final boolean retryable;
+
+    /**
+     * Initializes an instance of <code>DeliveryException</code> with the
+     * default data.
+     *
+     * @param message message
+     */
+    public DeliveryException(final String message) {
+        this(message, false);
+    }
+
+    /**
+     * Initializes an instance of <code>DeliveryException</code> with the
+     * default data.
+     *
+     * @param message message
+     * @param canRetry whether retrying the delivery may succeed
+     */
+    public DeliveryException(final String message, final boolean canRetry) {
+        super(message);
+        retryable = canRetry;
+    }
+
+    /**
+     * Initializes an instance of <code>DeliveryException</code> with the
+     * default data.
+     *
+     * @param message message
+     * @param cause   cause
+     */
+    public DeliveryException(final String message, final Throwable cause) {
+        super(message, cause);
+        retryable = true;
+    }
+
+    /**
+     * Whether retrying the delivery may succeed.
+     *
+     * @return true if retryable
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.intake;
+
+import com.starfireaviation.model.Message;
+import com.starfireaviation.slack.model.MessageType;
+
+/**
+ * Hands a received notification request to the service which sends it.
+ */
+@FunctionalInterface
+public interface IntakeHandler {
+
+    /**
+     * Handles a notification request.
+     *
+     * @param type message type
+     * @param message Message
+     * @return false if the request could not be queued for sending and should be redelivered later
+     */
+    boolean handle(MessageType type, Message message);
+
+    /**
+     * Handles a notification request carrying the sender's idempotency key.
+     *
+     * @param type message type
+     * @param message Message
+     * @param idempotencyKey sender's idempotency key, or null
+     * @return false if the request could not be queued for sending and should be redelivered later
+     */
+    default boolean handle(MessageType type, Message message, String idempotencyKey) {
+        return handle(type, message);
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.intake;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.model.Message;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.MessageType;
+import com.starfireaviation.slack.util.TracingUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumes notification requests from a JMS queue. Each consumer thread owns a transacted session and takes
+ * messages in batches: one blocking receive followed by whatever the client has already prefetched, up to the
+ * batch size. The batch is committed only after every request in it has been queued for sending; if the
+ * outbound queue rejects one, the whole batch is rolled back for the broker to redeliver. A request the handler
+ * fails on is moved to the dead-letter queue in the same transaction, and the rest of the batch carries on.
+ * <p>
+ * The outbound queue a request is handed to is in memory, so a commit means the request was accepted for
+ * sending, not that it was stored durably. Requests queued but not yet sent are spooled by a graceful shutdown
+ * but lost if the process dies abruptly; delivery is at least once only up to that hand-off.
+ * <p>
+ * Requests are JSON encoded {@link Message} text messages with the MessageType name in the
+ * {@value #TYPE_PROPERTY} property. Requests which cannot be decoded are logged and acknowledged. A W3C trace
+ * context in the request's properties becomes the parent of the span handling it. A sender's idempotency key in
+ * the {@value #IDEMPOTENCY_KEY_PROPERTY} property is passed on with the request, so a redelivered request already
+ * sent is suppressed.
+ */
+@Slf4j
+public class JmsMessageIntake implements MessageIntake {
+
+    /**
+     * JMS property holding the MessageType name.
+     */
+    public static final String TYPE_PROPERTY = "messageType";
+
+    /**
+     * Optional JMS property holding the sender's idempotency key.
+     */
+    public static final String IDEMPOTENCY_KEY_PROPERTY = "idempotencyKey";
+
+    /**
+     * Messaging system span attribute.
+     */
+    private static final AttributeKey<String> MESSAGING_SYSTEM = AttributeKey.stringKey("messaging.system");
+
+    /**
+     * Messaging destination span attribute.
+     */
+    private static final AttributeKey<String> MESSAGING_DESTINATION =
+            AttributeKey.stringKey("messaging.destination");
+
+    /**
+     * Pause after a rolled back batch before consuming again.
+     */
+    private static final long REJECTED_BACKOFF_MS = 500L;
+
+    /**
+     * Reads trace context from JMS message properties.
+     */
+    private static final TextMapGetter<javax.jms.Message> PROPERTY_GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(final javax.jms.Message carrier) {
+            final List<String> keys = new ArrayList<>();
+            try {
+                final Enumeration<?> names = carrier.getPropertyNames();
+                while (names.hasMoreElements()) {
+                    keys.add(String.valueOf(names.nextElement()));
+                }
+            } catch (JMSException e) {
+                log.debug("Unable to read property names: {}", e.getMessage());
+            }
+            return keys;
+        }
+
+        @Override
+        public String get(final javax.jms.Message carrier, final String key) {
+            if (carrier == null) {
+                return null;
+            }
+            try {
+                return carrier.getStringProperty(key);
+            } catch (JMSException e) {
+                return null;
+            }
+        }
+    };
+
+    /**
+     * ConnectionFactory.
+     */
+    private final ConnectionFactory connectionFactory;
+
+    /**
+     * Queue name.
+     */
+    private final String queueName;
+
+    /**
+     * Name of the queue requests the handler failed on are moved to.
+     */
+    private final String deadLetterQueueName;
+
+    /**
+     * IntakeHandler.
+     */
+    private final IntakeHandler handler;
+
+    /**
+     * ObjectMapper.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Number of consumer threads.
+     */
+    private final int concurrency;
+
+    /**
+     * Maximum number of requests committed together.
+     */
+    private final int batchSize;
+
+    /**
+     * Time a consumer waits for the first request of a batch.
+     */
+    private final long receiveTimeoutMs;
+
+    /**
+     * Requests received.
+     */
+    private final Counter received;
+
+    /**
+     * Requests which could not be decoded.
+     */
+    private final Counter invalid;
+
+    /**
+     * Batches rolled back.
+     */
+    private final Counter rollbacks;
+
+    /**
+     * Requests the handler failed on.
+     */
+    private final Counter failed;
+
+    /**
+     * Requests per batch.
+     */
+    private final DistributionSummary batchSizes;
+
+    /**
+     * Extracts trace context from requests.
+     */
+    private final TextMapPropagator propagator;
+
+    /**
+     * Tracer the handling of each request is traced with.
+     */
+    private final Tracer tracer;
+
+    /**
+     * Consumer threads.
+     */
+    private final List<Thread> consumers = new ArrayList<>();
+
+    /**
+     * Connection shared by the consumer sessions.
+     */
+    private Connection connection;
+
+    /**
+     * Whether consumers keep running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Initializes an instance of <code>JmsMessageIntake</code>.
+     *
+     * @param factory ConnectionFactory
+     * @param intakeHandler IntakeHandler
+     * @param mapper ObjectMapper
+     * @param settings intake settings
+     * @param meterRegistry MeterRegistry
+     * @param openTelemetry OpenTelemetry providing the propagator and tracer
+     */
+    public JmsMessageIntake(final ConnectionFactory factory,
+                            final IntakeHandler intakeHandler,
+                            final ObjectMapper mapper,
+                            final ApplicationProperties.Intake settings,
+                            final MeterRegistry meterRegistry,
+                            final OpenTelemetry openTelemetry) {
+        connectionFactory = factory;
+        handler = intakeHandler;
+        objectMapper = mapper;
+        queueName = settings.getQueue();
+        deadLetterQueueName = settings.getDeadLetterQueue();
+        concurrency = Math.max(1, settings.getConcurrency());
+        batchSize = Math.max(1, settings.getBatchSize());
+        receiveTimeoutMs = settings.getReceiveTimeout().toMillis();
+        received = meterRegistry.counter("slack.intake.received");
+        invalid = meterRegistry.counter("slack.intake.invalid");
+        rollbacks = meterRegistry.counter("slack.intake.rollbacks");
+        failed = meterRegistry.counter("slack.intake.failed");
+        batchSizes = meterRegistry.summary("slack.intake.batch.size");
+        propagator = openTelemetry.getPropagators().getTextMapPropagator();
+        tracer = openTelemetry.getTracer(TracingUtil.INSTRUMENTATION);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void start() throws JMSException {
+        connection = connectionFactory.createConnection();
+        connection.start();
+        running = true;
+        for (int i = 0; i < concurrency; i++) {
+            final Thread consumer = new Thread(this::consume, "intake-" + i);
+            consumers.add(consumer);
+            consumer.start();
+        }
+        log.info("Consuming notification requests from {} with {} consumers", queueName, concurrency);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void stop() {
+        running = false;
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join(receiveTimeoutMs * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        consumers.clear();
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (JMSException e) {
+                log.warn("Unable to close intake connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Consumes batches until stopped. A batch failing unexpectedly is rolled back and the consumer carries on.
+     */
+    private void consume() {
+        try (Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+             MessageConsumer consumer = session.createConsumer(session.createQueue(queueName));
+             MessageProducer deadLetters = session.createProducer(session.createQueue(deadLetterQueueName))) {
+            while (running) {
+                try {
+                    consumeBatch(session, consumer, deadLetters);
+                } catch (RuntimeException e) {
+                    log.error("Intake consumer {} failed on a batch; rolling it back",
+                            Thread.currentThread().getName(), e);
+                    session.rollback();
+                    rollbacks.increment();
+                }
+            }
+        } catch (JMSException e) {
+            if (running) {
+                log.error("Intake consumer {} stopped: {}", Thread.currentThread().getName(), e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Receives, hands off and commits one batch.
+     *
+     * @param session transacted Session
+     * @param consumer MessageConsumer
+     * @param deadLetters MessageProducer sending to the dead-letter queue
+     * @throws JMSException when the broker connection fails
+     * @throws InterruptedException when interrupted while backing off
+     */
+    private void consumeBatch(final Session session, final MessageConsumer consumer,
+                              final MessageProducer deadLetters) throws JMSException, InterruptedException {
+        final javax.jms.Message first = consumer.receive(receiveTimeoutMs);
+        if (first == null) {
+            return;
+        }
+        final List<javax.jms.Message> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        while (batch.size() < batchSize) {
+            final javax.jms.Message next = consumer.receiveNoWait();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        received.increment(batch.size());
+        batchSizes.record(batch.size());
+        for (javax.jms.Message request : batch) {
+            boolean handled;
+            try {
+                handled = handle(request);
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Moving notification request {} to {} after the handler failed",
+                        request.getJMSMessageID(), deadLetterQueueName, e);
+                deadLetters.send(request);
+                handled = true;
+            }
+            if (!handled) {
+                session.rollback();
+                rollbacks.increment();
+                log.warn("Outbound queue rejected a notification request; returning {} requests to {}",
+                        batch.size(), queueName);
+                TimeUnit.MILLISECONDS.sleep(REJECTED_BACKOFF_MS);
+                return;
+            }
+        }
+        session.commit();
+    }
+
+    /**
+     * Decodes a request and hands it off.
+     *
+     * @param request JMS message
+     * @return false if the request was rejected and should be redelivered
+     * @throws JMSException when the message cannot be read
+     */
+    private boolean handle(final javax.jms.Message request) throws JMSException {
+        final String typeName = request.getStringProperty(TYPE_PROPERTY);
+        if (!(request instanceof TextMessage) || typeName == null) {
+            return discard(request, "not a text message with a " + TYPE_PROPERTY + " property");
+        }
+        final MessageType type;
+        final Message message;
+        try {
+            type = MessageType.valueOf(typeName);
+            message = objectMapper.readValue(((TextMessage) request).getText(), Message.class);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            return discard(request, e.getMessage());
+        }
+        final Span span = tracer.spanBuilder("slack.intake")
+                .setParent(propagator.extract(Context.root(), request, PROPERTY_GETTER))
+                .setSpanKind(SpanKind.CONSUMER)
+                .setAttribute(MESSAGING_SYSTEM, "jms")
+                .setAttribute(MESSAGING_DESTINATION, queueName)
+                .setAttribute(TracingUtil.MESSAGE_TYPE, typeName)
+                .startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            final boolean handled = handler.handle(type, message,
+                    request.getStringProperty(IDEMPOTENCY_KEY_PROPERTY));
+            if (!handled) {
+                span.setStatus(StatusCode.ERROR, "Rejected for redelivery");
+            }
+            return handled;
+        } catch (RuntimeException e) {
+            TracingUtil.recordFailure(span, e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Acknowledges a request which cannot be decoded.
+     *
+     * @param request JMS message
+     * @param reason reason
+     * @return true, the request is acknowledged with its batch
+     * @throws JMSException when the message ID cannot be read
+     */
+    private boolean discard(final javax.jms.Message request, final String reason) throws JMSException {
+        invalid.increment();
+        log.warn("Discarding notification request {}: {}", request.getJMSMessageID(), reason);
+        return true;
+    }
+}
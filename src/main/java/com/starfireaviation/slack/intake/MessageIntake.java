@@ -0,0 +1,35 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.intake;
+
+/**
+ * Receives notification requests from upstream services and hands them to an IntakeHandler.
+ */
+public interface MessageIntake {
+
+    /**
+     * Starts consuming.
+     *
+     * @throws Exception when the intake cannot connect
+     */
+    void start() throws Exception;
+
+    /**
+     * Stops consuming. Requests received but not yet handed off are returned to the source.
+     */
+    void stop();
+}
@@ -0,0 +1,57 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.intake;
+
+import com.starfireaviation.model.Message;
+import com.starfireaviation.slack.model.MessageType;
+import com.starfireaviation.slack.service.MessageService;
+
+/**
+ * Routes notification requests to MessageService, which builds each by its type and suppresses repeats.
+ */
+public class MessageRouter implements IntakeHandler {
+
+    /**
+     * MessageService.
+     */
+    private final MessageService service;
+
+    /**
+     * Initializes an instance of <code>MessageRouter</code>.
+     *
+     * @param messageService MessageService
+     */
+    public MessageRouter(final MessageService messageService) {
+        service = messageService;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean handle(final MessageType type, final Message message) {
+        return service.sendOnce(type, message, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean handle(final MessageType type, final Message message, final String idempotencyKey) {
+        return service.sendOnce(type, message, idempotencyKey);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Parses a user's reply into a response option.
+ */
+@Name(ParseEvent.NAME)
+@Label("Response Parse")
+@Category({"Slack", "Inbound"})
+@Description("Parses a user's reply into a response option")
+@StackTrace(false)
+@Enabled(false)
+@Setter
+public final class ParseEvent extends Event {
+
+    /**
+     * Event name.
+     */
+    public static final String NAME = "com.starfireaviation.slack.Parse";
+
+    /**
+     * Response option the reply was parsed into.
+     */
+    @Label("Outcome")
+    private String outcome;
+
+    /**
+     * Length of the reply in characters.
+     */
+    @Label("Length")
+    private int length;
+}
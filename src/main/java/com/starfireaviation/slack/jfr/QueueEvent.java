@@ -0,0 +1,83 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+
+/**
+ * Adds a message to, or takes one from, an organization's outbound lane.
+ */
+@Name(QueueEvent.NAME)
+@Label("Outbound Queue")
+@Category({"Slack", "Outbound"})
+@Description("Adds a message to, or takes one from, an outbound lane")
+@StackTrace(false)
+@Enabled(false)
+@Setter
+public final class QueueEvent extends Event {
+
+    /**
+     * Event name.
+     */
+    public static final String NAME = "com.starfireaviation.slack.Queue";
+
+    /**
+     * Operation, enqueue or dequeue.
+     */
+    @Label("Operation")
+    private String operation;
+
+    /**
+     * Organization name.
+     */
+    @Label("Organization")
+    private String organization;
+
+    /**
+     * Priority lane.
+     */
+    @Label("Lane")
+    private String lane;
+
+    /**
+     * Whether the lane accepted the message. Always true for a dequeue.
+     */
+    @Label("Accepted")
+    private boolean accepted;
+
+    /**
+     * Messages in the lane after the operation.
+     */
+    @Label("Depth")
+    private int depth;
+
+    /**
+     * Time since the message was first queued, including earlier attempts. Zero for an enqueue.
+     */
+    @Label("Queued For")
+    @Timespan(Timespan.NANOSECONDS)
+    private long queued;
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Renders a notification template. The event's duration is the time spent rendering.
+ */
+@Name(RenderEvent.NAME)
+@Label("Template Render")
+@Category({"Slack", "Templates"})
+@Description("Renders a notification template")
+@StackTrace(false)
+@Enabled(false)
+@Setter
+public final class RenderEvent extends Event {
+
+    /**
+     * Event name.
+     */
+    public static final String NAME = "com.starfireaviation.slack.Render";
+
+    /**
+     * Template name.
+     */
+    @Label("Template")
+    private String template;
+
+    /**
+     * Whether the compiled renderer produced the text.
+     */
+    @Label("Compiled")
+    private boolean compiled;
+
+    /**
+     * UTF-8 size of the rendered text.
+     */
+    @Label("Size")
+    @DataAmount
+    private long bytes;
+}
@@ -0,0 +1,76 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Sends a message to Slack. The event's duration runs from the hand-off to MessageDelivery until the call
+ * completes, and it is committed on the thread completing the call.
+ */
+@Name(SendEvent.NAME)
+@Label("Slack Send")
+@Category({"Slack", "Outbound"})
+@Description("Sends a message to Slack")
+@StackTrace(false)
+@Enabled(false)
+@Setter
+public final class SendEvent extends Event {
+
+    /**
+     * Event name.
+     */
+    public static final String NAME = "com.starfireaviation.slack.Send";
+
+    /**
+     * Organization name.
+     */
+    @Label("Organization")
+    private String organization;
+
+    /**
+     * Priority lane.
+     */
+    @Label("Lane")
+    private String lane;
+
+    /**
+     * Whether the message went to a user or to the organization's channel.
+     */
+    @Label("Recipient Type")
+    private String recipientType;
+
+    /**
+     * Delivery attempt, starting at 1.
+     */
+    @Label("Attempt")
+    private int attempt;
+
+    /**
+     * Outcome, sent or failed.
+     */
+    @Label("Outcome")
+    private String outcome;
+}
@@ -0,0 +1,73 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A message delivered into the shadow capture sink instead of Slack.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CapturedMessage {
+
+    /**
+     * Message id.
+     */
+    private String id;
+
+    /**
+     * Message type.
+     */
+    private MessageType type;
+
+    /**
+     * Organization the message was addressed to.
+     */
+    private String organization;
+
+    /**
+     * Slack user name of the recipient, or null for the organization's GroundSchool channel.
+     */
+    private String recipient;
+
+    /**
+     * Version tag of the template the text was rendered from.
+     */
+    private String templateVersion;
+
+    /**
+     * Rendered text.
+     */
+    private String text;
+
+    /**
+     * Time the message spent queued before delivery, in milliseconds.
+     */
+    private double queuedMillis;
+
+    /**
+     * Time the message was captured.
+     */
+    private Instant capturedAt;
+
+}
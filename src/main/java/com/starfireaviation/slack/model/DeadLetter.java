@@ -0,0 +1,48 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A message which could not be delivered to Slack.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetter {
+
+    /**
+     * Undelivered message.
+     */
+    private OutboundMessage message;
+
+    /**
+     * Reason for the last failure.
+     */
+    private String reason;
+
+    /**
+     * Time the message was dead-lettered.
+     */
+    private Instant failedAt;
+
+}
@@ -0,0 +1,50 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolved names of a Slack workspace.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectorySnapshot {
+
+    /**
+     * User IDs keyed by user name.
+     */
+    private Map<String, String> users = new HashMap<>();
+
+    /**
+     * Channel IDs keyed by lower case channel name.
+     */
+    private Map<String, String> channels = new HashMap<>();
+
+    /**
+     * Time the snapshot was taken.
+     */
+    private Instant takenAt;
+
+}
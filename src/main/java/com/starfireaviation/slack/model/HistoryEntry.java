@@ -0,0 +1,88 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One delivery attempt of an outbound message, as kept in the sent-message history.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryEntry {
+
+    /**
+     * Message id.
+     */
+    private String id;
+
+    /**
+     * Organization the message was addressed to.
+     */
+    private String organization;
+
+    /**
+     * Slack user name of the recipient, or null for the organization's GroundSchool channel.
+     */
+    private String recipient;
+
+    /**
+     * Message type, or null if written by a version which knew types this one does not.
+     */
+    private MessageType type;
+
+    /**
+     * Version tag of the template the text was rendered from.
+     */
+    private String templateVersion;
+
+    /**
+     * Slack timestamp of the posted message, when Slack returned one.
+     */
+    private String ts;
+
+    /**
+     * Time the attempt completed.
+     */
+    private Instant sentAt;
+
+    /**
+     * Time from queuing to Slack's answer, in milliseconds.
+     */
+    private long latencyMillis;
+
+    /**
+     * Attempt number, starting at 1.
+     */
+    private int attempt;
+
+    /**
+     * Outcome of the attempt, sent or failed.
+     */
+    private String outcome;
+
+    /**
+     * Failure reason, for failed attempts.
+     */
+    private String error;
+
+}
@@ -0,0 +1,110 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import java.time.Duration;
+
+/**
+ * Priority lane a message is dispatched in.
+ */
+public enum Lane {
+
+    /**
+     * Messages a user is actively waiting for.
+     */
+    INTERACTIVE(Lane.INTERACTIVE_WEIGHT, Duration.ofSeconds(Lane.INTERACTIVE_SLO_SECONDS)),
+
+    /**
+     * Confirmations of an action the user took.
+     */
+    TRANSACTIONAL(Lane.TRANSACTIONAL_WEIGHT, Duration.ofSeconds(Lane.TRANSACTIONAL_SLO_SECONDS)),
+
+    /**
+     * Reminders and announcements sent to many users at once.
+     */
+    BULK(Lane.BULK_WEIGHT, Duration.ofMinutes(Lane.BULK_SLO_MINUTES));
+
+    /**
+     * Default weight of the interactive lane.
+     */
+    private static final int INTERACTIVE_WEIGHT = 8;
+
+    /**
+     * Default weight of the transactional lane.
+     */
+    private static final int TRANSACTIONAL_WEIGHT = 3;
+
+    /**
+     * Default weight of the bulk lane.
+     */
+    private static final int BULK_WEIGHT = 1;
+
+    /**
+     * Latency objective of the interactive lane.
+     */
+    private static final int INTERACTIVE_SLO_SECONDS = 1;
+
+    /**
+     * Latency objective of the transactional lane.
+     */
+    private static final int TRANSACTIONAL_SLO_SECONDS = 10;
+
+    /**
+     * Latency objective of the bulk lane.
+     */
+    private static final int BULK_SLO_MINUTES = 15;
+
+    /**
+     * Default scheduling weight.
+     */
+    private final int defaultWeight;
+
+    /**
+     * Time from being queued to being accepted by Slack which the lane is expected to meet.
+     */
+    private final Duration slo;
+
+    /**
+     * Initializes a Lane.
+     *
+     * @param weight default scheduling weight
+     * @param objective latency objective
+     */
+    Lane(final int weight, final Duration objective) {
+        defaultWeight = weight;
+        slo = objective;
+    }
+
+    /**
+     * Default scheduling weight.
+     *
+     * @return weight
+     */
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    /**
+     * Latency objective.
+     *
+     * @return time from being queued to being accepted by Slack
+     */
+    public Duration getSlo() {
+        return slo;
+    }
+
+}
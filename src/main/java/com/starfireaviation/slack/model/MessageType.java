@@ -0,0 +1,112 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+/**
+ * Types of message sent to Slack, each classified into a priority lane.
+ */
+public enum MessageType {
+
+    /**
+     * RSVP request for an upcoming event.
+     */
+    EVENT_RSVP(Lane.BULK),
+
+    /**
+     * Upcoming event reminder.
+     */
+    EVENT_UPCOMING(Lane.BULK),
+
+    /**
+     * Event has started.
+     */
+    EVENT_START(Lane.BULK),
+
+    /**
+     * Last minute registration reminder.
+     */
+    EVENT_LAST_MIN_REGISTRATION(Lane.BULK),
+
+    /**
+     * Event has completed.
+     */
+    EVENT_COMPLETED(Lane.BULK),
+
+    /**
+     * Event registration confirmation.
+     */
+    EVENT_REGISTER(Lane.TRANSACTIONAL),
+
+    /**
+     * Event unregistration confirmation.
+     */
+    EVENT_UNREGISTER(Lane.TRANSACTIONAL),
+
+    /**
+     * User deletion confirmation.
+     */
+    USER_DELETE(Lane.TRANSACTIONAL),
+
+    /**
+     * Quiz completion.
+     */
+    QUIZ_COMPLETE(Lane.TRANSACTIONAL),
+
+    /**
+     * User settings verified.
+     */
+    USER_SETTINGS_VERIFIED(Lane.TRANSACTIONAL),
+
+    /**
+     * Quiz question asked.
+     */
+    QUESTION_ASKED(Lane.INTERACTIVE),
+
+    /**
+     * User settings verification request.
+     */
+    USER_SETTINGS_CHANGE(Lane.INTERACTIVE),
+
+    /**
+     * Password reset.
+     */
+    PASSWORD_RESET(Lane.INTERACTIVE);
+
+    /**
+     * Lane.
+     */
+    private final Lane lane;
+
+    /**
+     * Initializes a MessageType.
+     *
+     * @param priorityLane lane the message type is dispatched in
+     */
+    MessageType(final Lane priorityLane) {
+        lane = priorityLane;
+    }
+
+    /**
+     * Lane the message type is dispatched in.
+     *
+     * @return Lane
+     */
+    public Lane getLane() {
+        return lane;
+    }
+
+}
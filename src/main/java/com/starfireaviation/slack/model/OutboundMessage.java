@@ -0,0 +1,92 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * A rendered message waiting to be sent to Slack.
+ */
+@Data
+@NoArgsConstructor
+public class OutboundMessage {
+
+    /**
+     * Unique message ID.
+     */
+    private String id;
+
+    /**
+     * Message type.
+     */
+    private MessageType type;
+
+    /**
+     * Organization whose workspace the message is sent to.
+     */
+    private String organization;
+
+    /**
+     * Slack user name of the recipient, or null when sent to the organization's GroundSchool channel.
+     */
+    private String recipient;
+
+    /**
+     * Rendered message text.
+     */
+    private String text;
+
+    /**
+     * Name and version of the template the text was rendered from.
+     */
+    private String templateVersion;
+
+    /**
+     * Time queued, from System.nanoTime().
+     */
+    private long enqueuedAt;
+
+    /**
+     * Number of delivery attempts made so far.
+     */
+    private int attempts;
+
+    /**
+     * W3C traceparent of the span which queued the message, or null when it was not traced.
+     */
+    private String traceParent;
+
+    /**
+     * Initializes an instance of <code>OutboundMessage</code>.
+     *
+     * @param messageType message type
+     * @param org organization
+     * @param to Slack user name of the recipient, or null for the GroundSchool channel
+     * @param body rendered message text
+     */
+    public OutboundMessage(final MessageType messageType, final String org, final String to, final String body) {
+        id = UUID.randomUUID().toString();
+        type = messageType;
+        organization = org;
+        recipient = to;
+        text = body;
+    }
+
+}
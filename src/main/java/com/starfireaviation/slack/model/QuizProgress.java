@@ -0,0 +1,58 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of a student through a running quiz session.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizProgress {
+
+    /**
+     * Organization whose workspace the quiz runs in.
+     */
+    private String organization;
+
+    /**
+     * Slack user name of the student.
+     */
+    private String recipient;
+
+    /**
+     * Position of the current question, starting at 0.
+     */
+    private int question;
+
+    /**
+     * Number of questions in the quiz.
+     */
+    private int total;
+
+    /**
+     * Time the session started.
+     */
+    private Instant startedAt;
+}
@@ -0,0 +1,51 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An inbound Slack message as captured by the inbound recorder.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordedMessage {
+
+    /**
+     * Time the message was received, in nanoseconds since the recording started.
+     */
+    private long offsetNanos;
+
+    /**
+     * Organization whose workspace the message was posted in.
+     */
+    private String organization;
+
+    /**
+     * Slack user name of the sender, or its pseudonym in an anonymized recording.
+     */
+    private String user;
+
+    /**
+     * Message text. Anonymized recordings keep recognized responses and mask everything else.
+     */
+    private String text;
+
+}
@@ -0,0 +1,55 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Text rendered from a notification template, tagged with the template version used.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RenderedTemplate {
+
+    /**
+     * Template name.
+     */
+    private String name;
+
+    /**
+     * Version of the template, increasing each time a template is (re)loaded.
+     */
+    private long version;
+
+    /**
+     * Rendered text.
+     */
+    private String text;
+
+    /**
+     * Template name and version, e.g. question.ftl@3.
+     *
+     * @return tag
+     */
+    public String getTag() {
+        return name + "@" + version;
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Outcome of replaying an inbound recording.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayReport {
+
+    /**
+     * Messages handled.
+     */
+    private long replayed;
+
+    /**
+     * Messages dropped because the replay workers were saturated.
+     */
+    private long dropped;
+
+    /**
+     * Messages whose handling threw.
+     */
+    private long failed;
+
+    /**
+     * Wall clock time of the replay.
+     */
+    private Duration elapsed;
+
+    /**
+     * Median time from a message's due time until it was handled.
+     */
+    private Duration p50Latency;
+
+    /**
+     * 99th percentile time from a message's due time until it was handled.
+     */
+    private Duration p99Latency;
+
+    /**
+     * Longest time from a message's due time until it was handled.
+     */
+    private Duration maxLatency;
+
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Totals of the shadow capture sink since start.
+ */
+@Data
+public class ShadowSummary {
+
+    /**
+     * Messages captured.
+     */
+    private long captured;
+
+    /**
+     * UTF-8 bytes of captured text.
+     */
+    private long bytes;
+
+    /**
+     * Messages captured by type.
+     */
+    private Map<MessageType, Long> byType = new EnumMap<>(MessageType.class);
+
+    /**
+     * Mean time messages spent queued before delivery, in milliseconds.
+     */
+    private double meanQueuedMillis;
+
+    /**
+     * Longest time a message spent queued before delivery, in milliseconds.
+     */
+    private double maxQueuedMillis;
+
+    /**
+     * Captured messages per second since the first capture.
+     */
+    private double throughput;
+
+    /**
+     * Sampled payloads currently kept.
+     */
+    private int samples;
+
+}
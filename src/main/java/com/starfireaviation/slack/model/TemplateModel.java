@@ -0,0 +1,202 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Values available to notification templates. Templates compiled at build time read the String fields directly;
+ * templates interpreted by FreeMarker see the same values through {@link #toMap()}, together with any extra keys.
+ */
+@Data
+public class TemplateModel {
+
+    /**
+     * Ground school site.
+     */
+    private String groundSchoolLink;
+
+    /**
+     * Ground school password reset page.
+     */
+    private String groundSchoolPasswordResetLink;
+
+    /**
+     * User's first name.
+     */
+    private String firstName;
+
+    /**
+     * User's last name.
+     */
+    private String lastName;
+
+    /**
+     * User ID.
+     */
+    private Long userId;
+
+    /**
+     * User's verification code.
+     */
+    private String code;
+
+    /**
+     * User's certificate number.
+     */
+    private String certificateNumber;
+
+    /**
+     * Event title, time and address.
+     */
+    private String event;
+
+    /**
+     * Event title.
+     */
+    private String eventtitle;
+
+    /**
+     * Day of the week the event starts.
+     */
+    private String dayofweek;
+
+    /**
+     * Question unit.
+     */
+    private String questionUnit;
+
+    /**
+     * Question sub-unit.
+     */
+    private String questionSubUnit;
+
+    /**
+     * Question learning statement code.
+     */
+    private String questionLearningStatementCode;
+
+    /**
+     * Question text.
+     */
+    private String questionText;
+
+    /**
+     * Slack callback ID.
+     */
+    private String callbackId;
+
+    /**
+     * Question reference material links.
+     */
+    private String referenceMaterial;
+
+    /**
+     * First answer choice.
+     */
+    private String answerChoice1;
+
+    /**
+     * First answer text.
+     */
+    private String answerText1;
+
+    /**
+     * Second answer choice.
+     */
+    private String answerChoice2;
+
+    /**
+     * Second answer text.
+     */
+    private String answerText2;
+
+    /**
+     * Third answer choice.
+     */
+    private String answerChoice3;
+
+    /**
+     * Third answer text.
+     */
+    private String answerText3;
+
+    /**
+     * Values without a field, such as further answers, keyed by template variable.
+     */
+    private Map<String, Object> extras = new HashMap<>();
+
+    /**
+     * Sets a value without a field.
+     *
+     * @param key template variable
+     * @param value value
+     */
+    public void putExtra(final String key, final Object value) {
+        extras.put(key, value);
+    }
+
+    /**
+     * Every value keyed by template variable, for templates interpreted by FreeMarker. Null values are left out,
+     * which FreeMarker treats the same as missing ones.
+     *
+     * @return model
+     */
+    public Map<String, Object> toMap() {
+        final Map<String, Object> model = new HashMap<>(extras);
+        putIfSet(model, "groundSchoolLink", groundSchoolLink);
+        putIfSet(model, "groundSchoolPasswordResetLink", groundSchoolPasswordResetLink);
+        putIfSet(model, "firstName", firstName);
+        putIfSet(model, "lastName", lastName);
+        putIfSet(model, "userId", userId);
+        putIfSet(model, "code", code);
+        putIfSet(model, "certificateNumber", certificateNumber);
+        putIfSet(model, "event", event);
+        putIfSet(model, "eventtitle", eventtitle);
+        putIfSet(model, "dayofweek", dayofweek);
+        putIfSet(model, "questionUnit", questionUnit);
+        putIfSet(model, "questionSubUnit", questionSubUnit);
+        putIfSet(model, "questionLearningStatementCode", questionLearningStatementCode);
+        putIfSet(model, "questionText", questionText);
+        putIfSet(model, "callbackId", callbackId);
+        putIfSet(model, "referenceMaterial", referenceMaterial);
+        putIfSet(model, "answerChoice1", answerChoice1);
+        putIfSet(model, "answerText1", answerText1);
+        putIfSet(model, "answerChoice2", answerChoice2);
+        putIfSet(model, "answerText2", answerText2);
+        putIfSet(model, "answerChoice3", answerChoice3);
+        putIfSet(model, "answerText3", answerText3);
+        return model;
+    }
+
+    /**
+     * Adds a value to a model unless it is null.
+     *
+     * @param model model
+     * @param key template variable
+     * @param value value
+     */
+    private static void putIfSet(final Map<String, Object> model, final String key, final Object value) {
+        if (value != null) {
+            model.put(key, value);
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.model;
+
+import com.starfireaviation.model.ResponseOption;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A recognized reply received from a Slack user.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserResponse {
+
+    /**
+     * Organization whose workspace the reply was received in.
+     */
+    private String organization;
+
+    /**
+     * Slack user name of the sender.
+     */
+    private String user;
+
+    /**
+     * Recognized response option.
+     */
+    private ResponseOption response;
+
+    /**
+     * Raw message text.
+     */
+    private String text;
+
+    /**
+     * Time the reply was received.
+     */
+    private Instant receivedAt;
+
+}
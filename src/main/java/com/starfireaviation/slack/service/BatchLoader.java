@@ -0,0 +1,353 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.client.EntityTransport;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads entities of one type from the upstream service, in the style of DataLoader. Concurrent loads of the same
+ * ID share one request, and the distinct IDs requested within a batch window are fetched together in one
+ * upstream call. Loaded entities are kept in a least recently used cache bounded by size and age; entities
+ * older than the refresh-after age are still served from the cache while a background fetch refreshes them.
+ *
+ * @param <V> entity type
+ */
+@Slf4j
+public class BatchLoader<V> {
+
+    /**
+     * Entity type metric tag.
+     */
+    private static final String TYPE_TAG = "type";
+
+    /**
+     * Cache load factor.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Entity type.
+     */
+    private final Class<V> type;
+
+    /**
+     * EntityTransport.
+     */
+    private final EntityTransport transport;
+
+    /**
+     * Runs the batch fetches.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Time IDs are collected before they are fetched.
+     */
+    private final long batchWindowNanos;
+
+    /**
+     * Maximum number of IDs fetched in one call.
+     */
+    private final int maxBatchSize;
+
+    /**
+     * Age after which a cached entity is no longer served.
+     */
+    private final long ttlNanos;
+
+    /**
+     * Age after which a cached entity is refreshed in the background.
+     */
+    private final long refreshAfterNanos;
+
+    /**
+     * Requests not yet completed, keyed by ID.
+     */
+    private final Map<Long, CompletableFuture<V>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * IDs waiting for the next batch.
+     */
+    private final Queue<Long> queued = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether a batch fetch is scheduled.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Cached entities, least recently used first.
+     */
+    private final Map<Long, Cached<V>> cache;
+
+    /**
+     * Loads served from the cache.
+     */
+    private final Counter hits;
+
+    /**
+     * Loads which had to wait for the upstream service.
+     */
+    private final Counter misses;
+
+    /**
+     * Background refreshes.
+     */
+    private final Counter refreshes;
+
+    /**
+     * IDs per upstream call.
+     */
+    private final DistributionSummary batchSizes;
+
+    /**
+     * Upstream call latency.
+     */
+    private final Timer fetchLatency;
+
+    /**
+     * Initializes an instance of <code>BatchLoader</code>.
+     *
+     * @param entityType entity type
+     * @param entityTransport EntityTransport
+     * @param batchScheduler runs the batch fetches
+     * @param settings loader settings
+     * @param meterRegistry MeterRegistry
+     */
+    public BatchLoader(final Class<V> entityType,
+                       final EntityTransport entityTransport,
+                       final ScheduledExecutorService batchScheduler,
+                       final ApplicationProperties.Loader settings,
+                       final MeterRegistry meterRegistry) {
+        type = entityType;
+        transport = entityTransport;
+        scheduler = batchScheduler;
+        batchWindowNanos = settings.getBatchWindow().toNanos();
+        maxBatchSize = Math.max(1, settings.getMaxBatchSize());
+        ttlNanos = settings.getTtl().toNanos();
+        refreshAfterNanos = Math.min(settings.getRefreshAfter().toNanos(), ttlNanos);
+        final int capacity = Math.max(1, settings.getCacheSize());
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(capacity, LOAD_FACTOR, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, Cached<V>> eldest) {
+                return size() > capacity;
+            }
+        });
+        final String name = type.getSimpleName();
+        hits = meterRegistry.counter("slack.loader.hits", TYPE_TAG, name);
+        misses = meterRegistry.counter("slack.loader.misses", TYPE_TAG, name);
+        refreshes = meterRegistry.counter("slack.loader.refreshes", TYPE_TAG, name);
+        batchSizes = meterRegistry.summary("slack.loader.batch.size", TYPE_TAG, name);
+        fetchLatency = meterRegistry.timer("slack.loader.fetch", TYPE_TAG, name);
+    }
+
+    /**
+     * Loads an entity.
+     *
+     * @param id entity ID
+     * @return the entity, completed with null if it does not exist
+     */
+    public CompletableFuture<V> load(final long id) {
+        final Cached<V> cached = cache.get(id);
+        if (cached != null) {
+            final long age = System.nanoTime() - cached.getLoadedAt();
+            if (age < ttlNanos) {
+                hits.increment();
+                if (age >= refreshAfterNanos && !pending.containsKey(id)) {
+                    refreshes.increment();
+                    request(id);
+                }
+                return CompletableFuture.completedFuture(cached.getValue());
+            }
+        }
+        misses.increment();
+        return request(id);
+    }
+
+    /**
+     * Drops an entity from the cache, so the next load fetches it.
+     *
+     * @param id entity ID
+     */
+    public void invalidate(final long id) {
+        cache.remove(id);
+    }
+
+    /**
+     * Joins or queues a fetch of an ID.
+     *
+     * @param id entity ID
+     * @return pending result
+     */
+    private CompletableFuture<V> request(final long id) {
+        final CompletableFuture<V> created = new CompletableFuture<>();
+        final CompletableFuture<V> existing = pending.putIfAbsent(id, created);
+        if (existing != null) {
+            return existing;
+        }
+        queued.add(id);
+        if (scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::dispatch, batchWindowNanos, TimeUnit.NANOSECONDS);
+        }
+        return created;
+    }
+
+    /**
+     * Fetches every queued ID, in batches of at most the maximum batch size.
+     */
+    private void dispatch() {
+        scheduled.set(false);
+        Set<Long> batch = nextBatch();
+        while (!batch.isEmpty()) {
+            fetch(batch);
+            batch = nextBatch();
+        }
+    }
+
+    /**
+     * Takes the next batch of queued IDs.
+     *
+     * @return IDs, empty when none are queued
+     */
+    private Set<Long> nextBatch() {
+        final Set<Long> batch = new LinkedHashSet<>();
+        Long id = queued.poll();
+        while (id != null) {
+            batch.add(id);
+            if (batch.size() >= maxBatchSize) {
+                break;
+            }
+            id = queued.poll();
+        }
+        return batch;
+    }
+
+    /**
+     * Fetches a batch and completes its requests.
+     *
+     * @param ids entity IDs
+     */
+    private void fetch(final Set<Long> ids) {
+        batchSizes.record(ids.size());
+        final long start = System.nanoTime();
+        final Map<Long, V> found;
+        try {
+            found = transport.fetch(type, ids);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to load {} {}: {}", type.getSimpleName(), ids, e.getMessage());
+            ids.forEach(id -> complete(id, null, e));
+            return;
+        }
+        final long loadedAt = System.nanoTime();
+        fetchLatency.record(loadedAt - start, TimeUnit.NANOSECONDS);
+        for (Long id : ids) {
+            final V value = found.get(id);
+            if (value != null) {
+                cache.put(id, new Cached<>(value, loadedAt));
+            }
+            complete(id, value, null);
+        }
+    }
+
+    /**
+     * Completes the pending request for an ID.
+     *
+     * @param id entity ID
+     * @param value entity, or null
+     * @param error failure, or null
+     */
+    private void complete(final Long id, final V value, final Throwable error) {
+        final CompletableFuture<V> future = pending.remove(id);
+        if (future == null) {
+            return;
+        }
+        if (error == null) {
+            future.complete(value);
+        } else {
+            future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * A cached entity.
+     *
+     * @param <T> entity type
+     */
+    private static final class Cached<T> {
+
+        /**
+         * Entity.
+         */
+        private final T value;
+
+        /**
+         * Time loaded, from System.nanoTime().
+         */
+        private final long loadedAt;
+
+        /**
+         * Initializes an instance of <code>Cached</code>.
+         *
+         * @param entity entity
+         * @param loaded time loaded
+         */
+        Cached(final T entity, final long loaded) {
+            value = entity;
+            loadedAt = loaded;
+        }
+
+        /**
+         * Entity.
+         *
+         * @return entity
+         */
+        T getValue() {
+            return value;
+        }
+
+        /**
+         * Time loaded.
+         *
+         * @return time loaded, from System.nanoTime()
+         */
+        long getLoadedAt() {
+            return loadedAt;
+        }
+    }
+}
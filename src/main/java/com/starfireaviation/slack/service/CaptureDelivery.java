@@ -0,0 +1,71 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.client.MessageDelivery;
+import com.starfireaviation.slack.client.OrganizationSession;
+import com.starfireaviation.slack.model.OutboundMessage;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessageDelivery used in shadow mode: hands messages to the CaptureSink instead of Slack, optionally taking
+ * as long as a Slack call would so the dispatcher's in-flight limits behave as in production.
+ */
+public class CaptureDelivery implements MessageDelivery {
+
+    /**
+     * CaptureSink.
+     */
+    private final CaptureSink sink;
+
+    /**
+     * Completes deliveries after the simulated latency, or null to complete them immediately.
+     */
+    private final Executor delay;
+
+    /**
+     * Initializes an instance of <code>CaptureDelivery</code>.
+     *
+     * @param captureSink CaptureSink
+     * @param simulatedLatency time each capture takes
+     */
+    public CaptureDelivery(final CaptureSink captureSink, final Duration simulatedLatency) {
+        sink = captureSink;
+        if (simulatedLatency.isZero() || simulatedLatency.isNegative()) {
+            delay = null;
+        } else {
+            delay = CompletableFuture.delayedExecutor(simulatedLatency.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * {@inheritDoc} Required implementation.
+     */
+    @Override
+    public CompletableFuture<String> deliver(final OrganizationSession session, final OutboundMessage message) {
+        sink.capture(message);
+        if (delay == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> null, delay);
+    }
+
+}
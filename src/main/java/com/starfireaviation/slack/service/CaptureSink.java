@@ -0,0 +1,247 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.CapturedMessage;
+import com.starfireaviation.slack.model.MessageType;
+import com.starfireaviation.slack.model.OutboundMessage;
+import com.starfireaviation.slack.model.ShadowSummary;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Receives messages in shadow mode instead of Slack. Every capture is timed and counted; a sample of the
+ * payloads is kept, bounded, so template changes can be checked against production traffic.
+ */
+public class CaptureSink {
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /**
+     * Median.
+     */
+    private static final double P50 = 0.5;
+
+    /**
+     * 95th percentile.
+     */
+    private static final double P95 = 0.95;
+
+    /**
+     * 99th percentile.
+     */
+    private static final double P99 = 0.99;
+
+    /**
+     * Fraction of captures whose payload is kept.
+     */
+    private final double sampleRate;
+
+    /**
+     * Number of sampled payloads kept.
+     */
+    private final int sampleCapacity;
+
+    /**
+     * Sampled payloads, oldest first.
+     */
+    private final Deque<CapturedMessage> samples = new ArrayDeque<>();
+
+    /**
+     * Captures by type.
+     */
+    private final Map<MessageType, LongAdder> byType = new ConcurrentHashMap<>();
+
+    /**
+     * Captured UTF-8 bytes.
+     */
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Total time captured messages spent queued, in nanoseconds.
+     */
+    private final LongAdder queuedNanos = new LongAdder();
+
+    /**
+     * Longest time a captured message spent queued, in nanoseconds.
+     */
+    private final AtomicLong maxQueuedNanos = new AtomicLong();
+
+    /**
+     * Messages captured.
+     */
+    private final LongAdder captured = new LongAdder();
+
+    /**
+     * Time of the first capture, from System.nanoTime, or 0 before it.
+     */
+    private final AtomicLong firstCapture = new AtomicLong();
+
+    /**
+     * Time of the latest capture, from System.nanoTime.
+     */
+    private final AtomicLong lastCapture = new AtomicLong();
+
+    /**
+     * Time messages spent queued before capture.
+     */
+    private final Timer queued;
+
+    /**
+     * Captured payload sizes.
+     */
+    private final DistributionSummary payloadSize;
+
+    /**
+     * MeterRegistry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Initializes an instance of <code>CaptureSink</code>.
+     *
+     * @param settings shadow dispatch settings
+     * @param meterRegistry MeterRegistry
+     */
+    public CaptureSink(final ApplicationProperties.Shadow settings, final MeterRegistry meterRegistry) {
+        sampleRate = Math.max(0.0, Math.min(1.0, settings.getSampleRate()));
+        sampleCapacity = Math.max(0, settings.getSampleCapacity());
+        registry = meterRegistry;
+        queued = Timer.builder("slack.shadow.queued")
+                .publishPercentiles(P50, P95, P99)
+                .register(meterRegistry);
+        payloadSize = DistributionSummary.builder("slack.shadow.payload")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Captures a message.
+     *
+     * @param message OutboundMessage
+     */
+    public void capture(final OutboundMessage message) {
+        final long now = System.nanoTime();
+        long waited = 0L;
+        if (message.getEnqueuedAt() > 0L) {
+            waited = Math.max(0L, now - message.getEnqueuedAt());
+        }
+        int size = 0;
+        if (message.getText() != null) {
+            size = message.getText().getBytes(StandardCharsets.UTF_8).length;
+        }
+        queued.record(waited, TimeUnit.NANOSECONDS);
+        payloadSize.record(size);
+        registry.counter("slack.shadow.captured", "organization", String.valueOf(message.getOrganization()),
+                "type", String.valueOf(message.getType())).increment();
+        if (message.getType() != null) {
+            byType.computeIfAbsent(message.getType(), type -> new LongAdder()).increment();
+        }
+        captured.increment();
+        bytes.add(size);
+        queuedNanos.add(waited);
+        maxQueuedNanos.accumulateAndGet(waited, Math::max);
+        firstCapture.compareAndSet(0L, now);
+        lastCapture.accumulateAndGet(now, Math::max);
+        if (sampleCapacity > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            sample(new CapturedMessage(message.getId(), message.getType(), message.getOrganization(),
+                    message.getRecipient(), message.getTemplateVersion(), message.getText(),
+                    waited / NANOS_PER_MILLI, Instant.now()));
+        }
+    }
+
+    /**
+     * Sampled payloads, oldest first.
+     *
+     * @return sampled payloads
+     */
+    public synchronized List<CapturedMessage> getSamples() {
+        return new ArrayList<>(samples);
+    }
+
+    /**
+     * Discards the sampled payloads.
+     *
+     * @return number of samples discarded
+     */
+    public synchronized int clearSamples() {
+        final int cleared = samples.size();
+        samples.clear();
+        return cleared;
+    }
+
+    /**
+     * Totals since start.
+     *
+     * @return ShadowSummary
+     */
+    public ShadowSummary getSummary() {
+        final ShadowSummary summary = new ShadowSummary();
+        final long count = captured.sum();
+        summary.setCaptured(count);
+        summary.setBytes(bytes.sum());
+        byType.forEach((type, adder) -> summary.getByType().put(type, adder.sum()));
+        if (count > 0) {
+            summary.setMeanQueuedMillis(queuedNanos.sum() / NANOS_PER_MILLI / count);
+        }
+        summary.setMaxQueuedMillis(maxQueuedNanos.get() / NANOS_PER_MILLI);
+        final long elapsed = lastCapture.get() - firstCapture.get();
+        if (count > 1 && elapsed > 0L) {
+            summary.setThroughput((count - 1) * NANOS_PER_SECOND / elapsed);
+        }
+        synchronized (this) {
+            summary.setSamples(samples.size());
+        }
+        return summary;
+    }
+
+    /**
+     * Keeps a sample, evicting the oldest if full.
+     *
+     * @param sample CapturedMessage
+     */
+    private synchronized void sample(final CapturedMessage sample) {
+        samples.addLast(sample);
+        while (samples.size() > sampleCapacity) {
+            samples.removeFirst();
+        }
+    }
+
+}
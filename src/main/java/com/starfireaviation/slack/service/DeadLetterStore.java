@@ -0,0 +1,118 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.model.DeadLetter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded store of messages which exhausted their delivery attempts. Once full, the oldest entry is evicted.
+ */
+@Slf4j
+public class DeadLetterStore {
+
+    /**
+     * Dead letters keyed by message ID, oldest first.
+     */
+    private final Map<String, DeadLetter> deadLetters = new LinkedHashMap<>();
+
+    /**
+     * Maximum number of dead letters kept.
+     */
+    private final int capacity;
+
+    /**
+     * Dead letters evicted to make room for newer ones.
+     */
+    private final Counter evicted;
+
+    /**
+     * Initializes an instance of <code>DeadLetterStore</code>.
+     *
+     * @param maxSize maximum number of dead letters kept
+     * @param meterRegistry MeterRegistry
+     */
+    public DeadLetterStore(final int maxSize, final MeterRegistry meterRegistry) {
+        capacity = Math.max(1, maxSize);
+        evicted = meterRegistry.counter("slack.deadletters.evicted");
+        meterRegistry.gauge("slack.deadletters.size", this, DeadLetterStore::size);
+    }
+
+    /**
+     * Adds a dead letter, evicting the oldest if the store is full.
+     *
+     * @param deadLetter DeadLetter
+     */
+    public synchronized void add(final DeadLetter deadLetter) {
+        deadLetters.put(deadLetter.getMessage().getId(), deadLetter);
+        final Iterator<DeadLetter> oldest = deadLetters.values().iterator();
+        while (deadLetters.size() > capacity) {
+            final DeadLetter dropped = oldest.next();
+            oldest.remove();
+            evicted.increment();
+            log.warn("Dead letter store full; evicting message {}", dropped.getMessage().getId());
+        }
+    }
+
+    /**
+     * Lists dead letters, oldest first.
+     *
+     * @return dead letters
+     */
+    public synchronized List<DeadLetter> list() {
+        return new ArrayList<>(deadLetters.values());
+    }
+
+    /**
+     * Removes a dead letter.
+     *
+     * @param id message ID
+     * @return removed dead letter, or null if not found
+     */
+    public synchronized DeadLetter remove(final String id) {
+        return deadLetters.remove(id);
+    }
+
+    /**
+     * Removes every dead letter.
+     *
+     * @return removed dead letters, oldest first
+     */
+    public synchronized List<DeadLetter> removeAll() {
+        final List<DeadLetter> removed = new ArrayList<>(deadLetters.values());
+        deadLetters.clear();
+        return removed;
+    }
+
+    /**
+     * Number of dead letters.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return deadLetters.size();
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.client.OrganizationSession;
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.DirectorySnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps each organization's SlackDirectory available across restarts. Snapshots are loaded at startup, so user
+ * and channel names resolve before Slack has been contacted, and are periodically reconciled with the users and
+ * channels of the connected session (which Slack keeps current through RTM events) and written back when they
+ * changed.
+ */
+@Slf4j
+public class DirectoryRefresher {
+
+    /**
+     * Snapshot file extension.
+     */
+    private static final String EXTENSION = ".json";
+
+    /**
+     * Organization metric tag.
+     */
+    private static final String ORGANIZATION_TAG = "organization";
+
+    /**
+     * SlackSessionPool.
+     */
+    private final SlackSessionPool slackSessionPool;
+
+    /**
+     * ObjectMapper.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Directory holding one snapshot per organization, or null when snapshots are not persisted.
+     */
+    private final Path snapshotDirectory;
+
+    /**
+     * Refresh interval in milliseconds.
+     */
+    private final long refreshIntervalMs;
+
+    /**
+     * MeterRegistry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Runs the refreshes.
+     */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "directory-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Initializes an instance of <code>DirectoryRefresher</code>.
+     *
+     * @param sessionPool SlackSessionPool
+     * @param mapper ObjectMapper
+     * @param settings directory settings
+     * @param meterRegistry MeterRegistry
+     */
+    public DirectoryRefresher(final SlackSessionPool sessionPool,
+                              final ObjectMapper mapper,
+                              final ApplicationProperties.Directory settings,
+                              final MeterRegistry meterRegistry) {
+        slackSessionPool = sessionPool;
+        objectMapper = mapper;
+        if (settings.getSnapshotDir() == null || settings.getSnapshotDir().isBlank()) {
+            snapshotDirectory = null;
+        } else {
+            snapshotDirectory = Paths.get(settings.getSnapshotDir());
+        }
+        refreshIntervalMs = settings.getRefreshInterval().toMillis();
+        registry = meterRegistry;
+    }
+
+    /**
+     * Loads the persisted snapshots and schedules the refreshes.
+     */
+    public void start() {
+        for (OrganizationSession session : slackSessionPool.getAll()) {
+            registry.gauge("slack.directory.users", Tags.of(ORGANIZATION_TAG, session.getName()),
+                    session.getDirectory(), directory -> directory.getUserCount());
+            load(session);
+        }
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops refreshing, saving the directories one last time.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        refresh();
+    }
+
+    /**
+     * Reconciles every connected organization's directory and saves those which changed.
+     */
+    public void refresh() {
+        for (OrganizationSession session : slackSessionPool.getAll()) {
+            final DirectorySnapshot latest = session.readDirectory();
+            if (latest == null) {
+                continue;
+            }
+            final int changes = session.getDirectory().reconcile(latest);
+            registry.counter("slack.directory.changes", ORGANIZATION_TAG, session.getName()).increment(changes);
+            if (changes > 0 || !exists(session)) {
+                log.info("Directory of organization {} changed by {} entries", session.getName(), changes);
+                save(session);
+            }
+        }
+    }
+
+    /**
+     * Loads an organization's persisted snapshot.
+     *
+     * @param session OrganizationSession
+     */
+    private void load(final OrganizationSession session) {
+        if (!exists(session)) {
+            return;
+        }
+        final Path file = file(session);
+        try {
+            final DirectorySnapshot snapshot = objectMapper.readValue(file.toFile(), DirectorySnapshot.class);
+            session.getDirectory().load(snapshot);
+            log.info("Loaded directory of organization {} with {} users and {} channels taken at {}",
+                    session.getName(), snapshot.getUsers().size(), snapshot.getChannels().size(),
+                    snapshot.getTakenAt());
+        } catch (IOException e) {
+            log.warn("Unable to load directory snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes an organization's directory, replacing the previous snapshot in one step.
+     *
+     * @param session OrganizationSession
+     */
+    private void save(final OrganizationSession session) {
+        if (snapshotDirectory == null) {
+            return;
+        }
+        final Path file = file(session);
+        try {
+            Files.createDirectories(snapshotDirectory);
+            final Path temp = Files.createTempFile(snapshotDirectory, session.getName(), ".tmp");
+            objectMapper.writeValue(temp.toFile(), session.getDirectory().getSnapshot());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to save directory snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether an organization has a persisted snapshot.
+     *
+     * @param session OrganizationSession
+     * @return true if a snapshot exists
+     */
+    private boolean exists(final OrganizationSession session) {
+        return snapshotDirectory != null && Files.exists(file(session));
+    }
+
+    /**
+     * An organization's snapshot file.
+     *
+     * @param session OrganizationSession
+     * @return snapshot file
+     */
+    private Path file(final OrganizationSession session) {
+        return snapshotDirectory.resolve(session.getName() + EXTENSION);
+    }
+}
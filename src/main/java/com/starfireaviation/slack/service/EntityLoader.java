@@ -0,0 +1,160 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.model.Event;
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.Quiz;
+import com.starfireaviation.model.User;
+import com.starfireaviation.slack.client.EntityTransport;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Looks up the users, events, questions and quizzes notifications refer to, through one BatchLoader per type.
+ */
+@Slf4j
+public class EntityLoader {
+
+    /**
+     * Runs the batch fetches of every type.
+     */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "entity-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * User loader.
+     */
+    private final BatchLoader<User> users;
+
+    /**
+     * Event loader.
+     */
+    private final BatchLoader<Event> events;
+
+    /**
+     * Question loader.
+     */
+    private final BatchLoader<Question> questions;
+
+    /**
+     * Quiz loader.
+     */
+    private final BatchLoader<Quiz> quizzes;
+
+    /**
+     * Time a lookup waits for the upstream service, in milliseconds.
+     */
+    private final long timeoutMs;
+
+    /**
+     * Initializes an instance of <code>EntityLoader</code>.
+     *
+     * @param transport EntityTransport
+     * @param settings loader settings
+     * @param meterRegistry MeterRegistry
+     */
+    public EntityLoader(final EntityTransport transport,
+                        final ApplicationProperties.Loader settings,
+                        final MeterRegistry meterRegistry) {
+        users = new BatchLoader<>(User.class, transport, scheduler, settings, meterRegistry);
+        events = new BatchLoader<>(Event.class, transport, scheduler, settings, meterRegistry);
+        questions = new BatchLoader<>(Question.class, transport, scheduler, settings, meterRegistry);
+        quizzes = new BatchLoader<>(Quiz.class, transport, scheduler, settings, meterRegistry);
+        timeoutMs = settings.getTimeout().toMillis();
+    }
+
+    /**
+     * Looks up a user.
+     *
+     * @param id user ID, or null
+     * @return User, or null if it is unknown or could not be loaded
+     */
+    public User getUser(final Long id) {
+        return get(users, id);
+    }
+
+    /**
+     * Looks up an event.
+     *
+     * @param id event ID, or null
+     * @return Event, or null if it is unknown or could not be loaded
+     */
+    public Event getEvent(final Long id) {
+        return get(events, id);
+    }
+
+    /**
+     * Looks up a question.
+     *
+     * @param id question ID, or null
+     * @return Question, or null if it is unknown or could not be loaded
+     */
+    public Question getQuestion(final Long id) {
+        return get(questions, id);
+    }
+
+    /**
+     * Looks up a quiz.
+     *
+     * @param id quiz ID, or null
+     * @return Quiz, or null if it is unknown or could not be loaded
+     */
+    public Quiz getQuiz(final Long id) {
+        return get(quizzes, id);
+    }
+
+    /**
+     * Stops the batch scheduler.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Waits for a load.
+     *
+     * @param loader BatchLoader
+     * @param id entity ID, or null
+     * @param <V> entity type
+     * @return entity, or null
+     */
+    private <V> V get(final BatchLoader<V> loader, final Long id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return loader.load(id).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Unable to load {}: {}", id, e.toString());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.starfireaviation.slack.client.EventCallbackListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Hands user messages found in Events API payloads to the MessageService on the event executor, so neither
+ * the HTTP request thread nor the Socket Mode read loop waits on message handling. The event ids of recently
+ * handled events are remembered, so an event Slack delivers again, such as an Events API retry sent with
+ * <code>X-Slack-Retry-Num</code> after a slow acknowledgement, is acknowledged but not handled twice.
+ */
+@Slf4j
+public class EventCallbackHandler implements EventCallbackListener {
+
+    /**
+     * Type field.
+     */
+    private static final String TYPE = "type";
+
+    /**
+     * Event id field.
+     */
+    private static final String EVENT_ID = "event_id";
+
+    /**
+     * Initial capacity of the recent event ids.
+     */
+    private static final int RECENT_INITIAL_CAPACITY = 64;
+
+    /**
+     * Load factor of the recent event ids.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * MessageService.
+     */
+    private final MessageService messageService;
+
+    /**
+     * Executor handling events after they have been acknowledged.
+     */
+    private final Executor executor;
+
+    /**
+     * Recently handled event ids, keyed by organization and event id.
+     */
+    private final Map<String, Boolean> recent;
+
+    /**
+     * Events delivered again and not handled twice.
+     */
+    private final Counter duplicates;
+
+    /**
+     * Initializes an instance of <code>EventCallbackHandler</code>.
+     *
+     * @param service MessageService
+     * @param eventExecutor executor handling events after they have been acknowledged
+     * @param recentEvents number of recent event ids remembered
+     * @param registry MeterRegistry
+     */
+    public EventCallbackHandler(final MessageService service,
+                                final Executor eventExecutor,
+                                final int recentEvents,
+                                final MeterRegistry registry) {
+        messageService = service;
+        executor = eventExecutor;
+        final int capacity = Math.max(1, recentEvents);
+        recent = Collections.synchronizedMap(new LinkedHashMap<>(RECENT_INITIAL_CAPACITY, LOAD_FACTOR) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        });
+        duplicates = registry.counter("slack.events.duplicates");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean onEventCallback(final String organization, final JsonNode payload) {
+        if (!"event_callback".equals(payload.path(TYPE).asText())) {
+            return true;
+        }
+        final JsonNode event = payload.path("event");
+        if (!isUserMessage(event)) {
+            return true;
+        }
+        String key = null;
+        if (payload.hasNonNull(EVENT_ID)) {
+            key = organization + ':' + payload.path(EVENT_ID).asText();
+            if (recent.put(key, Boolean.TRUE) != null) {
+                duplicates.increment();
+                log.debug("Skipped repeated event {} for {}", payload.path(EVENT_ID).asText(), organization);
+                return true;
+            }
+        }
+        try {
+            executor.execute(() -> messageService.onEventsApiMessage(
+                    organization, event.path("user").asText(), event.path("text").asText()));
+        } catch (RejectedExecutionException e) {
+            if (key != null) {
+                recent.remove(key);
+            }
+            log.warn("Inbound event queue full; asking Slack to retry");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether an event is a plain message posted by a user.
+     *
+     * @param event event
+     * @return true for user messages, false for bot messages, edits and other subtypes
+     */
+    private static boolean isUserMessage(final JsonNode event) {
+        return "message".equals(event.path(TYPE).asText())
+                && !event.hasNonNull("subtype")
+                && !event.hasNonNull("bot_id")
+                && event.hasNonNull("user");
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.config.ApplicationProperties;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs a continuous flight recording with the JDK's default settings plus the bundled {@code jfr/slack.jfc}
+ * profile, which enables the application's render, send, parse and queue events. The recording is kept within
+ * its age and size limits while running and dumped to the configured directory when the application stops.
+ */
+@Slf4j
+public class FlightRecording {
+
+    /**
+     * Bundled settings profile.
+     */
+    public static final String PROFILE = "/jfr/slack.jfc";
+
+    /**
+     * JDK settings the profile is layered over.
+     */
+    private static final String BASE_CONFIGURATION = "default";
+
+    /**
+     * Recording name.
+     */
+    private static final String NAME = "slack";
+
+    /**
+     * Recording settings.
+     */
+    private final ApplicationProperties.Profiling settings;
+
+    /**
+     * Running recording.
+     */
+    private Recording recording;
+
+    /**
+     * Initializes an instance of the FlightRecording class.
+     *
+     * @param profiling recording settings
+     */
+    public FlightRecording(final ApplicationProperties.Profiling profiling) {
+        settings = profiling;
+    }
+
+    /**
+     * Event settings of the bundled profile, layered over the JDK's default settings.
+     *
+     * @return event settings
+     * @throws IOException when the profile cannot be read
+     * @throws ParseException when the profile is malformed
+     */
+    public static Map<String, String> profileSettings() throws IOException, ParseException {
+        final Map<String, String> merged =
+                new HashMap<>(Configuration.getConfiguration(BASE_CONFIGURATION).getSettings());
+        try (InputStream in = FlightRecording.class.getResourceAsStream(PROFILE)) {
+            if (in == null) {
+                throw new IOException("Missing " + PROFILE);
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                merged.putAll(Configuration.create(reader).getSettings());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Starts the recording.
+     */
+    public synchronized void start() {
+        if (!settings.isEnabled() || recording != null) {
+            return;
+        }
+        try {
+            final Path directory = Paths.get(settings.getDirectory());
+            Files.createDirectories(directory);
+            final Recording started = new Recording(profileSettings());
+            started.setName(NAME);
+            started.setToDisk(true);
+            started.setMaxAge(settings.getMaxAge());
+            started.setMaxSize(settings.getMaxSize().toBytes());
+            started.setDestination(directory.resolve(NAME + "-" + System.currentTimeMillis() + ".jfr"));
+            started.start();
+            recording = started;
+            log.info("Flight recording started; dumps to {} on stop", started.getDestination());
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            log.warn("Unable to start flight recording: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the recording is running.
+     *
+     * @return true while recording
+     */
+    public synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Stops the recording, which writes it to its destination.
+     */
+    public synchronized void shutdown() {
+        if (recording == null) {
+            return;
+        }
+        try {
+            recording.stop();
+            log.info("Flight recording written to {}", recording.getDestination());
+        } catch (IllegalStateException e) {
+            log.warn("Unable to stop flight recording: {}", e.getMessage());
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.intake.MessageIntake;
+import com.starfireaviation.slack.model.OutboundMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shuts the service down without losing queued messages. On stop it stops the broker intake, lets the outbound
+ * dispatcher drain for up to the configured deadline, spools whatever is left and disconnects from Slack. On
+ * start it queues any messages spooled by the previous instance. Runs in the last lifecycle phase, so it stops
+ * before the other lifecycle beans.
+ */
+@Slf4j
+public class GracefulShutdown implements SmartLifecycle {
+
+    /**
+     * Broker intake, or null when only direct calls are accepted.
+     */
+    private final MessageIntake messageIntake;
+
+    /**
+     * OutboundDispatcher.
+     */
+    private final OutboundDispatcher outboundDispatcher;
+
+    /**
+     * OutboundSpool.
+     */
+    private final OutboundSpool outboundSpool;
+
+    /**
+     * MessageService.
+     */
+    private final MessageService messageService;
+
+    /**
+     * Maximum time spent draining the outbound queue.
+     */
+    private final Duration drainTimeout;
+
+    /**
+     * MeterRegistry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Whether the lifecycle is running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Initializes an instance of <code>GracefulShutdown</code>.
+     *
+     * @param intake broker intake, or null
+     * @param dispatcher OutboundDispatcher
+     * @param spool OutboundSpool
+     * @param service MessageService
+     * @param timeout maximum time spent draining the outbound queue
+     * @param meterRegistry MeterRegistry
+     */
+    public GracefulShutdown(final MessageIntake intake,
+                            final OutboundDispatcher dispatcher,
+                            final OutboundSpool spool,
+                            final MessageService service,
+                            final Duration timeout,
+                            final MeterRegistry meterRegistry) {
+        messageIntake = intake;
+        outboundDispatcher = dispatcher;
+        outboundSpool = spool;
+        messageService = service;
+        drainTimeout = timeout;
+        registry = meterRegistry;
+    }
+
+    /**
+     * Queues messages spooled by the previous instance.
+     */
+    @Override
+    public void start() {
+        running = true;
+        List<OutboundMessage> spooled;
+        try {
+            spooled = outboundSpool.restore();
+        } catch (IOException e) {
+            log.error("Unable to restore spooled messages from {}: {}", outboundSpool.getFile().getParent(),
+                    e.getMessage());
+            spooled = Collections.emptyList();
+        }
+        int restored = 0;
+        for (OutboundMessage message : spooled) {
+            if (outboundDispatcher.enqueue(message)) {
+                restored++;
+            }
+        }
+        if (!spooled.isEmpty()) {
+            log.info("Restored {} of {} spooled messages from {}", restored, spooled.size(),
+                    outboundSpool.getFile().getParent());
+        }
+        registry.counter("slack.shutdown.restored").increment(restored);
+    }
+
+    /**
+     * Stops intake, drains and spools the outbound queue and disconnects from Slack.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        final long start = System.nanoTime();
+        if (messageIntake != null) {
+            messageIntake.stop();
+        }
+        boolean drained;
+        List<OutboundMessage> remaining;
+        try {
+            drained = outboundDispatcher.awaitDrained(drainTimeout);
+            remaining = outboundDispatcher.takeRemaining();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drained = false;
+            remaining = Collections.emptyList();
+        }
+        final int inFlight = outboundDispatcher.getInFlightCount();
+        spool(remaining);
+        messageService.shutdownSlackSession();
+        final long elapsed = System.nanoTime() - start;
+        registry.timer("slack.shutdown.drain").record(elapsed, TimeUnit.NANOSECONDS);
+        registry.counter("slack.shutdown.spooled").increment(remaining.size());
+        if (drained) {
+            log.info("Drained outbound queue in {}ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } else {
+            log.warn("Outbound queue not drained after {}ms; {} messages left over, {} still in flight",
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), remaining.size(), inFlight);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    /**
+     * Writes leftover messages to the spool.
+     *
+     * @param remaining messages left over
+     */
+    private void spool(final List<OutboundMessage> remaining) {
+        if (remaining.isEmpty()) {
+            return;
+        }
+        if (!outboundSpool.isEnabled()) {
+            log.error("No spool file configured; {} outbound messages are lost", remaining.size());
+            return;
+        }
+        try {
+            outboundSpool.write(remaining);
+            log.info("Spooled {} outbound messages to {}", remaining.size(), outboundSpool.getFile());
+        } catch (IOException e) {
+            log.error("Unable to spool {} outbound messages to {}: {}",
+                    remaining.size(), outboundSpool.getFile(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.client.MessageDelivery;
+import com.starfireaviation.slack.client.OrganizationSession;
+import com.starfireaviation.slack.model.HistoryEntry;
+import com.starfireaviation.slack.model.OutboundMessage;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessageDelivery keeping every attempt of the delivery it wraps in the MessageHistory. Recording only queues
+ * the entry, so the send path does not wait on the history being written.
+ */
+public class HistoryDelivery implements MessageDelivery {
+
+    /**
+     * Delivery whose attempts are recorded.
+     */
+    private final MessageDelivery delegate;
+
+    /**
+     * MessageHistory.
+     */
+    private final MessageHistory history;
+
+    /**
+     * Initializes an instance of <code>HistoryDelivery</code>.
+     *
+     * @param delivery delivery whose attempts are recorded
+     * @param messageHistory MessageHistory
+     */
+    public HistoryDelivery(final MessageDelivery delivery, final MessageHistory messageHistory) {
+        delegate = delivery;
+        history = messageHistory;
+    }
+
+    /**
+     * {@inheritDoc} Required implementation.
+     */
+    @Override
+    public CompletableFuture<String> deliver(final OrganizationSession session, final OutboundMessage message) {
+        final long start = System.nanoTime();
+        long queuedAt = message.getEnqueuedAt();
+        if (queuedAt <= 0L) {
+            queuedAt = start;
+        }
+        final long since = queuedAt;
+        final int attempt = message.getAttempts();
+        final CompletableFuture<String> result = delegate.deliver(session, message);
+        result.whenComplete((ts, error) -> {
+            String outcome = "sent";
+            String reason = null;
+            if (error != null) {
+                outcome = "failed";
+                Throwable cause = error;
+                if (cause instanceof CompletionException && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                reason = cause.getMessage();
+            }
+            history.record(new HistoryEntry(message.getId(), message.getOrganization(), message.getRecipient(),
+                    message.getType(), message.getTemplateVersion(), ts, Instant.now(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since), attempt, outcome, reason));
+        });
+        return result;
+    }
+
+}
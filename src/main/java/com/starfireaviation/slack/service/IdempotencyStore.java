@@ -0,0 +1,471 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.starfireaviation.model.Message;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.Lane;
+import com.starfireaviation.slack.model.MessageType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Idempotency keys of the notification requests sent recently, so a request repeated by an upstream retry, a
+ * replay or a broker redelivery is not sent twice. Keys are derived from the request only for reminders and
+ * announcements; other requests, such as a password reset a user asks for again, are only suppressed when the
+ * caller supplies a key. A key is claimed before the request is looked up and rendered
+ * and remembered for a fixed window; a request whose key is still remembered is suppressed. Keys are held in a
+ * concurrent map with their expiry and in claim order, so expired keys, and the oldest keys once the store is
+ * full, are forgotten from the head of the order without scanning the map.
+ * <p>
+ * A released key leaves its claim behind in the order; once released claims pile up, for instance while a broker
+ * redelivers a request which keeps being rejected, they are swept out of the order.
+ * <p>
+ * When a file is configured, claims and releases are appended to it as they happen and the keys still within
+ * their window are loaded again at startup, when the file is rewritten without the rest. The file is also
+ * rewritten that way whenever it holds far more records than keys.
+ */
+@Slf4j
+public class IdempotencyStore {
+
+    /**
+     * Digest of derived keys.
+     */
+    private static final String DIGEST = "SHA-256";
+
+    /**
+     * Separates the message type from the request in a key.
+     */
+    private static final char SEPARATOR = ':';
+
+    /**
+     * Expiry persisted for a released key.
+     */
+    private static final long RELEASED = 0L;
+
+    /**
+     * Released claims left in the order before they are swept out, at the least.
+     */
+    private static final int MIN_STALE_CLAIMS = 1024;
+
+    /**
+     * Records in the file before it is rewritten with only the keys, at the least.
+     */
+    private static final int MIN_JOURNAL_RECORDS = 4096;
+
+    /**
+     * Records in the file per key before it is rewritten with only the keys.
+     */
+    private static final int JOURNAL_RECORDS_PER_KEY = 2;
+
+    /**
+     * Expiry of each remembered key, in epoch milliseconds.
+     */
+    private final Map<String, Long> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Claims in the order they were made, which is also the order they expire in.
+     */
+    private final ConcurrentLinkedQueue<Claim> claims = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Claims released since the order was last swept.
+     */
+    private final AtomicInteger staleClaims = new AtomicInteger();
+
+    /**
+     * Held by the thread forgetting keys.
+     */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Time a key is remembered for, in milliseconds.
+     */
+    private final long windowMillis;
+
+    /**
+     * Number of keys remembered.
+     */
+    private final int maxKeys;
+
+    /**
+     * File keys are persisted to, or null.
+     */
+    private final Path file;
+
+    /**
+     * Encodes requests for derived keys, with map entries sorted so equal requests encode alike.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Requests suppressed as repeats.
+     */
+    private final Counter suppressed;
+
+    /**
+     * Keys forgotten before their window ended because the store was full.
+     */
+    private final Counter evicted;
+
+    /**
+     * Appends claims and releases to the file, guarded by this.
+     */
+    private DataOutputStream journal;
+
+    /**
+     * Records in the file, guarded by this.
+     */
+    private int journalRecords;
+
+    /**
+     * Initializes an instance of <code>IdempotencyStore</code>.
+     *
+     * @param settings idempotency settings
+     * @param mapper ObjectMapper requests are encoded with for derived keys
+     * @param meterRegistry MeterRegistry
+     */
+    public IdempotencyStore(final ApplicationProperties.Idempotency settings,
+                            final ObjectMapper mapper,
+                            final MeterRegistry meterRegistry) {
+        windowMillis = settings.getWindow().toMillis();
+        maxKeys = Math.max(1, settings.getMaxKeys());
+        if (settings.getFile() == null || settings.getFile().isBlank()) {
+            file = null;
+        } else {
+            file = Paths.get(settings.getFile());
+        }
+        objectMapper = mapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        suppressed = meterRegistry.counter("slack.idempotency.suppressed");
+        evicted = meterRegistry.counter("slack.idempotency.evicted");
+        meterRegistry.gauge("slack.idempotency.size", keys, Map::size);
+    }
+
+    /**
+     * Loads the persisted keys still within their window and rewrites the file with only those.
+     *
+     * @throws IOException when the file cannot be read or written
+     */
+    public synchronized void load() throws IOException {
+        if (file == null) {
+            return;
+        }
+        final Map<String, Long> persisted = new HashMap<>();
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                while (true) {
+                    persisted.put(in.readUTF(), in.readLong());
+                }
+            } catch (EOFException e) {
+                // End of file; a partly written trailing entry is ignored
+            }
+        }
+        final long now = System.currentTimeMillis();
+        final List<Claim> live = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : persisted.entrySet()) {
+            if (entry.getValue() > now) {
+                live.add(new Claim(entry.getKey(), entry.getValue()));
+            }
+        }
+        live.sort((a, b) -> Long.compare(a.getExpiresAt(), b.getExpiresAt()));
+        final List<Claim> kept = live.subList(Math.max(0, live.size() - maxKeys), live.size());
+        for (Claim claim : kept) {
+            keys.put(claim.getKey(), claim.getExpiresAt());
+            claims.add(claim);
+        }
+        final Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        rewrite(kept);
+        log.info("Loaded {} idempotency keys from {}", keys.size(), file);
+    }
+
+    /**
+     * Closes the file.
+     */
+    public synchronized void shutdown() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Unable to close idempotency key file {}: {}", file, e.getMessage());
+        }
+        journal = null;
+    }
+
+    /**
+     * Idempotency key of a request: the caller's key when there is one, otherwise, for reminders and
+     * announcements, a hash of the request's JSON encoding. Either way the key is scoped to the message type.
+     * Other requests without a caller's key have none, since an identical one may well be meant, such as a
+     * second password reset.
+     *
+     * @param type message type
+     * @param message Message
+     * @param callerKey caller's idempotency key, or null
+     * @return key, or null when the request is not to be suppressed or cannot be encoded
+     */
+    public String keyOf(final MessageType type, final Message message, final String callerKey) {
+        if (callerKey != null) {
+            return type.name() + SEPARATOR + callerKey;
+        }
+        if (type.getLane() != Lane.BULK) {
+            return null;
+        }
+        try {
+            final MessageDigest digest = MessageDigest.getInstance(DIGEST);
+            digest.update(objectMapper.writeValueAsBytes(message));
+            return type.name() + SEPARATOR + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (JsonProcessingException e) {
+            log.warn("Unable to derive idempotency key for {} request: {}", type, e.getMessage());
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST + " not available", e);
+        }
+    }
+
+    /**
+     * Claims a key for a request about to be sent. Counts the request as suppressed when the key is already
+     * claimed within its window.
+     *
+     * @param key idempotency key
+     * @return false if the request is a repeat and must not be sent
+     */
+    public boolean claim(final String key) {
+        final long now = System.currentTimeMillis();
+        final long expiresAt = now + windowMillis;
+        final Long previous = keys.putIfAbsent(key, expiresAt);
+        if (previous != null && (previous > now || !keys.replace(key, previous, expiresAt))) {
+            suppressed.increment();
+            return false;
+        }
+        claims.add(new Claim(key, expiresAt));
+        persist(key, expiresAt);
+        evict(now);
+        return true;
+    }
+
+    /**
+     * Releases a key whose request could not be sent, so a retry of it is.
+     *
+     * @param key idempotency key
+     */
+    public void release(final String key) {
+        if (keys.remove(key) != null) {
+            persist(key, RELEASED);
+            if (staleClaims.incrementAndGet() > Math.max(MIN_STALE_CLAIMS, keys.size())) {
+                sweep();
+            }
+        }
+    }
+
+    /**
+     * Number of keys remembered.
+     *
+     * @return size
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Forgets expired keys and, while the store is over capacity, the oldest keys. Skipped when another thread
+     * is already doing so.
+     *
+     * @param now current time in epoch milliseconds
+     */
+    private void evict(final long now) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            Claim oldest = claims.peek();
+            while (oldest != null && (oldest.getExpiresAt() <= now || keys.size() > maxKeys)) {
+                claims.poll();
+                if (keys.remove(oldest.getKey(), oldest.getExpiresAt()) && oldest.getExpiresAt() > now) {
+                    evicted.increment();
+                }
+                oldest = claims.peek();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the claims of released keys from the order. Skipped when another thread is already forgetting keys.
+     */
+    private void sweep() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            staleClaims.set(0);
+            claims.removeIf(claim -> {
+                final Long expiresAt = keys.get(claim.getKey());
+                return expiresAt == null || expiresAt != claim.getExpiresAt();
+            });
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Appends a claim or release to the file, rewriting it with only the keys once it holds far more records.
+     *
+     * @param key idempotency key
+     * @param expiresAt expiry in epoch milliseconds, or {@link #RELEASED}
+     */
+    private synchronized void persist(final String key, final long expiresAt) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.writeUTF(key);
+            journal.writeLong(expiresAt);
+            journal.flush();
+            journalRecords++;
+        } catch (IOException e) {
+            log.error("Unable to persist idempotency key to {}: {}", file, e.getMessage());
+            return;
+        }
+        if (journalRecords > Math.max(MIN_JOURNAL_RECORDS, JOURNAL_RECORDS_PER_KEY * keys.size())) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the file with only the keys still within their window. Called holding this.
+     */
+    private void compact() {
+        final long now = System.currentTimeMillis();
+        final List<Claim> live = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : keys.entrySet()) {
+            if (entry.getValue() > now) {
+                live.add(new Claim(entry.getKey(), entry.getValue()));
+            }
+        }
+        try {
+            journal.close();
+            rewrite(live);
+            log.debug("Compacted idempotency key file {} to {} keys", file, live.size());
+        } catch (IOException e) {
+            log.error("Unable to compact idempotency key file {}: {}", file, e.getMessage());
+            try {
+                journal = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+            } catch (IOException reopen) {
+                log.error("Unable to reopen idempotency key file {}: {}", file, reopen.getMessage());
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * Replaces the file with the given claims and opens it for appending. Called holding this.
+     *
+     * @param live claims to keep
+     * @throws IOException when the file cannot be written
+     */
+    private void rewrite(final List<Claim> live) throws IOException {
+        final Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(compacted)))) {
+            for (Claim claim : live) {
+                out.writeUTF(claim.getKey());
+                out.writeLong(claim.getExpiresAt());
+            }
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        journalRecords = live.size();
+    }
+
+    /**
+     * A claimed key and its expiry.
+     */
+    private static final class Claim {
+
+        /**
+         * Idempotency key.
+         */
+        private final String key;
+
+        /**
+         * Expiry in epoch milliseconds.
+         */
+        private final long expiresAt;
+
+        /**
+         * Initializes an instance of <code>Claim</code>.
+         *
+         * @param claimedKey idempotency key
+         * @param expiry expiry in epoch milliseconds
+         */
+        Claim(final String claimedKey, final long expiry) {
+            key = claimedKey;
+            expiresAt = expiry;
+        }
+
+        /**
+         * Idempotency key.
+         *
+         * @return key
+         */
+        String getKey() {
+            return key;
+        }
+
+        /**
+         * Expiry in epoch milliseconds.
+         *
+         * @return expiry
+         */
+        long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
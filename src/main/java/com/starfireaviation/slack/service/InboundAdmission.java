@@ -0,0 +1,233 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user sliding-window admission control for inbound messages. Each user's rate is estimated from the
+ * current and previous fixed windows, weighting the previous one by how much of it still overlaps the sliding
+ * window, which needs two counters per user rather than a timestamp per message. Users are kept in a bounded
+ * least-recently-active map; idle ones are expired as newer messages arrive.
+ */
+@Slf4j
+public class InboundAdmission {
+
+    /**
+     * Initial capacity of the user map.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Load factor of the user map.
+     */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Separator of organization and user in keys.
+     */
+    private static final char KEY_SEPARATOR = '\0';
+
+    /**
+     * Number of messages a user may post within a window.
+     */
+    private final int maxMessages;
+
+    /**
+     * Length of the window, in nanoseconds.
+     */
+    private final long windowNanos;
+
+    /**
+     * Time after which an idle user is forgotten, in nanoseconds.
+     */
+    private final long idleNanos;
+
+    /**
+     * Windows keyed by organization and user, least recently active first.
+     */
+    private final LinkedHashMap<String, Window> windows;
+
+    /**
+     * Source of monotonic time in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * MeterRegistry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Initializes an instance of <code>InboundAdmission</code>.
+     *
+     * @param settings admission settings
+     * @param meterRegistry MeterRegistry
+     */
+    public InboundAdmission(final ApplicationProperties.Admission settings, final MeterRegistry meterRegistry) {
+        this(settings, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * Initializes an instance of <code>InboundAdmission</code> with a clock.
+     *
+     * @param settings admission settings
+     * @param meterRegistry MeterRegistry
+     * @param nanoClock source of monotonic time in nanoseconds
+     */
+    public InboundAdmission(final ApplicationProperties.Admission settings,
+                            final MeterRegistry meterRegistry,
+                            final LongSupplier nanoClock) {
+        maxMessages = Math.max(1, settings.getMaxMessages());
+        windowNanos = Math.max(1L, settings.getWindow().toNanos());
+        idleNanos = Math.max(windowNanos, settings.getIdleExpiry().toNanos());
+        final int maxUsers = Math.max(1, settings.getMaxUsers());
+        windows = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Window> eldest) {
+                return size() > maxUsers;
+            }
+        };
+        clock = nanoClock;
+        registry = meterRegistry;
+        meterRegistry.gauge("slack.inbound.admission.users", this, InboundAdmission::getTrackedUsers);
+    }
+
+    /**
+     * Admits a message unless its sender has used up the window.
+     *
+     * @param organization organization whose workspace the message was posted in
+     * @param user Slack user ID or name of the sender
+     * @return true if the message may be handled
+     */
+    public boolean admit(final String organization, final String user) {
+        final long now = clock.getAsLong();
+        final boolean admitted;
+        synchronized (windows) {
+            expireIdle(now);
+            Window window = windows.get(organization + KEY_SEPARATOR + user);
+            if (window == null) {
+                window = new Window(now);
+                windows.put(organization + KEY_SEPARATOR + user, window);
+            }
+            admitted = window.tryAcquire(now);
+        }
+        if (!admitted) {
+            registry.counter("slack.inbound.rejected", "organization", organization).increment();
+            log.debug("Rejected inbound message from user {} of organization {}", user, organization);
+        }
+        return admitted;
+    }
+
+    /**
+     * Number of users tracked.
+     *
+     * @return users
+     */
+    public int getTrackedUsers() {
+        synchronized (windows) {
+            return windows.size();
+        }
+    }
+
+    /**
+     * Forgets users who posted nothing for the idle expiry, starting from the least recently active.
+     *
+     * @param now current time in nanoseconds
+     */
+    private void expireIdle(final long now) {
+        final Iterator<Window> eldest = windows.values().iterator();
+        while (eldest.hasNext()) {
+            if (now - eldest.next().lastSeen < idleNanos) {
+                return;
+            }
+            eldest.remove();
+        }
+    }
+
+    /**
+     * One user's current and previous fixed windows.
+     */
+    private final class Window {
+
+        /**
+         * Start of the current window, in nanoseconds.
+         */
+        private long start;
+
+        /**
+         * Messages admitted in the previous window.
+         */
+        private int previous;
+
+        /**
+         * Messages admitted in the current window.
+         */
+        private int current;
+
+        /**
+         * Time of the user's latest message, in nanoseconds.
+         */
+        private long lastSeen;
+
+        /**
+         * Initializes an instance of <code>Window</code>.
+         *
+         * @param now current time in nanoseconds
+         */
+        Window(final long now) {
+            start = now;
+            lastSeen = now;
+        }
+
+        /**
+         * Counts a message unless the sliding window estimate has reached the limit.
+         *
+         * @param now current time in nanoseconds
+         * @return true if admitted
+         */
+        boolean tryAcquire(final long now) {
+            lastSeen = now;
+            final long elapsed = now - start;
+            if (elapsed >= windowNanos) {
+                if (elapsed < 2 * windowNanos) {
+                    previous = current;
+                } else {
+                    previous = 0;
+                }
+                current = 0;
+                start += elapsed / windowNanos * windowNanos;
+            }
+            final double overlap = 1.0 - (double) (now - start) / windowNanos;
+            if (previous * overlap + current >= maxMessages) {
+                return false;
+            }
+            current++;
+            return true;
+        }
+    }
+
+}
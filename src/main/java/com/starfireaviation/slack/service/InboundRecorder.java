@@ -0,0 +1,320 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.model.ResponseOption;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.RecordedMessage;
+import com.starfireaviation.slack.util.InboundLogWriter;
+import com.starfireaviation.slack.util.ResponseParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records inbound Slack messages into a compact log for later replay with {@link InboundReplayer}. Recording only
+ * queues the message on the receiving thread; a writer thread encodes it, so a slow disk drops messages from the
+ * recording rather than delaying their handling. Anonymized recordings replace user names with pseudonyms which
+ * are stable within the recording but keyed by a random secret, and mask every text which is not a recognized
+ * response, so the replayed traffic takes the same paths without carrying what users wrote.
+ */
+@Slf4j
+public class InboundRecorder {
+
+    /**
+     * Recording file prefix.
+     */
+    private static final String PREFIX = "inbound-";
+
+    /**
+     * Recording file extension.
+     */
+    private static final String EXTENSION = ".rec";
+
+    /**
+     * Pseudonym key algorithm.
+     */
+    private static final String HMAC = "HmacSHA256";
+
+    /**
+     * Bytes of the pseudonym key.
+     */
+    private static final int KEY_BYTES = 32;
+
+    /**
+     * Bytes of the keyed hash used in a pseudonym.
+     */
+    private static final int PSEUDONYM_BYTES = 6;
+
+    /**
+     * Byte mask.
+     */
+    private static final int BYTE_MASK = 0xff;
+
+    /**
+     * Bits of a hex digit.
+     */
+    private static final int NIBBLE_BITS = 4;
+
+    /**
+     * Mask of the low hex digit of a byte.
+     */
+    private static final int NIBBLE_MASK = 0x0f;
+
+    /**
+     * Hex radix.
+     */
+    private static final int HEX = 16;
+
+    /**
+     * Time the writer waits for messages before flushing.
+     */
+    private static final long FLUSH_INTERVAL_MS = 100L;
+
+    /**
+     * Recording settings.
+     */
+    private final ApplicationProperties.Recorder settings;
+
+    /**
+     * Messages waiting to be written.
+     */
+    private final BlockingQueue<RecordedMessage> queue;
+
+    /**
+     * Messages written.
+     */
+    private final Counter recorded;
+
+    /**
+     * Messages dropped from the recording.
+     */
+    private final Counter dropped;
+
+    /**
+     * Whether messages are being recorded.
+     */
+    private volatile boolean active;
+
+    /**
+     * Time the recording started, from System.nanoTime().
+     */
+    private volatile long startNanos;
+
+    /**
+     * Current recording file.
+     */
+    private Path file;
+
+    /**
+     * Writes the recording.
+     */
+    private InboundLogWriter writer;
+
+    /**
+     * Keyed hash producing pseudonyms, or null when not anonymizing.
+     */
+    private Mac pseudonyms;
+
+    /**
+     * Thread writing the recording.
+     */
+    private Thread writerThread;
+
+    /**
+     * Initializes an instance of <code>InboundRecorder</code>.
+     *
+     * @param recorderSettings recording settings
+     * @param meterRegistry MeterRegistry
+     */
+    public InboundRecorder(final ApplicationProperties.Recorder recorderSettings, final MeterRegistry meterRegistry) {
+        settings = recorderSettings;
+        queue = new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+        recorded = meterRegistry.counter("slack.recorder.recorded");
+        dropped = meterRegistry.counter("slack.recorder.dropped");
+    }
+
+    /**
+     * Starts a new recording when recording is enabled.
+     *
+     * @throws IOException when the recording cannot be created
+     * @throws GeneralSecurityException when pseudonyms cannot be keyed
+     */
+    public void start() throws IOException, GeneralSecurityException {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        if (settings.isAnonymize()) {
+            final byte[] key = new byte[KEY_BYTES];
+            new SecureRandom().nextBytes(key);
+            pseudonyms = Mac.getInstance(HMAC);
+            pseudonyms.init(new SecretKeySpec(key, HMAC));
+        }
+        final Path directory = Paths.get(settings.getDirectory());
+        Files.createDirectories(directory);
+        final long startMillis = System.currentTimeMillis();
+        file = directory.resolve(PREFIX + startMillis + EXTENSION);
+        writer = new InboundLogWriter(Files.newOutputStream(file), startMillis);
+        startNanos = System.nanoTime();
+        active = true;
+        writerThread = new Thread(this::drain, "inbound-recorder");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Recording inbound messages to {}", file);
+    }
+
+    /**
+     * Stops recording, writing the messages already queued.
+     */
+    public void shutdown() {
+        if (writerThread == null) {
+            return;
+        }
+        active = false;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Whether messages are being recorded.
+     *
+     * @return true while recording
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Current recording file.
+     *
+     * @return file, or null when not recording
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Records an inbound message.
+     *
+     * @param organization organization whose workspace the message was posted in
+     * @param user Slack user name of the sender
+     * @param text message text
+     */
+    public void record(final String organization, final String user, final String text) {
+        if (!active) {
+            return;
+        }
+        if (!queue.offer(new RecordedMessage(System.nanoTime() - startNanos, organization, user, text))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Writes queued messages until recording stops, then closes the recording.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                final RecordedMessage message = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (message != null) {
+                    write(message);
+                } else if (active) {
+                    writer.flush();
+                } else {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            active = false;
+            log.warn("Inbound recording {} stopped: {}", file, e.getMessage());
+        } catch (InterruptedException e) {
+            active = false;
+            Thread.currentThread().interrupt();
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Unable to close inbound recording {}: {}", file, e.getMessage());
+        }
+        log.info("Inbound recording {} closed after {} bytes", file, writer.getBytesWritten());
+    }
+
+    /**
+     * Writes a message, stopping the recording once it reaches its maximum size.
+     *
+     * @param message RecordedMessage
+     * @throws IOException when it cannot be written
+     */
+    private void write(final RecordedMessage message) throws IOException {
+        if (pseudonyms != null) {
+            message.setUser(pseudonym(message.getOrganization(), message.getUser()));
+            message.setText(mask(message.getText()));
+        }
+        writer.write(message);
+        recorded.increment();
+        if (active && writer.getBytesWritten() >= settings.getMaxSize().toBytes()) {
+            active = false;
+            log.warn("Inbound recording {} reached {}; recording stopped", file, settings.getMaxSize());
+        }
+    }
+
+    /**
+     * Pseudonym of a user, the same for the same organization and user throughout the recording.
+     *
+     * @param organization organization
+     * @param user Slack user name
+     * @return pseudonym
+     */
+    private String pseudonym(final String organization, final String user) {
+        final byte[] hash = pseudonyms.doFinal((organization + '\0' + user).getBytes(StandardCharsets.UTF_8));
+        final StringBuilder name = new StringBuilder("user-");
+        for (int i = 0; i < PSEUDONYM_BYTES; i++) {
+            name.append(Character.forDigit((hash[i] & BYTE_MASK) >>> NIBBLE_BITS, HEX))
+                    .append(Character.forDigit(hash[i] & NIBBLE_MASK, HEX));
+        }
+        return name.toString();
+    }
+
+    /**
+     * Masks a text unless it is a recognized response, keeping its length.
+     *
+     * @param text message text
+     * @return masked text
+     */
+    private static String mask(final String text) {
+        if (text == null || ResponseParser.determineResponse(text) != ResponseOption.UNKNOWN) {
+            return text;
+        }
+        return "x".repeat(text.length());
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.model.RecordedMessage;
+import com.starfireaviation.slack.model.ReplayReport;
+import com.starfireaviation.slack.util.InboundLogReader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Feeds a recording made by {@link InboundRecorder} back into a handler, typically
+ * MessageService.onRecordedMessage, at the recorded pace, a multiple of it, or as fast as possible. Messages are
+ * handed to a fixed pool of workers with a bounded backlog, like the executor handling Events API callbacks, and
+ * are counted as dropped when the backlog is full. Latency is measured from the time a message was due until its
+ * handling finished, so it includes any time spent waiting for a worker.
+ */
+@Slf4j
+public class InboundReplayer {
+
+    /**
+     * Median.
+     */
+    private static final double P50 = 0.5;
+
+    /**
+     * 99th percentile.
+     */
+    private static final double P99 = 0.99;
+
+    /**
+     * Handles each replayed message.
+     */
+    private final Consumer<RecordedMessage> handler;
+
+    /**
+     * Number of workers.
+     */
+    private final int workers;
+
+    /**
+     * Messages which may wait for a worker.
+     */
+    private final int backlog;
+
+    /**
+     * Initializes an instance of <code>InboundReplayer</code>.
+     *
+     * @param target handles each replayed message
+     * @param workerThreads number of workers
+     * @param backlogCapacity messages which may wait for a worker before further ones are dropped
+     */
+    public InboundReplayer(final Consumer<RecordedMessage> target,
+                           final int workerThreads,
+                           final int backlogCapacity) {
+        handler = target;
+        workers = Math.max(1, workerThreads);
+        backlog = Math.max(1, backlogCapacity);
+    }
+
+    /**
+     * Replays a recording file.
+     *
+     * @param recording recording file
+     * @param speed multiple of the recorded pace, or zero or less for as fast as possible
+     * @return ReplayReport
+     * @throws IOException when the recording cannot be read
+     * @throws InterruptedException when interrupted while replaying
+     */
+    public ReplayReport replay(final Path recording, final double speed) throws IOException, InterruptedException {
+        final List<RecordedMessage> messages;
+        try (InputStream input = Files.newInputStream(recording);
+             InboundLogReader reader = new InboundLogReader(input)) {
+            messages = reader.readAll();
+        }
+        log.info("Replaying {} messages from {} at {}", messages.size(), recording, describe(speed));
+        return replay(messages, speed);
+    }
+
+    /**
+     * Replays recorded messages.
+     *
+     * @param messages messages in recorded order
+     * @param speed multiple of the recorded pace, or zero or less for as fast as possible
+     * @return ReplayReport
+     * @throws InterruptedException when interrupted while replaying
+     */
+    public ReplayReport replay(final List<RecordedMessage> messages, final double speed) throws InterruptedException {
+        final long[] latencies = new long[messages.size()];
+        final AtomicInteger handled = new AtomicInteger();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicInteger threads = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(backlog), runnable -> {
+                    final Thread thread = new Thread(runnable, "inbound-replay-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        long dropped = 0L;
+        long firstOffset = 0L;
+        if (!messages.isEmpty()) {
+            firstOffset = messages.get(0).getOffsetNanos();
+        }
+        final long start = System.nanoTime();
+        try {
+            for (RecordedMessage message : messages) {
+                final long due = due(start, message.getOffsetNanos() - firstOffset, speed);
+                try {
+                    executor.execute(() -> {
+                        try {
+                            handler.accept(message);
+                        } catch (RuntimeException e) {
+                            failed.incrementAndGet();
+                        }
+                        latencies[handled.getAndIncrement()] = System.nanoTime() - due;
+                    });
+                } catch (RejectedExecutionException e) {
+                    dropped++;
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        final long[] sorted = Arrays.copyOf(latencies, handled.get());
+        Arrays.sort(sorted);
+        final ReplayReport report = new ReplayReport(sorted.length, dropped, failed.get(),
+                Duration.ofNanos(System.nanoTime() - start), percentile(sorted, P50), percentile(sorted, P99),
+                percentile(sorted, 1.0));
+        log.info("Replayed {} messages in {}: {} dropped, {} failed, latency p50 {} p99 {} max {}",
+                report.getReplayed(), report.getElapsed(), report.getDropped(), report.getFailed(),
+                report.getP50Latency(), report.getP99Latency(), report.getMaxLatency());
+        return report;
+    }
+
+    /**
+     * Waits until a message is due.
+     *
+     * @param start time the replay started, from System.nanoTime()
+     * @param offset recorded time of the message since the first one
+     * @param speed multiple of the recorded pace, or zero or less for as fast as possible
+     * @return time the message was due, from System.nanoTime()
+     */
+    private static long due(final long start, final long offset, final double speed) {
+        if (speed <= 0) {
+            return System.nanoTime();
+        }
+        final long due = start + (long) (offset / speed);
+        long remaining = due - System.nanoTime();
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = due - System.nanoTime();
+        }
+        return due;
+    }
+
+    /**
+     * Percentile of sorted latencies.
+     *
+     * @param sorted latencies in nanoseconds, ascending
+     * @param fraction percentile as a fraction
+     * @return latency, zero when there are none
+     */
+    private static Duration percentile(final long[] sorted, final double fraction) {
+        if (sorted.length == 0) {
+            return Duration.ZERO;
+        }
+        final int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return Duration.ofNanos(sorted[Math.max(0, Math.min(sorted.length - 1, index))]);
+    }
+
+    /**
+     * Describes a replay speed.
+     *
+     * @param speed multiple of the recorded pace, or zero or less for as fast as possible
+     * @return description
+     */
+    private static String describe(final double speed) {
+        if (speed <= 0) {
+            return "maximum speed";
+        }
+        return speed + "x";
+    }
+}
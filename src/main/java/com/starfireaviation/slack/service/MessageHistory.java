@@ -0,0 +1,541 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.HistoryEntry;
+import com.starfireaviation.slack.util.HistorySegmentReader;
+import com.starfireaviation.slack.util.HistorySegmentWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append-only history of delivery attempts. Entries are queued by the delivery path and written by a single
+ * background thread into time-partitioned binary segments, which are deleted once older than the retention.
+ * An in-memory index keeps the segment and offset of each user's most recent entries, so the last messages sent
+ * to a user are read straight from their offsets. The index is rebuilt from the segments at start.
+ */
+@Slf4j
+public class MessageHistory {
+
+    /**
+     * Segment file name prefix.
+     */
+    private static final String PREFIX = "history-";
+
+    /**
+     * Segment file name extension.
+     */
+    private static final String EXTENSION = ".seg";
+
+    /**
+     * Bits of an index reference holding the offset; the segment start in epoch seconds is above them.
+     */
+    private static final int OFFSET_BITS = 32;
+
+    /**
+     * Index reference bits holding the offset.
+     */
+    private static final long OFFSET_MASK = 0xFFFFFFFFL;
+
+    /**
+     * Milliseconds per second.
+     */
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    /**
+     * Time the writer waits for entries before checking whether it should stop.
+     */
+    private static final long POLL_INTERVAL_MS = 100L;
+
+    /**
+     * Largest number of entries written before a flush.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Separator of organization and recipient in index keys.
+     */
+    private static final char KEY_SEPARATOR = '\0';
+
+    /**
+     * History settings.
+     */
+    private final ApplicationProperties.History settings;
+
+    /**
+     * Directory segments are written to.
+     */
+    private final Path directory;
+
+    /**
+     * Time covered by one segment, in milliseconds.
+     */
+    private final long segmentMillis;
+
+    /**
+     * Entries waiting to be written.
+     */
+    private final BlockingQueue<HistoryEntry> queue;
+
+    /**
+     * Recent entry references of each user, keyed by organization and recipient.
+     */
+    private final Map<String, UserIndex> index = new ConcurrentHashMap<>();
+
+    /**
+     * Entries written.
+     */
+    private final Counter recorded;
+
+    /**
+     * Entries left out because the queue was full.
+     */
+    private final Counter dropped;
+
+    /**
+     * Entries which could not be written.
+     */
+    private final Counter failed;
+
+    /**
+     * Whether entries are accepted.
+     */
+    private volatile boolean active;
+
+    /**
+     * Thread writing queued entries.
+     */
+    private Thread writerThread;
+
+    /**
+     * Segment being written. Only used by the writer thread.
+     */
+    private HistorySegmentWriter writer;
+
+    /**
+     * Start of the segment being written, in epoch milliseconds. Only used by the writer thread.
+     */
+    private long writerStart;
+
+    /**
+     * Initializes an instance of <code>MessageHistory</code>.
+     *
+     * @param historySettings history settings
+     * @param meterRegistry MeterRegistry
+     */
+    public MessageHistory(final ApplicationProperties.History historySettings, final MeterRegistry meterRegistry) {
+        settings = historySettings;
+        directory = Paths.get(settings.getDirectory());
+        segmentMillis = Math.max(MILLIS_PER_SECOND, settings.getSegmentDuration().toMillis());
+        queue = new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+        recorded = meterRegistry.counter("slack.history.recorded");
+        dropped = meterRegistry.counter("slack.history.dropped");
+        failed = meterRegistry.counter("slack.history.failed");
+        meterRegistry.gauge("slack.history.users", index, Map::size);
+    }
+
+    /**
+     * Deletes expired segments, rebuilds the index from the remaining ones and starts writing, when the history
+     * is enabled.
+     *
+     * @throws IOException when the directory cannot be read
+     */
+    public void start() throws IOException {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        deleteExpired();
+        for (Map.Entry<Long, Path> segment : segments().entrySet()) {
+            load(segment.getKey(), segment.getValue());
+        }
+        active = true;
+        writerThread = new Thread(this::drain, "message-history");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Keeping sent-message history in {} for {} users", directory, index.size());
+    }
+
+    /**
+     * Stops accepting entries and writes the ones already queued.
+     */
+    public void shutdown() {
+        if (writerThread == null) {
+            return;
+        }
+        active = false;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues an entry to be written. Never blocks; the entry is left out if the queue is full.
+     *
+     * @param entry HistoryEntry
+     */
+    public void record(final HistoryEntry entry) {
+        if (!active) {
+            return;
+        }
+        if (entry.getSentAt() == null) {
+            entry.setSentAt(Instant.now());
+        }
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Most recent entries of a user, newest first. Entries still queued are not included.
+     *
+     * @param organization organization
+     * @param recipient Slack user name
+     * @param limit largest number of entries returned
+     * @return entries
+     * @throws IOException when a segment cannot be read
+     */
+    public List<HistoryEntry> recent(final String organization, final String recipient, final int limit)
+            throws IOException {
+        final UserIndex userIndex = index.get(key(organization, recipient));
+        if (userIndex == null || limit <= 0) {
+            return List.of();
+        }
+        final long[] references = userIndex.newestFirst(limit);
+        final List<HistoryEntry> entries = new ArrayList<>(references.length);
+        final Map<Long, FileChannel> channels = new HashMap<>();
+        try {
+            for (long reference : references) {
+                final long startSeconds = reference >>> OFFSET_BITS;
+                if (!channels.containsKey(startSeconds)) {
+                    channels.put(startSeconds, open(startSeconds * MILLIS_PER_SECOND));
+                }
+                final FileChannel channel = channels.get(startSeconds);
+                if (channel != null) {
+                    final HistoryEntry entry = HistorySegmentReader.readAt(channel, reference & OFFSET_MASK);
+                    if (entry != null) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        } finally {
+            for (FileChannel channel : channels.values()) {
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Writes queued entries until stopped, then closes the current segment.
+     */
+    private void drain() {
+        final List<HistoryEntry> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (active || !queue.isEmpty()) {
+                final HistoryEntry first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                    write(batch);
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeSegment();
+    }
+
+    /**
+     * Writes a batch of entries, then indexes them once they are flushed.
+     *
+     * @param batch entries
+     */
+    private void write(final List<HistoryEntry> batch) {
+        final long[] references = new long[batch.size()];
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                final long sentAt = batch.get(i).getSentAt().toEpochMilli();
+                final long start = sentAt - Math.floorMod(sentAt, segmentMillis);
+                if (writer == null || start != writerStart) {
+                    roll(start);
+                }
+                references[i] = (start / MILLIS_PER_SECOND) << OFFSET_BITS | writer.write(batch.get(i));
+            }
+            writer.flush();
+        } catch (IOException e) {
+            failed.increment(batch.size());
+            log.warn("Unable to write {} history entries: {}", batch.size(), e.getMessage());
+            closeSegment();
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            index(batch.get(i), references[i]);
+        }
+        recorded.increment(batch.size());
+    }
+
+    /**
+     * Switches to the segment starting at a time, appending to it if it exists, and deletes expired segments.
+     *
+     * @param start segment start in epoch milliseconds
+     * @throws IOException when the segment cannot be opened
+     */
+    private void roll(final long start) throws IOException {
+        closeSegment();
+        final Path path = segmentPath(start);
+        long size = 0L;
+        if (Files.exists(path)) {
+            size = Files.size(path);
+        }
+        writer = new HistorySegmentWriter(Files.newOutputStream(path, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND), start, size);
+        writerStart = start;
+        deleteExpired();
+    }
+
+    /**
+     * Closes the segment being written.
+     */
+    private void closeSegment() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Unable to close history segment {}: {}", segmentPath(writerStart), e.getMessage());
+        }
+        writer = null;
+    }
+
+    /**
+     * Deletes segments older than the retention, and forgets users whose entries were all in them.
+     */
+    private void deleteExpired() {
+        final long cutoff = System.currentTimeMillis() - settings.getRetention().toMillis();
+        try {
+            for (Map.Entry<Long, Path> segment : segments().entrySet()) {
+                if (segment.getKey() + segmentMillis <= cutoff) {
+                    Files.deleteIfExists(segment.getValue());
+                    log.info("Deleted expired history segment {}", segment.getValue());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to delete expired history segments: {}", e.getMessage());
+        }
+        final long oldest = (cutoff - Math.floorMod(cutoff, segmentMillis)) / MILLIS_PER_SECOND;
+        index.values().removeIf(userIndex -> userIndex.newest() >>> OFFSET_BITS < oldest);
+    }
+
+    /**
+     * Indexes the entries of a segment. A truncated tail, left by a crash, is cut off so appends stay readable.
+     *
+     * @param start segment start in epoch milliseconds
+     * @param path segment
+     */
+    private void load(final long start, final Path path) {
+        final long startSeconds = start / MILLIS_PER_SECOND;
+        long valid = 0L;
+        try (InputStream input = Files.newInputStream(path);
+             HistorySegmentReader reader = new HistorySegmentReader(input)) {
+            valid = reader.getPosition();
+            long offset = valid;
+            HistoryEntry entry = reader.next();
+            while (entry != null) {
+                index(entry, startSeconds << OFFSET_BITS | offset);
+                offset = reader.getPosition();
+                valid = offset;
+                entry = reader.next();
+            }
+        } catch (IOException e) {
+            log.warn("History segment {} is damaged after {} bytes; truncating: {}", path, valid, e.getMessage());
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            } catch (IOException t) {
+                log.warn("Unable to truncate history segment {}: {}", path, t.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Adds an entry to its user's index.
+     *
+     * @param entry HistoryEntry
+     * @param reference segment start in epoch seconds and offset of the entry
+     */
+    private void index(final HistoryEntry entry, final long reference) {
+        if (entry.getRecipient() == null) {
+            return;
+        }
+        index.computeIfAbsent(key(entry.getOrganization(), entry.getRecipient()),
+                ignored -> new UserIndex(Math.max(1, settings.getPerUser()))).add(reference);
+    }
+
+    /**
+     * Opens a segment for reading.
+     *
+     * @param start segment start in epoch milliseconds
+     * @return channel, or null if the segment was deleted
+     * @throws IOException when it cannot be opened
+     */
+    private FileChannel open(final long start) throws IOException {
+        try {
+            return FileChannel.open(segmentPath(start), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Segments in the directory, keyed by start in epoch milliseconds.
+     *
+     * @return segments, oldest first
+     * @throws IOException when the directory cannot be listed
+     */
+    private NavigableMap<Long, Path> segments() throws IOException {
+        final NavigableMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                final String name = file.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(EXTENSION)) {
+                    try {
+                        segments.put(Long.parseLong(name.substring(PREFIX.length(),
+                                name.length() - EXTENSION.length())) * MILLIS_PER_SECOND, file);
+                    } catch (NumberFormatException e) {
+                        log.debug("Ignoring {}", file);
+                    }
+                }
+            });
+        }
+        return segments;
+    }
+
+    /**
+     * Path of the segment starting at a time.
+     *
+     * @param start segment start in epoch milliseconds
+     * @return path
+     */
+    private Path segmentPath(final long start) {
+        return directory.resolve(PREFIX + start / MILLIS_PER_SECOND + EXTENSION);
+    }
+
+    /**
+     * Index key of a user.
+     *
+     * @param organization organization
+     * @param recipient Slack user name
+     * @return key
+     */
+    private static String key(final String organization, final String recipient) {
+        return organization + KEY_SEPARATOR + recipient;
+    }
+
+    /**
+     * References of a user's most recent entries, in a ring.
+     */
+    private static final class UserIndex {
+
+        /**
+         * References, oldest overwritten first.
+         */
+        private final long[] references;
+
+        /**
+         * Position of the next reference.
+         */
+        private int next;
+
+        /**
+         * Number of references held.
+         */
+        private int size;
+
+        /**
+         * Initializes an instance of <code>UserIndex</code>.
+         *
+         * @param capacity number of references kept
+         */
+        UserIndex(final int capacity) {
+            references = new long[capacity];
+        }
+
+        /**
+         * Adds a reference, overwriting the oldest when full.
+         *
+         * @param reference reference
+         */
+        synchronized void add(final long reference) {
+            references[next] = reference;
+            next = (next + 1) % references.length;
+            size = Math.min(size + 1, references.length);
+        }
+
+        /**
+         * Most recent references, newest first.
+         *
+         * @param limit largest number of references returned
+         * @return references
+         */
+        synchronized long[] newestFirst(final int limit) {
+            final long[] newest = new long[Math.min(limit, size)];
+            for (int i = 0; i < newest.length; i++) {
+                newest[i] = references[Math.floorMod(next - 1 - i, references.length)];
+            }
+            return newest;
+        }
+
+        /**
+         * Most recent reference.
+         *
+         * @return reference
+         */
+        synchronized long newest() {
+            return references[Math.floorMod(next - 1, references.length)];
+        }
+    }
+
+}
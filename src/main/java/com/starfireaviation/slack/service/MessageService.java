@@ -17,30 +17,46 @@
 package com.starfireaviation.slack.service;
 
 import java.io.IOException;
-import java.util.Optional;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import com.starfireaviation.model.Event;
 import com.starfireaviation.model.EventType;
 import com.starfireaviation.model.Message;
 import com.starfireaviation.model.Question;
 import com.starfireaviation.model.Quiz;
+import com.starfireaviation.model.ResponseOption;
 import com.starfireaviation.model.User;
+import com.starfireaviation.slack.client.OrganizationSession;
+import com.starfireaviation.slack.client.SlackSessionPool;
 import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.config.CommonConstants;
 import com.starfireaviation.slack.exception.InvalidPayloadException;
+import com.starfireaviation.slack.model.MessageType;
+import com.starfireaviation.slack.model.OutboundMessage;
+import com.starfireaviation.slack.model.RenderedTemplate;
+import com.starfireaviation.slack.model.TemplateModel;
+import com.starfireaviation.slack.model.UserResponse;
+import com.starfireaviation.slack.util.ResponseParser;
 import com.starfireaviation.slack.util.TemplateUtil;
+import com.starfireaviation.slack.util.TracingUtil;
 import com.starfireaviation.slack.validation.ResponseValidator;
 import freemarker.template.TemplateException;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
 import lombok.extern.slf4j.Slf4j;
 
-import com.ullink.slack.simpleslackapi.SlackChannel;
 import com.ullink.slack.simpleslackapi.SlackSession;
 import com.ullink.slack.simpleslackapi.events.SlackMessagePosted;
-import com.ullink.slack.simpleslackapi.impl.SlackSessionFactory;
 import com.ullink.slack.simpleslackapi.listeners.SlackMessagePostedListener;
 
-import freemarker.template.Configuration;
-import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
-
 /**
  * MessageService.
  */
@@ -48,119 +64,273 @@ import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
 public class MessageService implements SlackMessagePostedListener {
 
     /**
-     * TEMPLATE_LOCATION.
+     * ApplicationProperties.
      */
-    private static final String TEMPLATE_LOCATION = "/templates";
+    private final ApplicationProperties applicationProperties;
 
     /**
-     * ApplicationProperties.
+     * TemplateCache.
      */
-    private final ApplicationProperties applicationProperties;
+    private final TemplateCache templateCache;
+
+    /**
+     * ResponseSink.
+     */
+    private final ResponseSink responseSink;
+
+    /**
+     * SlackSessionPool.
+     */
+    private final SlackSessionPool slackSessionPool;
+
+    /**
+     * OutboundDispatcher.
+     */
+    private final OutboundDispatcher outboundDispatcher;
+
+    /**
+     * OptOutIndex.
+     */
+    private final OptOutIndex optOutIndex;
 
     /**
-     * FreeMarker Configuration.
+     * EntityLoader.
      */
-    private final Configuration freemarkerConfig;
+    private final EntityLoader entityLoader;
 
     /**
-     * SlackSession.
+     * Builders of each message type, keyed by type.
      */
-    private SlackSession slackSession = null;
+    private final Map<MessageType, Function<Message, Outcome>> builders = new EnumMap<>(MessageType.class);
+
+    /**
+     * Idempotency keys of requests sent recently, or null to send every request.
+     */
+    private IdempotencyStore idempotencyStore;
+
+    /**
+     * Per-user admission control for inbound messages, or null to admit every message.
+     */
+    private InboundAdmission inboundAdmission;
+
+    /**
+     * Drives quiz sessions on with users' replies, or null when quizzes are disabled.
+     */
+    private QuizRunner quizRunner;
+
+    /**
+     * Tracer the lookup, model, render, enqueue and inbound stages are traced with.
+     */
+    private Tracer tracer = OpenTelemetry.noop().getTracer(TracingUtil.INSTRUMENTATION);
 
     public MessageService(final ApplicationProperties aProps,
-                          final Configuration config) {
+                          final TemplateCache cache,
+                          final ResponseSink sink,
+                          final SlackSessionPool sessionPool,
+                          final OutboundDispatcher dispatcher,
+                          final OptOutIndex optOuts,
+                          final EntityLoader loader) {
         applicationProperties = aProps;
-        freemarkerConfig = config;
+        templateCache = cache;
+        responseSink = sink;
+        slackSessionPool = sessionPool;
+        outboundDispatcher = dispatcher;
+        optOutIndex = optOuts;
+        entityLoader = loader;
+        builders.put(MessageType.EVENT_RSVP, this::sendEventRSVP);
+        builders.put(MessageType.EVENT_UPCOMING, this::sendEventUpcoming);
+        builders.put(MessageType.EVENT_START, this::sendEventStart);
+        builders.put(MessageType.EVENT_LAST_MIN_REGISTRATION, this::sendEventLastMinRegistration);
+        builders.put(MessageType.EVENT_COMPLETED, this::sendEventCompleted);
+        builders.put(MessageType.EVENT_REGISTER, this::sendEventRegister);
+        builders.put(MessageType.EVENT_UNREGISTER, this::sendEventUnregister);
+        builders.put(MessageType.QUESTION_ASKED, this::sendQuestionAsked);
+        builders.put(MessageType.QUIZ_COMPLETE, this::sendQuizComplete);
+        builders.put(MessageType.USER_DELETE, this::sendUserDelete);
+        builders.put(MessageType.USER_SETTINGS_VERIFIED, this::sendUserSettingsVerified);
+        builders.put(MessageType.USER_SETTINGS_CHANGE, this::sendUserSettingsChange);
+        builders.put(MessageType.PASSWORD_RESET, this::sendPasswordReset);
+    }
+
+    /**
+     * Sends a message once per idempotency key. A request whose key was already sent within the idempotency
+     * window, such as an upstream retry or a broker redelivery, is suppressed before anything is looked up or
+     * rendered. Only reminders and announcements get a key derived from the message; other types are sent every
+     * time unless the caller supplies a key. The key is kept once the message is queued or deliberately skipped,
+     * such as for an opted out user, and released again when it was rejected or could not be built, so a retry of
+     * it is sent.
+     *
+     * @param type message type
+     * @param message Message
+     * @param idempotencyKey caller's idempotency key, or null to derive one from the message and its type
+     * @return false if the outbound queue rejected the message
+     */
+    public boolean sendOnce(final MessageType type, final Message message, final String idempotencyKey) {
+        final Function<Message, Outcome> builder = builders.get(type);
+        if (idempotencyStore == null || !isActive()) {
+            return builder.apply(message) != Outcome.REJECTED;
+        }
+        final String key = idempotencyStore.keyOf(type, message, idempotencyKey);
+        if (key == null) {
+            return builder.apply(message) != Outcome.REJECTED;
+        }
+        if (!idempotencyStore.claim(key)) {
+            log.info("Suppressed repeated {} request {}", type, key);
+            return true;
+        }
+        Outcome outcome = Outcome.FAILED;
+        try {
+            outcome = builder.apply(message);
+            return outcome != Outcome.REJECTED;
+        } finally {
+            if (outcome != Outcome.QUEUED && outcome != Outcome.SKIPPED) {
+                idempotencyStore.release(key);
+            }
+        }
     }
 
     /**
      * Sends a message to RSVP for an upcoming event.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendEventRSVPMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendEventRSVPMsg(final Message message) {
+        return sendOnce(MessageType.EVENT_RSVP, message, null);
+    }
+
+    /**
+     * Builds and queues a message to RSVP for an upcoming event.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendEventRSVP(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
-        final Event event = getEvent(message);
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
+        final Event event = getEvent(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
-                send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                        freemarkerConfig.getTemplate("gs_event_rsvp.ftl"),
-                        TemplateUtil.getModel(user, event, null, applicationProperties)));
+                return send(MessageType.EVENT_RSVP, getOrganization(message), user,
+                        render("gs_event_rsvp.ftl", templateModel(user, event, null)));
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
+        return Outcome.SKIPPED;
     }
 
     /**
      * Sends a message for an upcoming event.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendEventUpcomingMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendEventUpcomingMsg(final Message message) {
+        return sendOnce(MessageType.EVENT_UPCOMING, message, null);
+    }
+
+    /**
+     * Builds and queues a message for an upcoming event.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendEventUpcoming(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
-        final Event event = getEvent(message);
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
+        final Event event = getEvent(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
-                send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                        freemarkerConfig.getTemplate("gs_user_upcoming.ftl"),
-                        TemplateUtil.getModel(user, event, null, applicationProperties)));
+                return send(MessageType.EVENT_UPCOMING, getOrganization(message), user,
+                        render("gs_user_upcoming.ftl", templateModel(user, event, null)));
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
+        return Outcome.SKIPPED;
     }
 
     /**
      * Sends a message to a user that an event has started.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendEventStartMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendEventStartMsg(final Message message) {
+        return sendOnce(MessageType.EVENT_START, message, null);
+    }
+
+    /**
+     * Builds and queues a message to a user that an event has started.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendEventStart(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
-        final Event event = getEvent(message);
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
+        final Event event = getEvent(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
-                send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                        freemarkerConfig.getTemplate("gs_event_start.ftl"),
-                        TemplateUtil.getModel(user, event, null, applicationProperties)));
+                return send(MessageType.EVENT_START, getOrganization(message), user,
+                        render("gs_event_start.ftl", templateModel(user, event, null)));
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
+        return Outcome.SKIPPED;
     }
 
     /**
      * Sends a message that a question has been asked.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendQuestionAskedMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendQuestionAskedMsg(final Message message) {
+        return sendOnce(MessageType.QUESTION_ASKED, message, null);
+    }
+
+    /**
+     * Builds and queues a message that a question has been asked.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendQuestionAsked(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
         final Question question = getQuestion(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
-
-            send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                    freemarkerConfig.getTemplate("question.ftl"),
-                    TemplateUtil.getModel(user, null, question, applicationProperties)));
+            return send(MessageType.QUESTION_ASKED, getOrganization(message), user,
+                    render("question.ftl", templateModel(user, null, question)));
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
     }
 
@@ -168,66 +338,106 @@ public class MessageService implements SlackMessagePostedListener {
      * Sends a message for registering for an upcoming event.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendEventRegisterMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendEventRegisterMsg(final Message message) {
+        return sendOnce(MessageType.EVENT_REGISTER, message, null);
+    }
+
+    /**
+     * Builds and queues a message for registering for an upcoming event.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendEventRegister(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
-        final Event event = getEvent(message);
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
+        final Event event = getEvent(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
-                send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                        freemarkerConfig.getTemplate("gs_event_register.ftl"),
-                        TemplateUtil.getModel(user, event, null, applicationProperties)));
+                return send(MessageType.EVENT_REGISTER, getOrganization(message), user,
+                        render("gs_event_register.ftl", templateModel(user, event, null)));
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
+        return Outcome.SKIPPED;
     }
 
     /**
      * Sends a message for unregistering from an upcoming event.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendEventUnregisterMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendEventUnregisterMsg(final Message message) {
+        return sendOnce(MessageType.EVENT_UNREGISTER, message, null);
+    }
+
+    /**
+     * Builds and queues a message for unregistering from an upcoming event.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendEventUnregister(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
-        final Event event = getEvent(message);
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
+        final Event event = getEvent(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
-                send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                        freemarkerConfig.getTemplate("gs_event_unregister.ftl"),
-                        TemplateUtil.getModel(user, event, null, applicationProperties)));
+                return send(MessageType.EVENT_UNREGISTER, getOrganization(message), user,
+                        render("gs_event_unregister.ftl", templateModel(user, event, null)));
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
+        return Outcome.SKIPPED;
     }
 
     /**
      * Sends a message for user deletion.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendUserDeleteMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendUserDeleteMsg(final Message message) {
+        return sendOnce(MessageType.USER_DELETE, message, null);
+    }
+
+    /**
+     * Builds and queues a message for user deletion.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendUserDelete(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
-
-            send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                    freemarkerConfig.getTemplate("user_delete.ftl"),
-                    TemplateUtil.getModel(user, null, null, applicationProperties)));
+            return send(MessageType.USER_DELETE, getOrganization(message), user,
+                    render("user_delete.ftl", templateModel(user, null, null)));
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
     }
 
@@ -235,21 +445,33 @@ public class MessageService implements SlackMessagePostedListener {
      * Sends a message for quiz completion.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendQuizCompleteMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendQuizCompleteMsg(final Message message) {
+        return sendOnce(MessageType.QUIZ_COMPLETE, message, null);
+    }
+
+    /**
+     * Builds and queues a message for quiz completion.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendQuizComplete(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
         final Quiz quiz = getQuiz(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
-
-            send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                    freemarkerConfig.getTemplate("quiz_complete.ftl"),
-                    TemplateUtil.getModel(user, null, null, applicationProperties)));
+            return send(MessageType.QUIZ_COMPLETE, getOrganization(message), user,
+                    render("quiz_complete.ftl", templateModel(user, null, null)));
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
     }
 
@@ -257,20 +479,32 @@ public class MessageService implements SlackMessagePostedListener {
      * Sends a message for user settings verified.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendUserSettingsVerifiedMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendUserSettingsVerifiedMsg(final Message message) {
+        return sendOnce(MessageType.USER_SETTINGS_VERIFIED, message, null);
+    }
+
+    /**
+     * Builds and queues a message for user settings verified.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendUserSettingsVerified(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
-
-            send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                    freemarkerConfig.getTemplate("user_settings_verified.ftl"),
-                    TemplateUtil.getModel(user, null, null, applicationProperties)));
+            return send(MessageType.USER_SETTINGS_VERIFIED, getOrganization(message), user,
+                    render("user_settings_verified.ftl", templateModel(user, null, null)));
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
     }
 
@@ -278,20 +512,32 @@ public class MessageService implements SlackMessagePostedListener {
      * Sends a message for user settings changed.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendUserSettingsChangeMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendUserSettingsChangeMsg(final Message message) {
+        return sendOnce(MessageType.USER_SETTINGS_CHANGE, message, null);
+    }
+
+    /**
+     * Builds and queues a message for user settings changed.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendUserSettingsChange(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
-
-            send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                    freemarkerConfig.getTemplate("user_verify_settings.ftl"),
-                    TemplateUtil.getModel(user, null, null, applicationProperties)));
+            return send(MessageType.USER_SETTINGS_CHANGE, getOrganization(message), user,
+                    render("user_verify_settings.ftl", templateModel(user, null, null)));
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
     }
 
@@ -299,20 +545,32 @@ public class MessageService implements SlackMessagePostedListener {
      * Sends a password reset message.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendPasswordResetMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendPasswordResetMsg(final Message message) {
+        return sendOnce(MessageType.PASSWORD_RESET, message, null);
+    }
+
+    /**
+     * Builds and queues a password reset message.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendPasswordReset(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
-
-            send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                    freemarkerConfig.getTemplate("password_reset.ftl"),
-                    TemplateUtil.getModel(user, null, null, applicationProperties)));
+            return send(MessageType.PASSWORD_RESET, getOrganization(message), user,
+                    render("password_reset.ftl", templateModel(user, null, null)));
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
     }
 
@@ -321,136 +579,398 @@ public class MessageService implements SlackMessagePostedListener {
      */
     @Override
     public void onEvent(final SlackMessagePosted event, final SlackSession session) {
-        if (!applicationProperties.isEnabled()) {
+        if (!isActive()) {
             return;
         }
         // Ignore bot user messages
         if (session.sessionPersona().getId().equals(event.getSender().getId())) {
             return;
         }
-        final String message = event.getMessageContent();
-        try {
-            ResponseValidator.validate(message);
-        } catch (InvalidPayloadException e) {
+        handleMessage(slackSessionPool.organizationOf(session), event.getSender().getId(),
+                () -> event.getUser().getUserName(), event.getMessageContent());
+    }
+
+    /**
+     * Handles a message received through the Slack Events API.
+     *
+     * @param organization organization whose workspace the message was posted in
+     * @param userId Slack user ID of the sender
+     * @param message message text
+     */
+    public void onEventsApiMessage(final String organization, final String userId, final String message) {
+        if (!isActive()) {
+            return;
+        }
+        final OrganizationSession organizationSession = slackSessionPool.get(organization);
+        if (organizationSession == null) {
             return;
         }
-        final String user = event.getUser().getUserName();
-        final String msg = String.format(
-                "Slack message received: user [%s]; message [%s]",
-                user,
-                message);
-        log.info(msg);
-        processUserResponse(user, message);
+        handleMessage(organization, userId, () -> organizationSession.resolveUserName(userId), message);
+    }
+
+    /**
+     * Handles a message replayed from an inbound recording.
+     *
+     * @param organization organization whose workspace the message was posted in
+     * @param userName Slack user name of the sender
+     * @param message message text
+     */
+    public void onRecordedMessage(final String organization, final String userName, final String message) {
+        if (!isActive()) {
+            return;
+        }
+        handleMessage(organization, null, () -> userName, message);
+    }
+
+    /**
+     * Admits, validates and processes a message received from a user.
+     *
+     * @param organization organization whose workspace the message was posted in
+     * @param userId Slack user ID of the sender, or null if not known; the sender is rate limited by it, or by
+     *               the user name when it is not known
+     * @param sender supplies the Slack user name of the sender, only invoked for valid responses when the ID is
+     *               known
+     * @param message message text
+     */
+    private void handleMessage(final String organization,
+                               final String userId,
+                               final Supplier<String> sender,
+                               final String message) {
+        final Span span = tracer.spanBuilder("slack.inbound")
+                .setSpanKind(SpanKind.CONSUMER)
+                .setAttribute(TracingUtil.ORGANIZATION, organization)
+                .startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            String senderId = userId;
+            if (senderId == null) {
+                senderId = sender.get();
+            }
+            if (inboundAdmission != null && !inboundAdmission.admit(organization, senderId)) {
+                span.setAttribute(TracingUtil.OUTCOME, "rejected");
+                return;
+            }
+            try {
+                ResponseValidator.validate(message);
+            } catch (InvalidPayloadException e) {
+                span.setAttribute(TracingUtil.OUTCOME, "invalid");
+                return;
+            }
+            final String user = sender.get();
+            final String msg = String.format(
+                    "Slack message received: organization [%s]; user [%s]; message [%s]",
+                    organization,
+                    user,
+                    message);
+            log.info(msg);
+            processUserResponse(organization, userId, user, message);
+            span.setAttribute(TracingUtil.OUTCOME, "processed");
+        } catch (RuntimeException e) {
+            TracingUtil.recordFailure(span, e);
+            throw e;
+        } finally {
+            span.end();
+        }
     }
 
     /**
      * Sends a last minute message to register/RSVP for an upcoming event.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
      */
-    public void sendEventLastMinRegistrationMsg(final Message message) {
-        if (!applicationProperties.isEnabled()) {
-            return;
+    public boolean sendEventLastMinRegistrationMsg(final Message message) {
+        return sendOnce(MessageType.EVENT_LAST_MIN_REGISTRATION, message, null);
+    }
+
+    /**
+     * Builds and queues a last minute message to register/RSVP for an upcoming event.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendEventLastMinRegistration(final Message message) {
+        if (!isActive()) {
+            return Outcome.SKIPPED;
         }
-        final Event event = getEvent(message);
         final User user = getUser(message);
+        if (isOptedOut(message, user)) {
+            return Outcome.SKIPPED;
+        }
+        final Event event = getEvent(message);
         try {
-            freemarkerConfig.setClassForTemplateLoading(this.getClass(), TEMPLATE_LOCATION);
             if (event.getEventType() == EventType.GROUNDSCHOOL) {
-                send(user, FreeMarkerTemplateUtils.processTemplateIntoString(
-                        freemarkerConfig.getTemplate("gs_user_last_min_registration.ftl"),
-                        TemplateUtil.getModel(user, event, null, applicationProperties)));
+                return send(MessageType.EVENT_LAST_MIN_REGISTRATION, getOrganization(message), user,
+                        render("gs_user_last_min_registration.ftl", templateModel(user, event, null)));
             }
         } catch (IOException | TemplateException e) {
             log.warn(e.getMessage());
+            return Outcome.FAILED;
         }
+        return Outcome.SKIPPED;
     }
 
     /**
      * Sends a message to a user that an event has completed.
      *
      * @param message Message
+     * @return false if the outbound queue rejected the message
+     */
+    public boolean sendEventCompletedMsg(final Message message) {
+        return sendOnce(MessageType.EVENT_COMPLETED, message, null);
+    }
+
+    /**
+     * Builds and queues a message to a user that an event has completed.
+     *
+     * @param message Message
+     * @return whether the message was queued, deliberately skipped, rejected or failed to build
+     */
+    private Outcome sendEventCompleted(final Message message) {
+        return Outcome.SKIPPED;
+    }
+
+    /**
+     * Sets the per-user admission control applied to inbound messages before they are validated.
+     *
+     * @param admission InboundAdmission, or null to admit every message
+     */
+    public void setInboundAdmission(final InboundAdmission admission) {
+        inboundAdmission = admission;
+    }
+
+    /**
+     * Sets the store repeated requests are suppressed with.
+     *
+     * @param store IdempotencyStore, or null to send every request
+     */
+    public void setIdempotencyStore(final IdempotencyStore store) {
+        idempotencyStore = store;
+    }
+
+    /**
+     * Sets the QuizRunner replies are passed on to.
+     *
+     * @param runner QuizRunner, or null when quizzes are disabled
      */
-    public void sendEventCompletedMsg(final Message message) {
+    public void setQuizRunner(final QuizRunner runner) {
+        quizRunner = runner;
     }
 
     /**
-     * Disconnects SlackSession.
+     * Sets the Tracer the lookup, model, render, enqueue and inbound stages are traced with.
+     *
+     * @param stageTracer Tracer
+     */
+    public void setTracer(final Tracer stageTracer) {
+        tracer = stageTracer;
+    }
+
+    /**
+     * Disconnects every SlackSession.
      */
     public void shutdownSlackSession() {
-        if (slackSession != null && slackSession.isConnected()) {
-            try {
-                slackSession.disconnect();
-            } catch (IOException e) {
-                log.warn("Unable to disconnect SlackSession", e);
+        slackSessionPool.shutdown();
+    }
+
+    /**
+     * Queues message to be sent to Slack.
+     *
+     * @param type                  message type
+     * @param organization          organization
+     * @param user                  User, or null to send to the organization's GroundSchool channel
+     * @param message               rendered message to be sent
+     * @return QUEUED, or REJECTED if the outbound queue rejected the message
+     */
+    private Outcome send(final MessageType type,
+                      final String organization,
+                      final User user,
+                      final RenderedTemplate message) {
+        String recipient = null;
+        if (user != null) {
+            recipient = user.getSlack();
+        }
+        final OutboundMessage outboundMessage = new OutboundMessage(type, organization, recipient, message.getText());
+        outboundMessage.setTemplateVersion(message.getTag());
+        final Span span = tracer.spanBuilder("slack.enqueue")
+                .setAttribute(TracingUtil.MESSAGE_TYPE, type.name())
+                .setAttribute(TracingUtil.ORGANIZATION, organization)
+                .startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            outboundMessage.setTraceParent(TracingUtil.currentTraceParent());
+            final boolean queued = outboundDispatcher.enqueue(outboundMessage);
+            if (!queued) {
+                span.setStatus(StatusCode.ERROR, "Outbound queue rejected the message");
+                return Outcome.REJECTED;
             }
+            return Outcome.QUEUED;
+        } finally {
+            span.end();
         }
     }
 
     /**
-     * Initializes SlackSession.
+     * Renders a template within a span.
+     *
+     * @param name template name
+     * @param model TemplateModel
+     * @return RenderedTemplate
+     * @throws IOException when the template is unknown
+     * @throws TemplateException when rendering fails
      */
-    private void initSlackSession() {
-        if (slackSession == null || !slackSession.isConnected()) {
-            if (slackSession == null) {
-                slackSession = SlackSessionFactory.createWebSocketSlackSession(applicationProperties.getToken());
-            }
-            if (!slackSession.isConnected()) {
-                try {
-                    slackSession.connect();
-                    slackSession.addMessagePostedListener(this);
-                } catch (IOException e) {
-                    log.warn("Unable to connect to Slack", e);
-                }
-            }
+    private RenderedTemplate render(final String name, final TemplateModel model)
+            throws IOException, TemplateException {
+        final Span span = tracer.spanBuilder("slack.render").setAttribute(TracingUtil.TEMPLATE, name).startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            return templateCache.render(name, model);
+        } catch (IOException | TemplateException | RuntimeException e) {
+            TracingUtil.recordFailure(span, e);
+            throw e;
+        } finally {
+            span.end();
         }
     }
 
     /**
-     * Sends message to Slack.
+     * Builds the TemplateModel of a message within a span.
      *
-     * @param user                  User
-     * @param message               message to be sent
+     * @param user User
+     * @param event Event
+     * @param question Question
+     * @return TemplateModel
      */
-    private void send(final User user, final String message) {
-        initSlackSession();
-        if (user != null) {
-            slackSession.sendMessageToUser(slackSession.findUserByUserName(user.getSlack()), message, null);
-        } else {
-            Optional<SlackChannel> slackChannelOptional = slackSession
-                    .getChannels()
-                    .stream()
-                    .filter(
-                            slackChannel -> slackChannel.getName().equalsIgnoreCase(
-                                    applicationProperties.getGroundSchoolChannel()))
-                    .findFirst();
-            slackChannelOptional.ifPresent(slackChannel -> slackSession.sendMessage(slackChannel, message));
+    private TemplateModel templateModel(final User user, final Event event, final Question question) {
+        final Span span = tracer.spanBuilder("slack.model").startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            return TemplateUtil.getTemplateModel(user, event, question, applicationProperties);
+        } catch (RuntimeException e) {
+            TracingUtil.recordFailure(span, e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Looks up an entity within a span.
+     *
+     * @param entity kind of entity looked up
+     * @param loader performs the lookup
+     * @param <T> entity type
+     * @return entity
+     */
+    private <T> T lookup(final String entity, final Supplier<T> loader) {
+        final Span span = tracer.spanBuilder("slack.lookup").setAttribute(TracingUtil.ENTITY, entity).startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            return loader.get();
+        } catch (RuntimeException e) {
+            TracingUtil.recordFailure(span, e);
+            throw e;
+        } finally {
+            span.end();
         }
     }
 
     /**
      * Process user response.
      *
+     * @param organization organization
+     * @param userId Slack user ID of the sender, or null if not known
      * @param to user
      * @param message received from user
      */
-    private void processUserResponse(final String to, final String message) {
-        // TODO
+    private void processUserResponse(final String organization,
+                                     final String userId,
+                                     final String to,
+                                     final String message) {
+        final ResponseOption response = ResponseParser.determineResponse(message);
+        if (response == ResponseOption.STOP) {
+            optOutIndex.optOut(organization, to, userId);
+        }
+        if (quizRunner != null) {
+            quizRunner.onResponse(organization, to, response);
+        }
+        responseSink.offer(new UserResponse(organization, to, response, message, Instant.now()));
+    }
+
+    /**
+     * Whether messages are handled at all: sent to Slack, or captured in shadow mode.
+     *
+     * @return true if Slack or shadow mode is enabled
+     */
+    private boolean isActive() {
+        return applicationProperties.isEnabled() || applicationProperties.getShadow().isEnabled();
+    }
+
+    /**
+     * Whether the recipient of a message opted out.
+     *
+     * @param message Message
+     * @param user User, or null when sent to the organization's GroundSchool channel
+     * @return true if nothing may be sent
+     */
+    private boolean isOptedOut(final Message message, final User user) {
+        return user != null && optOutIndex.isOptedOut(getOrganization(message), user.getSlack());
+    }
+
+    private String getOrganization(final Message message) {
+        return CommonConstants.DEFAULT_ORGANIZATION;
     }
 
     private Event getEvent(final Message message) {
-        return null;
+        return lookup("event", () -> entityLoader.getEvent(getEventId(message)));
     }
 
     private User getUser(final Message message) {
-        return null;
+        return lookup("user", () -> entityLoader.getUser(getUserId(message)));
     }
 
     private Question getQuestion(final Message message) {
-        return null;
+        return lookup("question", () -> entityLoader.getQuestion(getQuestionId(message)));
     }
 
     private Quiz getQuiz(final Message message) {
+        return lookup("quiz", () -> entityLoader.getQuiz(getQuizId(message)));
+    }
+
+    private Long getEventId(final Message message) {
+        return null;
+    }
+
+    private Long getUserId(final Message message) {
+        return null;
+    }
+
+    private Long getQuestionId(final Message message) {
+        return null;
+    }
+
+    private Long getQuizId(final Message message) {
         return null;
     }
+
+    /**
+     * What building and queueing a message came to.
+     */
+    private enum Outcome {
+
+        /**
+         * Queued for delivery.
+         */
+        QUEUED,
+
+        /**
+         * Deliberately not sent, such as for an opted out user or an event type without a message.
+         */
+        SKIPPED,
+
+        /**
+         * Rejected by the outbound queue.
+         */
+        REJECTED,
+
+        /**
+         * Could not be built, such as when its template failed to render.
+         */
+        FAILED
+    }
 }
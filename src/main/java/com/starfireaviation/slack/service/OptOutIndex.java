@@ -0,0 +1,303 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.client.OrganizationSession;
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.util.LongHashSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Users who replied STOP, checked before any message to them is built. Each user is kept as 64-bit hashes of
+ * organization and Slack user name, and of organization and Slack user ID when the reply carried one, in a
+ * primitive hash set, so a lookup costs a hash and a few array reads. Sends are addressed by user name, so a
+ * STOP recorded only under an ID, from a sender whose name could not be resolved, is matched through the
+ * organization's SlackDirectory.
+ * Opt-outs are rare, so each one copies the set and publishes the copy, keeping lookups free of locks.
+ * When a file is configured, opt-outs are appended to it as they arrive and loaded again at startup.
+ */
+@Slf4j
+public class OptOutIndex {
+
+    /**
+     * FNV-1a 64-bit offset basis.
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /**
+     * FNV-1a 64-bit prime.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Mask for an unsigned byte.
+     */
+    private static final int BYTE_MASK = 0xff;
+
+    /**
+     * Separates organization and user name in a key.
+     */
+    private static final byte SEPARATOR = 0;
+
+    /**
+     * Separates organization and user ID in a key.
+     */
+    private static final byte ID_SEPARATOR = 1;
+
+    /**
+     * Opted-out user hashes.
+     */
+    private volatile LongHashSet optedOut = new LongHashSet();
+
+    /**
+     * File opt-outs are persisted to, or null.
+     */
+    private final Path file;
+
+    /**
+     * Sends suppressed because the recipient opted out.
+     */
+    private final Counter suppressed;
+
+    /**
+     * Sessions whose directories resolve user names to IDs, or null.
+     */
+    private volatile SlackSessionPool slackSessionPool;
+
+    /**
+     * Initializes an instance of <code>OptOutIndex</code>.
+     *
+     * @param optOutFile file opt-outs are persisted to, blank to keep them in memory only
+     * @param meterRegistry MeterRegistry
+     */
+    public OptOutIndex(final String optOutFile, final MeterRegistry meterRegistry) {
+        if (optOutFile == null || optOutFile.isBlank()) {
+            file = null;
+        } else {
+            file = Paths.get(optOutFile);
+        }
+        suppressed = meterRegistry.counter("slack.optout.suppressed");
+        meterRegistry.gauge("slack.optout.size", this, OptOutIndex::size);
+    }
+
+    /**
+     * Sets the sessions whose directories resolve user names to the IDs opt-outs may be recorded under.
+     *
+     * @param pool SlackSessionPool
+     */
+    public void setSlackSessionPool(final SlackSessionPool pool) {
+        slackSessionPool = pool;
+    }
+
+    /**
+     * Loads persisted opt-outs.
+     *
+     * @throws IOException when the file cannot be read
+     */
+    public void load() throws IOException {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        final LongHashSet loaded = new LongHashSet();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                loaded.add(in.readLong());
+            }
+        } catch (EOFException e) {
+            // End of file; a partly written trailing entry is ignored
+        }
+        optedOut = loaded;
+        log.info("Loaded {} opt-outs from {}", loaded.size(), file);
+    }
+
+    /**
+     * Whether a user opted out. Counts the suppressed send when they did.
+     *
+     * @param organization organization
+     * @param userName Slack user name
+     * @return true if messages to the user must not be sent
+     */
+    public boolean isOptedOut(final String organization, final String userName) {
+        if (userName == null) {
+            return false;
+        }
+        final LongHashSet current = optedOut;
+        if (current.contains(hash(organization, userName))) {
+            suppressed.increment();
+            return true;
+        }
+        final String userId = findUserId(organization, userName);
+        if (userId != null && current.contains(idHash(organization, userId))) {
+            suppressed.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records that a user opted out.
+     *
+     * @param organization organization
+     * @param userName Slack user name
+     */
+    public void optOut(final String organization, final String userName) {
+        optOut(organization, userName, null);
+    }
+
+    /**
+     * Records that a user opted out, under both the user name and the Slack user ID.
+     *
+     * @param organization organization
+     * @param userName Slack user name, or the ID itself when the name could not be resolved
+     * @param userId Slack user ID, or null if not known
+     */
+    public synchronized void optOut(final String organization, final String userName, final String userId) {
+        if (userName == null) {
+            return;
+        }
+        final long key = hash(organization, userName);
+        final boolean newName = !optedOut.contains(key);
+        final boolean newId = userId != null && !optedOut.contains(idHash(organization, userId));
+        if (!newName && !newId) {
+            return;
+        }
+        final LongHashSet updated = new LongHashSet(optedOut);
+        if (newName) {
+            updated.add(key);
+        }
+        if (newId) {
+            updated.add(idHash(organization, userId));
+        }
+        optedOut = updated;
+        log.info("User {} of organization {} opted out", userName, organization);
+        if (newName) {
+            persist(key);
+        }
+        if (newId) {
+            persist(idHash(organization, userId));
+        }
+    }
+
+    /**
+     * Number of opt-out keys: one per user name and one per user ID.
+     *
+     * @return size
+     */
+    public int size() {
+        return optedOut.size();
+    }
+
+    /**
+     * Resolves a user name to the Slack user ID through the organization's directory.
+     *
+     * @param organization organization
+     * @param userName Slack user name
+     * @return Slack user ID, or null if the directory does not know the user
+     */
+    private String findUserId(final String organization, final String userName) {
+        final SlackSessionPool pool = slackSessionPool;
+        if (pool == null) {
+            return null;
+        }
+        final OrganizationSession session = pool.get(organization);
+        if (session == null) {
+            return null;
+        }
+        return session.getDirectory().findUserId(userName);
+    }
+
+    /**
+     * Appends an opt-out to the file.
+     *
+     * @param key user hash
+     */
+    private void persist(final long key) {
+        if (file == null) {
+            return;
+        }
+        try {
+            final Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream stream = Files.newOutputStream(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+                 DataOutputStream out = new DataOutputStream(stream)) {
+                out.writeLong(key);
+            }
+        } catch (IOException e) {
+            log.error("Unable to persist opt-out to {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * FNV-1a hash of organization and case-insensitive user name.
+     *
+     * @param organization organization
+     * @param userName Slack user name
+     * @return hash
+     */
+    static long hash(final String organization, final String userName) {
+        return hash(organization, SEPARATOR, userName);
+    }
+
+    /**
+     * FNV-1a hash of organization and Slack user ID, distinct from any user name's hash.
+     *
+     * @param organization organization
+     * @param userId Slack user ID
+     * @return hash
+     */
+    static long idHash(final String organization, final String userId) {
+        return hash(organization, ID_SEPARATOR, userId);
+    }
+
+    /**
+     * FNV-1a hash of organization and a case-insensitive value.
+     *
+     * @param organization organization
+     * @param separator separator telling user names and IDs apart
+     * @param value user name or ID
+     * @return hash
+     */
+    private static long hash(final String organization, final byte separator, final String value) {
+        long hash = FNV_OFFSET;
+        for (byte b : organization.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & BYTE_MASK)) * FNV_PRIME;
+        }
+        hash = (hash ^ separator) * FNV_PRIME;
+        for (byte b : value.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & BYTE_MASK)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
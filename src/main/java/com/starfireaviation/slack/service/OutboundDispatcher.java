@@ -0,0 +1,984 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.client.MessageDelivery;
+import com.starfireaviation.slack.client.OrganizationSession;
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.exception.DeliveryException;
+import com.starfireaviation.slack.jfr.QueueEvent;
+import com.starfireaviation.slack.jfr.SendEvent;
+import com.starfireaviation.slack.model.DeadLetter;
+import com.starfireaviation.slack.model.Lane;
+import com.starfireaviation.slack.model.OutboundMessage;
+import com.starfireaviation.slack.util.Backoff;
+import com.starfireaviation.slack.util.CircuitBreaker;
+import com.starfireaviation.slack.util.TokenBucket;
+import com.starfireaviation.slack.util.TracingUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dispatches queued messages to Slack. Every organization has its own outbound queues and rate-limit budget,
+ * and organizations are served round-robin so that one organization's bulk sends cannot starve another's.
+ * Within an organization, messages are queued per priority lane and the lanes are served by smooth weighted
+ * round-robin. Part of each organization's budget and of the in-flight capacity is reserved for the
+ * interactive lane, so user-blocking messages still go out during a bulk reminder blast.
+ * <p>
+ * Failed sends are retried through the queue after a jittered exponential backoff, and each organization has a
+ * circuit breaker which stops sending to Slack while it is failing. Messages which exhaust their attempts, or
+ * fail in a way retrying cannot fix, are kept in the DeadLetterStore for replay.
+ */
+@Slf4j
+public class OutboundDispatcher {
+
+    /**
+     * Metric name prefix.
+     */
+    private static final String METRIC_PREFIX = "slack.outbound.";
+
+    /**
+     * Organization metric tag.
+     */
+    private static final String ORGANIZATION_TAG = "organization";
+
+    /**
+     * Lane metric tag.
+     */
+    private static final String LANE_TAG = "lane";
+
+    /**
+     * Message state metric tag.
+     */
+    private static final String STATE_TAG = "state";
+
+    /**
+     * Interval at which a drain checks for remaining work.
+     */
+    private static final long DRAIN_POLL_MS = 50L;
+
+    /**
+     * Maximum time the dispatcher waits when there is nothing it can send.
+     */
+    private static final long IDLE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Per-organization queues, in round-robin order.
+     */
+    private final List<OrganizationQueue> queues = new ArrayList<>();
+
+    /**
+     * MessageDelivery.
+     */
+    private final MessageDelivery delivery;
+
+    /**
+     * In-flight Slack calls available to every lane.
+     */
+    private final Semaphore sharedInFlight;
+
+    /**
+     * In-flight Slack calls reserved for the interactive lane.
+     */
+    private final Semaphore reservedInFlight;
+
+    /**
+     * Guards the work signal.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when a message is queued or an in-flight call completes.
+     */
+    private final Condition workAvailable = lock.newCondition();
+
+    /**
+     * MeterRegistry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * DeadLetterStore.
+     */
+    private final DeadLetterStore deadLetterStore;
+
+    /**
+     * Delivery attempts before a message is dead-lettered.
+     */
+    private final int maxAttempts;
+
+    /**
+     * Backoff between attempts.
+     */
+    private final Backoff backoff;
+
+    /**
+     * Schedules retries.
+     */
+    private final ScheduledExecutorService retryScheduler;
+
+    /**
+     * Messages waiting for their retry to come due, keyed by message ID.
+     */
+    private final Map<String, OutboundMessage> pendingRetries = new ConcurrentHashMap<>();
+
+    /**
+     * Number of deliveries in progress.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * JVM uptime in ms when the first message was sent, or -1 until then.
+     */
+    private final AtomicLong firstSendUptime = new AtomicLong(-1L);
+
+    /**
+     * Tracer the queue wait and Slack call of each attempt are traced with.
+     */
+    private Tracer tracer = OpenTelemetry.noop().getTracer(TracingUtil.INSTRUMENTATION);
+
+    /**
+     * Whether work arrived since the dispatcher last waited, guarded by the lock.
+     */
+    private boolean signalled;
+
+    /**
+     * Index of the next organization to be served.
+     */
+    private int next;
+
+    /**
+     * Dispatching thread.
+     */
+    private Thread dispatcher;
+
+    /**
+     * Running flag.
+     */
+    private volatile boolean running;
+
+    /**
+     * Initializes an instance of <code>OutboundDispatcher</code>.
+     *
+     * @param sessionPool SlackSessionPool
+     * @param messageDelivery MessageDelivery
+     * @param deadLetters DeadLetterStore
+     * @param aProps ApplicationProperties
+     * @param meterRegistry MeterRegistry
+     */
+    public OutboundDispatcher(final SlackSessionPool sessionPool,
+                              final MessageDelivery messageDelivery,
+                              final DeadLetterStore deadLetters,
+                              final ApplicationProperties aProps,
+                              final MeterRegistry meterRegistry) {
+        delivery = messageDelivery;
+        deadLetterStore = deadLetters;
+        registry = meterRegistry;
+        final ApplicationProperties.Dispatch settings = aProps.getDispatch();
+        maxAttempts = Math.max(1, settings.getMaxAttempts());
+        backoff = new Backoff(settings.getRetryInitialBackoff(), settings.getRetryMaxBackoff());
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "outbound-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final int reserved = Math.max(0, Math.min(settings.getReservedInFlight(), settings.getMaxInFlight() - 1));
+        sharedInFlight = new Semaphore(settings.getMaxInFlight() - reserved);
+        reservedInFlight = new Semaphore(reserved);
+        for (OrganizationSession session : sessionPool.getAll()) {
+            queues.add(new OrganizationQueue(session, settings, meterRegistry));
+        }
+        TimeGauge.builder("slack.startup.first.send", firstSendUptime, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("JVM uptime when the first message was sent, -1 until then")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sets the Tracer the queue wait and Slack call of each attempt are traced with.
+     *
+     * @param dispatchTracer Tracer
+     */
+    public void setTracer(final Tracer dispatchTracer) {
+        tracer = dispatchTracer;
+    }
+
+    /**
+     * Starts the dispatching thread.
+     */
+    public void start() {
+        running = true;
+        dispatcher = new Thread(this::run, "outbound-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Stops the dispatching thread.
+     */
+    public void shutdown() {
+        running = false;
+        retryScheduler.shutdownNow();
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * Queues a message in its organization's lane.
+     *
+     * @param message OutboundMessage
+     * @return false if the organization is unknown or the lane is full
+     */
+    public boolean enqueue(final OutboundMessage message) {
+        final OrganizationQueue queue = find(message.getOrganization());
+        if (queue == null) {
+            log.warn("Unknown organization {}; dropping message", message.getOrganization());
+            return false;
+        }
+        final LaneQueue laneQueue = queue.getLanes().get(message.getType().getLane());
+        if (message.getEnqueuedAt() == 0L) {
+            message.setEnqueuedAt(System.nanoTime());
+        }
+        final boolean accepted = laneQueue.getMessages().offer(message);
+        recordQueueEvent("enqueue", laneQueue, message, accepted, 0L);
+        if (!accepted) {
+            laneQueue.getRejected().increment();
+            log.warn("{} outbound queue full for organization {}; dropping message",
+                    laneQueue.getLane(), message.getOrganization());
+            return false;
+        }
+        transition("queued");
+        signal();
+        return true;
+    }
+
+    /**
+     * Queues a dead-lettered message again with a fresh set of attempts.
+     *
+     * @param message OutboundMessage
+     * @return false if the message could not be queued
+     */
+    public boolean replay(final OutboundMessage message) {
+        message.setAttempts(0);
+        message.setEnqueuedAt(0L);
+        transition("replayed");
+        return enqueue(message);
+    }
+
+    /**
+     * Waits until every queued message, retry and delivery in progress has finished, or the timeout elapses.
+     * Messages keep being dispatched meanwhile.
+     *
+     * @param timeout maximum time to wait
+     * @return true if nothing is left
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public boolean awaitDrained(final Duration timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        while (getPendingCount() + pendingRetries.size() + inFlight.get() > 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(DRAIN_POLL_MS);
+        }
+        return true;
+    }
+
+    /**
+     * Stops dispatching and removes every message still queued or waiting for a retry.
+     *
+     * @return messages which were not sent
+     * @throws InterruptedException when interrupted while waiting for the dispatching thread
+     */
+    public List<OutboundMessage> takeRemaining() throws InterruptedException {
+        shutdown();
+        if (dispatcher != null) {
+            dispatcher.join(TimeUnit.NANOSECONDS.toMillis(IDLE_WAIT_NANOS));
+        }
+        final List<OutboundMessage> remaining = new ArrayList<>();
+        for (OrganizationQueue queue : queues) {
+            for (LaneQueue laneQueue : queue.getLanes().values()) {
+                laneQueue.getMessages().drainTo(remaining);
+            }
+        }
+        remaining.addAll(pendingRetries.values());
+        pendingRetries.clear();
+        return remaining;
+    }
+
+    /**
+     * Number of deliveries in progress.
+     *
+     * @return in-flight count
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Number of messages waiting to be sent.
+     *
+     * @return pending count across all organizations and lanes
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (OrganizationQueue queue : queues) {
+            for (LaneQueue laneQueue : queue.getLanes().values()) {
+                count += laneQueue.getMessages().size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Dispatching loop.
+     */
+    private void run() {
+        while (running) {
+            try {
+                if (!dispatchRound()) {
+                    awaitWork();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    /**
+     * Serves each organization at most once, starting where the previous round left off.
+     *
+     * @return true if any message was dispatched
+     */
+    private boolean dispatchRound() {
+        boolean dispatched = false;
+        for (int i = 0; i < queues.size(); i++) {
+            final OrganizationQueue queue = queues.get(next);
+            next = (next + 1) % queues.size();
+            if (dispatchFrom(queue)) {
+                dispatched = true;
+            }
+        }
+        return dispatched;
+    }
+
+    /**
+     * Dispatches one message from an organization, choosing the lane by smooth weighted round-robin.
+     *
+     * @param queue OrganizationQueue
+     * @return true if a message was dispatched
+     */
+    private boolean dispatchFrom(final OrganizationQueue queue) {
+        final List<LaneQueue> candidates = new ArrayList<>(Lane.values().length);
+        int totalWeight = 0;
+        for (LaneQueue laneQueue : queue.getLanes().values()) {
+            if (!laneQueue.getMessages().isEmpty()) {
+                laneQueue.setCurrentWeight(laneQueue.getCurrentWeight() + laneQueue.getWeight());
+                totalWeight += laneQueue.getWeight();
+                candidates.add(laneQueue);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return false;
+        }
+        if (!queue.getBreaker().tryAcquire()) {
+            for (LaneQueue laneQueue : candidates) {
+                laneQueue.setCurrentWeight(laneQueue.getCurrentWeight() - laneQueue.getWeight());
+            }
+            return false;
+        }
+        candidates.sort(Comparator.comparingInt(LaneQueue::getCurrentWeight).reversed());
+        for (LaneQueue laneQueue : candidates) {
+            final Semaphore permit = acquireInFlight(laneQueue.getLane());
+            if (permit == null) {
+                continue;
+            }
+            int reserve = queue.getInteractiveReserve();
+            if (laneQueue.getLane() == Lane.INTERACTIVE) {
+                reserve = 0;
+            }
+            if (!queue.getBudget().tryAcquire(reserve)) {
+                permit.release();
+                continue;
+            }
+            laneQueue.setCurrentWeight(laneQueue.getCurrentWeight() - totalWeight);
+            deliver(queue, laneQueue, laneQueue.getMessages().poll(), permit);
+            return true;
+        }
+        queue.getBreaker().cancel();
+        for (LaneQueue laneQueue : candidates) {
+            laneQueue.setCurrentWeight(laneQueue.getCurrentWeight() - laneQueue.getWeight());
+        }
+        return false;
+    }
+
+    /**
+     * Takes an in-flight slot for a lane.
+     *
+     * @param lane Lane
+     * @return the semaphore the slot was taken from, or null if none is available
+     */
+    private Semaphore acquireInFlight(final Lane lane) {
+        if (sharedInFlight.tryAcquire()) {
+            return sharedInFlight;
+        }
+        if (lane == Lane.INTERACTIVE && reservedInFlight.tryAcquire()) {
+            return reservedInFlight;
+        }
+        return null;
+    }
+
+    /**
+     * Hands a message to MessageDelivery and records its outcome.
+     *
+     * @param queue OrganizationQueue
+     * @param laneQueue LaneQueue
+     * @param message OutboundMessage
+     * @param permit in-flight slot released once the call completes
+     */
+    private void deliver(final OrganizationQueue queue,
+                         final LaneQueue laneQueue,
+                         final OutboundMessage message,
+                         final Semaphore permit) {
+        final long start = System.nanoTime();
+        recordQueueEvent("dequeue", laneQueue, message, true, start - message.getEnqueuedAt());
+        final SendEvent event = new SendEvent();
+        event.begin();
+        message.setAttempts(message.getAttempts() + 1);
+        inFlight.incrementAndGet();
+        final Span span = startSendSpan(laneQueue, message, start);
+        CompletableFuture<String> result;
+        try (Scope ignored = span.makeCurrent()) {
+            result = delivery.deliver(queue.getSession(), message);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((ts, error) -> {
+            permit.release();
+            signal();
+            final long now = System.nanoTime();
+            final String outcome;
+            if (error == null) {
+                outcome = "sent";
+                if (ts != null) {
+                    span.setAttribute(TracingUtil.TS, ts);
+                }
+                queue.getBreaker().onSuccess();
+                laneQueue.recordLatency(now - message.getEnqueuedAt());
+                recordFirstSend();
+                transition(outcome);
+            } else {
+                outcome = "failed";
+                TracingUtil.recordFailure(span, unwrap(error));
+                handleFailure(queue, message, unwrap(error));
+            }
+            span.setAttribute(TracingUtil.OUTCOME, outcome);
+            span.end();
+            registry.timer(METRIC_PREFIX + "send", Tags.of(ORGANIZATION_TAG, message.getOrganization(),
+                    LANE_TAG, laneQueue.getLane().name(), "outcome", outcome))
+                    .record(now - start, TimeUnit.NANOSECONDS);
+            event.end();
+            if (event.shouldCommit()) {
+                event.setOrganization(message.getOrganization());
+                event.setLane(laneQueue.getLane().name());
+                event.setRecipientType(recipientType(message));
+                event.setAttempt(message.getAttempts());
+                event.setOutcome(outcome);
+                event.commit();
+            }
+            inFlight.decrementAndGet();
+        });
+    }
+
+    /**
+     * Records the JVM uptime at the first successful send, the time-to-first-send of a fresh start.
+     */
+    private void recordFirstSend() {
+        if (firstSendUptime.get() < 0L) {
+            final long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            if (firstSendUptime.compareAndSet(-1L, uptime)) {
+                log.info("First message sent {}ms after JVM start", uptime);
+            }
+        }
+    }
+
+    /**
+     * Records the time since a message was first queued, retries included, and starts the span of its Slack
+     * call, both in the trace of the span which queued it.
+     *
+     * @param laneQueue LaneQueue
+     * @param message OutboundMessage
+     * @param start time taken from the lane, from System.nanoTime()
+     * @return started send span
+     */
+    private Span startSendSpan(final LaneQueue laneQueue, final OutboundMessage message, final long start) {
+        final Context parent = TracingUtil.fromTraceParent(message.getTraceParent());
+        final Instant now = Instant.now();
+        tracer.spanBuilder("slack.queued")
+                .setParent(parent)
+                .setStartTimestamp(now.minusNanos(start - message.getEnqueuedAt()))
+                .setAttribute(TracingUtil.LANE, laneQueue.getLane().name())
+                .setAttribute(TracingUtil.ATTEMPT, (long) message.getAttempts())
+                .startSpan()
+                .end(now);
+        return tracer.spanBuilder("slack.send")
+                .setParent(parent)
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute(TracingUtil.ORGANIZATION, message.getOrganization())
+                .setAttribute(TracingUtil.MESSAGE_TYPE, message.getType().name())
+                .setAttribute(TracingUtil.LANE, laneQueue.getLane().name())
+                .setAttribute(TracingUtil.ATTEMPT, (long) message.getAttempts())
+                .startSpan();
+    }
+
+    /**
+     * Commits a QueueEvent when it is being recorded.
+     *
+     * @param operation enqueue or dequeue
+     * @param laneQueue LaneQueue
+     * @param message OutboundMessage
+     * @param accepted whether the lane accepted the message
+     * @param queued nanoseconds since the message was first queued
+     */
+    private static void recordQueueEvent(final String operation,
+                                         final LaneQueue laneQueue,
+                                         final OutboundMessage message,
+                                         final boolean accepted,
+                                         final long queued) {
+        final QueueEvent event = new QueueEvent();
+        if (event.shouldCommit()) {
+            event.setOperation(operation);
+            event.setOrganization(message.getOrganization());
+            event.setLane(laneQueue.getLane().name());
+            event.setAccepted(accepted);
+            event.setDepth(laneQueue.getMessages().size());
+            event.setQueued(queued);
+            event.commit();
+        }
+    }
+
+    /**
+     * Recipient type of a message, as recorded in a SendEvent.
+     *
+     * @param message OutboundMessage
+     * @return user when addressed to a user, otherwise channel
+     */
+    private static String recipientType(final OutboundMessage message) {
+        if (message.getRecipient() == null) {
+            return "channel";
+        }
+        return "user";
+    }
+
+    /**
+     * Schedules a retry of a failed message, or dead-letters it. A failure which is not retryable, such as an
+     * unknown user, is an answer from Slack, so it counts as a success for the circuit breaker.
+     *
+     * @param queue OrganizationQueue
+     * @param message OutboundMessage
+     * @param error failure
+     */
+    private void handleFailure(final OrganizationQueue queue, final OutboundMessage message, final Throwable error) {
+        boolean retryable = true;
+        if (error instanceof DeliveryException) {
+            retryable = ((DeliveryException) error).isRetryable();
+        }
+        if (retryable) {
+            queue.getBreaker().onFailure();
+        } else {
+            queue.getBreaker().onSuccess();
+        }
+        if (retryable && running && message.getAttempts() < maxAttempts) {
+            final long delay = backoff.delayMillis(message.getAttempts());
+            log.warn("Unable to send message {} for organization {} (attempt {}); retrying in {}ms: {}",
+                    message.getId(), message.getOrganization(), message.getAttempts(), delay, error.getMessage());
+            transition("retrying");
+            pendingRetries.put(message.getId(), message);
+            retryScheduler.schedule(() -> {
+                if (pendingRetries.remove(message.getId()) != null && !enqueue(message)) {
+                    deadLetter(message, "Outbound queue full on retry");
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } else {
+            deadLetter(message, error.getMessage());
+        }
+    }
+
+    /**
+     * Moves a message to the DeadLetterStore.
+     *
+     * @param message OutboundMessage
+     * @param reason reason for the last failure
+     */
+    private void deadLetter(final OutboundMessage message, final String reason) {
+        log.warn("Dead-lettering message {} for organization {} after {} attempts: {}",
+                message.getId(), message.getOrganization(), message.getAttempts(), reason);
+        deadLetterStore.add(new DeadLetter(message, reason, Instant.now()));
+        transition("dead_lettered");
+    }
+
+    /**
+     * Records a message state transition.
+     *
+     * @param state new state
+     */
+    private void transition(final String state) {
+        registry.counter(METRIC_PREFIX + "transitions", STATE_TAG, state).increment();
+    }
+
+    /**
+     * Unwraps the cause of a failed future.
+     *
+     * @param error failure
+     * @return underlying cause
+     */
+    private static Throwable unwrap(final Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Wakes the dispatcher.
+     */
+    private void signal() {
+        lock.lock();
+        try {
+            signalled = true;
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until work arrives, an in-flight call completes or an organization regains budget.
+     *
+     * @throws InterruptedException when interrupted
+     */
+    private void awaitWork() throws InterruptedException {
+        long wait = IDLE_WAIT_NANOS;
+        for (OrganizationQueue queue : queues) {
+            for (LaneQueue laneQueue : queue.getLanes().values()) {
+                if (!laneQueue.getMessages().isEmpty()) {
+                    wait = Math.min(wait, Math.max(1L, queue.getBudget().nanosUntilAvailable()));
+                }
+            }
+        }
+        lock.lock();
+        try {
+            if (!signalled) {
+                workAvailable.awaitNanos(wait);
+            }
+            signalled = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finds an organization's queue.
+     *
+     * @param organization organization name
+     * @return OrganizationQueue, or null if not found
+     */
+    private OrganizationQueue find(final String organization) {
+        for (OrganizationQueue queue : queues) {
+            if (queue.getSession().getName().equals(organization)) {
+                return queue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Outbound lanes and rate-limit budget of one organization.
+     */
+    private static final class OrganizationQueue {
+
+        /**
+         * OrganizationSession.
+         */
+        private final OrganizationSession session;
+
+        /**
+         * Queues per lane.
+         */
+        private final Map<Lane, LaneQueue> lanes = new EnumMap<>(Lane.class);
+
+        /**
+         * Rate-limit budget.
+         */
+        private final TokenBucket budget;
+
+        /**
+         * Number of budget tokens only the interactive lane may use.
+         */
+        private final int interactiveReserve;
+
+        /**
+         * Stops sending to the organization's workspace while it is failing.
+         */
+        private final CircuitBreaker breaker;
+
+        /**
+         * Initializes an instance of <code>OrganizationQueue</code>.
+         *
+         * @param organizationSession OrganizationSession
+         * @param dispatch dispatch settings
+         * @param meterRegistry MeterRegistry
+         */
+        OrganizationQueue(final OrganizationSession organizationSession,
+                          final ApplicationProperties.Dispatch dispatch,
+                          final MeterRegistry meterRegistry) {
+            session = organizationSession;
+            final String name = organizationSession.getName();
+            breaker = new CircuitBreaker(dispatch.getCircuitFailureThreshold(), dispatch.getCircuitOpenDuration(),
+                    (from, to) -> {
+                        log.warn("Circuit for organization {} changed from {} to {}", name, from, to);
+                        meterRegistry.counter("slack.circuit.transitions",
+                                ORGANIZATION_TAG, name, "from", from.name(), "to", to.name()).increment();
+                    });
+            meterRegistry.gauge("slack.circuit.state", Tags.of(ORGANIZATION_TAG, name), breaker,
+                    circuit -> circuit.getState().ordinal());
+            final Map<Lane, Integer> weights = dispatch.getLaneWeights();
+            final ApplicationProperties.Organization settings = organizationSession.getSettings();
+            budget = new TokenBucket(settings.getMessagesPerSecond(), settings.getBurst());
+            interactiveReserve = Math.max(0, Math.min(settings.getInteractiveReserve(), settings.getBurst() - 1));
+            for (Lane lane : Lane.values()) {
+                lanes.put(lane, new LaneQueue(organizationSession.getName(), lane,
+                        weights.getOrDefault(lane, lane.getDefaultWeight()), settings.getQueueCapacity(),
+                        meterRegistry));
+            }
+        }
+
+        /**
+         * OrganizationSession.
+         *
+         * @return OrganizationSession
+         */
+        OrganizationSession getSession() {
+            return session;
+        }
+
+        /**
+         * Queues per lane.
+         *
+         * @return lanes
+         */
+        Map<Lane, LaneQueue> getLanes() {
+            return lanes;
+        }
+
+        /**
+         * Rate-limit budget.
+         *
+         * @return TokenBucket
+         */
+        TokenBucket getBudget() {
+            return budget;
+        }
+
+        /**
+         * Number of budget tokens only the interactive lane may use.
+         *
+         * @return reserved tokens
+         */
+        int getInteractiveReserve() {
+            return interactiveReserve;
+        }
+
+        /**
+         * Circuit breaker of the organization's workspace.
+         *
+         * @return CircuitBreaker
+         */
+        CircuitBreaker getBreaker() {
+            return breaker;
+        }
+    }
+
+    /**
+     * Queue of one lane within an organization.
+     */
+    private static final class LaneQueue {
+
+        /**
+         * Lane.
+         */
+        private final Lane lane;
+
+        /**
+         * Scheduling weight.
+         */
+        private final int weight;
+
+        /**
+         * Queued messages.
+         */
+        private final BlockingQueue<OutboundMessage> messages;
+
+        /**
+         * Messages rejected because the queue was full.
+         */
+        private final Counter rejected;
+
+        /**
+         * Time from being queued to being accepted by Slack.
+         */
+        private final Timer latency;
+
+        /**
+         * Messages which missed the lane's latency objective.
+         */
+        private final Counter sloBreaches;
+
+        /**
+         * Current smooth weighted round-robin weight.
+         */
+        private int currentWeight;
+
+        /**
+         * Initializes an instance of <code>LaneQueue</code>.
+         *
+         * @param organization organization name
+         * @param priorityLane Lane
+         * @param laneWeight scheduling weight
+         * @param capacity maximum number of queued messages
+         * @param meterRegistry MeterRegistry
+         */
+        LaneQueue(final String organization,
+                  final Lane priorityLane,
+                  final int laneWeight,
+                  final int capacity,
+                  final MeterRegistry meterRegistry) {
+            lane = priorityLane;
+            weight = Math.max(1, laneWeight);
+            messages = new ArrayBlockingQueue<>(capacity);
+            final Tags tags = Tags.of(ORGANIZATION_TAG, organization, LANE_TAG, priorityLane.name());
+            rejected = meterRegistry.counter(METRIC_PREFIX + "rejected", tags);
+            sloBreaches = meterRegistry.counter(METRIC_PREFIX + "slo.breaches", tags);
+            latency = Timer.builder(METRIC_PREFIX + "latency")
+                    .tags(tags)
+                    .serviceLevelObjectives(priorityLane.getSlo())
+                    .register(meterRegistry);
+            meterRegistry.gauge(METRIC_PREFIX + "pending", tags, messages, BlockingQueue::size);
+        }
+
+        /**
+         * Records the time from being queued to being accepted by Slack.
+         *
+         * @param nanos latency
+         */
+        void recordLatency(final long nanos) {
+            latency.record(nanos, TimeUnit.NANOSECONDS);
+            if (nanos > lane.getSlo().toNanos()) {
+                sloBreaches.increment();
+            }
+        }
+
+        /**
+         * Lane.
+         *
+         * @return Lane
+         */
+        Lane getLane() {
+            return lane;
+        }
+
+        /**
+         * Scheduling weight.
+         *
+         * @return weight
+         */
+        int getWeight() {
+            return weight;
+        }
+
+        /**
+         * Queued messages.
+         *
+         * @return queued messages
+         */
+        BlockingQueue<OutboundMessage> getMessages() {
+            return messages;
+        }
+
+        /**
+         * Messages rejected because the queue was full.
+         *
+         * @return Counter
+         */
+        Counter getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Current smooth weighted round-robin weight.
+         *
+         * @return current weight
+         */
+        int getCurrentWeight() {
+            return currentWeight;
+        }
+
+        /**
+         * Sets the current smooth weighted round-robin weight.
+         *
+         * @param value current weight
+         */
+        void setCurrentWeight(final int value) {
+            currentWeight = value;
+        }
+    }
+
+}
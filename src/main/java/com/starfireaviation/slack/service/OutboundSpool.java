@@ -0,0 +1,196 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.model.OutboundMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Files holding outbound messages left unsent at shutdown, so the next instance sending from the same volume can
+ * send them. Every instance spools to its own file, named after the configured file with the instance name
+ * added, so instances sharing a volume never overwrite each other's messages. At startup an instance claims each
+ * spool file on the volume by renaming it, which only one instance can do, before reading and deleting it.
+ */
+@Slf4j
+public class OutboundSpool {
+
+    /**
+     * Suffix of a spool file claimed by an instance, after the instance name.
+     */
+    private static final String CLAIMED = ".restoring";
+
+    /**
+     * Spool file of this instance, or null when spooling is disabled.
+     */
+    private final Path file;
+
+    /**
+     * Glob matching the spool files of every instance, or null when spooling is disabled.
+     */
+    private final String pattern;
+
+    /**
+     * Name of this instance.
+     */
+    private final String instance;
+
+    /**
+     * ObjectMapper.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Initializes an instance of <code>OutboundSpool</code>.
+     *
+     * @param spoolFile spool file, blank to disable spooling
+     * @param instanceName name of this instance, blank for the host name
+     * @param mapper ObjectMapper
+     */
+    public OutboundSpool(final String spoolFile, final String instanceName, final ObjectMapper mapper) {
+        if (instanceName == null || instanceName.isBlank()) {
+            instance = localInstance();
+        } else {
+            instance = instanceName;
+        }
+        if (spoolFile == null || spoolFile.isBlank()) {
+            file = null;
+            pattern = null;
+        } else {
+            final Path configured = Paths.get(spoolFile);
+            final String name = configured.getFileName().toString();
+            final int dot = name.lastIndexOf('.');
+            String stem = name;
+            String extension = "";
+            if (dot > 0) {
+                stem = name.substring(0, dot);
+                extension = name.substring(dot);
+            }
+            file = configured.resolveSibling(stem + "-" + instance + extension);
+            pattern = stem + "*" + extension;
+        }
+        objectMapper = mapper;
+    }
+
+    /**
+     * Whether a spool file is configured.
+     *
+     * @return true if messages can be spooled
+     */
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    /**
+     * Location of this instance's spool file.
+     *
+     * @return spool file, or null
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Writes messages to this instance's spool file, replacing its contents in one step.
+     *
+     * @param messages messages to spool
+     * @throws IOException when the file cannot be written
+     */
+    public void write(final List<OutboundMessage> messages) throws IOException {
+        final Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        objectMapper.writeValue(temp.toFile(), messages);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Claims, reads and removes the messages spooled by every instance sharing the volume. Files claimed by this
+     * instance before it was interrupted are read too.
+     *
+     * @return spooled messages, empty when there are none
+     * @throws IOException when a file cannot be read
+     */
+    public List<OutboundMessage> restore() throws IOException {
+        if (file == null) {
+            return Collections.emptyList();
+        }
+        final Path parent = file.toAbsolutePath().getParent();
+        if (!Files.isDirectory(parent)) {
+            return Collections.emptyList();
+        }
+        final List<Path> claimed = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(parent, pattern)) {
+            for (Path spooled : files) {
+                final Path claim = spooled.resolveSibling(spooled.getFileName() + "." + instance + CLAIMED);
+                try {
+                    Files.move(spooled, claim, StandardCopyOption.ATOMIC_MOVE);
+                    claimed.add(claim);
+                } catch (NoSuchFileException | FileAlreadyExistsException e) {
+                    log.debug("Spool file {} claimed by another instance", spooled);
+                }
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(parent, "*." + instance + CLAIMED)) {
+            for (Path claim : files) {
+                if (!claimed.contains(claim)) {
+                    claimed.add(claim);
+                }
+            }
+        }
+        final List<OutboundMessage> messages = new ArrayList<>();
+        for (Path claim : claimed) {
+            messages.addAll(objectMapper.readValue(claim.toFile(), new TypeReference<List<OutboundMessage>>() { }));
+            Files.delete(claim);
+        }
+        // Queue times are System.nanoTime() values from the previous process
+        messages.forEach(message -> message.setEnqueuedAt(0L));
+        return messages;
+    }
+
+    /**
+     * Name of this instance: the pod name in Kubernetes, otherwise the host name.
+     *
+     * @return instance name
+     */
+    static String localInstance() {
+        final String hostname = System.getenv("HOSTNAME");
+        if (hostname != null && !hostname.isBlank()) {
+            return hostname;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "local";
+        }
+    }
+}
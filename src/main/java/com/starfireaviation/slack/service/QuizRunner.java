@@ -0,0 +1,658 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.ResponseOption;
+import com.starfireaviation.model.User;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.MessageType;
+import com.starfireaviation.slack.model.OutboundMessage;
+import com.starfireaviation.slack.model.QuizProgress;
+import com.starfireaviation.slack.model.RenderedTemplate;
+import com.starfireaviation.slack.util.TemplateUtil;
+import freemarker.template.TemplateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives students through quizzes one question at a time. While a student considers question N, question N+1
+ * is already being looked up and rendered, so a valid reply ({@code A} to {@code D} or {@code SKIP}) queues the
+ * next question without waiting for the upstream service or the template engine. {@code STOP} ends the session;
+ * the MessageService records the opt-out. Sessions without replies end after the idle timeout.
+ */
+@Slf4j
+public class QuizRunner {
+
+    /**
+     * Template questions are rendered with.
+     */
+    private static final String QUESTION_TEMPLATE = "question.ftl";
+
+    /**
+     * Template sent once every question was answered.
+     */
+    private static final String COMPLETE_TEMPLATE = "quiz_complete.ftl";
+
+    /**
+     * Session outcome metric name.
+     */
+    private static final String SESSIONS = "slack.quiz.sessions";
+
+    /**
+     * Interval between checks for idle sessions.
+     */
+    private static final long SWEEP_INTERVAL_MS = 60000L;
+
+    /**
+     * Median.
+     */
+    private static final double P50 = 0.5;
+
+    /**
+     * 99th percentile.
+     */
+    private static final double P99 = 0.99;
+
+    /**
+     * Replies which move a session on to its next question.
+     */
+    private static final Set<ResponseOption> ANSWERS = EnumSet.of(ResponseOption.A, ResponseOption.B,
+            ResponseOption.C, ResponseOption.D, ResponseOption.SKIP);
+
+    /**
+     * ApplicationProperties.
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * EntityLoader.
+     */
+    private final EntityLoader entityLoader;
+
+    /**
+     * TemplateCache.
+     */
+    private final TemplateCache templateCache;
+
+    /**
+     * OutboundDispatcher.
+     */
+    private final OutboundDispatcher outboundDispatcher;
+
+    /**
+     * OptOutIndex.
+     */
+    private final OptOutIndex optOutIndex;
+
+    /**
+     * Running sessions, keyed by organization and Slack user name.
+     */
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Looks up and renders upcoming questions.
+     */
+    private final ExecutorService prefetcher;
+
+    /**
+     * Ends idle sessions.
+     */
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Time from a reply to the next question being queued.
+     */
+    private final Timer nextQuestion;
+
+    /**
+     * Sessions started.
+     */
+    private final Counter started;
+
+    /**
+     * Sessions in which every question was answered.
+     */
+    private final Counter completed;
+
+    /**
+     * Sessions ended by STOP.
+     */
+    private final Counter stopped;
+
+    /**
+     * Sessions ended without replies.
+     */
+    private final Counter expired;
+
+    /**
+     * Sessions ended because a question could not be looked up, rendered or queued.
+     */
+    private final Counter failed;
+
+    /**
+     * Initializes an instance of <code>QuizRunner</code>.
+     *
+     * @param aProps ApplicationProperties
+     * @param loader EntityLoader
+     * @param cache TemplateCache
+     * @param dispatcher OutboundDispatcher
+     * @param optOuts OptOutIndex
+     * @param meterRegistry MeterRegistry
+     */
+    public QuizRunner(final ApplicationProperties aProps,
+                      final EntityLoader loader,
+                      final TemplateCache cache,
+                      final OutboundDispatcher dispatcher,
+                      final OptOutIndex optOuts,
+                      final MeterRegistry meterRegistry) {
+        applicationProperties = aProps;
+        entityLoader = loader;
+        templateCache = cache;
+        outboundDispatcher = dispatcher;
+        optOutIndex = optOuts;
+        final AtomicInteger threads = new AtomicInteger();
+        prefetcher = Executors.newFixedThreadPool(Math.max(1, aProps.getQuiz().getPrefetchThreads()), runnable -> {
+            final Thread thread = new Thread(runnable, "quiz-prefetch-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "quiz-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::expireIdle, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+        nextQuestion = Timer.builder("slack.quiz.next")
+                .description("Time from a quiz reply to the next question being queued")
+                .publishPercentiles(P50, P99)
+                .register(meterRegistry);
+        started = meterRegistry.counter(SESSIONS, "outcome", "started");
+        completed = meterRegistry.counter(SESSIONS, "outcome", "completed");
+        stopped = meterRegistry.counter(SESSIONS, "outcome", "stopped");
+        expired = meterRegistry.counter(SESSIONS, "outcome", "expired");
+        failed = meterRegistry.counter(SESSIONS, "outcome", "failed");
+        meterRegistry.gauge("slack.quiz.active", sessions, Map::size);
+    }
+
+    /**
+     * Starts a quiz session, sending the first question once it is rendered.
+     *
+     * @param organization organization whose workspace the quiz runs in
+     * @param user student
+     * @param questionIds questions in the order they are asked
+     * @return false if the student opted out or already has a session, or too many sessions are running
+     */
+    public boolean start(final String organization, final User user, final List<Long> questionIds) {
+        if (user == null || user.getSlack() == null || questionIds == null || questionIds.isEmpty()) {
+            return false;
+        }
+        if (optOutIndex.isOptedOut(organization, user.getSlack())
+                || sessions.size() >= applicationProperties.getQuiz().getMaxSessions()) {
+            return false;
+        }
+        final Session session = new Session(organization, user, new ArrayList<>(questionIds));
+        if (sessions.putIfAbsent(session.getKey(), session) != null) {
+            return false;
+        }
+        started.increment();
+        synchronized (session) {
+            session.setPrefetched(prefetch(session, 0));
+            dispatchCurrent(session, 0L);
+        }
+        return true;
+    }
+
+    /**
+     * Moves a student's session on after a reply. Replies other than answers, SKIP and STOP are ignored.
+     *
+     * @param organization organization whose workspace the reply was posted in
+     * @param userName Slack user name of the student
+     * @param response parsed reply
+     */
+    public void onResponse(final String organization, final String userName, final ResponseOption response) {
+        final Session session = sessions.get(key(organization, userName));
+        if (session == null) {
+            return;
+        }
+        final long receivedAt = System.nanoTime();
+        if (response == ResponseOption.STOP) {
+            end(session, stopped);
+            return;
+        }
+        if (!ANSWERS.contains(response)) {
+            return;
+        }
+        synchronized (session) {
+            if (!session.isAwaitingReply()) {
+                return;
+            }
+            session.setLastActive(receivedAt);
+            session.setQuestion(session.getQuestion() + 1);
+            if (session.getQuestion() >= session.getQuestionIds().size()) {
+                end(session, completed);
+                sendCompletion(session);
+                return;
+            }
+            dispatchCurrent(session, receivedAt);
+        }
+    }
+
+    /**
+     * Ends a student's session.
+     *
+     * @param organization organization whose workspace the quiz runs in
+     * @param userName Slack user name of the student
+     * @return false if the student had no session
+     */
+    public boolean stop(final String organization, final String userName) {
+        final Session session = sessions.get(key(organization, userName));
+        return session != null && end(session, stopped);
+    }
+
+    /**
+     * Progress of every running session.
+     *
+     * @return QuizProgress per session
+     */
+    public List<QuizProgress> getSessions() {
+        final List<QuizProgress> progress = new ArrayList<>(sessions.size());
+        for (Session session : sessions.values()) {
+            synchronized (session) {
+                progress.add(new QuizProgress(session.getOrganization(), session.getUser().getSlack(),
+                        session.getQuestion(), session.getQuestionIds().size(), session.getStartedAt()));
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Stops prefetching and ends every session.
+     */
+    public void shutdown() {
+        sweeper.shutdownNow();
+        prefetcher.shutdownNow();
+        sessions.clear();
+    }
+
+    /**
+     * Queues the session's current question once its prefetch completes, and starts prefetching the one after.
+     * Must be called holding the session's lock.
+     *
+     * @param session Session
+     * @param receivedAt time the reply asking for the question arrived, from System.nanoTime(), or 0 for the first
+     */
+    private void dispatchCurrent(final Session session, final long receivedAt) {
+        session.setAwaitingReply(false);
+        final int question = session.getQuestion();
+        final CompletableFuture<RenderedTemplate> current = session.getPrefetched();
+        if (question + 1 < session.getQuestionIds().size()) {
+            session.setPrefetched(prefetch(session, question + 1));
+        } else {
+            session.setPrefetched(null);
+        }
+        current.whenComplete((rendered, error) -> onRendered(session, question, rendered, error, receivedAt));
+    }
+
+    /**
+     * Queues a rendered question, unless the session ended meanwhile.
+     *
+     * @param session Session
+     * @param question position of the question
+     * @param rendered rendered question, or null on failure
+     * @param error failure, or null
+     * @param receivedAt time the reply asking for the question arrived, or 0 for the first
+     */
+    private void onRendered(final Session session,
+                            final int question,
+                            final RenderedTemplate rendered,
+                            final Throwable error,
+                            final long receivedAt) {
+        synchronized (session) {
+            if (sessions.get(session.getKey()) != session || session.getQuestion() != question) {
+                return;
+            }
+            if (error != null) {
+                log.warn("Ending quiz for {}: question {} could not be prepared: {}", session.getKey(),
+                        session.getQuestionIds().get(question), unwrap(error).getMessage());
+                end(session, failed);
+                return;
+            }
+            final OutboundMessage message = new OutboundMessage(MessageType.QUESTION_ASKED,
+                    session.getOrganization(), session.getUser().getSlack(), rendered.getText());
+            message.setTemplateVersion(rendered.getTag());
+            if (!outboundDispatcher.enqueue(message)) {
+                log.warn("Ending quiz for {}: the outbound queue rejected question {}", session.getKey(), question);
+                end(session, failed);
+                return;
+            }
+            session.setAwaitingReply(true);
+            session.setLastActive(System.nanoTime());
+            if (receivedAt != 0L) {
+                nextQuestion.record(System.nanoTime() - receivedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Looks up and renders a question of a session in the background.
+     *
+     * @param session Session
+     * @param question position of the question
+     * @return future completing with the rendered question
+     */
+    private CompletableFuture<RenderedTemplate> prefetch(final Session session, final int question) {
+        final Long questionId = session.getQuestionIds().get(question);
+        return CompletableFuture.supplyAsync(() -> {
+            final Question loaded = entityLoader.getQuestion(questionId);
+            if (loaded == null) {
+                throw new CompletionException(new IOException("Unknown question " + questionId));
+            }
+            return render(QUESTION_TEMPLATE, session.getUser(), loaded);
+        }, prefetcher);
+    }
+
+    /**
+     * Queues the completion message of a session in the background.
+     *
+     * @param session Session
+     */
+    private void sendCompletion(final Session session) {
+        CompletableFuture.supplyAsync(() -> render(COMPLETE_TEMPLATE, session.getUser(), null), prefetcher)
+                .thenAccept(rendered -> {
+                    final OutboundMessage message = new OutboundMessage(MessageType.QUIZ_COMPLETE,
+                            session.getOrganization(), session.getUser().getSlack(), rendered.getText());
+                    message.setTemplateVersion(rendered.getTag());
+                    outboundDispatcher.enqueue(message);
+                })
+                .exceptionally(error -> {
+                    log.warn("Unable to send quiz completion to {}: {}", session.getKey(),
+                            unwrap(error).getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Renders a template for a student.
+     *
+     * @param template template name
+     * @param user student
+     * @param question Question, or null
+     * @return RenderedTemplate
+     */
+    private RenderedTemplate render(final String template, final User user, final Question question) {
+        try {
+            return templateCache.render(template,
+                    TemplateUtil.getTemplateModel(user, null, question, applicationProperties));
+        } catch (IOException | TemplateException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Ends sessions without replies for longer than the idle timeout.
+     */
+    private void expireIdle() {
+        final long cutoff = System.nanoTime() - applicationProperties.getQuiz().getIdleTimeout().toNanos();
+        for (Session session : sessions.values()) {
+            if (session.getLastActive() - cutoff < 0) {
+                end(session, expired);
+            }
+        }
+    }
+
+    /**
+     * Removes a session, counting how it ended.
+     *
+     * @param session Session
+     * @param outcome counter of the outcome
+     * @return false if the session had already ended
+     */
+    private boolean end(final Session session, final Counter outcome) {
+        if (!sessions.remove(session.getKey(), session)) {
+            return false;
+        }
+        outcome.increment();
+        return true;
+    }
+
+    /**
+     * Cause of a failure thrown through a CompletableFuture.
+     *
+     * @param error failure
+     * @return cause
+     */
+    private static Throwable unwrap(final Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Session key.
+     *
+     * @param organization organization
+     * @param userName Slack user name
+     * @return key
+     */
+    private static String key(final String organization, final String userName) {
+        return organization + "/" + userName;
+    }
+
+    /**
+     * A student's quiz session, guarded by itself.
+     */
+    private static final class Session {
+
+        /**
+         * Organization whose workspace the quiz runs in.
+         */
+        private final String organization;
+
+        /**
+         * Student.
+         */
+        private final User user;
+
+        /**
+         * Questions in the order they are asked.
+         */
+        private final List<Long> questionIds;
+
+        /**
+         * Session key.
+         */
+        private final String key;
+
+        /**
+         * Time the session started.
+         */
+        private final Instant startedAt = Instant.now();
+
+        /**
+         * Position of the current question.
+         */
+        private int question;
+
+        /**
+         * Rendering of the current question until it is dispatched, then of the next one.
+         */
+        private CompletableFuture<RenderedTemplate> prefetched;
+
+        /**
+         * Whether the current question was queued and a reply is expected.
+         */
+        private boolean awaitingReply;
+
+        /**
+         * Time of the last question or reply, from System.nanoTime().
+         */
+        private volatile long lastActive = System.nanoTime();
+
+        /**
+         * Initializes an instance of the Session class.
+         *
+         * @param org organization
+         * @param student student
+         * @param ids question IDs
+         */
+        Session(final String org, final User student, final List<Long> ids) {
+            organization = org;
+            user = student;
+            questionIds = ids;
+            key = key(org, student.getSlack());
+        }
+
+        /**
+         * Organization.
+         *
+         * @return organization
+         */
+        String getOrganization() {
+            return organization;
+        }
+
+        /**
+         * Student.
+         *
+         * @return User
+         */
+        User getUser() {
+            return user;
+        }
+
+        /**
+         * Question IDs.
+         *
+         * @return question IDs
+         */
+        List<Long> getQuestionIds() {
+            return questionIds;
+        }
+
+        /**
+         * Session key.
+         *
+         * @return key
+         */
+        String getKey() {
+            return key;
+        }
+
+        /**
+         * Time the session started.
+         *
+         * @return start time
+         */
+        Instant getStartedAt() {
+            return startedAt;
+        }
+
+        /**
+         * Position of the current question.
+         *
+         * @return position
+         */
+        int getQuestion() {
+            return question;
+        }
+
+        /**
+         * Sets the position of the current question.
+         *
+         * @param position position
+         */
+        void setQuestion(final int position) {
+            question = position;
+        }
+
+        /**
+         * Prefetched rendering.
+         *
+         * @return future, or null when no question is left
+         */
+        CompletableFuture<RenderedTemplate> getPrefetched() {
+            return prefetched;
+        }
+
+        /**
+         * Sets the prefetched rendering.
+         *
+         * @param rendering future, or null when no question is left
+         */
+        void setPrefetched(final CompletableFuture<RenderedTemplate> rendering) {
+            prefetched = rendering;
+        }
+
+        /**
+         * Whether a reply is expected.
+         *
+         * @return true once the current question was queued
+         */
+        boolean isAwaitingReply() {
+            return awaitingReply;
+        }
+
+        /**
+         * Sets whether a reply is expected.
+         *
+         * @param awaiting whether a reply is expected
+         */
+        void setAwaitingReply(final boolean awaiting) {
+            awaitingReply = awaiting;
+        }
+
+        /**
+         * Time of the last question or reply.
+         *
+         * @return System.nanoTime() of the last activity
+         */
+        long getLastActive() {
+            return lastActive;
+        }
+
+        /**
+         * Sets the time of the last question or reply.
+         *
+         * @param nanos System.nanoTime() of the activity
+         */
+        void setLastActive(final long nanos) {
+            lastActive = nanos;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.ullink.slack.simpleslackapi.SlackSession;
+import com.ullink.slack.simpleslackapi.events.SlackMessagePosted;
+import com.ullink.slack.simpleslackapi.listeners.SlackMessagePostedListener;
+
+/**
+ * Records the messages users post before passing them on to the listener handling them.
+ */
+public class RecordingMessageListener implements SlackMessagePostedListener {
+
+    /**
+     * Listener handling the messages.
+     */
+    private final SlackMessagePostedListener delegate;
+
+    /**
+     * InboundRecorder.
+     */
+    private final InboundRecorder recorder;
+
+    /**
+     * SlackSessionPool.
+     */
+    private final SlackSessionPool slackSessionPool;
+
+    /**
+     * Initializes an instance of <code>RecordingMessageListener</code>.
+     *
+     * @param listener listener handling the messages
+     * @param inboundRecorder InboundRecorder
+     * @param sessionPool SlackSessionPool
+     */
+    public RecordingMessageListener(final SlackMessagePostedListener listener,
+                                    final InboundRecorder inboundRecorder,
+                                    final SlackSessionPool sessionPool) {
+        delegate = listener;
+        recorder = inboundRecorder;
+        slackSessionPool = sessionPool;
+    }
+
+    /**
+     * {@inheritDoc} Required implementation.
+     */
+    @Override
+    public void onEvent(final SlackMessagePosted event, final SlackSession session) {
+        if (recorder.isActive() && !session.sessionPersona().getId().equals(event.getSender().getId())) {
+            recorder.record(slackSessionPool.organizationOf(session), event.getUser().getUserName(),
+                    event.getMessageContent());
+        }
+        delegate.onEvent(event, session);
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.client.ResponseTransport;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.UserResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects recognized user responses into micro-batches which are posted upstream once the batch is full or
+ * its oldest response has waited for the flush interval. At shutdown the flusher finishes the batch it is posting,
+ * retries included, and whatever is still pending is flushed, all within the drain timeout.
+ */
+@Slf4j
+public class ResponseSink {
+
+    /**
+     * Metric name prefix.
+     */
+    private static final String METRIC_PREFIX = "slack.responses.";
+
+    /**
+     * Pending user responses.
+     */
+    private final BlockingQueue<Pending> pending;
+
+    /**
+     * ResponseTransport.
+     */
+    private final ResponseTransport transport;
+
+    /**
+     * Response write-back settings.
+     */
+    private final ApplicationProperties.Responses settings;
+
+    /**
+     * Size of each flushed batch.
+     */
+    private final DistributionSummary batchSize;
+
+    /**
+     * Time from the oldest response in a batch being received to the batch being posted.
+     */
+    private final Timer flushLatency;
+
+    /**
+     * Failed post attempts.
+     */
+    private final Counter failures;
+
+    /**
+     * Batches dropped after exhausting retries.
+     */
+    private final Counter dropped;
+
+    /**
+     * Responses rejected because the queue was full.
+     */
+    private final Counter rejected;
+
+    /**
+     * Flushing thread.
+     */
+    private Thread flusher;
+
+    /**
+     * Running flag.
+     */
+    private volatile boolean running;
+
+    /**
+     * Time by which the final drain must be done, from System.nanoTime(). Set before running is cleared.
+     */
+    private volatile long stopBy;
+
+    /**
+     * Initializes an instance of <code>ResponseSink</code>.
+     *
+     * @param responseTransport ResponseTransport
+     * @param aProps ApplicationProperties
+     * @param meterRegistry MeterRegistry
+     */
+    public ResponseSink(final ResponseTransport responseTransport,
+                        final ApplicationProperties aProps,
+                        final MeterRegistry meterRegistry) {
+        transport = responseTransport;
+        settings = aProps.getResponses();
+        pending = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+        batchSize = DistributionSummary.builder(METRIC_PREFIX + "batch.size").register(meterRegistry);
+        flushLatency = Timer.builder(METRIC_PREFIX + "flush.latency").register(meterRegistry);
+        failures = meterRegistry.counter(METRIC_PREFIX + "flush.failures");
+        dropped = meterRegistry.counter(METRIC_PREFIX + "dropped");
+        rejected = meterRegistry.counter(METRIC_PREFIX + "rejected");
+        meterRegistry.gauge(METRIC_PREFIX + "pending", pending, BlockingQueue::size);
+    }
+
+    /**
+     * Starts the flushing thread.
+     */
+    public void start() {
+        running = true;
+        flusher = new Thread(this::run, "response-sink");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stops the flushing thread once it has finished its batch and flushes whatever is still pending. Batches are
+     * retried until the drain timeout has passed.
+     */
+    public void shutdown() {
+        stopBy = System.nanoTime() + settings.getDrainTimeout().toNanos();
+        running = false;
+        if (flusher != null) {
+            try {
+                flusher.join(Math.max(1L, settings.getDrainTimeout().toMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (flusher.isAlive()) {
+                log.warn("Response flusher still posting after {}", settings.getDrainTimeout());
+            }
+        }
+        final List<Pending> remaining = new ArrayList<>();
+        pending.drainTo(remaining);
+        for (int i = 0; i < remaining.size(); i += settings.getBatchSize()) {
+            flush(remaining.subList(i, Math.min(remaining.size(), i + settings.getBatchSize())));
+        }
+    }
+
+    /**
+     * Queues a user response for write-back.
+     *
+     * @param response UserResponse
+     * @return false if the queue was full and the response was rejected
+     */
+    public boolean offer(final UserResponse response) {
+        if (pending.offer(new Pending(response, System.nanoTime()))) {
+            return true;
+        }
+        rejected.increment();
+        log.warn("Response queue full; dropping response from {}", response.getUser());
+        return false;
+    }
+
+    /**
+     * Number of responses waiting to be flushed.
+     *
+     * @return pending count
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Flushing loop.
+     */
+    private void run() {
+        final long intervalNanos = settings.getFlushInterval().toNanos();
+        final List<Pending> batch = new ArrayList<>(settings.getBatchSize());
+        while (running) {
+            try {
+                final Pending first = pending.poll(intervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                final long deadline = first.getQueuedAt() + intervalNanos;
+                while (batch.size() < settings.getBatchSize()) {
+                    pending.drainTo(batch, settings.getBatchSize() - batch.size());
+                    final long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= settings.getBatchSize() || remaining <= 0) {
+                        break;
+                    }
+                    final Pending next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Posts a batch, retrying with exponential backoff.
+     *
+     * @param batch pending responses
+     */
+    private void flush(final List<Pending> batch) {
+        final List<UserResponse> responses = new ArrayList<>(batch.size());
+        for (Pending item : batch) {
+            responses.add(item.getResponse());
+        }
+        long backoff = settings.getRetryBackoff().toMillis();
+        for (int attempt = 0; attempt <= settings.getMaxRetries(); attempt++) {
+            try {
+                transport.post(responses);
+                batchSize.record(responses.size());
+                flushLatency.record(System.nanoTime() - batch.get(0).getQueuedAt(), TimeUnit.NANOSECONDS);
+                return;
+            } catch (IOException e) {
+                failures.increment();
+                log.warn("Unable to post {} user responses (attempt {}): {}",
+                        responses.size(), attempt + 1, e.getMessage());
+            }
+            if (attempt == settings.getMaxRetries() || !retryableWithin(backoff) || !sleep(backoff)) {
+                break;
+            }
+            backoff *= 2;
+        }
+        dropped.increment(responses.size());
+    }
+
+    /**
+     * Whether a retry after a backoff still fits before the drain timeout. Always true while running.
+     *
+     * @param backoffMillis backoff before the retry
+     * @return true if the batch may be retried
+     */
+    private boolean retryableWithin(final long backoffMillis) {
+        return running || stopBy - System.nanoTime() > TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+    }
+
+    /**
+     * Sleeps between retries.
+     *
+     * @param millis time to sleep
+     * @return false if interrupted
+     */
+    private static boolean sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * A queued response along with the time it was queued.
+     */
+    private static final class Pending {
+
+        /**
+         * UserResponse.
+         */
+        private final UserResponse response;
+
+        /**
+         * Time queued, from System.nanoTime().
+         */
+        private final long queuedAt;
+
+        /**
+         * Initializes an instance of <code>Pending</code>.
+         *
+         * @param userResponse UserResponse
+         * @param queuedNanos time queued
+         */
+        Pending(final UserResponse userResponse, final long queuedNanos) {
+            response = userResponse;
+            queuedAt = queuedNanos;
+        }
+
+        /**
+         * UserResponse.
+         *
+         * @return UserResponse
+         */
+        UserResponse getResponse() {
+            return response;
+        }
+
+        /**
+         * Time queued.
+         *
+         * @return time queued, from System.nanoTime()
+         */
+        long getQueuedAt() {
+            return queuedAt;
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long the application took to become ready, as JVM uptime so class loading and JIT warm-up before
+ * Spring starts are included. On a training run it exits once ready, after the classes a start needs have been
+ * loaded, so the JVM's loaded class list can be turned into a class-data-sharing archive.
+ */
+@Slf4j
+public class StartupMetrics implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * JVM uptime in ms when the application was ready, or -1 until then.
+     */
+    private final AtomicLong readyUptime = new AtomicLong(-1L);
+
+    /**
+     * Whether to exit once ready.
+     */
+    private final boolean trainingRun;
+
+    /**
+     * Initializes an instance of <code>StartupMetrics</code>.
+     *
+     * @param training whether to exit once ready
+     * @param meterRegistry MeterRegistry
+     */
+    public StartupMetrics(final boolean training, final MeterRegistry meterRegistry) {
+        trainingRun = training;
+        TimeGauge.builder("slack.startup.ready", readyUptime, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("JVM uptime when the application was ready, -1 until then")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the time to ready, and exits on a training run.
+     *
+     * @param event ApplicationReadyEvent
+     */
+    @Override
+    public void onApplicationEvent(final ApplicationReadyEvent event) {
+        final long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        readyUptime.set(uptime);
+        log.info("Ready {}ms after JVM start", uptime);
+        if (trainingRun) {
+            log.info("Training run complete; exiting");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    /**
+     * JVM uptime when the application was ready.
+     *
+     * @return uptime in ms, or -1 until ready
+     */
+    public long getReadyUptime() {
+        return readyUptime.get();
+    }
+}
@@ -0,0 +1,621 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.jfr.RenderEvent;
+import com.starfireaviation.slack.model.RenderedTemplate;
+import com.starfireaviation.slack.model.TemplateModel;
+import com.starfireaviation.slack.template.CompiledTemplate;
+import com.starfireaviation.slack.template.CompiledTemplates;
+import com.starfireaviation.slack.util.ReusableStringWriter;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiled notification templates. Bundled templates are parsed once at startup; when an external directory is
+ * configured its templates override the bundled ones and are re-parsed on a watcher thread whenever they change.
+ * Deleting an override falls back to the bundled template of the same name, if there is one.
+ * A successfully parsed template replaces the previous version in a single map update, so renders never wait on
+ * a reload, and a template which fails to parse leaves the previous version in place.
+ * <p>
+ * Templates render into a buffer kept per thread, so the only allocation for the output is the final String
+ * handed to the outbound queue.
+ * <p>
+ * Bundled templates simple enough to be compiled to Java at build time render a {@link TemplateModel} without
+ * FreeMarker, as long as they have not been overridden from the external directory and every value they refer to
+ * is set; otherwise FreeMarker renders them as before.
+ * <p>
+ * With background warm-up the templates are parsed on their own thread so startup does not wait for them; a
+ * render asking for a template which is not parsed yet waits for the warm-up to finish.
+ */
+@Slf4j
+public class TemplateCache {
+
+    /**
+     * Location of the bundled templates.
+     */
+    private static final String CLASSPATH_TEMPLATES = "classpath:/templates/*.ftl";
+
+    /**
+     * Location of a bundled template, by name.
+     */
+    private static final String CLASSPATH_TEMPLATE = "classpath:/templates/";
+
+    /**
+     * Template file extension.
+     */
+    private static final String EXTENSION = ".ftl";
+
+    /**
+     * Time without further changes before changed templates are parsed.
+     */
+    private static final long QUIET_PERIOD_MS = 200L;
+
+    /**
+     * Initial render buffer size in chars, enough for the bundled templates.
+     */
+    private static final int BUFFER_CAPACITY = 2048;
+
+    /**
+     * Largest render buffer kept between renders, in chars.
+     */
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 65536;
+
+    /**
+     * Longest a render waits for the background warm-up, in seconds.
+     */
+    private static final long WARM_UP_TIMEOUT_SECONDS = 30L;
+
+    /**
+     * Render buffers, one per thread.
+     */
+    private static final ThreadLocal<ReusableStringWriter> BUFFERS = ThreadLocal.withInitial(
+            () -> new ReusableStringWriter(BUFFER_CAPACITY, MAX_RETAINED_BUFFER_CAPACITY));
+
+    /**
+     * FreeMarker Configuration.
+     */
+    private final Configuration freemarkerConfig;
+
+    /**
+     * Renderers compiled at build time, keyed by bundled template name.
+     */
+    private final Map<String, CompiledTemplate> compiledTemplates;
+
+    /**
+     * External template directory, or null.
+     */
+    private final Path directory;
+
+    /**
+     * Compiled templates keyed by name.
+     */
+    private final Map<String, Versioned> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Names of the templates currently loaded from the external directory.
+     */
+    private final Set<String> overridden = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Source of template versions.
+     */
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * Templates reloaded.
+     */
+    private final Counter reloads;
+
+    /**
+     * Templates which failed to reload.
+     */
+    private final Counter reloadFailures;
+
+    /**
+     * TemplateModel renders by a compiled renderer.
+     */
+    private final Counter compiledRenders;
+
+    /**
+     * TemplateModel renders left to FreeMarker.
+     */
+    private final Counter interpretedRenders;
+
+    /**
+     * Released once the templates have been parsed and the external directory is watched.
+     */
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    /**
+     * Whether templates are parsed on a background thread.
+     */
+    private boolean backgroundWarmUp;
+
+    /**
+     * Watches the external directory.
+     */
+    private volatile WatchService watchService;
+
+    /**
+     * Thread re-parsing changed templates.
+     */
+    private Thread watcher;
+
+    /**
+     * Initializes an instance of <code>TemplateCache</code>.
+     *
+     * @param config FreeMarker Configuration
+     * @param externalDirectory external template directory, blank for bundled templates only
+     * @param meterRegistry MeterRegistry
+     */
+    public TemplateCache(final Configuration config,
+                         final String externalDirectory,
+                         final MeterRegistry meterRegistry) {
+        this(config, externalDirectory, CompiledTemplates.all(), meterRegistry);
+    }
+
+    /**
+     * Initializes an instance of <code>TemplateCache</code>.
+     *
+     * @param config FreeMarker Configuration
+     * @param externalDirectory external template directory, blank for bundled templates only
+     * @param compiled renderers compiled at build time, keyed by bundled template name
+     * @param meterRegistry MeterRegistry
+     */
+    public TemplateCache(final Configuration config,
+                         final String externalDirectory,
+                         final Map<String, CompiledTemplate> compiled,
+                         final MeterRegistry meterRegistry) {
+        freemarkerConfig = config;
+        compiledTemplates = compiled;
+        if (externalDirectory == null || externalDirectory.isBlank()) {
+            directory = null;
+        } else {
+            directory = Paths.get(externalDirectory);
+        }
+        reloads = meterRegistry.counter("slack.templates.reloads");
+        reloadFailures = meterRegistry.counter("slack.templates.reload.failures");
+        compiledRenders = meterRegistry.counter("slack.templates.renders", "mode", "compiled");
+        interpretedRenders = meterRegistry.counter("slack.templates.renders", "mode", "interpreted");
+    }
+
+    /**
+     * Parses the bundled and external templates and starts watching the external directory, on a background
+     * thread when background warm-up is on.
+     *
+     * @throws IOException when the templates cannot be read
+     */
+    public void start() throws IOException {
+        if (!backgroundWarmUp) {
+            load();
+            return;
+        }
+        final Thread warmUp = new Thread(() -> {
+            final long begin = System.nanoTime();
+            try {
+                load();
+                log.info("Warmed up {} templates in {}ms", templates.size(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+            } catch (IOException e) {
+                log.error("Unable to warm up templates: {}", e.getMessage());
+            }
+        }, "template-warmup");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    /**
+     * Parses templates on a background thread from {@link #start()} instead of before it returns.
+     *
+     * @param background whether templates are parsed on a background thread
+     */
+    public void setBackgroundWarmUp(final boolean background) {
+        backgroundWarmUp = background;
+    }
+
+    /**
+     * Parses the bundled and external templates and starts watching the external directory.
+     *
+     * @throws IOException when the templates cannot be read
+     */
+    private void load() throws IOException {
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(CLASSPATH_TEMPLATES)) {
+                installBundled(resource);
+            }
+            if (directory == null) {
+                return;
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+                for (Path file : files) {
+                    reload(file);
+                }
+            }
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watcher = new Thread(this::watch, "template-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+            log.info("Watching {} for template changes", directory);
+        } finally {
+            loaded.countDown();
+        }
+    }
+
+    /**
+     * Stops watching the external directory.
+     */
+    public void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("Unable to close template watcher: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Renders a template with the current version.
+     *
+     * @param name template name
+     * @param model template model
+     * @return RenderedTemplate
+     * @throws IOException when the template is unknown
+     * @throws TemplateException when rendering fails
+     */
+    public RenderedTemplate render(final String name, final Object model) throws IOException, TemplateException {
+        final Versioned current = current(name);
+        if (current == null) {
+            throw new IOException("Unknown template " + name);
+        }
+        final RenderEvent event = new RenderEvent();
+        event.begin();
+        final ReusableStringWriter buffer = BUFFERS.get();
+        buffer.reset();
+        current.getTemplate().process(model, buffer);
+        final String text = buffer.toString();
+        commit(event, name, false, text);
+        return new RenderedTemplate(name, current.getVersion(), text);
+    }
+
+    /**
+     * Renders a template with the current version, through its compiled renderer when it has one.
+     *
+     * @param name template name
+     * @param model TemplateModel
+     * @return RenderedTemplate
+     * @throws IOException when the template is unknown
+     * @throws TemplateException when rendering fails
+     */
+    public RenderedTemplate render(final String name, final TemplateModel model)
+            throws IOException, TemplateException {
+        final Versioned current = current(name);
+        if (current == null) {
+            throw new IOException("Unknown template " + name);
+        }
+        final RenderEvent event = new RenderEvent();
+        event.begin();
+        final ReusableStringWriter buffer = BUFFERS.get();
+        buffer.reset();
+        boolean compiled = false;
+        if (current.getCompiled() != null && current.getCompiled().render(model, buffer)) {
+            compiledRenders.increment();
+            compiled = true;
+        } else {
+            interpretedRenders.increment();
+            buffer.reset();
+            current.getTemplate().process(model.toMap(), buffer);
+        }
+        final String text = buffer.toString();
+        commit(event, name, compiled, text);
+        return new RenderedTemplate(name, current.getVersion(), text);
+    }
+
+    /**
+     * Commits a RenderEvent when it is being recorded. The size is only measured then.
+     *
+     * @param event RenderEvent begun before rendering
+     * @param name template name
+     * @param compiled whether the compiled renderer produced the text
+     * @param text rendered text
+     */
+    private static void commit(final RenderEvent event, final String name, final boolean compiled,
+                               final String text) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setTemplate(name);
+            event.setCompiled(compiled);
+            event.setBytes(text.getBytes(StandardCharsets.UTF_8).length);
+            event.commit();
+        }
+    }
+
+    /**
+     * Current version of a template.
+     *
+     * @param name template name
+     * @return version, or -1 when the template is unknown
+     */
+    public long getVersion(final String name) {
+        final Versioned current = current(name);
+        if (current == null) {
+            return -1L;
+        }
+        return current.getVersion();
+    }
+
+    /**
+     * Current version of a template, waiting for the background warm-up when it has not been parsed yet.
+     *
+     * @param name template name
+     * @return Versioned, or null when the template is unknown
+     */
+    private Versioned current(final String name) {
+        final Versioned current = templates.get(name);
+        if (current != null || loaded.getCount() == 0) {
+            return current;
+        }
+        try {
+            if (!loaded.await(WARM_UP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Template {} requested before warm-up finished", name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return templates.get(name);
+    }
+
+    /**
+     * Re-parses changed and reverts deleted templates until the watcher is closed. Events are collected until the
+     * directory has been quiet for a moment, so a file is parsed once its writer has finished rather than part way
+     * through.
+     */
+    private void watch() {
+        while (true) {
+            final Set<Path> changed = new LinkedHashSet<>();
+            try {
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    if (collect(key, changed)) {
+                        return;
+                    }
+                    key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (Path file : changed) {
+                reload(file);
+            }
+        }
+    }
+
+    /**
+     * Collects the templates changed by a watch key's events.
+     *
+     * @param key WatchKey
+     * @param changed changed template files
+     * @return true when the directory can no longer be watched
+     */
+    private boolean collect(final WatchKey key, final Set<Path> changed) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                rescan();
+            } else {
+                final Path file = directory.resolve((Path) event.context());
+                if (file.getFileName().toString().endsWith(EXTENSION)) {
+                    changed.add(file);
+                }
+            }
+        }
+        if (!key.reset()) {
+            log.warn("Template directory {} is no longer accessible; keeping current templates", directory);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Re-parses every external template and reverts the deleted ones after watch events were lost.
+     */
+    private void rescan() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                reload(file);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to rescan template directory {}: {}", directory, e.getMessage());
+        }
+        for (String name : overridden) {
+            final Path file = directory.resolve(name);
+            if (Files.notExists(file)) {
+                reload(file);
+            }
+        }
+    }
+
+    /**
+     * Parses an external template, keeping the previous version if it cannot be parsed. A template whose file
+     * was deleted is reverted instead.
+     *
+     * @param file template file
+     */
+    private void reload(final Path file) {
+        final String name = file.getFileName().toString();
+        if (Files.notExists(file)) {
+            revert(name);
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            final long version = install(name, reader, null);
+            overridden.add(name);
+            reloads.increment();
+            log.info("Loaded template {} version {} from {}", name, version, file);
+        } catch (IOException e) {
+            reloadFailures.increment();
+            log.error("Unable to load template {}; keeping version {}: {}", name, getVersion(name), e.getMessage());
+        }
+    }
+
+    /**
+     * Reverts a template whose external file was deleted to the bundled template of the same name, or forgets it
+     * when nothing is bundled under that name.
+     *
+     * @param name template name
+     */
+    private void revert(final String name) {
+        if (!overridden.remove(name)) {
+            return;
+        }
+        final Resource resource = new PathMatchingResourcePatternResolver().getResource(CLASSPATH_TEMPLATE + name);
+        if (!resource.exists()) {
+            templates.remove(name);
+            log.info("Removed template {}; its file was deleted", name);
+            return;
+        }
+        try {
+            final long version = installBundled(resource);
+            reloads.increment();
+            log.info("Reverted template {} to the bundled version {}; its override was deleted", name, version);
+        } catch (IOException e) {
+            reloadFailures.increment();
+            log.error("Unable to revert template {} to the bundled version; keeping version {}: {}",
+                    name, getVersion(name), e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a bundled template, with its compiled renderer, and makes it the current version.
+     *
+     * @param resource bundled template
+     * @return new version
+     * @throws IOException when the template cannot be read or parsed
+     */
+    private long installBundled(final Resource resource) throws IOException {
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            return install(resource.getFilename(), reader, compiledTemplates.get(resource.getFilename()));
+        }
+    }
+
+    /**
+     * Parses a template and makes it the current version.
+     *
+     * @param name template name
+     * @param reader template source
+     * @param compiled renderer compiled from the same source, or null
+     * @return new version
+     * @throws IOException when the template cannot be read or parsed
+     */
+    private long install(final String name, final Reader reader, final CompiledTemplate compiled)
+            throws IOException {
+        final Template template = new Template(name, reader, freemarkerConfig);
+        final long version = versions.incrementAndGet();
+        templates.put(name, new Versioned(template, compiled, version));
+        return version;
+    }
+
+    /**
+     * A parsed template, its compiled renderer and its version.
+     */
+    private static final class Versioned {
+
+        /**
+         * Compiled template.
+         */
+        private final Template template;
+
+        /**
+         * Renderer compiled at build time, or null.
+         */
+        private final CompiledTemplate compiled;
+
+        /**
+         * Version.
+         */
+        private final long version;
+
+        /**
+         * Initializes an instance of <code>Versioned</code>.
+         *
+         * @param parsed compiled template
+         * @param renderer renderer compiled at build time, or null
+         * @param templateVersion version
+         */
+        Versioned(final Template parsed, final CompiledTemplate renderer, final long templateVersion) {
+            template = parsed;
+            compiled = renderer;
+            version = templateVersion;
+        }
+
+        /**
+         * Renderer compiled at build time.
+         *
+         * @return CompiledTemplate, or null
+         */
+        CompiledTemplate getCompiled() {
+            return compiled;
+        }
+
+        /**
+         * Compiled template.
+         *
+         * @return Template
+         */
+        Template getTemplate() {
+            return template;
+        }
+
+        /**
+         * Version.
+         *
+         * @return version
+         */
+        long getVersion() {
+            return version;
+        }
+    }
+}
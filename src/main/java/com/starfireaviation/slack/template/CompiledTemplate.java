@@ -0,0 +1,37 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.template;
+
+import com.starfireaviation.slack.model.TemplateModel;
+import com.starfireaviation.slack.util.ReusableStringWriter;
+
+/**
+ * A bundled template compiled to Java at build time, rendering without FreeMarker.
+ */
+public interface CompiledTemplate {
+
+    /**
+     * Renders the template.
+     *
+     * @param model TemplateModel
+     * @param out buffer the text is appended to
+     * @return false, with nothing appended, when a value the template refers to is missing and FreeMarker should
+     *         render it instead
+     */
+    boolean render(TemplateModel model, ReusableStringWriter out);
+
+}
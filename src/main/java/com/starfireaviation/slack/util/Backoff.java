@@ -0,0 +1,62 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.util;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter.
+ */
+public class Backoff {
+
+    /**
+     * Delay before the first retry, in milliseconds.
+     */
+    private final long initialMillis;
+
+    /**
+     * Maximum delay between retries, in milliseconds.
+     */
+    private final long maxMillis;
+
+    /**
+     * Initializes an instance of <code>Backoff</code>.
+     *
+     * @param initial delay ceiling before the first retry
+     * @param max maximum delay ceiling
+     */
+    public Backoff(final Duration initial, final Duration max) {
+        initialMillis = Math.max(1L, initial.toMillis());
+        maxMillis = Math.max(initialMillis, max.toMillis());
+    }
+
+    /**
+     * Delay before a retry, chosen uniformly between zero and the exponentially growing ceiling.
+     *
+     * @param attempt number of attempts made so far, starting at 1
+     * @return delay in milliseconds
+     */
+    public long delayMillis(final int attempt) {
+        long ceiling = initialMillis;
+        for (int i = 1; i < attempt && ceiling < maxMillis; i++) {
+            ceiling *= 2;
+        }
+        return ThreadLocalRandom.current().nextLong(Math.min(ceiling, maxMillis) + 1);
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.util;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+/**
+ * CircuitBreaker which opens after consecutive failures, and after a cool-down lets a single probe call
+ * through to decide whether to close again.
+ */
+public class CircuitBreaker {
+
+    /**
+     * CircuitBreaker state.
+     */
+    public enum State {
+
+        /**
+         * Calls are permitted.
+         */
+        CLOSED,
+
+        /**
+         * Calls are rejected until the cool-down has passed.
+         */
+        OPEN,
+
+        /**
+         * A single probe call is permitted.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Consecutive failures which open the circuit.
+     */
+    private final int failureThreshold;
+
+    /**
+     * Time the circuit stays open before a probe is permitted, in nanoseconds.
+     */
+    private final long openNanos;
+
+    /**
+     * Notified of every state transition with the previous and new state.
+     */
+    private final BiConsumer<State, State> listener;
+
+    /**
+     * Current state.
+     */
+    private State state = State.CLOSED;
+
+    /**
+     * Consecutive failures.
+     */
+    private int failures;
+
+    /**
+     * Time the circuit opened, from System.nanoTime().
+     */
+    private long openedAt;
+
+    /**
+     * Whether the half-open probe is in flight.
+     */
+    private boolean probing;
+
+    /**
+     * Initializes an instance of <code>CircuitBreaker</code>.
+     *
+     * @param threshold consecutive failures which open the circuit
+     * @param openDuration time the circuit stays open before a probe is permitted
+     * @param transitionListener notified of every state transition
+     */
+    public CircuitBreaker(final int threshold,
+                          final Duration openDuration,
+                          final BiConsumer<State, State> transitionListener) {
+        failureThreshold = Math.max(1, threshold);
+        openNanos = openDuration.toNanos();
+        listener = transitionListener;
+    }
+
+    /**
+     * Whether a call may be made now. A permitted probe must be followed by {@link #onSuccess()},
+     * {@link #onFailure()} or {@link #cancel()}.
+     *
+     * @return true if the call is permitted
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probing) {
+            probing = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Releases a permitted call which was not made.
+     */
+    public synchronized void cancel() {
+        probing = false;
+    }
+
+    /**
+     * Records a successful call.
+     */
+    public synchronized void onSuccess() {
+        failures = 0;
+        if (state == State.HALF_OPEN) {
+            probing = false;
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * Records a failed call.
+     */
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || state == State.CLOSED && failures >= failureThreshold) {
+            probing = false;
+            openedAt = System.nanoTime();
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * Current state.
+     *
+     * @return State
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Changes state and notifies the listener.
+     *
+     * @param newState new state
+     */
+    private void transition(final State newState) {
+        final State previous = state;
+        state = newState;
+        listener.accept(previous, newState);
+    }
+
+}
@@ -0,0 +1,250 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.util;
+
+import com.starfireaviation.slack.model.HistoryEntry;
+import com.starfireaviation.slack.model.MessageType;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Reads sent-message history segments written by {@link HistorySegmentWriter}, either in order from the start
+ * or one record at a known offset. Not thread-safe.
+ */
+public class HistorySegmentReader implements Closeable {
+
+    /**
+     * Bits of a varint byte carrying the value.
+     */
+    private static final int VARINT_BITS = 7;
+
+    /**
+     * Varint byte bits carrying the value.
+     */
+    private static final int VARINT_MASK = 0x7F;
+
+    /**
+     * Varint byte bit marking that more bytes follow.
+     */
+    private static final int VARINT_MORE = 0x80;
+
+    /**
+     * Largest shift of a varint's last byte.
+     */
+    private static final int VARINT_MAX_SHIFT = 63;
+
+    /**
+     * Buffer size for reading a single record.
+     */
+    private static final int RECORD_BUFFER_SIZE = 512;
+
+    /**
+     * Input.
+     */
+    private final DataInputStream in;
+
+    /**
+     * Time the segment starts, or 0 when reading a single record.
+     */
+    private final long startEpochMillis;
+
+    /**
+     * Offset of the next record.
+     */
+    private long position;
+
+    /**
+     * Initializes an instance of <code>HistorySegmentReader</code> and reads the header.
+     *
+     * @param input stream the segment is read from
+     * @throws IOException when the header is missing or invalid
+     */
+    public HistorySegmentReader(final InputStream input) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(input));
+        if (in.readInt() != HistorySegmentWriter.MAGIC) {
+            throw new IOException("Not a history segment");
+        }
+        final int version = in.readUnsignedByte();
+        if (version != HistorySegmentWriter.VERSION) {
+            throw new IOException("Unsupported history segment version " + version);
+        }
+        startEpochMillis = in.readLong();
+        position = HistorySegmentWriter.HEADER_BYTES;
+    }
+
+    /**
+     * Initializes an instance of <code>HistorySegmentReader</code> positioned at a record.
+     *
+     * @param input stream positioned at a record
+     * @param offset offset of the record
+     */
+    private HistorySegmentReader(final InputStream input, final long offset) {
+        in = new DataInputStream(new BufferedInputStream(input, RECORD_BUFFER_SIZE));
+        startEpochMillis = 0L;
+        position = offset;
+    }
+
+    /**
+     * Reads the record at an offset of a segment.
+     *
+     * @param channel segment
+     * @param offset offset of the record, as returned by {@link HistorySegmentWriter#write}
+     * @return HistoryEntry, or null if the offset is past the end of the segment
+     * @throws IOException when the record is corrupt
+     */
+    public static HistoryEntry readAt(final FileChannel channel, final long offset) throws IOException {
+        channel.position(offset);
+        return new HistorySegmentReader(Channels.newInputStream(channel), offset).next();
+    }
+
+    /**
+     * Time the segment starts.
+     *
+     * @return epoch milliseconds
+     */
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    /**
+     * Offset of the next record.
+     *
+     * @return offset
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return HistoryEntry, or null at the end of the segment
+     * @throws IOException when the record is corrupt or truncated
+     */
+    public HistoryEntry next() throws IOException {
+        final int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        position++;
+        try {
+            final HistoryEntry entry = new HistoryEntry();
+            entry.setSentAt(Instant.ofEpochMilli(readVarint(first)));
+            entry.setLatencyMillis(readVarint(readByte()));
+            entry.setAttempt((int) readVarint(readByte()));
+            entry.setId(readString());
+            entry.setOrganization(readString());
+            entry.setRecipient(readString());
+            entry.setType(toType(readString()));
+            entry.setTemplateVersion(readString());
+            entry.setTs(readString());
+            entry.setOutcome(readString());
+            entry.setError(readString());
+            return entry;
+        } catch (EOFException e) {
+            throw new IOException("Truncated history segment", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Maps a type name back to its MessageType.
+     *
+     * @param name type name, or null
+     * @return MessageType, or null if unknown
+     */
+    private static MessageType toType(final String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return MessageType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads one byte.
+     *
+     * @return unsigned byte
+     * @throws IOException when it cannot be read
+     */
+    private int readByte() throws IOException {
+        final int value = in.readUnsignedByte();
+        position++;
+        return value;
+    }
+
+    /**
+     * Reads an optional string.
+     *
+     * @return string, or null
+     * @throws IOException when it cannot be read
+     */
+    private String readString() throws IOException {
+        final long length = readVarint(readByte());
+        if (length == 0L) {
+            return null;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[(int) length - 1];
+        in.readFully(bytes);
+        position += bytes.length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param first first byte, already read
+     * @return value
+     * @throws IOException when it cannot be read
+     */
+    private long readVarint(final int first) throws IOException {
+        long value = first & VARINT_MASK;
+        int current = first;
+        int shift = VARINT_BITS;
+        while ((current & VARINT_MORE) != 0) {
+            if (shift > VARINT_MAX_SHIFT) {
+                throw new IOException("Invalid varint");
+            }
+            current = readByte();
+            value |= (long) (current & VARINT_MASK) << shift;
+            shift += VARINT_BITS;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.util;
+
+import com.starfireaviation.slack.model.HistoryEntry;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes sent-message history segments. A segment is a header of {@link #MAGIC}, {@link #VERSION} and the
+ * segment's start time in epoch milliseconds, followed by one record per delivery attempt: the completion time
+ * in epoch milliseconds, the latency in milliseconds and the attempt number as varints, then the id,
+ * organization, recipient, type, template version, Slack timestamp, outcome and error as optional strings. An
+ * optional string is a varint of its UTF-8 length plus one, 0 standing for null, followed by its bytes. Records
+ * are self-contained, so one can be read from its offset alone. Not thread-safe.
+ */
+public class HistorySegmentWriter implements Closeable {
+
+    /**
+     * First bytes of a segment, "SLMH".
+     */
+    public static final int MAGIC = 0x534C4D48;
+
+    /**
+     * Format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Bytes in the header.
+     */
+    public static final int HEADER_BYTES = Integer.BYTES + 1 + Long.BYTES;
+
+    /**
+     * Bits of a varint byte carrying the value.
+     */
+    private static final int VARINT_BITS = 7;
+
+    /**
+     * Varint byte bits carrying the value.
+     */
+    private static final int VARINT_MASK = 0x7F;
+
+    /**
+     * Varint byte bit marking that more bytes follow.
+     */
+    private static final int VARINT_MORE = 0x80;
+
+    /**
+     * Output.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Segment size, including buffered bytes.
+     */
+    private long position;
+
+    /**
+     * Initializes an instance of <code>HistorySegmentWriter</code>. The header is written unless records are
+     * appended to an existing segment.
+     *
+     * @param output stream the segment is written to
+     * @param startEpochMillis time the segment starts
+     * @param existingSize size of the segment being appended to, or 0 for a new segment
+     * @throws IOException when the header cannot be written
+     */
+    public HistorySegmentWriter(final OutputStream output, final long startEpochMillis, final long existingSize)
+            throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(output));
+        position = existingSize;
+        if (existingSize == 0L) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(startEpochMillis);
+            position = HEADER_BYTES;
+        }
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param entry HistoryEntry
+     * @return offset of the record in the segment
+     * @throws IOException when the record cannot be written
+     */
+    public long write(final HistoryEntry entry) throws IOException {
+        final long offset = position;
+        long sentAt = 0L;
+        if (entry.getSentAt() != null) {
+            sentAt = entry.getSentAt().toEpochMilli();
+        }
+        writeVarint(Math.max(0L, sentAt));
+        writeVarint(Math.max(0L, entry.getLatencyMillis()));
+        writeVarint(Math.max(0, entry.getAttempt()));
+        writeString(entry.getId());
+        writeString(entry.getOrganization());
+        writeString(entry.getRecipient());
+        String type = null;
+        if (entry.getType() != null) {
+            type = entry.getType().name();
+        }
+        writeString(type);
+        writeString(entry.getTemplateVersion());
+        writeString(entry.getTs());
+        writeString(entry.getOutcome());
+        writeString(entry.getError());
+        return offset;
+    }
+
+    /**
+     * Segment size, including buffered bytes.
+     *
+     * @return bytes
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Writes buffered records through.
+     *
+     * @throws IOException when the records cannot be written
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Writes an optional string.
+     *
+     * @param text string, or null
+     * @throws IOException when it cannot be written
+     */
+    private void writeString(final String text) throws IOException {
+        if (text == null) {
+            writeVarint(0L);
+            return;
+        }
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1L);
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    /**
+     * Writes an unsigned varint, seven bits per byte, low bits first.
+     *
+     * @param value non-negative value
+     * @throws IOException when it cannot be written
+     */
+    private void writeVarint(final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~VARINT_MASK) != 0L) {
+            out.writeByte((int) (remaining & VARINT_MASK) | VARINT_MORE);
+            remaining >>>= VARINT_BITS;
+            position++;
+        }
+        out.writeByte((int) remaining);
+        position++;
+    }
+}
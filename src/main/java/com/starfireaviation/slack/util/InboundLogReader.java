@@ -0,0 +1,189 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.util;
+
+import com.starfireaviation.slack.model.RecordedMessage;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads recordings written by {@link InboundLogWriter}. Not thread-safe.
+ */
+public class InboundLogReader implements Closeable {
+
+    /**
+     * Bits of a varint byte carrying the value.
+     */
+    private static final int VARINT_BITS = 7;
+
+    /**
+     * Varint byte bits carrying the value.
+     */
+    private static final int VARINT_MASK = 0x7F;
+
+    /**
+     * Varint byte bit marking that more bytes follow.
+     */
+    private static final int VARINT_MORE = 0x80;
+
+    /**
+     * Longest varint of a long, in bits.
+     */
+    private static final int VARINT_MAX_SHIFT = 63;
+
+    /**
+     * Input.
+     */
+    private final DataInputStream in;
+
+    /**
+     * Time the recording started, in epoch milliseconds.
+     */
+    private final long startEpochMillis;
+
+    /**
+     * Organizations read so far, by reference.
+     */
+    private final List<String> organizations = new ArrayList<>();
+
+    /**
+     * Offset of the previous record.
+     */
+    private long offset;
+
+    /**
+     * Initializes an instance of <code>InboundLogReader</code> and reads the header.
+     *
+     * @param input stream the recording is read from
+     * @throws IOException when the input is not a recording
+     */
+    public InboundLogReader(final InputStream input) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(input));
+        if (in.readInt() != InboundLogWriter.MAGIC) {
+            throw new IOException("Not an inbound recording");
+        }
+        final int version = in.readUnsignedByte();
+        if (version != InboundLogWriter.VERSION) {
+            throw new IOException("Unsupported inbound recording version " + version);
+        }
+        startEpochMillis = in.readLong();
+    }
+
+    /**
+     * Time the recording started.
+     *
+     * @return epoch milliseconds
+     */
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    /**
+     * Reads the next message.
+     *
+     * @return RecordedMessage, or null at the end of the recording
+     * @throws IOException when the recording is corrupt
+     */
+    public RecordedMessage next() throws IOException {
+        final int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        try {
+            offset += readVarint(first);
+            final int reference = (int) readVarint(in.readUnsignedByte());
+            if (reference == organizations.size()) {
+                organizations.add(readString());
+            } else if (reference > organizations.size()) {
+                throw new IOException("Invalid organization reference " + reference);
+            }
+            return new RecordedMessage(offset, organizations.get(reference), readString(), readString());
+        } catch (EOFException e) {
+            throw new IOException("Truncated inbound recording", e);
+        }
+    }
+
+    /**
+     * Reads every remaining message.
+     *
+     * @return messages in recorded order
+     * @throws IOException when the recording is corrupt
+     */
+    public List<RecordedMessage> readAll() throws IOException {
+        final List<RecordedMessage> messages = new ArrayList<>();
+        RecordedMessage message = next();
+        while (message != null) {
+            messages.add(message);
+            message = next();
+        }
+        return messages;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads a varint length and that many UTF-8 bytes.
+     *
+     * @return string
+     * @throws IOException when it cannot be read
+     */
+    private String readString() throws IOException {
+        final long length = readVarint(in.readUnsignedByte());
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param first first byte, already read
+     * @return value
+     * @throws IOException when it cannot be read
+     */
+    private long readVarint(final int first) throws IOException {
+        long value = first & VARINT_MASK;
+        int current = first;
+        int shift = VARINT_BITS;
+        while ((current & VARINT_MORE) != 0) {
+            if (shift > VARINT_MAX_SHIFT) {
+                throw new IOException("Invalid varint");
+            }
+            current = in.readUnsignedByte();
+            value |= (long) (current & VARINT_MASK) << shift;
+            shift += VARINT_BITS;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.util;
+
+import com.starfireaviation.slack.model.RecordedMessage;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes inbound recordings. A recording is a header of {@link #MAGIC}, {@link #VERSION} and the start time in
+ * epoch milliseconds, followed by one record per message: the nanoseconds since the previous message as a
+ * varint, the organization as a varint reference into the organizations seen so far (a new one is written inline
+ * the first time), then the user and the text as varint-length UTF-8. Not thread-safe.
+ */
+public class InboundLogWriter implements Closeable {
+
+    /**
+     * First bytes of a recording, "SLIR".
+     */
+    public static final int MAGIC = 0x534C4952;
+
+    /**
+     * Format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Bits of a varint byte carrying the value.
+     */
+    private static final int VARINT_BITS = 7;
+
+    /**
+     * Varint byte bits carrying the value.
+     */
+    private static final int VARINT_MASK = 0x7F;
+
+    /**
+     * Varint byte bit marking that more bytes follow.
+     */
+    private static final int VARINT_MORE = 0x80;
+
+    /**
+     * Bytes in the header.
+     */
+    private static final int HEADER_BYTES = Integer.BYTES + 1 + Long.BYTES;
+
+    /**
+     * Output.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * References of the organizations written so far.
+     */
+    private final Map<String, Integer> organizations = new HashMap<>();
+
+    /**
+     * Offset of the previous record.
+     */
+    private long previousOffset;
+
+    /**
+     * Bytes written.
+     */
+    private long bytesWritten;
+
+    /**
+     * Initializes an instance of <code>InboundLogWriter</code> and writes the header.
+     *
+     * @param output stream the recording is written to
+     * @param startEpochMillis time the recording started
+     * @throws IOException when the header cannot be written
+     */
+    public InboundLogWriter(final OutputStream output, final long startEpochMillis) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(output));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(startEpochMillis);
+        bytesWritten = HEADER_BYTES;
+    }
+
+    /**
+     * Appends a message. Messages must be written in order of their offsets.
+     *
+     * @param message RecordedMessage
+     * @throws IOException when the message cannot be written
+     */
+    public void write(final RecordedMessage message) throws IOException {
+        writeVarint(Math.max(0L, message.getOffsetNanos() - previousOffset));
+        previousOffset = Math.max(previousOffset, message.getOffsetNanos());
+        final Integer reference = organizations.get(message.getOrganization());
+        if (reference == null) {
+            writeVarint(organizations.size());
+            organizations.put(message.getOrganization(), organizations.size());
+            writeString(message.getOrganization());
+        } else {
+            writeVarint(reference);
+        }
+        writeString(message.getUser());
+        writeString(message.getText());
+    }
+
+    /**
+     * Bytes written so far, including buffered ones.
+     *
+     * @return bytes
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Writes buffered records through.
+     *
+     * @throws IOException when the records cannot be written
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Writes a string as a varint length and UTF-8 bytes; null is written as the empty string.
+     *
+     * @param text string
+     * @throws IOException when it cannot be written
+     */
+    private void writeString(final String text) throws IOException {
+        byte[] bytes = new byte[0];
+        if (text != null) {
+            bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+        writeVarint(bytes.length);
+        out.write(bytes);
+        bytesWritten += bytes.length;
+    }
+
+    /**
+     * Writes an unsigned varint, seven bits per byte, low bits first.
+     *
+     * @param value non-negative value
+     * @throws IOException when it cannot be written
+     */
+    private void writeVarint(final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~VARINT_MASK) != 0L) {
+            out.writeByte((int) (remaining & VARINT_MASK) | VARINT_MORE);
+            remaining >>>= VARINT_BITS;
+            bytesWritten++;
+        }
+        out.writeByte((int) remaining);
+        bytesWritten++;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of primitive longs. Zero is stored out of band, so no boxing or per-entry objects
+ * are needed. Not thread-safe.
+ */
+public class LongHashSet {
+
+    /**
+     * Initial table size, a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Golden ratio multiplier used to spread keys.
+     */
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Table of keys, zero marking a free slot.
+     */
+    private long[] keys;
+
+    /**
+     * Number of non-zero keys.
+     */
+    private int size;
+
+    /**
+     * Whether zero is in the set.
+     */
+    private boolean containsZero;
+
+    /**
+     * Initializes an empty instance of <code>LongHashSet</code>.
+     */
+    public LongHashSet() {
+        keys = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Initializes an instance of <code>LongHashSet</code> holding the same values as another.
+     *
+     * @param other set to copy
+     */
+    public LongHashSet(final LongHashSet other) {
+        keys = Arrays.copyOf(other.keys, other.keys.length);
+        size = other.size;
+        containsZero = other.containsZero;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value value
+     * @return true if the value was not already present
+     */
+    public boolean add(final long value) {
+        if (value == 0L) {
+            final boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+        // Keep the load factor at or below one half
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        if (!insert(keys, value)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Whether a value is present.
+     *
+     * @param value value
+     * @return true if present
+     */
+    public boolean contains(final long value) {
+        if (value == 0L) {
+            return containsZero;
+        }
+        final int mask = keys.length - 1;
+        int slot = slot(value, mask);
+        while (keys[slot] != 0L) {
+            if (keys[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Number of values.
+     *
+     * @return size
+     */
+    public int size() {
+        if (containsZero) {
+            return size + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Doubles the table.
+     */
+    private void resize() {
+        final long[] grown = new long[keys.length * 2];
+        for (long key : keys) {
+            if (key != 0L) {
+                insert(grown, key);
+            }
+        }
+        keys = grown;
+    }
+
+    /**
+     * Inserts a non-zero value with linear probing.
+     *
+     * @param table table
+     * @param value value
+     * @return true if inserted, false if already present
+     */
+    private static boolean insert(final long[] table, final long value) {
+        final int mask = table.length - 1;
+        int slot = slot(value, mask);
+        while (table[slot] != 0L) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        return true;
+    }
+
+    /**
+     * Home slot of a value.
+     *
+     * @param value value
+     * @param mask table length minus one
+     * @return slot
+     */
+    private static int slot(final long value, final int mask) {
+        return (int) ((value * SPREAD) >>> Integer.SIZE) & mask;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable String to String map packed into primitive arrays: every key and value is stored as UTF-8 in one
+ * shared byte array, and two open addressing tables of entry numbers index it by key and by value. Compared with
+ * a HashMap and its reverse, this drops the entry, String and byte array objects held per mapping, which is most
+ * of the footprint for short strings such as Slack user names and IDs. Lookups encode the query and create the
+ * String returned, so they allocate; the table itself never changes after construction.
+ */
+public class PackedStringTable {
+
+    /**
+     * Marks a free slot.
+     */
+    private static final int FREE = -1;
+
+    /**
+     * Golden ratio multiplier used to spread hash codes.
+     */
+    private static final int SPREAD = 0x9E3779B9;
+
+    /**
+     * Shift folding the high bits of a spread hash code into the low bits used as the slot.
+     */
+    private static final int FOLD = 16;
+
+    /**
+     * Keys and values, UTF-8 encoded back to back.
+     */
+    private final byte[] data;
+
+    /**
+     * Offsets into data: entry i's key runs from bounds[2i] to bounds[2i + 1], its value to bounds[2i + 2].
+     */
+    private final int[] bounds;
+
+    /**
+     * Entry numbers indexed by key hash.
+     */
+    private final int[] byKey;
+
+    /**
+     * Entry numbers indexed by value hash.
+     */
+    private final int[] byValue;
+
+    /**
+     * Number of entries.
+     */
+    private final int size;
+
+    /**
+     * Initializes an instance of <code>PackedStringTable</code>.
+     *
+     * @param entries values keyed by key, neither null
+     */
+    public PackedStringTable(final Map<String, String> entries) {
+        size = entries.size();
+        bounds = new int[size * 2 + 1];
+        final byte[][] encoded = new byte[size * 2][];
+        int length = 0;
+        int index = 0;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            encoded[index] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            encoded[index + 1] = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            length += encoded[index].length + encoded[index + 1].length;
+            index += 2;
+        }
+        data = new byte[length];
+        int offset = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            bounds[i] = offset;
+            System.arraycopy(encoded[i], 0, data, offset, encoded[i].length);
+            offset += encoded[i].length;
+        }
+        bounds[encoded.length] = offset;
+        final int capacity = Integer.highestOneBit(Math.max(1, size) * 2 - 1) * 2;
+        byKey = new int[capacity];
+        byValue = new int[capacity];
+        Arrays.fill(byKey, FREE);
+        Arrays.fill(byValue, FREE);
+        index = 0;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            insert(byKey, entry.getKey().hashCode(), index);
+            insert(byValue, entry.getValue().hashCode(), index);
+            index++;
+        }
+    }
+
+    /**
+     * Finds the value of a key.
+     *
+     * @param key key
+     * @return value, or null if absent
+     */
+    public String get(final String key) {
+        final int entry = find(byKey, key, 0);
+        if (entry == FREE) {
+            return null;
+        }
+        return decode(entry * 2 + 1);
+    }
+
+    /**
+     * Finds the key of a value.
+     *
+     * @param value value
+     * @return key, or null if absent
+     */
+    public String getKey(final String value) {
+        final int entry = find(byValue, value, 1);
+        if (entry == FREE) {
+            return null;
+        }
+        return decode(entry * 2);
+    }
+
+    /**
+     * Whether a key is present.
+     *
+     * @param key key
+     * @return true if present
+     */
+    public boolean containsKey(final String key) {
+        return find(byKey, key, 0) != FREE;
+    }
+
+    /**
+     * Number of entries.
+     *
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes every key and value to an action.
+     *
+     * @param action action
+     */
+    public void forEach(final BiConsumer<String, String> action) {
+        for (int entry = 0; entry < size; entry++) {
+            action.accept(decode(entry * 2), decode(entry * 2 + 1));
+        }
+    }
+
+    /**
+     * Bytes held by the arrays, excluding object headers.
+     *
+     * @return bytes
+     */
+    public long getDataBytes() {
+        return data.length + (long) Integer.BYTES * (bounds.length + byKey.length + byValue.length);
+    }
+
+    /**
+     * Finds the entry whose key or value equals a string.
+     *
+     * @param table byKey or byValue
+     * @param text string
+     * @param part 0 to compare keys, 1 to compare values
+     * @return entry number, or FREE
+     */
+    private int find(final int[] table, final String text, final int part) {
+        if (text == null) {
+            return FREE;
+        }
+        final byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+        final int mask = table.length - 1;
+        int slot = slot(text.hashCode(), mask);
+        while (table[slot] != FREE) {
+            final int from = bounds[table[slot] * 2 + part];
+            final int to = bounds[table[slot] * 2 + part + 1];
+            if (Arrays.equals(data, from, to, encoded, 0, encoded.length)) {
+                return table[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return FREE;
+    }
+
+    /**
+     * Decodes a key or value.
+     *
+     * @param part 2i for entry i's key, 2i + 1 for its value
+     * @return string
+     */
+    private String decode(final int part) {
+        return new String(data, bounds[part], bounds[part + 1] - bounds[part], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds an entry number to a table, keeping the first entry when a value repeats.
+     *
+     * @param table byKey or byValue
+     * @param hash hash code of the key or value
+     * @param entry entry number
+     */
+    private static void insert(final int[] table, final int hash, final int entry) {
+        final int mask = table.length - 1;
+        int slot = slot(hash, mask);
+        while (table[slot] != FREE) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry;
+    }
+
+    /**
+     * Home slot of a hash code.
+     *
+     * @param hash hash code
+     * @param mask table length minus one
+     * @return slot
+     */
+    private static int slot(final int hash, final int mask) {
+        final int spread = hash * SPREAD;
+        return (spread ^ (spread >>> FOLD)) & mask;
+    }
+}
@@ -17,6 +17,7 @@
 package com.starfireaviation.slack.util;
 
 import com.starfireaviation.model.ResponseOption;
+import com.starfireaviation.slack.jfr.ParseEvent;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -73,6 +74,8 @@ public class ResponseParser {
      * @return SMSResponseOption
      */
     public static ResponseOption determineResponse(final String message) {
+        final ParseEvent event = new ParseEvent();
+        event.begin();
         ResponseOption responseOption = ResponseOption.UNKNOWN;
         if (isStopResponse(message)) {
             responseOption = ResponseOption.STOP;
@@ -91,6 +94,12 @@ public class ResponseParser {
         } else if (isDResponse(message)) {
             responseOption = ResponseOption.D;
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.setOutcome(responseOption.name());
+            event.setLength(message.length());
+            event.commit();
+        }
         return responseOption;
     }
 
@@ -0,0 +1,140 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.util;
+
+import java.io.Writer;
+
+/**
+ * Unsynchronized writer over a StringBuilder which is kept between uses, so repeated renders on a thread reuse
+ * the same backing array instead of growing a new one each time. Not thread-safe; intended to be held per thread.
+ */
+public class ReusableStringWriter extends Writer {
+
+    /**
+     * Buffer.
+     */
+    private StringBuilder buffer;
+
+    /**
+     * Initial buffer capacity in chars.
+     */
+    private final int initialCapacity;
+
+    /**
+     * Largest capacity kept between uses; a larger buffer is released so one huge render does not pin memory.
+     */
+    private final int maxRetainedCapacity;
+
+    /**
+     * Initializes an instance of <code>ReusableStringWriter</code>.
+     *
+     * @param capacity initial capacity in chars
+     * @param maxRetained largest capacity kept between uses
+     */
+    public ReusableStringWriter(final int capacity, final int maxRetained) {
+        initialCapacity = capacity;
+        maxRetainedCapacity = maxRetained;
+        buffer = new StringBuilder(capacity);
+    }
+
+    /**
+     * Empties the writer for the next use.
+     */
+    public void reset() {
+        if (buffer.capacity() > maxRetainedCapacity) {
+            buffer = new StringBuilder(initialCapacity);
+        } else {
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final int c) {
+        buffer.append((char) c);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) {
+        buffer.append(cbuf, off, len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final String str) {
+        buffer.append(str);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final String str, final int off, final int len) {
+        buffer.append(str, off, off + len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Writer append(final CharSequence csq) {
+        buffer.append(csq);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() {
+        // Nothing to flush
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        // Kept open for reuse
+    }
+
+    /**
+     * Number of chars written since the last reset.
+     *
+     * @return length
+     */
+    public int length() {
+        return buffer.length();
+    }
+
+    /**
+     * Text written since the last reset.
+     *
+     * @return text
+     */
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tail-based sampling: ended spans are held per trace until the trace has been quiet for the decision wait, then
+ * the whole trace is exported if any span failed or it took at least the slow threshold, and otherwise only at
+ * the baseline rate. Spans arriving after their trace was decided, such as a send completing after a long queue
+ * wait, follow a decision to keep it; others are held and decided again. Traces beyond the pending limit are
+ * dropped rather than buffered.
+ */
+@Slf4j
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    /**
+     * Decision metric name.
+     */
+    private static final String DECISIONS = "slack.tracing.traces";
+
+    /**
+     * Interval between decisions on pending traces.
+     */
+    private static final long SWEEP_INTERVAL_MS = 1000L;
+
+    /**
+     * Exporter kept traces are handed to.
+     */
+    private final SpanExporter exporter;
+
+    /**
+     * Duration from which a trace is kept.
+     */
+    private final long slowNanos;
+
+    /**
+     * Share of other traces kept.
+     */
+    private final double baselineRate;
+
+    /**
+     * Time a trace must be quiet before it is decided.
+     */
+    private final long decisionWaitNanos;
+
+    /**
+     * Number of traces held at once.
+     */
+    private final int maxTraces;
+
+    /**
+     * Traces waiting for a decision, keyed by trace ID.
+     */
+    private final Map<String, PendingTrace> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Recent decisions, keyed by trace ID, guarded by itself.
+     */
+    private final Map<String, Boolean> decided;
+
+    /**
+     * Traces kept because a span failed.
+     */
+    private final Counter keptError;
+
+    /**
+     * Traces kept because they were slow.
+     */
+    private final Counter keptSlow;
+
+    /**
+     * Traces kept at the baseline rate.
+     */
+    private final Counter keptBaseline;
+
+    /**
+     * Traces dropped.
+     */
+    private final Counter dropped;
+
+    /**
+     * Traces dropped because too many were pending.
+     */
+    private final Counter overflow;
+
+    /**
+     * Decides pending traces.
+     */
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Initializes an instance of <code>TailSamplingSpanProcessor</code>.
+     *
+     * @param spanExporter exporter kept traces are handed to
+     * @param slowThreshold duration from which a trace is kept
+     * @param baseline share of other traces kept, from 0 to 1
+     * @param decisionWait time a trace must be quiet before it is decided
+     * @param pendingLimit number of traces held at once
+     * @param meterRegistry MeterRegistry
+     */
+    public TailSamplingSpanProcessor(final SpanExporter spanExporter,
+                                     final Duration slowThreshold,
+                                     final double baseline,
+                                     final Duration decisionWait,
+                                     final int pendingLimit,
+                                     final MeterRegistry meterRegistry) {
+        exporter = spanExporter;
+        slowNanos = slowThreshold.toNanos();
+        baselineRate = baseline;
+        decisionWaitNanos = decisionWait.toNanos();
+        maxTraces = Math.max(1, pendingLimit);
+        decided = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+                return size() > maxTraces;
+            }
+        };
+        keptError = meterRegistry.counter(DECISIONS, "decision", "kept_error");
+        keptSlow = meterRegistry.counter(DECISIONS, "decision", "kept_slow");
+        keptBaseline = meterRegistry.counter(DECISIONS, "decision", "kept_baseline");
+        dropped = meterRegistry.counter(DECISIONS, "decision", "dropped");
+        overflow = meterRegistry.counter(DECISIONS, "decision", "overflow");
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "trace-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> decide(false), SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onStart(final Context parentContext, final ReadWriteSpan span) {
+        // Spans are only looked at once ended
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEnd(final ReadableSpan span) {
+        final String traceId = span.getSpanContext().getTraceId();
+        final SpanData data = span.toSpanData();
+        boolean keep;
+        synchronized (decided) {
+            keep = Boolean.TRUE.equals(decided.get(traceId));
+        }
+        if (keep) {
+            exporter.export(List.of(data));
+            return;
+        }
+        PendingTrace trace = pending.get(traceId);
+        if (trace == null) {
+            if (pending.size() >= maxTraces) {
+                overflow.increment();
+                return;
+            }
+            trace = pending.computeIfAbsent(traceId, id -> new PendingTrace());
+        }
+        trace.add(data);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    /**
+     * Decides every pending trace now, then flushes the exporter.
+     *
+     * @return CompletableResultCode
+     */
+    @Override
+    public CompletableResultCode forceFlush() {
+        decide(true);
+        return exporter.flush();
+    }
+
+    /**
+     * Decides every pending trace, then shuts the exporter down.
+     *
+     * @return CompletableResultCode
+     */
+    @Override
+    public CompletableResultCode shutdown() {
+        sweeper.shutdownNow();
+        decide(true);
+        return exporter.shutdown();
+    }
+
+    /**
+     * Decides pending traces and exports those kept.
+     *
+     * @param all whether traces still within their decision wait are decided too
+     */
+    private void decide(final boolean all) {
+        final long now = System.nanoTime();
+        final List<SpanData> export = new ArrayList<>();
+        final Iterator<Map.Entry<String, PendingTrace>> entries = pending.entrySet().iterator();
+        while (entries.hasNext()) {
+            final Map.Entry<String, PendingTrace> entry = entries.next();
+            if (!all && now - entry.getValue().getLastEnded() < decisionWaitNanos) {
+                continue;
+            }
+            entries.remove();
+            final List<SpanData> spans = entry.getValue().drain();
+            final boolean keep = keep(spans);
+            synchronized (decided) {
+                decided.put(entry.getKey(), keep);
+            }
+            if (keep) {
+                export.addAll(spans);
+            }
+        }
+        if (!export.isEmpty()) {
+            try {
+                exporter.export(export);
+            } catch (RuntimeException e) {
+                log.warn("Unable to export {} spans: {}", export.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Whether a trace is kept, counting the decision.
+     *
+     * @param spans ended spans of the trace
+     * @return true if the trace is exported
+     */
+    private boolean keep(final List<SpanData> spans) {
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        for (SpanData span : spans) {
+            if (span.getStatus().getStatusCode() == StatusCode.ERROR) {
+                keptError.increment();
+                return true;
+            }
+            start = Math.min(start, span.getStartEpochNanos());
+            end = Math.max(end, span.getEndEpochNanos());
+        }
+        if (end - start >= slowNanos) {
+            keptSlow.increment();
+            return true;
+        }
+        if (ThreadLocalRandom.current().nextDouble() < baselineRate) {
+            keptBaseline.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    /**
+     * Ended spans of a trace waiting for a decision.
+     */
+    private static final class PendingTrace {
+
+        /**
+         * Ended spans, guarded by this.
+         */
+        private final List<SpanData> spans = new ArrayList<>();
+
+        /**
+         * Time the last span was added, from System.nanoTime().
+         */
+        private volatile long lastEnded = System.nanoTime();
+
+        /**
+         * Adds an ended span.
+         *
+         * @param span SpanData
+         */
+        synchronized void add(final SpanData span) {
+            spans.add(span);
+            lastEnded = System.nanoTime();
+        }
+
+        /**
+         * Takes the ended spans.
+         *
+         * @return spans
+         */
+        synchronized List<SpanData> drain() {
+            return new ArrayList<>(spans);
+        }
+
+        /**
+         * Time the last span was added.
+         *
+         * @return System.nanoTime() of the last span
+         */
+        long getLastEnded() {
+            return lastEnded;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.starfireaviation.slack.util;
 
 import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.TemplateModel;
 import com.starfireaviation.model.Address;
 import com.starfireaviation.model.Answer;
 import com.starfireaviation.model.Event;
@@ -29,7 +30,6 @@ import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -54,6 +54,11 @@ public class TemplateUtil {
      */
     private static final SimpleDateFormat DAY_OF_WEEK = new SimpleDateFormat("EEEE");
 
+    /**
+     * Number of answers with their own TemplateModel fields.
+     */
+    private static final int THIRD_ANSWER = 3;
+
     /**
      * Builds model for use in templates.
      *
@@ -68,10 +73,27 @@ public class TemplateUtil {
             final Event event,
             final Question question,
             final ApplicationProperties applicationProperties) {
-        Map<String, Object> model = new HashMap<>();
+        return getTemplateModel(user, event, question, applicationProperties).toMap();
+    }
+
+    /**
+     * Builds typed model for use in templates.
+     *
+     * @param user                  User
+     * @param event                 Event
+     * @param question              Question
+     * @param applicationProperties ApplicationProperties
+     * @return TemplateModel
+     */
+    public static TemplateModel getTemplateModel(
+            final User user,
+            final Event event,
+            final Question question,
+            final ApplicationProperties applicationProperties) {
+        TemplateModel model = new TemplateModel();
         // TODO property file this value
-        model.put("groundSchoolLink", "https://groundschool.starfireaviation.com");
-        model.put("groundSchoolPasswordResetLink", "");
+        model.setGroundSchoolLink("https://groundschool.starfireaviation.com");
+        model.setGroundSchoolPasswordResetLink("");
         buildUserModel(user, model);
         buildEventModel(event, model);
         buildQuestionModel(question, model);
@@ -82,41 +104,63 @@ public class TemplateUtil {
      * Builds Question portions of model for use in templates.
      *
      * @param question Question
-     * @param model    Map
+     * @param model    TemplateModel
      */
-    private static void buildQuestionModel(final Question question, final Map<String, Object> model) {
+    private static void buildQuestionModel(final Question question, final TemplateModel model) {
         if (question != null) {
-            model.put("questionUnit", question.getUnit());
-            model.put("questionSubUnit", question.getSubUnit());
-            model.put("questionLearningStatementCode", question.getLearningStatementCode());
-            model.put("questionText", question.getText());
-            model.put("callbackId", "question");
+            model.setQuestionUnit(question.getUnit());
+            model.setQuestionSubUnit(question.getSubUnit());
+            model.setQuestionLearningStatementCode(question.getLearningStatementCode());
+            model.setQuestionText(question.getText());
+            model.setCallbackId("question");
             final List<ReferenceMaterial> referenceMaterials = question.getReferenceMaterials();
             if (referenceMaterials != null && referenceMaterials.size() > 0) {
                 StringBuilder sb = new StringBuilder("Reference Material: ");
                 for (ReferenceMaterial referenceMaterial : referenceMaterials) {
                     sb.append("<").append(referenceMaterial.getResourceLocation()).append(">\n");
                 }
-                model.put("referenceMaterial", sb.toString());
+                model.setReferenceMaterial(sb.toString());
             }
             int count = 1;
             if (question.getAnswers() != null) {
                 for (Answer answer : question.getAnswers()) {
-                    model.put("answerChoice" + count, answer.getChoice());
-                    model.put("answerText" + count, answer.getText());
+                    buildAnswerModel(answer, count, model);
                     count++;
                 }
             }
         }
     }
 
+    /**
+     * Builds an Answer portion of model for use in templates.
+     *
+     * @param answer Answer
+     * @param count  position of the answer, from 1
+     * @param model  TemplateModel
+     */
+    private static void buildAnswerModel(final Answer answer, final int count, final TemplateModel model) {
+        if (count == 1) {
+            model.setAnswerChoice1(answer.getChoice());
+            model.setAnswerText1(answer.getText());
+        } else if (count == 2) {
+            model.setAnswerChoice2(answer.getChoice());
+            model.setAnswerText2(answer.getText());
+        } else if (count == THIRD_ANSWER) {
+            model.setAnswerChoice3(answer.getChoice());
+            model.setAnswerText3(answer.getText());
+        } else {
+            model.putExtra("answerChoice" + count, answer.getChoice());
+            model.putExtra("answerText" + count, answer.getText());
+        }
+    }
+
     /**
      * Builds Event portions of model for use in templates.
      *
      * @param event Event
-     * @param model Map
+     * @param model TemplateModel
      */
-    private static void buildEventModel(final Event event, final Map<String, Object> model) {
+    private static void buildEventModel(final Event event, final TemplateModel model) {
         if (event != null) {
             StringBuilder sb = new StringBuilder();
             sb.append(event.getTitle());
@@ -144,18 +188,17 @@ public class TemplateUtil {
                 sb.append(" ");
                 sb.append(address.getZipCode());
             }
-            model.put("event", sb.toString());
-            model.put("eventtitle", event.getTitle());
-            model.put(
-                    "dayofweek",
+            model.setEvent(sb.toString());
+            model.setEventtitle(event.getTitle());
+            model.setDayofweek(
                     DAY_OF_WEEK.format(
                             Date.from(
                                     event.getStartTime().toInstant(
                                             OffsetDateTime.now(ZoneId.of("America/New_York")).getOffset()))));
         } else {
-            model.put("event", "");
-            model.put("eventtitle", "");
-            model.put("dayofweek", "");
+            model.setEvent("");
+            model.setEventtitle("");
+            model.setDayofweek("");
         }
     }
 
@@ -163,21 +206,21 @@ public class TemplateUtil {
      * Builds User portions of model for use in templates.
      *
      * @param user  User
-     * @param model Map
+     * @param model TemplateModel
      */
-    private static void buildUserModel(final User user, final Map<String, Object> model) {
+    private static void buildUserModel(final User user, final TemplateModel model) {
         if (user != null) {
-            model.put("firstName", user.getFirstName());
-            model.put("lastName", user.getLastName());
-            model.put("userId", user.getId());
-            model.put("code", user.getCode());
-            model.put("certificateNumber", user.getCertificateNumber());
+            model.setFirstName(user.getFirstName());
+            model.setLastName(user.getLastName());
+            model.setUserId(user.getId());
+            model.setCode(user.getCode());
+            model.setCertificateNumber(user.getCertificateNumber());
         } else {
-            model.put("firstName", "");
-            model.put("lastName", "");
-            model.put("userId", "");
-            model.put("code", "");
-            model.put("certificateNumber", "");
+            model.setFirstName("");
+            model.setLastName("");
+            model.putExtra("userId", "");
+            model.setCode("");
+            model.setCertificateNumber("");
         }
     }
 
@@ -0,0 +1,110 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenBucket rate limiter.
+ */
+public class TokenBucket {
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Maximum number of tokens.
+     */
+    private final double capacity;
+
+    /**
+     * Tokens added per nanosecond.
+     */
+    private final double tokensPerNano;
+
+    /**
+     * Tokens currently available.
+     */
+    private double tokens;
+
+    /**
+     * Last refill, from System.nanoTime().
+     */
+    private long lastRefill;
+
+    /**
+     * Initializes an instance of <code>TokenBucket</code>, initially full.
+     *
+     * @param perSecond tokens added per second
+     * @param burst maximum number of tokens
+     */
+    public TokenBucket(final double perSecond, final int burst) {
+        capacity = Math.max(1, burst);
+        tokensPerNano = perSecond / NANOS_PER_SECOND;
+        tokens = capacity;
+        lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return true if a token was taken
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(0);
+    }
+
+    /**
+     * Takes a token if one is available without dipping into a reserve.
+     *
+     * @param reserve number of tokens which must remain available to callers without a reserve
+     * @return true if a token was taken
+     */
+    public synchronized boolean tryAcquire(final int reserve) {
+        refill();
+        if (tokens >= 1 + reserve) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Time until a token will be available.
+     *
+     * @return nanoseconds until a token is available, 0 if one is available now
+     */
+    public synchronized long nanosUntilAvailable() {
+        refill();
+        if (tokens >= 1 || tokensPerNano <= 0) {
+            return 0L;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Adds tokens accrued since the last refill.
+     */
+    private void refill() {
+        final long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.util;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+
+import java.util.Collections;
+
+/**
+ * Tracing attribute keys and helpers for carrying a trace across the outbound queue.
+ */
+public final class TracingUtil {
+
+    /**
+     * Instrumentation name tracers are created with.
+     */
+    public static final String INSTRUMENTATION = "com.starfireaviation.slack";
+
+    /**
+     * W3C trace context header.
+     */
+    public static final String TRACEPARENT = "traceparent";
+
+    /**
+     * Organization attribute.
+     */
+    public static final AttributeKey<String> ORGANIZATION = AttributeKey.stringKey("slack.organization");
+
+    /**
+     * Message type attribute.
+     */
+    public static final AttributeKey<String> MESSAGE_TYPE = AttributeKey.stringKey("slack.message_type");
+
+    /**
+     * Template name attribute.
+     */
+    public static final AttributeKey<String> TEMPLATE = AttributeKey.stringKey("slack.template");
+
+    /**
+     * Looked up entity attribute.
+     */
+    public static final AttributeKey<String> ENTITY = AttributeKey.stringKey("slack.entity");
+
+    /**
+     * Priority lane attribute.
+     */
+    public static final AttributeKey<String> LANE = AttributeKey.stringKey("slack.lane");
+
+    /**
+     * Delivery attempt attribute.
+     */
+    public static final AttributeKey<Long> ATTEMPT = AttributeKey.longKey("slack.attempt");
+
+    /**
+     * Outcome attribute.
+     */
+    public static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("slack.outcome");
+
+    /**
+     * Slack message timestamp attribute.
+     */
+    public static final AttributeKey<String> TS = AttributeKey.stringKey("slack.ts");
+
+    /**
+     * Reads the traceparent from a single header value.
+     */
+    private static final TextMapGetter<String> TRACEPARENT_GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(final String carrier) {
+            return Collections.singleton(TRACEPARENT);
+        }
+
+        @Override
+        public String get(final String carrier, final String key) {
+            if (carrier != null && TRACEPARENT.equals(key)) {
+                return carrier;
+            }
+            return null;
+        }
+    };
+
+    /**
+     * Utility class.
+     */
+    private TracingUtil() {
+    }
+
+    /**
+     * W3C traceparent of the current span, to be carried with a message across a queue.
+     *
+     * @return traceparent, or null when there is no valid current span
+     */
+    public static String currentTraceParent() {
+        final String[] traceParent = new String[1];
+        W3CTraceContextPropagator.getInstance().inject(Context.current(), traceParent,
+                (carrier, key, value) -> {
+                    if (TRACEPARENT.equals(key)) {
+                        carrier[0] = value;
+                    }
+                });
+        return traceParent[0];
+    }
+
+    /**
+     * Context whose parent is the span a traceparent was taken from.
+     *
+     * @param traceParent traceparent, or null
+     * @return Context, the root context when there is no traceparent
+     */
+    public static Context fromTraceParent(final String traceParent) {
+        if (traceParent == null) {
+            return Context.root();
+        }
+        return W3CTraceContextPropagator.getInstance().extract(Context.root(), traceParent, TRACEPARENT_GETTER);
+    }
+
+    /**
+     * Marks a span failed.
+     *
+     * @param span Span
+     * @param error failure
+     */
+    public static void recordFailure(final Span span, final Throwable error) {
+        span.recordException(error);
+        span.setStatus(StatusCode.ERROR, String.valueOf(error.getMessage()));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.validation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Lets a request through to the admin endpoints only when it carries the configured bearer token. Without a
+ * configured token every admin request is refused, so the endpoints are never open by default.
+ */
+@Slf4j
+public class AdminTokenInterceptor implements HandlerInterceptor {
+
+    /**
+     * Authorization scheme the token is sent with.
+     */
+    private static final String BEARER = "Bearer ";
+
+    /**
+     * Expected Authorization header, or null when no token is configured.
+     */
+    private final byte[] expected;
+
+    /**
+     * Initializes an instance of <code>AdminTokenInterceptor</code>.
+     *
+     * @param token bearer token, blank to refuse every request
+     */
+    public AdminTokenInterceptor(final String token) {
+        if (token == null || token.isBlank()) {
+            expected = null;
+        } else {
+            expected = (BEARER + token).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean preHandle(final HttpServletRequest request,
+                             final HttpServletResponse response,
+                             final Object handler) throws IOException {
+        if (expected == null) {
+            response.sendError(HttpStatus.FORBIDDEN.value(), "Admin endpoints are disabled");
+            return false;
+        }
+        final String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null
+                || !MessageDigest.isEqual(expected, authorization.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Refused unauthenticated {} {} from {}", request.getMethod(), request.getRequestURI(),
+                    request.getRemoteAddr());
+            response.sendError(HttpStatus.UNAUTHORIZED.value());
+            return false;
+        }
+        return true;
+    }
+}
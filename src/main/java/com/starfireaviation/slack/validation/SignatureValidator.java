@@ -0,0 +1,137 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.validation;
+
+import com.starfireaviation.slack.exception.InvalidSignatureException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies Slack request signatures.
+ */
+public class SignatureValidator {
+
+    /**
+     * HMAC algorithm used by Slack.
+     */
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * Signature version prefix.
+     */
+    private static final String VERSION = "v0";
+
+    /**
+     * Maximum age of a request before it is considered a replay.
+     */
+    private static final long MAX_AGE_SECONDS = TimeUnit.MINUTES.toSeconds(5);
+
+    /**
+     * Hex digits.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Bits per hex digit.
+     */
+    private static final int NIBBLE = 4;
+
+    /**
+     * Mask of the low hex digit.
+     */
+    private static final int LOW_NIBBLE = 0x0F;
+
+    /**
+     * Initialized Mac instances per signing secret, cached per thread as Mac is not thread safe.
+     */
+    private static final ThreadLocal<Map<String, Mac>> MACS = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Signature validation.
+     *
+     * @param signingSecret Slack signing secret
+     * @param timestamp value of the X-Slack-Request-Timestamp header
+     * @param body raw request body
+     * @param signature value of the X-Slack-Signature header
+     * @throws InvalidSignatureException when the signature is missing, stale or does not match
+     */
+    public static void validate(final String signingSecret,
+                                final String timestamp,
+                                final byte[] body,
+                                final String signature) throws InvalidSignatureException {
+        if (signingSecret == null || timestamp == null || signature == null) {
+            throw new InvalidSignatureException("Missing signature");
+        }
+        final long requestTime;
+        try {
+            requestTime = Long.parseLong(timestamp);
+        } catch (NumberFormatException e) {
+            throw new InvalidSignatureException("Invalid timestamp");
+        }
+        final long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        if (Math.abs(now - requestTime) > MAX_AGE_SECONDS) {
+            throw new InvalidSignatureException("Stale request");
+        }
+        final Mac mac = mac(signingSecret);
+        mac.update((VERSION + ":" + timestamp + ":").getBytes(StandardCharsets.UTF_8));
+        final byte[] expected = (VERSION + "=" + hex(mac.doFinal(body))).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII))) {
+            throw new InvalidSignatureException("Signature mismatch");
+        }
+    }
+
+    /**
+     * Gets this thread's Mac for a signing secret.
+     *
+     * @param signingSecret Slack signing secret
+     * @return initialized Mac
+     */
+    private static Mac mac(final String signingSecret) {
+        return MACS.get().computeIfAbsent(signingSecret, secret -> {
+            try {
+                final Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialize " + ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * Hex encodes bytes.
+     *
+     * @param bytes bytes
+     * @return lower case hex
+     */
+    private static String hex(final byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> NIBBLE) & LOW_NIBBLE];
+            chars[i * 2 + 1] = HEX[bytes[i] & LOW_NIBBLE];
+        }
+        return new String(chars);
+    }
+
+}
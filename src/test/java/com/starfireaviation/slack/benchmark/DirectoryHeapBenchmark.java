@@ -0,0 +1,177 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.benchmark;
+
+import com.starfireaviation.slack.client.SlackDirectory;
+import com.starfireaviation.slack.model.DirectorySnapshot;
+import com.ullink.slack.simpleslackapi.SlackPersona;
+import com.ullink.slack.simpleslackapi.SlackUser;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Constructor;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compares the heap retained for a large workspace by the SlackUser objects a connected simpleslackapi session
+ * holds, the hash map SlackDirectory and the compact SlackDirectory. Run with {@code java -cp
+ * target/test-classes:target/classes:<deps> ...DirectoryHeapBenchmark [users]}; the argument defaults to 100000.
+ */
+public final class DirectoryHeapBenchmark {
+
+    /**
+     * Users in the workspace when no count is given.
+     */
+    private static final int DEFAULT_USERS = 100000;
+
+    /**
+     * Channels in the workspace.
+     */
+    private static final int CHANNELS = 500;
+
+    /**
+     * Structure being measured, kept reachable while the heap is measured.
+     */
+    private static Object retained;
+
+    /**
+     * Not instantiated.
+     */
+    private DirectoryHeapBenchmark() {
+    }
+
+    /**
+     * Builds each structure for the same workspace and prints the heap it retains.
+     *
+     * @param args optional number of users
+     * @throws Exception when a structure cannot be built
+     */
+    public static void main(final String[] args) throws Exception {
+        int users = DEFAULT_USERS;
+        if (args.length > 0) {
+            users = Integer.parseInt(args[0]);
+        }
+        final int count = users;
+        System.out.printf("%,d users, %,d channels%n", users, CHANNELS);
+        final long session = measure(() -> slackUsers(count));
+        final long standard = measure(() -> directory(false, count));
+        final long compact = measure(() -> directory(true, count));
+        System.out.printf("  simpleslackapi SlackUser map: %,12d bytes (%,d bytes/user)%n", session, session / users);
+        System.out.printf("  SlackDirectory:               %,12d bytes (%,d bytes/user)%n", standard, standard / users);
+        System.out.printf("  compact SlackDirectory:       %,12d bytes (%,d bytes/user)%n", compact, compact / users);
+        System.out.printf("  compact saves %.1f%% over SlackDirectory%n", 100.0 * (standard - compact) / standard);
+    }
+
+    /**
+     * Heap retained by a structure.
+     *
+     * @param build builds the structure
+     * @return bytes of heap used after building it, less the bytes used before
+     */
+    private static long measure(final Supplier<Object> build) {
+        retained = null;
+        final long before = usedHeap();
+        retained = build.get();
+        final long after = usedHeap();
+        retained.hashCode();
+        return after - before;
+    }
+
+    /**
+     * Heap in use after repeated garbage collections.
+     *
+     * @return bytes of heap used
+     */
+    private static long usedHeap() {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Builds a SlackDirectory for the workspace.
+     *
+     * @param compact whether the compact directory is built
+     * @param users number of users
+     * @return SlackDirectory
+     */
+    private static SlackDirectory directory(final boolean compact, final int users) {
+        final DirectorySnapshot snapshot = new DirectorySnapshot(new HashMap<>(), new HashMap<>(), Instant.now());
+        for (int i = 0; i < users; i++) {
+            snapshot.getUsers().put(userName(i), userId(i));
+        }
+        for (int i = 0; i < CHANNELS; i++) {
+            snapshot.getChannels().put("channel-" + i, String.format("C%08X", i));
+        }
+        final SlackDirectory directory = new SlackDirectory(compact);
+        directory.load(snapshot);
+        return directory;
+    }
+
+    /**
+     * Builds the SlackUser objects a connected simpleslackapi session holds for the workspace.
+     *
+     * @param users number of users
+     * @return SlackUser objects keyed by user id
+     */
+    private static Map<String, SlackUser> slackUsers(final int users) {
+        try {
+            final Class<?> type = Class.forName("com.ullink.slack.simpleslackapi.impl.SlackUserImpl");
+            final Constructor<?> constructor = type.getDeclaredConstructor(String.class, String.class, String.class,
+                    String.class, String.class, String.class, String.class, boolean.class, boolean.class,
+                    boolean.class, boolean.class, boolean.class, boolean.class, boolean.class, String.class,
+                    String.class, Integer.class, SlackPersona.SlackPresence.class);
+            constructor.setAccessible(true);
+            final Map<String, SlackUser> map = new HashMap<>();
+            for (int i = 0; i < users; i++) {
+                final String name = userName(i);
+                map.put(userId(i), (SlackUser) constructor.newInstance(userId(i), name, "Pilot " + i,
+                        name + "@example.com", null, "Student Pilot", "+1 555 010 " + i, false, false, false,
+                        false, false, false, false, "America/New_York", "Eastern Standard Time", -18000,
+                        SlackPersona.SlackPresence.ACTIVE));
+            }
+            return map;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Name of a generated user.
+     *
+     * @param i user number
+     * @return user name
+     */
+    private static String userName(final int i) {
+        return "pilot." + i;
+    }
+
+    /**
+     * Slack id of a generated user.
+     *
+     * @param i user number
+     * @return user id
+     */
+    private static String userId(final int i) {
+        return String.format("U%010X", i);
+    }
+}
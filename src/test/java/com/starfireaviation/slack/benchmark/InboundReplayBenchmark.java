@@ -0,0 +1,148 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.benchmark;
+
+import com.starfireaviation.slack.client.InMemoryResponseTransport;
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.RecordedMessage;
+import com.starfireaviation.slack.model.ReplayReport;
+import com.starfireaviation.slack.service.InboundReplayer;
+import com.starfireaviation.slack.service.MessageService;
+import com.starfireaviation.slack.service.OptOutIndex;
+import com.starfireaviation.slack.service.ResponseSink;
+import com.starfireaviation.slack.util.InboundLogWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays an inbound recording into a MessageService wired with in-memory collaborators and prints the processing
+ * latency and drops. Run with {@code java -cp target/test-classes:target/classes:<deps> ...InboundReplayBenchmark
+ * [recording|-] [speed] [workers]}; without a recording it replays a synthetic burst of a 300 student class
+ * answering a question within five seconds, at 1x, 10x and maximum speed. A speed of 0 means maximum speed.
+ */
+public final class InboundReplayBenchmark {
+
+    /**
+     * Students answering in the synthetic burst.
+     */
+    private static final int STUDENTS = 300;
+
+    /**
+     * Time the synthetic burst's answers arrive within.
+     */
+    private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * Replies the students send, including ones which are not a valid answer.
+     */
+    private static final String[] ANSWERS = {"A", "B", "C", "D", "a", "SKIP", "not sure, maybe B?"};
+
+    /**
+     * Replay workers when no count is given.
+     */
+    private static final int DEFAULT_WORKERS = 4;
+
+    /**
+     * Messages which may wait for a worker before further ones are dropped.
+     */
+    private static final int BACKLOG = 1000;
+
+    /**
+     * Not instantiated.
+     */
+    private InboundReplayBenchmark() {
+    }
+
+    /**
+     * Replays the recording at each speed and prints the replay report.
+     *
+     * @param args optional recording, or - for the synthetic burst, speed and number of workers
+     * @throws Exception when the recording cannot be written or replayed
+     */
+    public static void main(final String[] args) throws Exception {
+        Path recording = null;
+        if (args.length > 0 && !"-".equals(args[0])) {
+            recording = Paths.get(args[0]);
+        }
+        double[] speeds = {1.0, 10.0, 0.0};
+        if (args.length > 1) {
+            speeds = new double[] {Double.parseDouble(args[1])};
+        }
+        int workers = DEFAULT_WORKERS;
+        if (args.length > 2) {
+            workers = Integer.parseInt(args[2]);
+        }
+        if (recording == null) {
+            recording = syntheticBurst();
+        }
+
+        final ApplicationProperties props = new ApplicationProperties();
+        props.setEnabled(true);
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final ResponseSink responseSink = new ResponseSink(new InMemoryResponseTransport(), props, meterRegistry);
+        responseSink.start();
+        final OptOutIndex optOutIndex = new OptOutIndex(null, meterRegistry);
+        optOutIndex.load();
+        final MessageService messageService = new MessageService(props, null, responseSink,
+                new SlackSessionPool(props), null, optOutIndex, null);
+        final InboundReplayer replayer = new InboundReplayer(message -> messageService.onRecordedMessage(
+                message.getOrganization(), message.getUser(), message.getText()), workers, BACKLOG);
+        for (double speed : speeds) {
+            final ReplayReport report = replayer.replay(recording, speed);
+            System.out.printf("speed %s, %d workers: %d replayed, %d dropped, %d failed in %d ms; "
+                            + "latency p50 %d us, p99 %d us, max %d us%n",
+                    speed, workers, report.getReplayed(), report.getDropped(), report.getFailed(),
+                    report.getElapsed().toMillis(), report.getP50Latency().toNanos() / 1000,
+                    report.getP99Latency().toNanos() / 1000, report.getMaxLatency().toNanos() / 1000);
+        }
+        responseSink.shutdown();
+    }
+
+    /**
+     * Records a synthetic burst of a class answering a question to a temporary file.
+     *
+     * @return recording
+     * @throws Exception when the recording cannot be written
+     */
+    private static Path syntheticBurst() throws Exception {
+        final Path file = Files.createTempFile("inbound-burst", ".rec");
+        file.toFile().deleteOnExit();
+        final Random random = new Random(1);
+        final long[] offsets = new long[STUDENTS];
+        for (int i = 0; i < STUDENTS; i++) {
+            offsets[i] = (long) (Math.abs(random.nextGaussian()) * BURST_NANOS / 3);
+        }
+        Arrays.sort(offsets);
+        try (OutputStream output = Files.newOutputStream(file);
+             InboundLogWriter writer = new InboundLogWriter(output, System.currentTimeMillis())) {
+            for (int i = 0; i < STUDENTS; i++) {
+                writer.write(new RecordedMessage(offsets[i], "default", "student" + random.nextInt(STUDENTS),
+                        ANSWERS[random.nextInt(ANSWERS.length)]));
+            }
+            System.out.printf("synthetic burst of %d messages, %d bytes%n", STUDENTS, writer.getBytesWritten());
+        }
+        return file;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.benchmark;
+
+import com.starfireaviation.slack.SlackApplication;
+import com.starfireaviation.slack.config.CommonConstants;
+import com.starfireaviation.slack.model.MessageType;
+import com.starfireaviation.slack.model.OutboundMessage;
+import com.starfireaviation.slack.service.OutboundDispatcher;
+import com.starfireaviation.slack.service.StartupMetrics;
+import com.starfireaviation.slack.service.TemplateCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Compares time-to-ready and time-to-first-send, both as JVM uptime, of a default start against the fast-start
+ * profile, and of the fast-start profile with a dynamic class-data-sharing archive when the JDK can write one
+ * (13 or later). Class directories on the classpath are packed into jars first, as the Docker image does, since
+ * class-data sharing only archives classes from jars. Every start is a fresh JVM in shadow mode, so the first
+ * send is captured instead of posted to Slack. Run with {@code java -cp target/test-classes:target/classes:<deps>
+ * ...StartupBenchmark [starts]}; the argument defaults to 5 starts per variant.
+ */
+public final class StartupBenchmark {
+
+    /**
+     * Prefix of the line a probe prints its result on.
+     */
+    private static final String RESULT = "startup-result ";
+
+    /**
+     * Measured starts per variant when no count is given.
+     */
+    private static final int DEFAULT_STARTS = 5;
+
+    /**
+     * First JDK feature release able to write a dynamic class-data-sharing archive.
+     */
+    private static final int CDS_FEATURE_VERSION = 13;
+
+    /**
+     * Longest a probe waits for its first send, in milliseconds.
+     */
+    private static final long FIRST_SEND_TIMEOUT_MS = 30000L;
+
+    /**
+     * Not instantiated.
+     */
+    private StartupBenchmark() {
+    }
+
+    /**
+     * Starts each variant repeatedly and prints the median and fastest times.
+     *
+     * @param args optional number of starts per variant
+     * @throws Exception when a start fails
+     */
+    public static void main(final String[] args) throws Exception {
+        int starts = DEFAULT_STARTS;
+        if (args.length > 0) {
+            starts = Integer.parseInt(args[0]);
+        }
+        final String classpath = jarClasspath();
+        report(classpath, "default", starts, Collections.emptyList(), false);
+        report(classpath, "fast-start", starts, Collections.emptyList(), true);
+        if (Runtime.version().feature() >= CDS_FEATURE_VERSION) {
+            final Path archive = Files.createTempFile("slack", ".jsa");
+            Files.delete(archive);
+            start(classpath, List.of("-XX:ArchiveClassesAtExit=" + archive), true);
+            if (Files.exists(archive)) {
+                report(classpath, "fast-start + CDS", starts, List.of("-XX:SharedArchiveFile=" + archive), true);
+                Files.delete(archive);
+            } else {
+                System.out.println("no CDS archive written");
+            }
+        }
+    }
+
+    /**
+     * Starts a variant once to warm up the file system cache, then repeatedly, and prints its times.
+     *
+     * @param classpath classpath of the started JVMs
+     * @param variant variant name
+     * @param starts measured starts
+     * @param jvmOptions options of the started JVMs
+     * @param fastStart whether the fast-start profile is active
+     * @throws Exception when a start fails
+     */
+    private static void report(final String classpath, final String variant, final int starts,
+                               final List<String> jvmOptions, final boolean fastStart) throws Exception {
+        start(classpath, jvmOptions, fastStart);
+        final long[] ready = new long[starts];
+        final long[] firstSend = new long[starts];
+        for (int i = 0; i < starts; i++) {
+            final long[] result = start(classpath, jvmOptions, fastStart);
+            ready[i] = result[0];
+            firstSend[i] = result[1];
+        }
+        Arrays.sort(ready);
+        Arrays.sort(firstSend);
+        System.out.printf("%-17s ready %,6dms  first send %,6dms  (median of %d, min %,d / %,d)%n", variant,
+                ready[starts / 2], firstSend[starts / 2], starts, ready[0], firstSend[0]);
+    }
+
+    /**
+     * This JVM's classpath with each class directory packed into a temporary jar.
+     *
+     * @return classpath
+     * @throws IOException when a jar cannot be written
+     */
+    private static String jarClasspath() throws IOException {
+        final List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            final Path path = Path.of(entry);
+            if (Files.isDirectory(path)) {
+                final Path jar = Files.createTempFile("slack-classes", ".jar");
+                jar.toFile().deleteOnExit();
+                try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+                     Stream<Path> files = Files.walk(path)) {
+                    for (Path file : (Iterable<Path>) files.skip(1)::iterator) {
+                        final String name = path.relativize(file).toString().replace(File.separatorChar, '/');
+                        if (Files.isDirectory(file)) {
+                            out.putNextEntry(new JarEntry(name + "/"));
+                        } else {
+                            out.putNextEntry(new JarEntry(name));
+                            Files.copy(file, out);
+                        }
+                        out.closeEntry();
+                    }
+                }
+                entries.add(jar.toString());
+            } else {
+                entries.add(entry);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * Runs a probe in a fresh JVM.
+     *
+     * @param classpath classpath of the JVM
+     * @param jvmOptions options of the JVM
+     * @param fastStart whether the fast-start profile is active
+     * @return JVM uptime at ready and at the first send, in milliseconds
+     * @throws Exception when the probe cannot be run or fails
+     */
+    private static long[] start(final String classpath, final List<String> jvmOptions, final boolean fastStart)
+            throws Exception {
+        final List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(classpath);
+        command.addAll(jvmOptions);
+        command.add(Probe.class.getName());
+        command.add(Boolean.toString(fastStart));
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long[] result = null;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            while (line != null) {
+                if (line.startsWith(RESULT)) {
+                    final String[] values = line.substring(RESULT.length()).split(" ");
+                    result = new long[] {Long.parseLong(values[0]), Long.parseLong(values[1])};
+                }
+                line = reader.readLine();
+            }
+        }
+        if (process.waitFor() != 0 || result == null) {
+            throw new IllegalStateException("Startup probe failed with exit code " + process.exitValue());
+        }
+        return result;
+    }
+
+    /**
+     * Starts the application in shadow mode, sends one reminder and prints the JVM uptime at ready and at the
+     * first send.
+     */
+    public static final class Probe {
+
+        /**
+         * Not instantiated.
+         */
+        private Probe() {
+        }
+
+        /**
+         * Starts the application and prints its result line.
+         *
+         * @param args whether the fast-start profile is active
+         * @throws Exception when the application cannot be started
+         */
+        public static void main(final String[] args) throws Exception {
+            final List<String> options = new ArrayList<>(List.of("--server.port=0", "--slack.shadow.enabled=true",
+                    "--logging.level.root=WARN"));
+            if (Boolean.parseBoolean(args[0])) {
+                options.add("--spring.profiles.active=fast-start");
+            }
+            final ConfigurableApplicationContext context =
+                    SpringApplication.run(SlackApplication.class, options.toArray(new String[0]));
+            final long ready = context.getBean(StartupMetrics.class).getReadyUptime();
+            final String text = context.getBean(TemplateCache.class).render("gs_user_upcoming.ftl",
+                    Map.of("firstName", "Amelia", "lastName", "Earhart", "event", "Ground School")).getText();
+            context.getBean(OutboundDispatcher.class).enqueue(new OutboundMessage(MessageType.EVENT_UPCOMING,
+                    CommonConstants.DEFAULT_ORGANIZATION, "amelia", text));
+            final MeterRegistry registry = context.getBean(MeterRegistry.class);
+            final long deadline = System.currentTimeMillis() + FIRST_SEND_TIMEOUT_MS;
+            double firstSend = registry.get("slack.startup.first.send").timeGauge().value(TimeUnit.MILLISECONDS);
+            while (firstSend < 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+                firstSend = registry.get("slack.startup.first.send").timeGauge().value(TimeUnit.MILLISECONDS);
+            }
+            System.out.println(RESULT + ready + " " + (long) firstSend);
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.benchmark;
+
+import com.starfireaviation.slack.model.TemplateModel;
+import com.starfireaviation.slack.service.TemplateCache;
+import freemarker.template.Configuration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Compares time and bytes allocated per rendered message between FreeMarker interpreting a template and the
+ * renderer generated for it at build time. Run with {@code java -cp target/test-classes:target/classes:<deps>
+ * ...TemplateCodegenBenchmark [messages]}; the argument defaults to 200000 messages per round.
+ */
+public final class TemplateCodegenBenchmark {
+
+    /**
+     * Templates rendered, both of which have a generated renderer.
+     */
+    private static final String[] TEMPLATES = {"gs_user_upcoming.ftl", "question.ftl"};
+
+    /**
+     * Messages rendered per template and round when no count is given.
+     */
+    private static final int DEFAULT_MESSAGES = 200000;
+
+    /**
+     * Rounds run, the first ones warming up the JIT.
+     */
+    private static final int ROUNDS = 5;
+
+    /**
+     * Sum of the rendered lengths, printed so the JIT cannot drop the renders.
+     */
+    private static int sink;
+
+    /**
+     * Not instantiated.
+     */
+    private TemplateCodegenBenchmark() {
+    }
+
+    /**
+     * Renders each template through FreeMarker and through its generated renderer for several rounds and prints
+     * the time and bytes allocated per message.
+     *
+     * @param args optional number of messages per template and round
+     * @throws Exception when a template cannot be loaded or rendered
+     */
+    public static void main(final String[] args) throws Exception {
+        int messages = DEFAULT_MESSAGES;
+        if (args.length > 0) {
+            messages = Integer.parseInt(args[0]);
+        }
+        final TemplateCache cache =
+                new TemplateCache(new Configuration(Configuration.VERSION_2_3_31), null, new SimpleMeterRegistry());
+        cache.start();
+        final TemplateModel model = new TemplateModel();
+        model.setFirstName("Amelia");
+        model.setLastName("Earhart");
+        model.setEvent("Weather Theory\n\nTime: Mon Nov 02, 2026 06:00 PM\nAddress: \n\tHangar 3");
+        model.setQuestionText("Which airspace requires two-way radio communication before entry?");
+        model.setAnswerChoice1("A");
+        model.setAnswerText1("Class B");
+        model.setAnswerChoice2("B");
+        model.setAnswerText2("Class C");
+        model.setAnswerChoice3("C");
+        model.setAnswerText3("Class E");
+        final Map<String, Object> map = model.toMap();
+
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long thread = Thread.currentThread().getId();
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.printf("round %d: %d messages per template%n", round, messages);
+            for (String name : TEMPLATES) {
+                long bytes = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                for (int i = 0; i < messages; i++) {
+                    sink += cache.render(name, map).getText().length();
+                }
+                final long interpretedNanos = System.nanoTime() - start;
+                final long interpretedBytes = threads.getThreadAllocatedBytes(thread) - bytes;
+                bytes = threads.getThreadAllocatedBytes(thread);
+                start = System.nanoTime();
+                for (int i = 0; i < messages; i++) {
+                    sink += cache.render(name, model).getText().length();
+                }
+                final long compiledNanos = System.nanoTime() - start;
+                final long compiledBytes = threads.getThreadAllocatedBytes(thread) - bytes;
+                System.out.printf("  %-22s FreeMarker: %,6d ns %,6d bytes/message  compiled: %,6d ns %,6d bytes/message"
+                                + "  (%.1fx faster)%n", name, interpretedNanos / messages, interpretedBytes / messages,
+                        compiledNanos / messages, compiledBytes / messages, (double) interpretedNanos / compiledNanos);
+            }
+        }
+        cache.shutdown();
+        System.out.println(sink == 0);
+    }
+}
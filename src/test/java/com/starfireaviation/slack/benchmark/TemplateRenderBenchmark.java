@@ -0,0 +1,96 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.benchmark;
+
+import com.starfireaviation.slack.service.TemplateCache;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares bytes allocated per rendered reminder between FreeMarkerTemplateUtils and the TemplateCache's reusable
+ * per-thread buffers. Run with {@code java -cp target/test-classes:target/classes:<deps> ...TemplateRenderBenchmark
+ * [messages]}; the argument defaults to 10000 reminders.
+ */
+public final class TemplateRenderBenchmark {
+
+    /**
+     * Template rendered, the reminder sent before each event.
+     */
+    private static final String TEMPLATE = "gs_user_upcoming.ftl";
+
+    /**
+     * Reminders rendered per round when no count is given.
+     */
+    private static final int DEFAULT_MESSAGES = 10000;
+
+    /**
+     * Not instantiated.
+     */
+    private TemplateRenderBenchmark() {
+    }
+
+    /**
+     * Renders the reminder through both paths for three rounds and prints the bytes allocated per message.
+     *
+     * @param args optional number of reminders per round
+     * @throws Exception when the template cannot be loaded or rendered
+     */
+    public static void main(final String[] args) throws Exception {
+        int messages = DEFAULT_MESSAGES;
+        if (args.length > 0) {
+            messages = Integer.parseInt(args[0]);
+        }
+        final Configuration config = new Configuration(Configuration.VERSION_2_3_31);
+        config.setClassForTemplateLoading(TemplateRenderBenchmark.class, "/templates");
+        final Template template = config.getTemplate(TEMPLATE);
+        final TemplateCache cache = new TemplateCache(config, null, new SimpleMeterRegistry());
+        cache.start();
+        final Map<String, Object> model = new HashMap<>();
+        model.put("firstName", "Amelia");
+        model.put("lastName", "Earhart");
+        model.put("event", "Ground School: Weather Theory\n2026-11-02 18:00\nHangar 3, Starfire Aviation");
+
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long thread = Thread.currentThread().getId();
+        final int length = cache.render(TEMPLATE, model).getText().length();
+        for (int round = 0; round < 3; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < messages; i++) {
+                FreeMarkerTemplateUtils.processTemplateIntoString(template, model);
+            }
+            final long stringWriter = threads.getThreadAllocatedBytes(thread) - before;
+            before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < messages; i++) {
+                cache.render(TEMPLATE, model);
+            }
+            final long reusable = threads.getThreadAllocatedBytes(thread) - before;
+            System.out.printf("round %d: %d messages of %d chars%n", round, messages, length);
+            System.out.printf("  processTemplateIntoString: %,d bytes/message%n", stringWriter / messages);
+            System.out.printf("  TemplateCache.render:      %,d bytes/message%n", reusable / messages);
+            System.out.printf("  saved:                     %,d bytes/message, %,d bytes total%n",
+                    (stringWriter - reusable) / messages, stringWriter - reusable);
+        }
+        cache.shutdown();
+    }
+}
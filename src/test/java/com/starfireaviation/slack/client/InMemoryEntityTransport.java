@@ -0,0 +1,80 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory EntityTransport used in tests.
+ */
+public class InMemoryEntityTransport implements EntityTransport {
+
+    /**
+     * Entities keyed by type and ID.
+     */
+    private final Map<Class<?>, Map<Long, Object>> entities = new ConcurrentHashMap<>();
+
+    /**
+     * IDs requested by each call so far.
+     */
+    private final List<Set<Long>> calls = new CopyOnWriteArrayList<>();
+
+    /**
+     * {@inheritDoc} Required implementation.
+     */
+    @Override
+    public <T> Map<Long, T> fetch(final Class<T> type, final Set<Long> ids) throws IOException {
+        calls.add(Set.copyOf(ids));
+        final Map<Long, Object> stored = entities.getOrDefault(type, Map.of());
+        final Map<Long, T> found = new HashMap<>();
+        for (Long id : ids) {
+            final Object entity = stored.get(id);
+            if (entity != null) {
+                found.put(id, type.cast(entity));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Stores an entity.
+     *
+     * @param type entity type
+     * @param id entity ID
+     * @param entity entity
+     * @param <T> entity type
+     */
+    public <T> void put(final Class<T> type, final long id, final T entity) {
+        entities.computeIfAbsent(type, key -> new ConcurrentHashMap<>()).put(id, entity);
+    }
+
+    /**
+     * IDs requested by each call so far.
+     *
+     * @return calls
+     */
+    public List<Set<Long>> getCalls() {
+        return calls;
+    }
+
+}
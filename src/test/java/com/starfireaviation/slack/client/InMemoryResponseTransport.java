@@ -0,0 +1,71 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.starfireaviation.slack.model.UserResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory ResponseTransport used in tests.
+ */
+public class InMemoryResponseTransport implements ResponseTransport {
+
+    /**
+     * Batches received so far.
+     */
+    private final List<List<UserResponse>> batches = new CopyOnWriteArrayList<>();
+
+    /**
+     * Number of upcoming calls which should fail.
+     */
+    private final AtomicInteger failuresRemaining = new AtomicInteger();
+
+    /**
+     * {@inheritDoc} Required implementation.
+     */
+    @Override
+    public void post(final List<UserResponse> responses) throws IOException {
+        if (failuresRemaining.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            throw new IOException("Simulated transport failure");
+        }
+        batches.add(new ArrayList<>(responses));
+    }
+
+    /**
+     * Causes the next calls to fail.
+     *
+     * @param count number of calls which should fail
+     */
+    public void failNext(final int count) {
+        failuresRemaining.set(count);
+    }
+
+    /**
+     * Batches received so far.
+     *
+     * @return received batches
+     */
+    public List<List<UserResponse>> getBatches() {
+        return batches;
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OrganizationSessionTest {
+
+    private final List<String> lookups = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+
+    private OrganizationSession session;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/users.info", exchange -> {
+            final String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            lookups.add(body);
+            if ("user=U1".equals(body)) {
+                respond(exchange, "{\"ok\":true,\"user\":{\"id\":\"U1\",\"name\":\"pilot\"}}");
+            } else {
+                respond(exchange, "{\"ok\":false,\"error\":\"user_not_found\"}");
+            }
+        });
+        server.start();
+
+        final ApplicationProperties.WebApi settings = new ApplicationProperties.WebApi();
+        settings.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/api");
+        final ApplicationProperties.Organization organization = new ApplicationProperties.Organization();
+        organization.setToken("xoxb-test");
+        session = new OrganizationSession("default", organization);
+        session.setWebApiClient(new SlackWebApiClient(HttpClient.newHttpClient(), new ObjectMapper(), settings,
+                new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void stop() {
+        session.disconnect();
+        server.stop(0);
+    }
+
+    @Test
+    void resolvesUserNamesThroughWebApiAndRemembersThem() {
+        assertEquals("pilot", session.resolveUserName("U1"));
+        assertEquals("pilot", session.resolveUserName("U1"));
+
+        assertEquals(List.of("user=U1"), lookups);
+        assertEquals("U1", session.getDirectory().findUserId("pilot"));
+    }
+
+    @Test
+    void returnsIdOfUnknownUserWithoutOpeningRtm() {
+        assertEquals("U9", session.resolveUserName("U9"));
+
+        assertEquals(1, lookups.size());
+        assertNull(session.readDirectory());
+    }
+
+    private static void respond(final HttpExchange exchange, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.starfireaviation.slack.model.DirectorySnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SlackDirectoryTest {
+
+    @Test
+    void resolvesUsersAndChannels() {
+        final SlackDirectory directory = new SlackDirectory();
+        directory.load(snapshot(Map.of("pilot", "U1"), Map.of("groundschool", "C1")));
+        assertEquals("U1", directory.findUserId("pilot"));
+        assertEquals("pilot", directory.findUserName("U1"));
+        assertEquals("C1", directory.findChannelId("GroundSchool"));
+        assertNull(directory.findUserId("student"));
+    }
+
+    @Test
+    void reconcilesChanges() {
+        final SlackDirectory directory = new SlackDirectory();
+        directory.load(snapshot(Map.of("pilot", "U1", "student", "U2"), Map.of("groundschool", "C1")));
+        assertEquals(0, directory.reconcile(
+                snapshot(Map.of("pilot", "U1", "student", "U2"), Map.of("groundschool", "C1"))));
+        final Map<String, String> users = new HashMap<>(Map.of("pilot", "U1", "instructor", "U3"));
+        assertEquals(2, directory.reconcile(snapshot(users, Map.of("groundschool", "C1"))));
+        assertNull(directory.findUserName("U2"));
+        assertEquals("instructor", directory.findUserName("U3"));
+    }
+
+    @Test
+    void compactDirectoryResolvesAndLearnsOnMiss() {
+        final SlackDirectory directory = new SlackDirectory(true);
+        directory.load(snapshot(Map.of("pilot", "U1", "élève", "U2"), Map.of("groundschool", "C1")));
+        assertEquals("U1", directory.findUserId("pilot"));
+        assertEquals("élève", directory.findUserName("U2"));
+        assertEquals("C1", directory.findChannelId("GroundSchool"));
+        assertNull(directory.findUserId("instructor"));
+        directory.rememberUser("instructor", "U3");
+        assertEquals("U3", directory.findUserId("instructor"));
+        assertEquals("instructor", directory.findUserName("U3"));
+        assertEquals(3, directory.getUserCount());
+        assertEquals(Map.of("pilot", "U1", "élève", "U2", "instructor", "U3"), directory.getSnapshot().getUsers());
+        assertEquals(1, directory.reconcile(
+                snapshot(Map.of("pilot", "U1", "élève", "U2", "instructor", "U3"), Map.of("groundschool", "C1"))));
+        assertEquals("instructor", directory.findUserName("U3"));
+        assertEquals(0, directory.reconcile(
+                snapshot(Map.of("pilot", "U1", "élève", "U2", "instructor", "U3"), Map.of("groundschool", "C1"))));
+    }
+
+    private static DirectorySnapshot snapshot(final Map<String, String> users, final Map<String, String> channels) {
+        return new DirectorySnapshot(new HashMap<>(users), new HashMap<>(channels), Instant.now());
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SocketModeClientTest {
+
+    private static final String EVENT = "{\"envelope_id\":\"%s\",\"type\":\"events_api\",\"payload\":"
+            + "{\"type\":\"event_callback\",\"event\":{\"type\":\"message\",\"user\":\"U1\",\"text\":\"A\"}}}";
+
+    private final List<JsonNode> payloads = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean accepting = new AtomicBoolean(true);
+
+    private final FakeClient client = new FakeClient();
+
+    @AfterEach
+    void stop() {
+        client.stop();
+    }
+
+    @Test
+    void acknowledgesAcceptedEnvelopes() {
+        client.start();
+        final FakeSocket socket = client.sockets.get(0);
+        socket.receive("{\"type\":\"hello\"}");
+        assertTrue(client.isConnected("default"));
+
+        socket.receive(String.format(EVENT, "e1"));
+        assertEquals(1, payloads.size());
+        assertEquals("A", payloads.get(0).path("event").path("text").asText());
+        assertEquals(List.of("{\"envelope_id\":\"e1\"}"), socket.sent);
+    }
+
+    @Test
+    void acknowledgesRedeliveriesWithoutHandlingThemAgain() {
+        client.start();
+        final FakeSocket socket = client.sockets.get(0);
+        socket.receive("{\"type\":\"hello\"}");
+        socket.receive(String.format(EVENT, "e1"));
+        socket.receive(String.format(EVENT, "e1"));
+        assertEquals(1, payloads.size());
+        assertEquals(2, socket.sent.size());
+    }
+
+    @Test
+    void leavesRejectedEnvelopesForRedelivery() {
+        client.start();
+        final FakeSocket socket = client.sockets.get(0);
+        socket.receive("{\"type\":\"hello\"}");
+        accepting.set(false);
+        socket.receive(String.format(EVENT, "e1"));
+        assertTrue(socket.sent.isEmpty());
+
+        accepting.set(true);
+        socket.receive(String.format(EVENT, "e1"));
+        assertEquals(1, payloads.size());
+        assertEquals(1, socket.sent.size());
+    }
+
+    @Test
+    void switchesToFreshSocketBeforeClosingTheOldOne() {
+        client.start();
+        final FakeSocket first = client.sockets.get(0);
+        first.receive("{\"type\":\"hello\"}");
+        first.receive("{\"type\":\"disconnect\",\"reason\":\"warning\"}");
+        assertEquals(2, client.sockets.size());
+        final FakeSocket second = client.sockets.get(1);
+
+        first.receive(String.format(EVENT, "e1"));
+        assertFalse(first.closed);
+        assertEquals(1, first.sent.size());
+
+        second.receive("{\"type\":\"hello\"}");
+        assertTrue(first.closed);
+        assertTrue(client.isConnected("default"));
+        second.receive(String.format(EVENT, "e2"));
+        assertEquals(2, payloads.size());
+        assertEquals(1, second.sent.size());
+    }
+
+    @Test
+    void assemblesEnvelopesSplitAcrossFrames() {
+        client.start();
+        final FakeSocket socket = client.sockets.get(0);
+        socket.receive("{\"type\":\"hello\"}");
+        final String envelope = String.format(EVENT, "e1");
+        socket.receive(envelope.substring(0, 10), false);
+        socket.receive(envelope.substring(10), true);
+        assertEquals(1, payloads.size());
+    }
+
+    private ApplicationProperties properties() {
+        final ApplicationProperties aProps = new ApplicationProperties();
+        aProps.setAppToken("xapp-test");
+        return aProps;
+    }
+
+    private final class FakeClient extends SocketModeClient {
+
+        private final List<FakeSocket> sockets = new CopyOnWriteArrayList<>();
+
+        FakeClient() {
+            this(properties());
+        }
+
+        private FakeClient(final ApplicationProperties aProps) {
+            super(new SlackSessionPool(aProps), HttpClient.newHttpClient(), new ObjectMapper(), aProps.getSocket(),
+                    (organization, payload) -> accepting.get() && payloads.add(payload),
+                    new SimpleMeterRegistry());
+        }
+
+        @Override
+        protected CompletableFuture<WebSocket> connect(final String appToken, final WebSocket.Listener listener) {
+            final FakeSocket socket = new FakeSocket(listener);
+            sockets.add(socket);
+            listener.onOpen(socket);
+            return CompletableFuture.completedFuture(socket);
+        }
+    }
+
+    private static final class FakeSocket implements WebSocket {
+
+        private final WebSocket.Listener listener;
+
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+
+        private volatile boolean closed;
+
+        FakeSocket(final WebSocket.Listener webSocketListener) {
+            listener = webSocketListener;
+        }
+
+        void receive(final String text) {
+            receive(text, true);
+        }
+
+        void receive(final String text, final boolean last) {
+            listener.onText(this, text, last);
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> sendText(final CharSequence data, final boolean last) {
+            sent.add(data.toString());
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> sendBinary(final ByteBuffer data, final boolean last) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> sendPing(final ByteBuffer message) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> sendPong(final ByteBuffer message) {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public CompletableFuture<WebSocket> sendClose(final int statusCode, final String reason) {
+            closed = true;
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public void request(final long n) {
+        }
+
+        @Override
+        public String getSubprotocol() {
+            return "";
+        }
+
+        @Override
+        public boolean isOutputClosed() {
+            return closed;
+        }
+
+        @Override
+        public boolean isInputClosed() {
+            return closed;
+        }
+
+        @Override
+        public void abort() {
+            closed = true;
+        }
+    }
+
+}
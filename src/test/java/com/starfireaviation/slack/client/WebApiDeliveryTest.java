@@ -0,0 +1,174 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.exception.DeliveryException;
+import com.starfireaviation.slack.model.OutboundMessage;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebApiDeliveryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<JsonNode> posts = new CopyOnWriteArrayList<>();
+
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger opens = new AtomicInteger();
+
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+
+    private final AtomicInteger fallbacks = new AtomicInteger();
+
+    private HttpServer server;
+
+    private WebApiDelivery delivery;
+
+    private OrganizationSession session;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/conversations.open", exchange -> {
+            opens.incrementAndGet();
+            read(exchange);
+            respond(exchange, 200, "{\"ok\":true,\"channel\":{\"id\":\"D1\"}}");
+        });
+        server.createContext("/api/chat.postMessage", exchange -> {
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            final JsonNode body = read(exchange);
+            posts.add(body);
+            final String response = responses.getOrDefault(body.path("text").asText(), "{\"ok\":true,\"ts\":\"1.2\"}");
+            if (response.startsWith("HTTP ")) {
+                respond(exchange, Integer.parseInt(response.substring(5)), "");
+            } else {
+                respond(exchange, 200, response);
+            }
+        });
+        server.start();
+
+        final ApplicationProperties.WebApi settings = new ApplicationProperties.WebApi();
+        settings.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/api");
+        final SlackWebApiClient client = new SlackWebApiClient(HttpClient.newHttpClient(), objectMapper, settings,
+                new SimpleMeterRegistry());
+        delivery = new WebApiDelivery(client, (organizationSession, message) -> {
+            fallbacks.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        });
+        final ApplicationProperties.Organization organization = new ApplicationProperties.Organization();
+        organization.setToken("xoxb-test");
+        organization.setGroundSchoolChannel("groundschool");
+        session = new OrganizationSession("default", organization);
+        session.getDirectory().rememberUser("pilot", "U1");
+        session.getDirectory().rememberChannel("groundschool", "C1");
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void opensDirectChannelOnceAndPostsToIt() {
+        delivery.deliver(session, message("pilot", "Hello \"pilot\" ✈")).join();
+        delivery.deliver(session, message("pilot", "Again")).join();
+
+        assertEquals(1, opens.get());
+        assertEquals(2, posts.size());
+        assertEquals("D1", posts.get(0).path("channel").asText());
+        assertEquals("Hello \"pilot\" ✈", posts.get(0).path("text").asText());
+        assertEquals("Bearer xoxb-test", authorizations.get(0));
+    }
+
+    @Test
+    void postsChannelMessagesByDirectoryId() {
+        delivery.deliver(session, message(null, "Ground school tonight")).join();
+
+        assertEquals(0, opens.get());
+        assertEquals("C1", posts.get(0).path("channel").asText());
+    }
+
+    @Test
+    void fallsBackForRecipientsTheDirectoryDoesNotKnow() {
+        delivery.deliver(session, message("stranger", "Hi")).join();
+
+        assertEquals(1, fallbacks.get());
+        assertTrue(posts.isEmpty());
+    }
+
+    @Test
+    void classifiesFailures() {
+        responses.put("bad", "{\"ok\":false,\"error\":\"channel_not_found\"}");
+        responses.put("busy", "HTTP 429");
+
+        assertFalse(failure(message(null, "bad")).isRetryable());
+        assertTrue(failure(message(null, "busy")).isRetryable());
+    }
+
+    private DeliveryException failure(final OutboundMessage message) {
+        final CompletionException error = assertThrows(CompletionException.class,
+                () -> delivery.deliver(session, message).join());
+        return (DeliveryException) error.getCause();
+    }
+
+    private static OutboundMessage message(final String recipient, final String text) {
+        final OutboundMessage message = new OutboundMessage();
+        message.setOrganization("default");
+        message.setRecipient(recipient);
+        message.setText(text);
+        return message;
+    }
+
+    private JsonNode read(final HttpExchange exchange) throws IOException {
+        return objectMapper.readTree(exchange.getRequestBody().readAllBytes());
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+}
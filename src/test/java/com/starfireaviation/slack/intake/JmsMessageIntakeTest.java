@@ -0,0 +1,204 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.intake;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.MessageType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jms.Connection;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JmsMessageIntakeTest {
+
+    private static final String BROKER_URL = "vm://7";
+
+    private static final String QUEUE = "slack.notifications";
+
+    private final List<MessageType> handled = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger rejectionsRemaining = new AtomicInteger();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final InMemorySpanExporter spans = InMemorySpanExporter.create();
+
+    private final List<String> handledTraceIds = new CopyOnWriteArrayList<>();
+
+    private EmbeddedActiveMQ broker;
+
+    private ActiveMQConnectionFactory connectionFactory;
+
+    private JmsMessageIntake intake;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .addAcceptorConfiguration("in-vm", BROKER_URL));
+        broker.start();
+        connectionFactory = new ActiveMQConnectionFactory(BROKER_URL);
+        final ApplicationProperties.Intake settings = new ApplicationProperties.Intake();
+        settings.setQueue(QUEUE);
+        settings.setBatchSize(10);
+        settings.setReceiveTimeout(Duration.ofMillis(100));
+        intake = new JmsMessageIntake(connectionFactory, (type, message) -> {
+            if (rejectionsRemaining.getAndDecrement() > 0) {
+                return false;
+            }
+            if (type == MessageType.USER_DELETE) {
+                throw new IllegalStateException("Entity lookup timed out");
+            }
+            handledTraceIds.add(Span.current().getSpanContext().getTraceId());
+            handled.add(type);
+            return true;
+        }, new ObjectMapper(), settings, meterRegistry, OpenTelemetrySdk.builder()
+                .setTracerProvider(SdkTracerProvider.builder()
+                        .addSpanProcessor(SimpleSpanProcessor.create(spans))
+                        .build())
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        intake.stop();
+        connectionFactory.close();
+        broker.stop();
+    }
+
+    @Test
+    void routesRequestsByType() throws Exception {
+        intake.start();
+        for (int i = 0; i < 25; i++) {
+            publish(MessageType.EVENT_UPCOMING.name(), "{\"body\":\"reminder\"}");
+        }
+        publish(MessageType.PASSWORD_RESET.name(), "{}");
+        awaitHandled(26);
+        assertEquals(25, handled.stream().filter(type -> type == MessageType.EVENT_UPCOMING).count());
+        assertTrue(handled.contains(MessageType.PASSWORD_RESET));
+    }
+
+    @Test
+    void redeliversRejectedBatches() throws Exception {
+        rejectionsRemaining.set(1);
+        publish(MessageType.QUESTION_ASKED.name(), "{}");
+        intake.start();
+        awaitHandled(1);
+        assertEquals(1.0, meterRegistry.counter("slack.intake.rollbacks").count());
+    }
+
+    @Test
+    void deadLettersRequestsTheHandlerFailsOn() throws Exception {
+        publish(MessageType.USER_DELETE.name(), "{}");
+        publish(MessageType.QUIZ_COMPLETE.name(), "{}");
+        intake.start();
+        awaitHandled(1);
+        publish(MessageType.PASSWORD_RESET.name(), "{}");
+        awaitHandled(2);
+        assertEquals(List.of(MessageType.QUIZ_COMPLETE, MessageType.PASSWORD_RESET), handled);
+        assertEquals(1.0, meterRegistry.counter("slack.intake.failed").count());
+        try (Connection connection = connectionFactory.createConnection();
+             Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE)) {
+            connection.start();
+            final javax.jms.Message deadLetter = session.createConsumer(session.createQueue(
+                    "slack.notifications.dlq")).receive(5000);
+            assertEquals(MessageType.USER_DELETE.name(), deadLetter.getStringProperty(
+                    JmsMessageIntake.TYPE_PROPERTY));
+        }
+    }
+
+    @Test
+    void discardsUndecodableRequests() throws Exception {
+        publish("NOT_A_TYPE", "{}");
+        publish(MessageType.QUESTION_ASKED.name(), "not json");
+        publish(MessageType.QUIZ_COMPLETE.name(), "{}");
+        intake.start();
+        awaitHandled(1);
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.counter("slack.intake.invalid").count() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(MessageType.QUIZ_COMPLETE), handled);
+        assertEquals(2.0, meterRegistry.counter("slack.intake.invalid").count());
+    }
+
+    @Test
+    void continuesTraceOfRequest() throws Exception {
+        final String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+        publish(MessageType.EVENT_START.name(), "{}", "00-" + traceId + "-00f067aa0ba902b7-01");
+        intake.start();
+        awaitHandled(1);
+        assertEquals(List.of(traceId), handledTraceIds);
+        final SpanData span = spans.getFinishedSpanItems().get(0);
+        assertEquals("slack.intake", span.getName());
+        assertEquals(traceId, span.getTraceId());
+        assertEquals("00f067aa0ba902b7", span.getParentSpanId());
+    }
+
+    private void publish(final String type, final String body) throws Exception {
+        publish(type, body, null);
+    }
+
+    private void publish(final String type, final String body, final String traceParent) throws Exception {
+        try (Connection connection = connectionFactory.createConnection();
+             Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+             MessageProducer producer = session.createProducer(session.createQueue(QUEUE))) {
+            final TextMessage request = session.createTextMessage(body);
+            request.setStringProperty(JmsMessageIntake.TYPE_PROPERTY, type);
+            if (traceParent != null) {
+                request.setStringProperty("traceparent", traceParent);
+            }
+            producer.send(request);
+        }
+    }
+
+    private void awaitHandled(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (handled.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(handled.size() >= count);
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.client.InMemoryEntityTransport;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BatchLoaderTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final InMemoryEntityTransport transport = new InMemoryEntityTransport();
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void coalescesAndBatchesLoads() throws Exception {
+        transport.put(String.class, 1L, "one");
+        transport.put(String.class, 2L, "two");
+        final BatchLoader<String> loader = loader(Duration.ofMinutes(5), Duration.ofMinutes(4));
+        final CompletableFuture<String> first = loader.load(1L);
+        final CompletableFuture<String> again = loader.load(1L);
+        final CompletableFuture<String> second = loader.load(2L);
+        final CompletableFuture<String> missing = loader.load(3L);
+        assertSame(first, again);
+        assertEquals("one", first.get(5, TimeUnit.SECONDS));
+        assertEquals("two", second.get(5, TimeUnit.SECONDS));
+        assertNull(missing.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(Set.of(1L, 2L, 3L)), transport.getCalls());
+    }
+
+    @Test
+    void servesCachedEntitiesUntilTheyExpire() throws Exception {
+        transport.put(String.class, 1L, "one");
+        final BatchLoader<String> loader = loader(Duration.ofMillis(200), Duration.ofMillis(200));
+        assertEquals("one", loader.load(1L).get(5, TimeUnit.SECONDS));
+        final CompletableFuture<String> cached = loader.load(1L);
+        assertEquals("one", cached.getNow(null));
+        assertEquals(1, transport.getCalls().size());
+        Thread.sleep(250);
+        transport.put(String.class, 1L, "uno");
+        assertEquals("uno", loader.load(1L).get(5, TimeUnit.SECONDS));
+        assertEquals(2, transport.getCalls().size());
+    }
+
+    @Test
+    void refreshesAheadOfExpiry() throws Exception {
+        transport.put(String.class, 1L, "one");
+        final BatchLoader<String> loader = loader(Duration.ofMinutes(5), Duration.ofMillis(100));
+        assertEquals("one", loader.load(1L).get(5, TimeUnit.SECONDS));
+        Thread.sleep(150);
+        transport.put(String.class, 1L, "uno");
+        assertEquals("one", loader.load(1L).getNow(null));
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (transport.getCalls().size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals("uno", loader.load(1L).getNow(null));
+    }
+
+    private BatchLoader<String> loader(final Duration ttl, final Duration refreshAfter) {
+        final ApplicationProperties.Loader settings = new ApplicationProperties.Loader();
+        settings.setBatchWindow(Duration.ofMillis(20));
+        settings.setTtl(ttl);
+        settings.setRefreshAfter(refreshAfter);
+        return new BatchLoader<>(String.class, transport, scheduler, settings, new SimpleMeterRegistry());
+    }
+
+}
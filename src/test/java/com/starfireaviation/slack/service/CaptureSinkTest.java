@@ -0,0 +1,108 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.config.CommonConstants;
+import com.starfireaviation.slack.model.CapturedMessage;
+import com.starfireaviation.slack.model.MessageType;
+import com.starfireaviation.slack.model.OutboundMessage;
+import com.starfireaviation.slack.model.ShadowSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CaptureSinkTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void capturesDispatchedMessagesInsteadOfSending() throws Exception {
+        final ApplicationProperties props = new ApplicationProperties();
+        props.getShadow().setEnabled(true);
+        props.getShadow().setSampleRate(1.0);
+        props.getShadow().setSimulatedLatency(Duration.ofMillis(5));
+        final CaptureSink sink = new CaptureSink(props.getShadow(), registry);
+        final OutboundDispatcher dispatcher = new OutboundDispatcher(new SlackSessionPool(props),
+                new CaptureDelivery(sink, props.getShadow().getSimulatedLatency()),
+                new DeadLetterStore(10, registry), props, registry);
+        dispatcher.start();
+        try {
+            for (int i = 0; i < 20; i++) {
+                assertTrue(dispatcher.enqueue(new OutboundMessage(MessageType.EVENT_UPCOMING,
+                        CommonConstants.DEFAULT_ORGANIZATION, "pilot" + i, "Hello ✈")));
+            }
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (sink.getSummary().getCaptured() < 20 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            dispatcher.shutdown();
+        }
+
+        final ShadowSummary summary = sink.getSummary();
+        assertEquals(20, summary.getCaptured());
+        assertEquals(20L * 9, summary.getBytes());
+        assertEquals(20L, summary.getByType().get(MessageType.EVENT_UPCOMING));
+        assertEquals(20, summary.getSamples());
+        assertTrue(summary.getMaxQueuedMillis() >= summary.getMeanQueuedMillis());
+        assertEquals(20, registry.get("slack.shadow.queued").timer().count());
+        final CapturedMessage sample = sink.getSamples().get(0);
+        assertEquals("Hello ✈", sample.getText());
+        assertEquals("pilot0", sample.getRecipient());
+    }
+
+    @Test
+    void keepsBoundedSampleOfPayloads() {
+        final ApplicationProperties.Shadow settings = new ApplicationProperties.Shadow();
+        settings.setSampleRate(1.0);
+        settings.setSampleCapacity(3);
+        final CaptureSink sink = new CaptureSink(settings, registry);
+        for (int i = 0; i < 10; i++) {
+            sink.capture(new OutboundMessage(MessageType.QUESTION_ASKED, CommonConstants.DEFAULT_ORGANIZATION,
+                    "pilot", "Q" + i));
+        }
+
+        final List<CapturedMessage> samples = sink.getSamples();
+        assertEquals(3, samples.size());
+        assertEquals("Q7", samples.get(0).getText());
+        assertEquals(10, sink.getSummary().getCaptured());
+        assertEquals(3, sink.clearSamples());
+        assertTrue(sink.getSamples().isEmpty());
+    }
+
+    @Test
+    void keepsNoPayloadsAtZeroSampleRate() {
+        final ApplicationProperties.Shadow settings = new ApplicationProperties.Shadow();
+        settings.setSampleRate(0.0);
+        final CaptureSink sink = new CaptureSink(settings, registry);
+        for (int i = 0; i < 100; i++) {
+            sink.capture(new OutboundMessage(MessageType.QUESTION_ASKED, CommonConstants.DEFAULT_ORGANIZATION,
+                    "pilot", "Q" + i));
+        }
+
+        assertEquals(100, sink.getSummary().getCaptured());
+        assertTrue(sink.getSamples().isEmpty());
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.config.CommonConstants;
+import com.starfireaviation.slack.model.DirectorySnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DirectoryRefresherTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadsSnapshotsAtStartup() throws Exception {
+        final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        objectMapper.writeValue(directory.resolve(CommonConstants.DEFAULT_ORGANIZATION + ".json").toFile(),
+                new DirectorySnapshot(new HashMap<>(Map.of("pilot", "U1")), new HashMap<>(), Instant.now()));
+        final ApplicationProperties props = new ApplicationProperties();
+        props.getDirectory().setSnapshotDir(directory.toString());
+        final SlackSessionPool pool = new SlackSessionPool(props);
+        final DirectoryRefresher refresher =
+                new DirectoryRefresher(pool, objectMapper, props.getDirectory(), new SimpleMeterRegistry());
+        refresher.start();
+        assertEquals("U1", pool.get(CommonConstants.DEFAULT_ORGANIZATION).getDirectory().findUserId("pilot"));
+        assertEquals("pilot", pool.get(CommonConstants.DEFAULT_ORGANIZATION).resolveUserName("U1"));
+        refresher.shutdown();
+    }
+
+}
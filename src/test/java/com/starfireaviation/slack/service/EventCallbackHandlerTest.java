@@ -0,0 +1,84 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventCallbackHandlerTest {
+
+    private static final String EVENT = "{\"type\":\"event_callback\",\"event_id\":\"%s\","
+            + "\"event\":{\"type\":\"message\",\"user\":\"U1\",\"text\":\"A\"}}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final List<Runnable> handled = new ArrayList<>();
+
+    private boolean accepting = true;
+
+    private final EventCallbackHandler handler = new EventCallbackHandler(
+            new MessageService(null, null, null, null, null, null, null),
+            command -> {
+                if (!accepting) {
+                    throw new RejectedExecutionException("full");
+                }
+                handled.add(command);
+            }, 2, registry);
+
+    @Test
+    void skipsRetriedEvents() throws Exception {
+        assertTrue(handler.onEventCallback("default", event("Ev1")));
+        assertTrue(handler.onEventCallback("default", event("Ev1")));
+        assertTrue(handler.onEventCallback("other", event("Ev1")));
+        assertEquals(2, handled.size());
+        assertEquals(1.0, registry.counter("slack.events.duplicates").count());
+    }
+
+    @Test
+    void handlesRetriesOfRejectedEvents() throws Exception {
+        accepting = false;
+        assertFalse(handler.onEventCallback("default", event("Ev1")));
+        accepting = true;
+        assertTrue(handler.onEventCallback("default", event("Ev1")));
+        assertEquals(1, handled.size());
+    }
+
+    @Test
+    void remembersOnlyTheMostRecentEvents() throws Exception {
+        handler.onEventCallback("default", event("Ev1"));
+        handler.onEventCallback("default", event("Ev2"));
+        handler.onEventCallback("default", event("Ev3"));
+        handler.onEventCallback("default", event("Ev1"));
+        assertEquals(4, handled.size());
+    }
+
+    private JsonNode event(final String eventId) throws Exception {
+        return mapper.readTree(String.format(EVENT, eventId));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.model.ResponseOption;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.jfr.ParseEvent;
+import com.starfireaviation.slack.jfr.RenderEvent;
+import com.starfireaviation.slack.util.ResponseParser;
+import freemarker.template.Configuration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecordingTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void bundledProfileRecordsRenderAndParseEvents() throws Exception {
+        Files.writeString(directory.resolve("greeting.ftl"), "Héllo ${name}");
+        final TemplateCache cache = new TemplateCache(new Configuration(Configuration.VERSION_2_3_31),
+                directory.toString(), new SimpleMeterRegistry());
+        cache.start();
+        final List<RecordedEvent> events;
+        try (Recording recording = new Recording(FlightRecording.profileSettings())) {
+            recording.start();
+            cache.render("greeting.ftl", Map.of("name", "Pilot"));
+            assertEquals(ResponseOption.STOP, ResponseParser.determineResponse("stop"));
+            recording.stop();
+            events = read(recording);
+        } finally {
+            cache.shutdown();
+        }
+
+        final RecordedEvent render = only(events, RenderEvent.NAME);
+        assertEquals("greeting.ftl", render.getString("template"));
+        assertEquals("Héllo Pilot".getBytes("UTF-8").length, render.getLong("bytes"));
+        final RecordedEvent parse = only(events, ParseEvent.NAME);
+        assertEquals("STOP", parse.getString("outcome"));
+        assertEquals(4, parse.getInt("length"));
+    }
+
+    @Test
+    void eventsAreOffWithoutProfile() throws Exception {
+        final List<RecordedEvent> events;
+        try (Recording recording = new Recording(jdk.jfr.Configuration.getConfiguration("default"))) {
+            recording.start();
+            ResponseParser.determineResponse("A");
+            recording.stop();
+            events = read(recording);
+        }
+        assertTrue(events.stream().noneMatch(event -> event.getEventType().getName().equals(ParseEvent.NAME)));
+    }
+
+    @Test
+    void continuousRecordingIsDumpedOnShutdown() throws Exception {
+        final ApplicationProperties.Profiling settings = new ApplicationProperties.Profiling();
+        settings.setEnabled(true);
+        settings.setDirectory(directory.resolve("jfr").toString());
+        final FlightRecording flightRecording = new FlightRecording(settings);
+        flightRecording.start();
+        assertTrue(flightRecording.isRecording());
+        ResponseParser.determineResponse("B");
+        flightRecording.shutdown();
+        assertFalse(flightRecording.isRecording());
+
+        final List<Path> dumps;
+        try (Stream<Path> files = Files.list(directory.resolve("jfr"))) {
+            dumps = files.collect(Collectors.toList());
+        }
+        assertEquals(1, dumps.size());
+        assertTrue(RecordingFile.readAllEvents(dumps.get(0)).stream()
+                .anyMatch(event -> event.getEventType().getName().equals(ParseEvent.NAME)));
+    }
+
+    private List<RecordedEvent> read(final Recording recording) throws Exception {
+        final Path dump = Files.createTempFile(directory, "test", ".jfr");
+        recording.dump(dump);
+        return RecordingFile.readAllEvents(dump);
+    }
+
+    private static RecordedEvent only(final List<RecordedEvent> events, final String name) {
+        final List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
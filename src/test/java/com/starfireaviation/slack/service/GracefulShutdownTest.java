@@ -0,0 +1,131 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.config.CommonConstants;
+import com.starfireaviation.slack.model.MessageType;
+import com.starfireaviation.slack.model.OutboundMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GracefulShutdownTest {
+
+    private final List<OutboundMessage> delivered = new CopyOnWriteArrayList<>();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void drainsQueueBeforeStopping() {
+        final OutboundDispatcher dispatcher = dispatcher(1000.0);
+        final GracefulShutdown shutdown = shutdown(dispatcher);
+        dispatcher.start();
+        shutdown.start();
+        for (int i = 0; i < 20; i++) {
+            dispatcher.enqueue(new OutboundMessage(MessageType.EVENT_UPCOMING, CommonConstants.DEFAULT_ORGANIZATION,
+                    "user" + i, ""));
+        }
+        shutdown.stop();
+        assertEquals(20, delivered.size());
+        assertFalse(Files.exists(spool("a").getFile()));
+    }
+
+    @Test
+    void spoolsLeftoverMessagesForNextInstance() {
+        final OutboundDispatcher dispatcher = dispatcher(0.001);
+        final GracefulShutdown shutdown = shutdown(dispatcher);
+        dispatcher.start();
+        shutdown.start();
+        for (int i = 0; i < 5; i++) {
+            dispatcher.enqueue(new OutboundMessage(MessageType.EVENT_UPCOMING, CommonConstants.DEFAULT_ORGANIZATION,
+                    "user" + i, ""));
+        }
+        shutdown.stop();
+        assertEquals(1, delivered.size());
+        assertTrue(Files.exists(spool("a").getFile()));
+        assertEquals(4.0, meterRegistry.counter("slack.shutdown.spooled").count());
+
+        final OutboundDispatcher next = dispatcher(0.001);
+        shutdown(next, "b").start();
+        assertEquals(4, next.getPendingCount());
+        assertFalse(Files.exists(spool("a").getFile()));
+        next.shutdown();
+    }
+
+    @Test
+    void keepsEachInstancesSpoolSeparate() throws Exception {
+        spool("a").write(List.of(message("user1"), message("user2")));
+        spool("b").write(List.of(message("user3")));
+        assertEquals(3, spool("c").restore().size());
+        assertTrue(spool("d").restore().isEmpty());
+        try (Stream<Path> files = Files.list(directory.resolve("spool"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static OutboundMessage message(final String user) {
+        return new OutboundMessage(MessageType.EVENT_UPCOMING, CommonConstants.DEFAULT_ORGANIZATION, user, "");
+    }
+
+    private OutboundDispatcher dispatcher(final double perSecond) {
+        final ApplicationProperties props = new ApplicationProperties();
+        final ApplicationProperties.Organization organization = new ApplicationProperties.Organization();
+        organization.setMessagesPerSecond(perSecond);
+        organization.setBurst(1);
+        organization.setInteractiveReserve(0);
+        props.getOrganizations().put(CommonConstants.DEFAULT_ORGANIZATION, organization);
+        return new OutboundDispatcher(new SlackSessionPool(props), (session, message) -> {
+            delivered.add(message);
+            return CompletableFuture.completedFuture(null);
+        }, new DeadLetterStore(10, meterRegistry), props, meterRegistry);
+    }
+
+    private GracefulShutdown shutdown(final OutboundDispatcher dispatcher) {
+        return shutdown(dispatcher, "a");
+    }
+
+    private GracefulShutdown shutdown(final OutboundDispatcher dispatcher, final String instance) {
+        final ApplicationProperties props = new ApplicationProperties();
+        final MessageService messageService =
+                new MessageService(props, null, null, new SlackSessionPool(props), dispatcher, null, null);
+        return new GracefulShutdown(null, dispatcher, spool(instance),
+                messageService, Duration.ofMillis(200), meterRegistry);
+    }
+
+    private OutboundSpool spool(final String instance) {
+        return new OutboundSpool(directory.resolve("spool/outbound.json").toString(), instance, new ObjectMapper());
+    }
+
+}
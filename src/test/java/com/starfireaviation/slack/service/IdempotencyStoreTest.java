@@ -0,0 +1,134 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starfireaviation.model.Message;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.MessageType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyStoreTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ApplicationProperties.Idempotency settings = new ApplicationProperties.Idempotency();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void suppressesRepeatedRequestsUntilReleased() {
+        final IdempotencyStore store = new IdempotencyStore(settings, new ObjectMapper(), meterRegistry);
+        final String key = store.keyOf(MessageType.EVENT_RSVP, message("event 7"), null);
+        assertEquals(key, store.keyOf(MessageType.EVENT_RSVP, message("event 7"), null));
+        assertNotEquals(key, store.keyOf(MessageType.EVENT_UPCOMING, message("event 7"), null));
+        assertNotEquals(key, store.keyOf(MessageType.EVENT_RSVP, message("event 8"), null));
+        assertEquals("EVENT_RSVP:abc", store.keyOf(MessageType.EVENT_RSVP, message("event 7"), "abc"));
+
+        assertTrue(store.claim(key));
+        assertFalse(store.claim(key));
+        assertEquals(1.0, meterRegistry.counter("slack.idempotency.suppressed").count());
+        store.release(key);
+        assertTrue(store.claim(key));
+    }
+
+    @Test
+    void deliversRepeatedPasswordResets() {
+        final IdempotencyStore store = new IdempotencyStore(settings, new ObjectMapper(), meterRegistry);
+        assertNull(store.keyOf(MessageType.PASSWORD_RESET, message("user 3"), null));
+        assertNull(store.keyOf(MessageType.USER_SETTINGS_CHANGE, message("user 3"), null));
+        final String key = store.keyOf(MessageType.PASSWORD_RESET, message("user 3"), "reset-1");
+        assertTrue(store.claim(key));
+        assertFalse(store.claim(key));
+        assertTrue(store.claim(store.keyOf(MessageType.PASSWORD_RESET, message("user 3"), "reset-2")));
+    }
+
+    @Test
+    void forgetsKeysAfterWindowAndWhenFull() throws Exception {
+        settings.setWindow(Duration.ofMillis(50));
+        settings.setMaxKeys(2);
+        final IdempotencyStore store = new IdempotencyStore(settings, new ObjectMapper(), meterRegistry);
+        assertTrue(store.claim("a"));
+        assertTrue(store.claim("b"));
+        assertTrue(store.claim("c"));
+        assertEquals(2, store.size());
+        assertTrue(store.claim("a"));
+        assertEquals(2.0, meterRegistry.counter("slack.idempotency.evicted").count());
+        Thread.sleep(100);
+        assertTrue(store.claim("c"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void reloadsPersistedKeys() throws Exception {
+        settings.setFile(directory.resolve("keys.bin").toString());
+        final IdempotencyStore first = new IdempotencyStore(settings, new ObjectMapper(), meterRegistry);
+        first.load();
+        assertTrue(first.claim("sent"));
+        assertTrue(first.claim("rejected"));
+        first.release("rejected");
+        first.shutdown();
+
+        final IdempotencyStore second = new IdempotencyStore(settings, new ObjectMapper(), meterRegistry);
+        second.load();
+        assertEquals(1, second.size());
+        assertFalse(second.claim("sent"));
+        assertTrue(second.claim("rejected"));
+        second.shutdown();
+    }
+
+    @Test
+    void compactsFileWhileKeysAreClaimedAndReleasedRepeatedly() throws Exception {
+        final Path file = directory.resolve("keys.bin");
+        settings.setFile(file.toString());
+        final IdempotencyStore store = new IdempotencyStore(settings, new ObjectMapper(), meterRegistry);
+        store.load();
+        assertTrue(store.claim("sent"));
+        for (int i = 0; i < 20000; i++) {
+            assertTrue(store.claim("redelivered"));
+            store.release("redelivered");
+        }
+        assertTrue(Files.size(file) < 100000L);
+        store.shutdown();
+
+        final IdempotencyStore reloaded = new IdempotencyStore(settings, new ObjectMapper(), meterRegistry);
+        reloaded.load();
+        assertEquals(1, reloaded.size());
+        assertFalse(reloaded.claim("sent"));
+        assertTrue(reloaded.claim("redelivered"));
+        reloaded.shutdown();
+    }
+
+    private static Message message(final String body) {
+        final Message message = new Message();
+        message.setBody(body);
+        return message;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InboundAdmissionTest {
+
+    private static final String ORGANIZATION = "default";
+
+    private final AtomicLong now = new AtomicLong(1L);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void limitsEachUserWithinSlidingWindow() {
+        final InboundAdmission admission = admission(3, 100);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(admission.admit(ORGANIZATION, "U1"));
+        }
+        assertFalse(admission.admit(ORGANIZATION, "U1"));
+        assertTrue(admission.admit(ORGANIZATION, "U2"));
+        assertEquals(1.0, registry.get("slack.inbound.rejected").counter().count());
+
+        advance(5);
+        assertFalse(admission.admit(ORGANIZATION, "U1"), "previous window still weighs fully");
+        advance(6);
+        assertTrue(admission.admit(ORGANIZATION, "U1"), "part of the previous window has slid out");
+        assertFalse(admission.admit(ORGANIZATION, "U1"));
+        advance(25);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(admission.admit(ORGANIZATION, "U1"));
+        }
+        assertFalse(admission.admit(ORGANIZATION, "U1"));
+    }
+
+    @Test
+    void forgetsIdleAndLeastRecentlyActiveUsers() {
+        final InboundAdmission admission = admission(1, 2);
+        admission.admit(ORGANIZATION, "U1");
+        admission.admit(ORGANIZATION, "U2");
+        admission.admit(ORGANIZATION, "U3");
+        assertEquals(2, admission.getTrackedUsers());
+        assertTrue(admission.admit(ORGANIZATION, "U1"), "evicted user starts over");
+
+        advance(60);
+        admission.admit(ORGANIZATION, "U4");
+        assertEquals(1, admission.getTrackedUsers());
+    }
+
+    private InboundAdmission admission(final int maxMessages, final int maxUsers) {
+        final ApplicationProperties.Admission settings = new ApplicationProperties.Admission();
+        settings.setMaxMessages(maxMessages);
+        settings.setWindow(Duration.ofSeconds(10));
+        settings.setIdleExpiry(Duration.ofSeconds(30));
+        settings.setMaxUsers(maxUsers);
+        return new InboundAdmission(settings, registry, now::get);
+    }
+
+    private void advance(final long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.model.RecordedMessage;
+import com.starfireaviation.slack.model.ReplayReport;
+import com.starfireaviation.slack.util.InboundLogReader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InboundRecorderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsAnonymizedMessagesAndReplaysThem() throws Exception {
+        final ApplicationProperties.Recorder settings = new ApplicationProperties.Recorder();
+        settings.setEnabled(true);
+        settings.setDirectory(directory.toString());
+        final InboundRecorder recorder = new InboundRecorder(settings, new SimpleMeterRegistry());
+        recorder.start();
+        recorder.record("default", "pilot", "A");
+        recorder.record("default", "pilot", "hello there");
+        recorder.record("other", "student", "STOP");
+        recorder.shutdown();
+
+        final List<RecordedMessage> messages;
+        try (InputStream input = Files.newInputStream(recorder.getFile());
+             InboundLogReader reader = new InboundLogReader(input)) {
+            messages = reader.readAll();
+        }
+        assertEquals(3, messages.size());
+        assertEquals(messages.get(0).getUser(), messages.get(1).getUser());
+        assertNotEquals("pilot", messages.get(0).getUser());
+        assertNotEquals(messages.get(0).getUser(), messages.get(2).getUser());
+        assertEquals("A", messages.get(0).getText());
+        assertEquals("xxxxxxxxxxx", messages.get(1).getText());
+        assertEquals("STOP", messages.get(2).getText());
+        assertEquals("other", messages.get(2).getOrganization());
+        assertTrue(messages.get(1).getOffsetNanos() >= messages.get(0).getOffsetNanos());
+
+        final List<RecordedMessage> replayed = new CopyOnWriteArrayList<>();
+        final ReplayReport report = new InboundReplayer(replayed::add, 2, 10).replay(recorder.getFile(), 0);
+        assertEquals(3, report.getReplayed());
+        assertEquals(0, report.getDropped());
+        assertEquals(3, replayed.size());
+    }
+
+    @Test
+    void keepsRecordedPaceAtSpeed() throws Exception {
+        final List<RecordedMessage> messages = List.of(
+                new RecordedMessage(0L, "default", "a", "A"),
+                new RecordedMessage(Duration.ofMillis(100).toNanos(), "default", "b", "B"),
+                new RecordedMessage(Duration.ofMillis(200).toNanos(), "default", "c", "C"));
+        final ReplayReport report = new InboundReplayer(message -> { }, 1, 10).replay(messages, 2.0);
+        assertEquals(3, report.getReplayed());
+        assertTrue(report.getElapsed().toMillis() >= 100);
+    }
+
+    @Test
+    void reportsDropsWhenWorkersAreSaturated() throws Exception {
+        final List<RecordedMessage> messages = List.of(
+                new RecordedMessage(0L, "default", "a", "A"),
+                new RecordedMessage(0L, "default", "b", "A"),
+                new RecordedMessage(0L, "default", "c", "A"),
+                new RecordedMessage(0L, "default", "d", "A"),
+                new RecordedMessage(0L, "default", "e", "A"));
+        final ReplayReport report = new InboundReplayer(message -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 1, 1).replay(messages, 0);
+        assertEquals(2, report.getReplayed());
+        assertEquals(3, report.getDropped());
+        assertTrue(report.getMaxLatency().toMillis() >= 200);
+    }
+
+}
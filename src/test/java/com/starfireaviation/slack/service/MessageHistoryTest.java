@@ -0,0 +1,150 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.config.CommonConstants;
+import com.starfireaviation.slack.exception.DeliveryException;
+import com.starfireaviation.slack.model.HistoryEntry;
+import com.starfireaviation.slack.model.MessageType;
+import com.starfireaviation.slack.model.OutboundMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageHistoryTest {
+
+    private static final String ORGANIZATION = CommonConstants.DEFAULT_ORGANIZATION;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void answersRecentMessagesPerUserAcrossRestarts() throws Exception {
+        MessageHistory history = history(Duration.ofDays(30));
+        history.start();
+        for (int i = 0; i < 30; i++) {
+            history.record(entry("pilot", "m" + i, Instant.now()));
+        }
+        history.record(entry("student", "other", Instant.now()));
+        history.record(entry(null, "channel", Instant.now()));
+        awaitRecent(history, "student", 1);
+        history.shutdown();
+
+        history = history(Duration.ofDays(30));
+        history.start();
+        try {
+            final List<HistoryEntry> recent = history.recent(ORGANIZATION, "pilot", 5);
+            assertEquals(5, recent.size());
+            assertEquals("m29", recent.get(0).getId());
+            assertEquals("m25", recent.get(4).getId());
+            assertEquals(MessageType.EVENT_UPCOMING, recent.get(0).getType());
+            assertEquals("1.0001", recent.get(0).getTs());
+            assertEquals(1, history.recent(ORGANIZATION, "student", 10).size());
+            assertTrue(history.recent(ORGANIZATION, "nobody", 10).isEmpty());
+        } finally {
+            history.shutdown();
+        }
+    }
+
+    @Test
+    void deletesSegmentsPastRetention() throws Exception {
+        MessageHistory history = history(Duration.ofDays(30));
+        history.start();
+        history.record(entry("pilot", "old", Instant.now().minus(Duration.ofHours(5))));
+        history.record(entry("pilot", "new", Instant.now()));
+        awaitRecent(history, "pilot", 2);
+        history.shutdown();
+
+        history = history(Duration.ofHours(2));
+        history.start();
+        try {
+            final List<HistoryEntry> recent = history.recent(ORGANIZATION, "pilot", 10);
+            assertEquals(1, recent.size());
+            assertEquals("new", recent.get(0).getId());
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(1, files.count());
+            }
+        } finally {
+            history.shutdown();
+        }
+    }
+
+    @Test
+    void recordsEveryDeliveryAttempt() throws Exception {
+        final MessageHistory history = history(Duration.ofDays(30));
+        history.start();
+        try {
+            final OutboundMessage message = new OutboundMessage(MessageType.PASSWORD_RESET, ORGANIZATION,
+                    "pilot", "Reset");
+            message.setAttempts(1);
+            new HistoryDelivery((session, outbound) -> CompletableFuture.failedFuture(
+                    new DeliveryException("Slack unavailable", true)), history).deliver(null, message);
+            message.setAttempts(2);
+            new HistoryDelivery((session, outbound) -> CompletableFuture.completedFuture("1.5"), history)
+                    .deliver(null, message);
+            awaitRecent(history, "pilot", 2);
+
+            final List<HistoryEntry> recent = history.recent(ORGANIZATION, "pilot", 10);
+            assertEquals("sent", recent.get(0).getOutcome());
+            assertEquals("1.5", recent.get(0).getTs());
+            assertEquals(2, recent.get(0).getAttempt());
+            assertNull(recent.get(0).getError());
+            assertEquals("failed", recent.get(1).getOutcome());
+            assertEquals("Slack unavailable", recent.get(1).getError());
+            assertEquals(message.getId(), recent.get(1).getId());
+        } finally {
+            history.shutdown();
+        }
+    }
+
+    private MessageHistory history(final Duration retention) {
+        final ApplicationProperties.History settings = new ApplicationProperties.History();
+        settings.setEnabled(true);
+        settings.setDirectory(directory.toString());
+        settings.setRetention(retention);
+        return new MessageHistory(settings, new SimpleMeterRegistry());
+    }
+
+    private static HistoryEntry entry(final String recipient, final String id, final Instant sentAt) {
+        return new HistoryEntry(id, ORGANIZATION, recipient, MessageType.EVENT_UPCOMING, "abc123", "1.0001",
+                sentAt, 12L, 1, "sent", null);
+    }
+
+    private static void awaitRecent(final MessageHistory history, final String recipient, final int count)
+            throws Exception {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (history.recent(ORGANIZATION, recipient, count).size() < count
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, history.recent(ORGANIZATION, recipient, count).size());
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptOutIndexTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void suppressesOptedOutUsersPerOrganization() {
+        final OptOutIndex index = new OptOutIndex(null, meterRegistry);
+        index.optOut("default", "Pilot");
+        assertTrue(index.isOptedOut("default", "pilot"));
+        assertFalse(index.isOptedOut("other", "pilot"));
+        assertFalse(index.isOptedOut("default", "instructor"));
+        assertEquals(1.0, meterRegistry.counter("slack.optout.suppressed").count());
+    }
+
+    @Test
+    void suppressesUserWhoseNameWasUnresolvedAtStop() {
+        final SlackSessionPool pool = new SlackSessionPool(new ApplicationProperties());
+        final OptOutIndex index = new OptOutIndex(null, meterRegistry);
+        index.setSlackSessionPool(pool);
+        index.optOut("default", "U1", "U1");
+        assertFalse(index.isOptedOut("default", "pilot"));
+
+        pool.get("default").getDirectory().rememberUser("pilot", "U1");
+        assertTrue(index.isOptedOut("default", "pilot"));
+        assertFalse(index.isOptedOut("default", "instructor"));
+    }
+
+    @Test
+    void suppressesUserByNameAndId() {
+        final SlackSessionPool pool = new SlackSessionPool(new ApplicationProperties());
+        final OptOutIndex index = new OptOutIndex(null, meterRegistry);
+        index.setSlackSessionPool(pool);
+        index.optOut("default", "pilot", "U1");
+        assertEquals(2, index.size());
+        assertTrue(index.isOptedOut("default", "pilot"));
+
+        pool.get("default").getDirectory().rememberUser("renamed", "U1");
+        assertTrue(index.isOptedOut("default", "renamed"));
+    }
+
+    @Test
+    void holdsManyUsers() {
+        final OptOutIndex index = new OptOutIndex(null, meterRegistry);
+        for (int i = 0; i < 1000; i++) {
+            index.optOut("default", "user" + i);
+        }
+        assertEquals(1000, index.size());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(index.isOptedOut("default", "user" + i));
+        }
+        assertFalse(index.isOptedOut("default", "user1000"));
+    }
+
+    @Test
+    void reloadsPersistedOptOuts() throws Exception {
+        final String file = directory.resolve("optouts/opt-outs.bin").toString();
+        final OptOutIndex index = new OptOutIndex(file, meterRegistry);
+        index.load();
+        index.optOut("default", "pilot");
+        index.optOut("default", "pilot");
+        index.optOut("other", "student");
+        final OptOutIndex restarted = new OptOutIndex(file, new SimpleMeterRegistry());
+        restarted.load();
+        assertEquals(2, restarted.size());
+        assertTrue(restarted.isOptedOut("default", "pilot"));
+        assertTrue(restarted.isOptedOut("other", "student"));
+    }
+
+}
@@ -0,0 +1,262 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.config.CommonConstants;
+import com.starfireaviation.slack.exception.DeliveryException;
+import com.starfireaviation.slack.model.MessageType;
+import com.starfireaviation.slack.model.OutboundMessage;
+import com.starfireaviation.slack.util.TracingUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundDispatcherTest {
+
+    private static final String OTHER = "other";
+
+    private final List<OutboundMessage> delivered = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger failuresRemaining = new AtomicInteger();
+
+    private final DeadLetterStore deadLetters = new DeadLetterStore(10, new SimpleMeterRegistry());
+
+    private OutboundDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void servesOrganizationsRoundRobin() throws Exception {
+        dispatcher = dispatcher(1000.0, 1000);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(dispatcher.enqueue(new OutboundMessage(
+                    MessageType.EVENT_UPCOMING, CommonConstants.DEFAULT_ORGANIZATION, "bulk" + i, "")));
+        }
+        assertTrue(dispatcher.enqueue(new OutboundMessage(MessageType.EVENT_UPCOMING, OTHER, "reset", "")));
+        dispatcher.start();
+        awaitDelivered(51);
+        int position = 0;
+        while (!OTHER.equals(delivered.get(position).getOrganization())) {
+            position++;
+        }
+        assertTrue(position <= 1, "other organization waited behind " + position + " messages");
+    }
+
+    @Test
+    void rejectsUnknownOrganization() {
+        dispatcher = dispatcher(1.0, 1);
+        assertFalse(dispatcher.enqueue(new OutboundMessage(MessageType.PASSWORD_RESET, "unknown", "user", "")));
+    }
+
+    @Test
+    void servesInteractiveLaneAheadOfBulk() throws Exception {
+        dispatcher = dispatcher(1000.0, 1000);
+        for (int i = 0; i < 50; i++) {
+            dispatcher.enqueue(new OutboundMessage(MessageType.EVENT_UPCOMING, OTHER, "bulk" + i, ""));
+        }
+        dispatcher.enqueue(new OutboundMessage(MessageType.PASSWORD_RESET, OTHER, "reset", ""));
+        dispatcher.start();
+        awaitDelivered(51);
+        int position = 0;
+        while (delivered.get(position).getType() != MessageType.PASSWORD_RESET) {
+            position++;
+        }
+        assertTrue(position <= 1, "password reset waited behind " + position + " messages");
+    }
+
+    @Test
+    void reservesBudgetForInteractiveLane() throws Exception {
+        dispatcher = dispatcher(0.001, 3);
+        for (int i = 0; i < 4; i++) {
+            dispatcher.enqueue(new OutboundMessage(MessageType.EVENT_START, OTHER, "bulk" + i, ""));
+        }
+        dispatcher.start();
+        awaitDelivered(1);
+        Thread.sleep(100);
+        assertEquals(1, delivered.size());
+        dispatcher.enqueue(new OutboundMessage(MessageType.PASSWORD_RESET, OTHER, "reset", ""));
+        awaitDelivered(2);
+        assertEquals(MessageType.PASSWORD_RESET, delivered.get(1).getType());
+        assertEquals(3, dispatcher.getPendingCount());
+    }
+
+    @Test
+    void retriesTransientFailures() throws Exception {
+        dispatcher = dispatcher(1000.0, 1000);
+        failuresRemaining.set(2);
+        dispatcher.enqueue(new OutboundMessage(MessageType.PASSWORD_RESET, OTHER, "reset", ""));
+        dispatcher.start();
+        awaitDelivered(1);
+        assertEquals(3, delivered.get(0).getAttempts());
+        assertEquals(0, deadLetters.size());
+    }
+
+    @Test
+    void deadLettersAndReplaysExhaustedMessages() throws Exception {
+        dispatcher = dispatcher(1000.0, 1000);
+        failuresRemaining.set(3);
+        dispatcher.enqueue(new OutboundMessage(MessageType.PASSWORD_RESET, OTHER, "reset", ""));
+        dispatcher.start();
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (deadLetters.size() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, deadLetters.size());
+        assertTrue(delivered.isEmpty());
+        assertTrue(dispatcher.replay(deadLetters.removeAll().get(0).getMessage()));
+        awaitDelivered(1);
+        assertEquals(1, delivered.get(0).getAttempts());
+    }
+
+    @Test
+    void deadLettersPermanentFailuresWithoutRetry() throws Exception {
+        dispatcher = new OutboundDispatcher(new SlackSessionPool(properties(1000.0, 1000)), (session, message) ->
+                CompletableFuture.failedFuture(new DeliveryException("Unknown Slack user")),
+                deadLetters, properties(1000.0, 1000), new SimpleMeterRegistry());
+        dispatcher.enqueue(new OutboundMessage(MessageType.PASSWORD_RESET, OTHER, "nobody", ""));
+        dispatcher.start();
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (deadLetters.size() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, deadLetters.list().get(0).getMessage().getAttempts());
+    }
+
+    @Test
+    void permanentFailureOfProbeClosesCircuit() throws Exception {
+        final ApplicationProperties props = properties(1000.0, 1000);
+        props.getDispatch().setMaxAttempts(1);
+        props.getDispatch().setCircuitFailureThreshold(1);
+        props.getDispatch().setCircuitOpenDuration(Duration.ofMillis(50));
+        dispatcher = new OutboundDispatcher(new SlackSessionPool(props), (session, message) -> {
+            if ("down".equals(message.getRecipient())) {
+                return CompletableFuture.failedFuture(new IOException("Slack unavailable"));
+            }
+            if ("nobody".equals(message.getRecipient())) {
+                return CompletableFuture.failedFuture(new DeliveryException("Unknown Slack user"));
+            }
+            delivered.add(message);
+            return CompletableFuture.completedFuture(null);
+        }, deadLetters, props, new SimpleMeterRegistry());
+        dispatcher.enqueue(new OutboundMessage(MessageType.PASSWORD_RESET, OTHER, "down", ""));
+        dispatcher.enqueue(new OutboundMessage(MessageType.PASSWORD_RESET, OTHER, "nobody", ""));
+        dispatcher.enqueue(new OutboundMessage(MessageType.PASSWORD_RESET, OTHER, "reset", ""));
+        dispatcher.start();
+        awaitDelivered(1);
+        assertEquals("reset", delivered.get(0).getRecipient());
+        assertEquals(2, deadLetters.size());
+    }
+
+    @Test
+    void tracesEachAttemptInTraceOfEnqueuer() throws Exception {
+        final InMemorySpanExporter spans = InMemorySpanExporter.create();
+        final Tracer tracer = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(spans))
+                .build()
+                .get("test");
+        dispatcher = dispatcher(1000.0, 1000);
+        dispatcher.setTracer(tracer);
+        failuresRemaining.set(1);
+        final Span parent = tracer.spanBuilder("notify").startSpan();
+        try (Scope ignored = parent.makeCurrent()) {
+            final OutboundMessage message = new OutboundMessage(MessageType.PASSWORD_RESET, OTHER, "reset", "");
+            message.setTraceParent(TracingUtil.currentTraceParent());
+            dispatcher.enqueue(message);
+        } finally {
+            parent.end();
+        }
+        dispatcher.start();
+        awaitDelivered(1);
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (spans.getFinishedSpanItems().size() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        final List<SpanData> finished = spans.getFinishedSpanItems();
+        assertEquals(5, finished.size());
+        for (SpanData span : finished) {
+            assertEquals(parent.getSpanContext().getTraceId(), span.getTraceId());
+        }
+        final List<SpanData> sends = finished.stream()
+                .filter(span -> span.getName().equals("slack.send"))
+                .collect(Collectors.toList());
+        assertEquals(2, sends.size());
+        assertEquals(StatusCode.ERROR, sends.get(0).getStatus().getStatusCode());
+        assertEquals("sent", sends.get(1).getAttributes().get(TracingUtil.OUTCOME));
+        assertEquals(2L, sends.get(1).getAttributes().get(TracingUtil.ATTEMPT));
+    }
+
+    private OutboundDispatcher dispatcher(final double perSecond, final int burst) {
+        final ApplicationProperties props = properties(perSecond, burst);
+        return new OutboundDispatcher(new SlackSessionPool(props), (session, message) -> {
+            if (failuresRemaining.getAndDecrement() > 0) {
+                return CompletableFuture.failedFuture(new IOException("Slack unavailable"));
+            }
+            delivered.add(message);
+            return CompletableFuture.completedFuture(null);
+        }, deadLetters, props, new SimpleMeterRegistry());
+    }
+
+    private ApplicationProperties properties(final double perSecond, final int burst) {
+        final ApplicationProperties props = new ApplicationProperties();
+        final ApplicationProperties.Organization other = new ApplicationProperties.Organization();
+        other.setMessagesPerSecond(perSecond);
+        other.setBurst(burst);
+        props.getOrganizations().put(OTHER, other);
+        final ApplicationProperties.Organization bulk = new ApplicationProperties.Organization();
+        bulk.setMessagesPerSecond(perSecond);
+        bulk.setBurst(burst);
+        props.getOrganizations().put(CommonConstants.DEFAULT_ORGANIZATION, bulk);
+        props.getDispatch().setMaxAttempts(3);
+        props.getDispatch().setRetryInitialBackoff(Duration.ofMillis(10));
+        props.getDispatch().setRetryMaxBackoff(Duration.ofMillis(50));
+        return props;
+    }
+
+    private void awaitDelivered(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (delivered.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(delivered.size() >= count);
+    }
+
+}
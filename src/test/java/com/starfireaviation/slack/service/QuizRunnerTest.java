@@ -0,0 +1,150 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.model.Question;
+import com.starfireaviation.model.ResponseOption;
+import com.starfireaviation.model.User;
+import com.starfireaviation.slack.client.InMemoryEntityTransport;
+import com.starfireaviation.slack.client.SlackSessionPool;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.config.CommonConstants;
+import com.starfireaviation.slack.model.MessageType;
+import com.starfireaviation.slack.model.OutboundMessage;
+import freemarker.template.Configuration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuizRunnerTest {
+
+    private static final String ORGANIZATION = CommonConstants.DEFAULT_ORGANIZATION;
+
+    private static final String STUDENT = "student";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final InMemoryEntityTransport transport = new InMemoryEntityTransport();
+
+    private final List<OutboundMessage> delivered = new CopyOnWriteArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    private EntityLoader entityLoader;
+
+    private TemplateCache templateCache;
+
+    private OutboundDispatcher dispatcher;
+
+    private QuizRunner runner;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        final ApplicationProperties props = new ApplicationProperties();
+        for (long id = 1; id <= 3; id++) {
+            final Question question = new Question();
+            question.setText("Question " + id);
+            transport.put(Question.class, id, question);
+        }
+        user = new User();
+        user.setSlack(STUDENT);
+        Files.writeString(directory.resolve("question.ftl"), "${questionText}");
+        Files.writeString(directory.resolve("quiz_complete.ftl"), "Quiz complete");
+        entityLoader = new EntityLoader(transport, props.getLoader(), registry);
+        templateCache = new TemplateCache(new Configuration(Configuration.VERSION_2_3_31), directory.toString(),
+                registry);
+        templateCache.start();
+        dispatcher = new OutboundDispatcher(new SlackSessionPool(props), (session, message) -> {
+            delivered.add(message);
+            return CompletableFuture.completedFuture(null);
+        }, new DeadLetterStore(10, registry), props, registry);
+        dispatcher.start();
+        runner = new QuizRunner(props, entityLoader, templateCache, dispatcher, new OptOutIndex(null, registry),
+                registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.shutdown();
+        dispatcher.shutdown();
+        templateCache.shutdown();
+        entityLoader.shutdown();
+    }
+
+    @Test
+    void prefetchesNextQuestionAndSendsItOnReply() throws Exception {
+        assertTrue(runner.start(ORGANIZATION, user, List.of(1L, 2L, 3L)));
+        assertFalse(runner.start(ORGANIZATION, user, List.of(1L)), "one session per student");
+        await(() -> delivered.size() == 1);
+        await(() -> transport.getCalls().stream().anyMatch(ids -> ids.contains(2L)));
+
+        runner.onResponse(ORGANIZATION, STUDENT, ResponseOption.B);
+        await(() -> delivered.size() == 2);
+        runner.onResponse(ORGANIZATION, STUDENT, ResponseOption.CONFIRM);
+        runner.onResponse(ORGANIZATION, STUDENT, ResponseOption.SKIP);
+        await(() -> delivered.size() == 3);
+        runner.onResponse(ORGANIZATION, STUDENT, ResponseOption.A);
+        await(() -> delivered.size() == 4);
+
+        assertTrue(delivered.get(0).getText().contains("Question 1"));
+        assertTrue(delivered.get(1).getText().contains("Question 2"));
+        assertTrue(delivered.get(2).getText().contains("Question 3"));
+        assertEquals(MessageType.QUIZ_COMPLETE, delivered.get(3).getType());
+        assertEquals(2L, registry.get("slack.quiz.next").timer().count());
+        assertEquals(1.0, registry.get("slack.quiz.sessions").tag("outcome", "completed").counter().count());
+        assertTrue(runner.getSessions().isEmpty());
+    }
+
+    @Test
+    void stopEndsSession() throws Exception {
+        assertTrue(runner.start(ORGANIZATION, user, List.of(1L, 2L, 3L)));
+        await(() -> delivered.size() == 1);
+        assertEquals(1, runner.getSessions().size());
+
+        runner.onResponse(ORGANIZATION, STUDENT, ResponseOption.STOP);
+        runner.onResponse(ORGANIZATION, STUDENT, ResponseOption.A);
+        Thread.sleep(100);
+        assertEquals(1, delivered.size());
+        assertTrue(runner.getSessions().isEmpty());
+        assertEquals(1.0, registry.get("slack.quiz.sessions").tag("outcome", "stopped").counter().count());
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.model.ResponseOption;
+import com.starfireaviation.slack.client.InMemoryResponseTransport;
+import com.starfireaviation.slack.config.ApplicationProperties;
+import com.starfireaviation.slack.config.CommonConstants;
+import com.starfireaviation.slack.model.UserResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseSinkTest {
+
+    private final InMemoryResponseTransport transport = new InMemoryResponseTransport();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ResponseSink sink;
+
+    @BeforeEach
+    void setUp() {
+        final ApplicationProperties props = new ApplicationProperties();
+        props.getResponses().setBatchSize(3);
+        props.getResponses().setFlushInterval(Duration.ofMillis(100));
+        props.getResponses().setMaxRetries(2);
+        props.getResponses().setRetryBackoff(Duration.ofMillis(1));
+        sink = new ResponseSink(transport, props, meterRegistry);
+        sink.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sink.shutdown();
+    }
+
+    @Test
+    void flushesFullBatchesBySize() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            sink.offer(response("user" + i));
+        }
+        awaitBatches(2);
+        assertEquals(3, transport.getBatches().get(0).size());
+        assertEquals(3, transport.getBatches().get(1).size());
+    }
+
+    @Test
+    void flushesPartialBatchAfterInterval() throws Exception {
+        sink.offer(response("user"));
+        awaitBatches(1);
+        assertEquals(1, transport.getBatches().get(0).size());
+        assertTrue(meterRegistry.get("slack.responses.flush.latency").timer().count() > 0);
+    }
+
+    @Test
+    void retriesFailedBatches() throws Exception {
+        transport.failNext(2);
+        sink.offer(response("user"));
+        awaitBatches(1);
+        assertEquals(2.0, meterRegistry.get("slack.responses.flush.failures").counter().count());
+        assertEquals(0.0, meterRegistry.get("slack.responses.dropped").counter().count());
+    }
+
+    @Test
+    void finishesRetryingBatchAtShutdown() throws Exception {
+        final ApplicationProperties props = new ApplicationProperties();
+        props.getResponses().setFlushInterval(Duration.ofMillis(10));
+        props.getResponses().setRetryBackoff(Duration.ofMillis(200));
+        props.getResponses().setDrainTimeout(Duration.ofSeconds(5));
+        final InMemoryResponseTransport slow = new InMemoryResponseTransport();
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final ResponseSink retrying = new ResponseSink(slow, props, registry);
+        retrying.start();
+        slow.failNext(1);
+        retrying.offer(response("user"));
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (registry.get("slack.responses.flush.failures").counter().count() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        retrying.shutdown();
+        assertEquals(1, slow.getBatches().size());
+        assertEquals(0.0, registry.get("slack.responses.dropped").counter().count());
+    }
+
+    private static UserResponse response(final String user) {
+        return new UserResponse(CommonConstants.DEFAULT_ORGANIZATION, user, ResponseOption.CONFIRM, "CONFIRM", Instant.now());
+    }
+
+    private void awaitBatches(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (transport.getBatches().size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, transport.getBatches().size());
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.service;
+
+import com.starfireaviation.slack.model.RenderedTemplate;
+import com.starfireaviation.slack.model.TemplateModel;
+import com.starfireaviation.slack.template.CompiledTemplates;
+import freemarker.template.Configuration;
+import freemarker.template.TemplateException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TemplateCacheTest {
+
+    private static final String NAME = "greeting.ftl";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    private TemplateCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.writeString(directory.resolve(NAME), "Hello ${name}");
+        cache = new TemplateCache(new Configuration(Configuration.VERSION_2_3_31), directory.toString(),
+                meterRegistry);
+        cache.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void loadsBundledTemplates() throws Exception {
+        assertTrue(cache.getVersion("question.ftl") > 0);
+    }
+
+    @Test
+    void rendersWaitForBackgroundWarmUp() throws Exception {
+        final TemplateCache background = new TemplateCache(new Configuration(Configuration.VERSION_2_3_31),
+                directory.toString(), meterRegistry);
+        background.setBackgroundWarmUp(true);
+        background.start();
+        try {
+            assertEquals("Hello Pilot", background.render(NAME, Map.of("name", "Pilot")).getText());
+            assertTrue(background.getVersion("question.ftl") > 0);
+            assertEquals(-1L, background.getVersion("missing.ftl"));
+        } finally {
+            background.shutdown();
+        }
+    }
+
+    @Test
+    void swapsChangedTemplate() throws Exception {
+        final RenderedTemplate first = cache.render(NAME, Map.of("name", "Pilot"));
+        assertEquals("Hello Pilot", first.getText());
+        Files.writeString(directory.resolve(NAME), "Welcome ${name}");
+        awaitVersionAfter(first.getVersion());
+        final RenderedTemplate second = cache.render(NAME, Map.of("name", "Pilot"));
+        assertEquals("Welcome Pilot", second.getText());
+        assertTrue(second.getVersion() > first.getVersion());
+    }
+
+    @Test
+    void keepsPreviousVersionWhenParsingFails() throws Exception {
+        final long version = cache.getVersion(NAME);
+        Files.writeString(directory.resolve(NAME), "Hello ${name");
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.counter("slack.templates.reload.failures").count() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(version, cache.getVersion(NAME));
+        assertEquals("Hello Pilot", cache.render(NAME, Map.of("name", "Pilot")).getText());
+    }
+
+    @Test
+    void compiledTemplatesRenderLikeFreeMarker() throws Exception {
+        final TemplateModel model = fullModel();
+        assertFalse(CompiledTemplates.all().isEmpty());
+        for (String name : CompiledTemplates.all().keySet()) {
+            assertEquals(cache.render(name, model.toMap()).getText(), cache.render(name, model).getText(), name);
+        }
+        assertEquals(CompiledTemplates.all().size(),
+                meterRegistry.counter("slack.templates.renders", "mode", "compiled").count());
+    }
+
+    @Test
+    void fallsBackToFreeMarker() throws Exception {
+        final TemplateModel model = fullModel();
+        model.putExtra("hostui", "https://groundschool.example.com");
+        assertTrue(cache.render("gs_event_start.ftl", model).getText().contains("https://groundschool.example.com"));
+        model.setFirstName(null);
+        assertThrows(TemplateException.class, () -> cache.render("user_delete.ftl", model));
+        assertEquals(2, meterRegistry.counter("slack.templates.renders", "mode", "interpreted").count());
+    }
+
+    @Test
+    void externalOverrideReplacesCompiledRenderer() throws Exception {
+        Files.writeString(directory.resolve("quiz_complete.ftl"), "Done ${firstName}");
+        awaitText("quiz_complete.ftl", fullModel(), "Done Amelia");
+    }
+
+    @Test
+    void deletedOverrideFallsBackToBundledTemplate() throws Exception {
+        final TemplateModel model = fullModel();
+        final String bundled = cache.render("quiz_complete.ftl", model).getText();
+        Files.writeString(directory.resolve("quiz_complete.ftl"), "Done ${firstName}");
+        awaitText("quiz_complete.ftl", model, "Done Amelia");
+        Files.delete(directory.resolve("quiz_complete.ftl"));
+        awaitText("quiz_complete.ftl", model, bundled);
+        final double compiled = meterRegistry.counter("slack.templates.renders", "mode", "compiled").count();
+        cache.render("quiz_complete.ftl", model);
+        assertEquals(compiled + 1, meterRegistry.counter("slack.templates.renders", "mode", "compiled").count());
+
+        Files.delete(directory.resolve(NAME));
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getVersion(NAME) != -1L && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(-1L, cache.getVersion(NAME));
+    }
+
+    private TemplateModel fullModel() {
+        final TemplateModel model = new TemplateModel();
+        model.setFirstName("Amelia");
+        model.setLastName("Earhart");
+        model.setEvent("Weather Theory\n\nTime: Mon Nov 02, 2026 06:00 PM");
+        model.setEventtitle("Weather Theory");
+        model.setDayofweek("Monday");
+        model.setQuestionText("What is \"VFR\"?");
+        model.setAnswerChoice1("A");
+        model.setAnswerText1("Visual flight rules");
+        model.setAnswerChoice2("B");
+        model.setAnswerText2("Very fast runway");
+        model.setAnswerChoice3("C");
+        model.setAnswerText3("Vertical flight range");
+        return model;
+    }
+
+    private void awaitText(final String name, final TemplateModel model, final String text) throws Exception {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!cache.render(name, model).getText().equals(text) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(text, cache.render(name, model).getText());
+    }
+
+    private void awaitVersionAfter(final long version) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getVersion(NAME) <= version && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TailSamplingSpanProcessorTest {
+
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private SdkTracerProvider tracerProvider;
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.shutdown();
+    }
+
+    @Test
+    void keepsFailedAndSlowTraces() {
+        final Tracer tracer = tracer(10);
+        final Span fast = tracer.spanBuilder("fast").startSpan();
+        tracer.spanBuilder("fast.child").setParent(Context.root().with(fast)).startSpan().end();
+        fast.end();
+
+        final Span failed = tracer.spanBuilder("failed").startSpan();
+        final Span failedChild = tracer.spanBuilder("failed.child").setParent(Context.root().with(failed)).startSpan();
+        failedChild.setStatus(StatusCode.ERROR);
+        failedChild.end();
+        failed.end();
+
+        tracer.spanBuilder("slow").setStartTimestamp(1L, TimeUnit.SECONDS).startSpan()
+                .end(3L, TimeUnit.SECONDS);
+
+        tracerProvider.forceFlush();
+        assertEquals(Set.of("failed", "failed.child", "slow"), exportedNames());
+        assertEquals(1.0, decisions("kept_error"));
+        assertEquals(1.0, decisions("kept_slow"));
+        assertEquals(1.0, decisions("dropped"));
+    }
+
+    @Test
+    void lateSpansFollowDecisionToKeep() {
+        final Tracer tracer = tracer(10);
+        final Span root = tracer.spanBuilder("root").startSpan();
+        root.setStatus(StatusCode.ERROR);
+        root.end();
+        tracerProvider.forceFlush();
+
+        tracer.spanBuilder("late").setParent(Context.root().with(root)).startSpan().end();
+        assertEquals(Set.of("root", "late"), exportedNames());
+    }
+
+    @Test
+    void dropsTracesBeyondPendingLimit() {
+        final Tracer tracer = tracer(1);
+        final Span first = tracer.spanBuilder("first").startSpan();
+        first.setStatus(StatusCode.ERROR);
+        first.end();
+        final Span second = tracer.spanBuilder("second").startSpan();
+        second.setStatus(StatusCode.ERROR);
+        second.end();
+
+        tracerProvider.forceFlush();
+        assertEquals(Set.of("first"), exportedNames());
+        assertEquals(1.0, decisions("overflow"));
+    }
+
+    private Tracer tracer(final int maxTraces) {
+        tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(new TailSamplingSpanProcessor(exporter, Duration.ofSeconds(1), 0.0,
+                        Duration.ofHours(1), maxTraces, registry))
+                .build();
+        return tracerProvider.get("test");
+    }
+
+    private Set<String> exportedNames() {
+        final List<SpanData> spans = exporter.getFinishedSpanItems();
+        return spans.stream().map(SpanData::getName).collect(Collectors.toSet());
+    }
+
+    private double decisions(final String decision) {
+        return registry.get("slack.tracing.traces").tag("decision", decision).counter().count();
+    }
+}
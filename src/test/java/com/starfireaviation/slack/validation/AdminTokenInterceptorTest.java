@@ -0,0 +1,59 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package com.starfireaviation.slack.validation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdminTokenInterceptorTest {
+
+    @Test
+    void acceptsConfiguredToken() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admin/dead-letters");
+        request.addHeader("Authorization", "Bearer s3cret");
+        assertTrue(new AdminTokenInterceptor("s3cret").preHandle(request, new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void refusesMissingOrWrongToken() throws Exception {
+        final AdminTokenInterceptor interceptor = new AdminTokenInterceptor("s3cret");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(new MockHttpServletRequest("GET", "/admin/dead-letters"), response, null));
+        assertEquals(401, response.getStatus());
+
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/admin/dead-letters/replay");
+        request.addHeader("Authorization", "Bearer guess");
+        response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request, response, null));
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void refusesEverythingWithoutConfiguredToken() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admin/dead-letters");
+        request.addHeader("Authorization", "Bearer ");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(new AdminTokenInterceptor("").preHandle(request, response, null));
+        assertEquals(403, response.getStatus());
+    }
+}
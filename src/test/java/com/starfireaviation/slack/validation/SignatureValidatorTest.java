@@ -0,0 +1,82 @@
+/*
+ *  Copyright (C) 2022 Starfire Aviation, LLC
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.starfireaviation.slack.validation;
+
+import com.starfireaviation.slack.exception.InvalidSignatureException;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SignatureValidatorTest {
+
+    private static final String SECRET = "8f742231b10e8888abcd99yyyzzz85a5";
+
+    private static final byte[] BODY = "{\"type\":\"url_verification\",\"challenge\":\"abc\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void acceptsValidSignature() throws Exception {
+        final String timestamp = now();
+        assertDoesNotThrow(() -> SignatureValidator.validate(SECRET, timestamp, BODY, sign(timestamp, BODY)));
+        // a second request on the same thread reuses the cached Mac
+        assertDoesNotThrow(() -> SignatureValidator.validate(SECRET, timestamp, BODY, sign(timestamp, BODY)));
+    }
+
+    @Test
+    void rejectsTamperedBody() throws Exception {
+        final String timestamp = now();
+        final String signature = sign(timestamp, BODY);
+        final byte[] tampered = "{\"type\":\"event_callback\"}".getBytes(StandardCharsets.UTF_8);
+        assertThrows(InvalidSignatureException.class,
+                () -> SignatureValidator.validate(SECRET, timestamp, tampered, signature));
+    }
+
+    @Test
+    void rejectsStaleRequest() throws Exception {
+        final String timestamp = String.valueOf(System.currentTimeMillis() / 1000 - 600);
+        final String signature = sign(timestamp, BODY);
+        assertThrows(InvalidSignatureException.class,
+                () -> SignatureValidator.validate(SECRET, timestamp, BODY, signature));
+    }
+
+    @Test
+    void rejectsMissingSignature() {
+        assertThrows(InvalidSignatureException.class,
+                () -> SignatureValidator.validate(SECRET, now(), BODY, null));
+    }
+
+    private static String now() {
+        return String.valueOf(System.currentTimeMillis() / 1000);
+    }
+
+    private static String sign(final String timestamp, final byte[] body) throws Exception {
+        final Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        mac.update(("v0:" + timestamp + ":").getBytes(StandardCharsets.UTF_8));
+        final StringBuilder sb = new StringBuilder("v0=");
+        for (byte b : mac.doFinal(body)) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+}